@@ -0,0 +1,247 @@
+package org.demo.baoleme.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.mapper.MerchantMapper;
+import org.demo.baoleme.mapper.ProductMapper;
+import org.demo.baoleme.mapper.StoreMapper;
+import org.demo.baoleme.pojo.Merchant;
+import org.demo.baoleme.pojo.Product;
+import org.demo.baoleme.pojo.Store;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 店铺、商品及商家电话的两级读穿缓存
+ * <p>
+ * 下单、评价、商品详情等用户请求几乎每次都要按ID查店铺和商品，这里在数据库前加一层 {@link TwoLevelCache}：
+ * 店铺名、商品名直接取自缓存的整行记录；商家电话按“店铺 → 商家ID → 电话”两段缓存，商家改电话时只需按商家ID失效。
+ * <p>
+ * 店铺、商品、商家的写操作在事务提交后调用 evictXxx：删除 Redis 中的缓存项，
+ * 并在频道 {@value #CHANNEL} 上广播 “区域:ID”，各节点（含本节点）收到后删除本地缓存项。
+ * 其他节点可能在提交前读到旧数据、在删除之后才写入 Redis，因此 double-delete-delay-ms 后再删除并广播一次。
+ * 广播丢失时本地缓存项最迟 local-ttl-seconds 后过期。
+ * <p>
+ * 缓存的商品中库存只用于展示，下单扣减库存由数据库条件更新保证不超卖，展示的库存最多滞后一个缓存有效期。
+ * 更新店铺、商品时读取的原记录不经过缓存，避免用旧数据覆盖数据库。
+ * 关闭 catalog.cache.enabled 时所有查询直接访问数据库，与原行为一致。
+ */
+@Slf4j
+@Component
+public class CatalogCache implements MessageListener {
+
+    static final String CHANNEL = "cache:catalog:invalidate";
+
+    private final StoreMapper storeMapper;
+    private final ProductMapper productMapper;
+    private final MerchantMapper merchantMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean enabled;
+    private final Duration localTtl;
+    private final long doubleDeleteDelayMillis;
+
+    private final TwoLevelCache<Store> stores;
+    private final TwoLevelCache<Product> products;
+    private final TwoLevelCache<String> merchantPhones;
+    private final Map<String, TwoLevelCache<?>> regions;
+
+    /** 延迟二次删除，未开启缓存时为 null */
+    private final ScheduledExecutorService delayedEvictor;
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    public CatalogCache(StoreMapper storeMapper,
+                        ProductMapper productMapper,
+                        MerchantMapper merchantMapper,
+                        RedisTemplate<String, Object> redisTemplate,
+                        StringRedisTemplate stringRedisTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${catalog.cache.enabled:true}") boolean enabled,
+                        @Value("${catalog.cache.local-max-size:10000}") long localMaxSize,
+                        @Value("${catalog.cache.local-ttl-seconds:60}") long localTtlSeconds,
+                        @Value("${catalog.cache.redis-ttl-seconds:600}") long redisTtlSeconds,
+                        @Value("${catalog.cache.null-ttl-seconds:30}") long nullTtlSeconds,
+                        @Value("${catalog.cache.double-delete-delay-ms:1000}") long doubleDeleteDelayMillis) {
+        this.storeMapper = storeMapper;
+        this.productMapper = productMapper;
+        this.merchantMapper = merchantMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.localTtl = Duration.ofSeconds(localTtlSeconds);
+        this.doubleDeleteDelayMillis = doubleDeleteDelayMillis;
+        this.delayedEvictor = enabled ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "catalog-cache-evictor");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        Duration redisTtl = Duration.ofSeconds(redisTtlSeconds);
+        Duration nullTtl = Duration.ofSeconds(nullTtlSeconds);
+
+        this.stores = new TwoLevelCache<>("store", storeMapper::selectById, redisTemplate,
+                meterRegistry, localMaxSize, localTtl, redisTtl, nullTtl);
+        this.products = new TwoLevelCache<>("product", productMapper::selectById, redisTemplate,
+                meterRegistry, localMaxSize, localTtl, redisTtl, nullTtl);
+        this.merchantPhones = new TwoLevelCache<>("merchant-phone", merchantId -> {
+            Merchant merchant = merchantMapper.selectById(merchantId);
+            return merchant == null ? null : merchant.getPhone();
+        }, redisTemplate, meterRegistry, localMaxSize, localTtl, redisTtl, nullTtl);
+        this.regions = Map.of(stores.name(), stores, products.name(), products, merchantPhones.name(), merchantPhones);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (!enabled) {
+            return;
+        }
+        RedisConnectionFactory connectionFactory = stringRedisTemplate.getConnectionFactory();
+        if (connectionFactory == null) {
+            return;
+        }
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        try {
+            listenerContainer.start();
+        } catch (Exception e) {
+            // 容器会在 Redis 恢复后自动重新订阅
+            log.error("缓存失效通知订阅失败：{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        if (delayedEvictor != null) {
+            delayedEvictor.shutdownNow();
+        }
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    /* ========================= 查询 ========================= */
+
+    public Store getStore(Long storeId) {
+        return enabled ? stores.get(storeId) : storeMapper.selectById(storeId);
+    }
+
+    public String getStoreName(Long storeId) {
+        if (!enabled) {
+            return storeMapper.getNameById(storeId);
+        }
+        Store store = stores.get(storeId);
+        return store == null ? null : store.getName();
+    }
+
+    public Product getProduct(Long productId) {
+        return enabled ? products.get(productId) : productMapper.selectById(productId);
+    }
+
+    public String getProductName(Long productId) {
+        if (!enabled) {
+            return productMapper.getNameById(productId);
+        }
+        Product product = products.get(productId);
+        return product == null ? null : product.getName();
+    }
+
+    public String getMerchantPhoneByStoreId(Long storeId) {
+        if (!enabled) {
+            return merchantMapper.selectPhoneByStoreId(storeId);
+        }
+        Store store = stores.get(storeId);
+        return store == null ? null : merchantPhones.get(store.getMerchantId());
+    }
+
+    /* ========================= 失效 ========================= */
+
+    public void evictStore(Long storeId) {
+        evict(stores, storeId);
+    }
+
+    public void evictProduct(Long productId) {
+        evict(products, productId);
+    }
+
+    public void evictMerchant(Long merchantId) {
+        evict(merchantPhones, merchantId);
+    }
+
+    /**
+     * 其他节点（以及本节点自身）广播的失效通知，消息体为 “区域:ID”
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int colon = body.lastIndexOf(':');
+        TwoLevelCache<?> region = colon > 0 ? regions.get(body.substring(0, colon)) : null;
+        if (region == null) {
+            log.warn("无法识别的缓存失效通知：{}", body);
+            return;
+        }
+        try {
+            region.evictLocal(Long.parseLong(body.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("无法识别的缓存失效通知：{}", body);
+        }
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    /**
+     * 在事务提交后失效，避免提交前其他请求把旧数据重新加载进缓存
+     */
+    private void evict(TwoLevelCache<?> region, Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNowAndLater(region, id);
+                }
+            });
+        } else {
+            evictNowAndLater(region, id);
+        }
+    }
+
+    private void evictNowAndLater(TwoLevelCache<?> region, Long id) {
+        publish(region, id);
+        try {
+            delayedEvictor.schedule(() -> publish(region, id), doubleDeleteDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("缓存 {}:{} 延迟删除提交失败：{}", region.name(), id, e.getMessage());
+        }
+    }
+
+    private void publish(TwoLevelCache<?> region, Long id) {
+        region.evictLocal(id);
+        try {
+            region.evictRedis(id);
+            stringRedisTemplate.convertAndSend(CHANNEL, region.name() + ":" + id);
+        } catch (Exception e) {
+            log.warn("缓存 {}:{} 失效通知发送失败，其他节点最迟 {} 秒后过期：{}",
+                    region.name(), id, localTtl.toSeconds(), e.getMessage());
+        }
+    }
+}
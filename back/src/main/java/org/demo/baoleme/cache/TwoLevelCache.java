@@ -0,0 +1,171 @@
+package org.demo.baoleme.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 按ID读穿的两级缓存：进程内 Caffeine + Redis
+ * <p>
+ * 读取顺序为本地 → Redis → loader（数据库）。本地层容量有界，由 Caffeine 的 W-TinyLFU 决定淘汰和准入，
+ * 偶尔被访问一次的ID挤不掉热点店铺和商品。本地未命中时同一ID只有一个线程去 Redis / 数据库加载，
+ * 其余线程等待同一结果（single-flight），热点过期时不会同时打到数据库。
+ * 不存在的记录以 {@link NullValue} 缓存较短时间，用不存在的ID反复请求不会穿透到数据库。
+ * Redis 不可用时退化为本地缓存 + 数据库。
+ * <p>
+ * 失效由 {@link CatalogCache} 统一发起：删除 Redis 中的 key 并广播，各节点收到后调用 {@link #evictLocal(Long)}。
+ * 加载期间被失效时，加载结果既不放入本地缓存也不写入 Redis；
+ * 其他节点在失效前读到旧数据、失效后才写入 Redis 的情况由 CatalogCache 的延迟二次删除兜底。
+ */
+@Slf4j
+class TwoLevelCache<V> {
+
+    private static final String KEY_PREFIX = "cache:";
+
+    private final String name;
+    private final Function<Long, V> loader;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Duration redisTtl;
+    private final Duration nullTtl;
+    private final Cache<Long, Object> local;
+
+    /** 正在加载的ID -> 加载结果，同一ID的并发请求共享一次加载 */
+    private final Map<Long, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    TwoLevelCache(String name, Function<Long, V> loader, RedisTemplate<String, Object> redisTemplate,
+                  MeterRegistry meterRegistry, long localMaxSize,
+                  Duration localTtl, Duration redisTtl, Duration nullTtl) {
+        this.name = name;
+        this.loader = loader;
+        this.redisTemplate = redisTemplate;
+        this.redisTtl = redisTtl;
+        this.nullTtl = nullTtl;
+        long localNanos = localTtl.toNanos();
+        long nullNanos = Math.min(localNanos, nullTtl.toNanos());
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfter(new Expiry<Long, Object>() {
+                    @Override
+                    public long expireAfterCreate(Long key, Object value, long currentTime) {
+                        return value == NullValue.INSTANCE ? nullNanos : localNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long key, Object value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, local, name);
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * 按ID读取，记录不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    V get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Object value = local.getIfPresent(id);
+        if (value == null) {
+            value = loadOnce(id);
+        }
+        return value == NullValue.INSTANCE ? null : (V) value;
+    }
+
+    /**
+     * 删除 Redis 中的缓存项
+     */
+    void evictRedis(Long id) {
+        redisTemplate.delete(key(id));
+    }
+
+    /**
+     * 删除本节点的缓存项；正在进行的加载结果不再放入本地缓存
+     */
+    void evictLocal(Long id) {
+        loading.remove(id);
+        local.invalidate(id);
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    private Object loadOnce(Long id) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = loading.putIfAbsent(id, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Object value = load(id, mine);
+            // 加载期间被失效（对应的 loading 项已被移除）时，结果只返回给本次请求，不放入本地缓存
+            if (loading.remove(id, mine)) {
+                local.put(id, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            loading.remove(id, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object load(Long id, CompletableFuture<Object> mine) {
+        String key = key(id);
+        try {
+            Object cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return cached;
+            }
+        } catch (Exception e) {
+            log.warn("读取 Redis 缓存 {} 失败，直接查询数据库：{}", key, e.getMessage());
+        }
+
+        V loaded = loader.apply(id);
+        Object value = loaded == null ? NullValue.INSTANCE : loaded;
+        if (loading.get(id) != mine) {
+            // 查询数据库期间已被失效，读到的可能是旧数据，不写入 Redis
+            return value;
+        }
+        try {
+            redisTemplate.opsForValue().set(key, value, loaded == null ? nullTtl : redisTtl);
+        } catch (Exception e) {
+            log.warn("写入 Redis 缓存 {} 失败：{}", key, e.getMessage());
+        }
+        return value;
+    }
+
+    private String key(Long id) {
+        return KEY_PREFIX + name + ":" + id;
+    }
+}
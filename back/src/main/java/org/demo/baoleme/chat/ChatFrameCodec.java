@@ -0,0 +1,221 @@
+package org.demo.baoleme.chat;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.demo.baoleme.pojo.ChatMessage;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 聊天帧编解码
+ * <p>
+ * 入站帧格式为 {@code {"body":{...}}}，基于 Jackson 流式 API 一次遍历直接写入调用方传入的 {@link ChatMessage}，
+ * 不构造中间树或子串；字段名由解析器规范化，不额外分配字符串，转义字符也能正确处理。
+ * 出站帧按 {@link ChatMessage} 的 snake_case 字段顺序写出，输出与 ObjectMapper 序列化结果一致；
+ * 写出目标是每个线程复用的 StringWriter，只通过 Jackson 的公开 API 创建生成器。
+ */
+@Component
+public class ChatFrameCodec {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    /** 复用的写出缓冲超过该字符数时丢弃，避免个别大消息让线程长期占着大缓冲 */
+    private static final int MAX_RETAINED_CHARS = 8 * 1024;
+
+    private static final ThreadLocal<StringWriter> WRITERS = ThreadLocal.withInitial(StringWriter::new);
+
+    private final JsonFactory jsonFactory;
+
+    public ChatFrameCodec(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * 解码入站帧
+     * <p>
+     * 先清空 target 的所有字段再写入，同一个 target 可以重复使用。
+     * created_at 解析为 timeStamp，sender_id/receiver_id 同时接受数字和数字字符串。
+     *
+     * @param frame  原始文本帧
+     * @param target 解码结果
+     * @return 帧是合法 JSON 且包含 body 对象时返回 true
+     */
+    public boolean decode(String frame, ChatMessage target) {
+        reset(target);
+        try (JsonParser parser = jsonFactory.createParser(frame)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            boolean found = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("body".equals(field) && value == JsonToken.START_OBJECT) {
+                    decodeBody(parser, target);
+                    found = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return found;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void decodeBody(JsonParser parser, ChatMessage target) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "content" -> target.setContent(text(parser, value));
+                case "sender_role" -> target.setSenderRole(text(parser, value));
+                case "sender_name" -> target.setSenderName(text(parser, value));
+                case "receiver_role" -> target.setReceiverRole(text(parser, value));
+                case "receiver_name" -> target.setReceiverName(text(parser, value));
+                case "sender_id" -> target.setSenderId(number(parser, value));
+                case "receiver_id" -> target.setReceiverId(number(parser, value));
+                case "created_at" -> target.setTimeStamp(timestamp(text(parser, value)));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 编码出站帧
+     */
+    public String encode(ChatMessage message) {
+        return write(generator -> {
+            generator.writeStartObject();
+            writeNumber(generator, "sender_id", message.getSenderId());
+            generator.writeStringField("sender_role", message.getSenderRole());
+            generator.writeStringField("sender_name", message.getSenderName());
+            generator.writeStringField("receiver_role", message.getReceiverRole());
+            writeNumber(generator, "receiver_id", message.getReceiverId());
+            generator.writeStringField("receiver_name", message.getReceiverName());
+            generator.writeStringField("content", message.getContent());
+            LocalDateTime timeStamp = message.getTimeStamp();
+            generator.writeStringField("time_stamp", timeStamp == null ? null : timeStamp.format(TIMESTAMP_FORMAT));
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * 编码错误帧 {@code {"error":"..."}}
+     */
+    public String error(String message) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("error", message);
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * 编码重新同步通知 {@code {"type":"resync","dropped":N}}
+     * <p>
+     * 出站积压被合并时发送，客户端收到后通过历史消息接口补齐丢弃的消息。
+     */
+    public String resync(int dropped) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("type", "resync");
+            generator.writeNumberField("dropped", dropped);
+            generator.writeEndObject();
+        });
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    /**
+     * 用本线程复用的缓冲写出一帧
+     */
+    private String write(FrameBody body) {
+        StringWriter writer = WRITERS.get();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            body.writeTo(generator);
+            generator.flush();
+            return writer.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            StringBuffer buffer = writer.getBuffer();
+            if (buffer.capacity() > MAX_RETAINED_CHARS) {
+                WRITERS.remove();
+            } else {
+                buffer.setLength(0);
+            }
+        }
+    }
+
+    private static void reset(ChatMessage target) {
+        target.setSenderId(null);
+        target.setSenderRole(null);
+        target.setSenderName(null);
+        target.setReceiverRole(null);
+        target.setReceiverId(null);
+        target.setReceiverName(null);
+        target.setContent(null);
+        target.setTimeStamp(null);
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Long number(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Long.parseLong(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static LocalDateTime timestamp(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, String field, Long value) throws IOException {
+        generator.writeFieldName(field);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FrameBody {
+        void writeTo(JsonGenerator generator) throws IOException;
+    }
+}
@@ -0,0 +1,76 @@
+package org.demo.baoleme.chat;
+
+import org.demo.baoleme.common.JwtUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * WebSocket 握手鉴权
+ * <p>
+ * 握手时校验一次 JWT，并把身份写入会话属性，之后连接上的每条消息都不再解析 Token。
+ * Token 优先取 Authorization 请求头，浏览器无法设置请求头时取查询参数 {@code ?Authorization=Bearer%20xxx}。
+ */
+@Component
+public class ChatHandshakeInterceptor implements HandshakeInterceptor {
+
+    /** 会话属性：用户 ID */
+    public static final String ATTR_USER_ID = "chat.userId";
+
+    /** 会话属性：用户角色 */
+    public static final String ATTR_ROLE = "chat.role";
+
+    /** 会话属性：用户唯一标识 "角色:ID" */
+    public static final String ATTR_KEY = "chat.key";
+
+    private static final String AUTHORIZATION = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Override
+    public boolean beforeHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+                                   @NonNull WebSocketHandler wsHandler, @NonNull Map<String, Object> attributes) {
+        Map<String, Object> payload = JwtUtils.parsePayload(getToken(request));
+        Number userId = payload == null ? null : (Number) payload.get("user_id");
+        String role = payload == null ? null : (String) payload.get("role");
+        if (userId == null || role == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(ATTR_USER_ID, userId.longValue());
+        attributes.put(ATTR_ROLE, role);
+        attributes.put(ATTR_KEY, role + ":" + userId.longValue());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+                               @NonNull WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    /**
+     * 从请求头或查询参数提取 JWT Token
+     *
+     * @return 去除"Bearer "前缀后的Token字符串，不存在时返回 null
+     */
+    private String getToken(ServerHttpRequest request) {
+        String value = request.getHeaders().getFirst(AUTHORIZATION);
+        if (value == null) {
+            String encoded = UriComponentsBuilder.fromUri(request.getURI()).build(true)
+                    .getQueryParams().getFirst(AUTHORIZATION);
+            value = encoded == null ? null : URLDecoder.decode(encoded, StandardCharsets.UTF_8);
+        }
+        if (value == null || !value.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        return value.substring(BEARER_PREFIX.length()).trim();
+    }
+}
@@ -0,0 +1,254 @@
+package org.demo.baoleme.chat;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.mapper.MessageMapper;
+import org.demo.baoleme.pojo.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最近聊天记录缓存
+ * <p>
+ * 为最近访问过的会话在内存中保留最新 recent-size 条消息，打开聊天窗口（首页或游标落在缓存范围内）时不访问数据库。
+ * 会话数超过 max-conversations 时淘汰最久未访问的会话。
+ * <p>
+ * 消息由 {@link ChatMessageWriter} 落库、拿到自增ID后追加到缓存，因此缓存中的消息与数据库一致、可直接作为游标。
+ * 多实例部署时每批落库后在频道 {@value #CHANNEL} 上广播涉及的会话键，其他节点收到后淘汰对应会话，下次访问时重新加载。
+ * 会话加载超过 ttl-seconds 后也会重新加载，Redis 重连期间漏掉的淘汰通知最多造成这段时间的旧数据。
+ */
+@Slf4j
+@Component
+public class ChatHistoryCache implements MessageListener {
+
+    static final String CHANNEL = "chat:history";
+
+    private final MessageMapper messageMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean clusterEnabled;
+    private final int recentSize;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+
+    /** 本节点标识，忽略自己广播的淘汰通知 */
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + ":"
+            + Integer.toHexString(ThreadLocalRandom.current().nextInt());
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    public ChatHistoryCache(MessageMapper messageMapper,
+                            StringRedisTemplate stringRedisTemplate,
+                            @Value("${chat.cluster.enabled:true}") boolean clusterEnabled,
+                            @Value("${chat.history.recent-size:50}") int recentSize,
+                            @Value("${chat.history.max-conversations:10000}") int maxConversations,
+                            @Value("${chat.history.ttl-seconds:60}") long ttlSeconds) {
+        this.messageMapper = messageMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.clusterEnabled = clusterEnabled;
+        this.recentSize = recentSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxConversations;
+            }
+        });
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        RedisConnectionFactory connectionFactory = stringRedisTemplate == null ? null : stringRedisTemplate.getConnectionFactory();
+        if (!clusterEnabled || connectionFactory == null) {
+            return;
+        }
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        try {
+            listenerContainer.start();
+        } catch (Exception e) {
+            // 容器会在 Redis 恢复后自动重新订阅
+            log.error("聊天记录缓存订阅失败：{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    /**
+     * 查询会话中ID小于 beforeId 的最新 limit 条消息（按ID倒序）
+     * <p>
+     * 结果完全落在缓存范围内时直接返回缓存，否则查询数据库；未缓存的会话先加载最新一段再判断。
+     *
+     * @param conversationKey 会话键
+     * @param beforeId 游标，为空时从最新一条开始
+     * @param limit 条数
+     */
+    public List<Message> history(String conversationKey, Long beforeId, int limit) {
+        Entry entry = entries.computeIfAbsent(conversationKey, k -> new Entry());
+        List<Message> cached = entry.slice(beforeId, limit);
+        if (cached != null) {
+            return cached;
+        }
+        if (!entry.isLoaded()) {
+            int generation = entry.generation();
+            List<Message> newest = messageMapper.selectChatHistory(conversationKey, null, 0, recentSize);
+            entry.fill(generation, newest, newest.size() < recentSize);
+            cached = entry.slice(beforeId, limit);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return messageMapper.selectChatHistory(conversationKey, beforeId, 0, limit);
+    }
+
+    /**
+     * 消息已落库（带自增ID），追加到本节点缓存并通知其他节点淘汰
+     */
+    public void appended(Collection<Message> messages) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Message message : messages) {
+            if (message.getConversationKey() == null) {
+                continue;
+            }
+            keys.add(message.getConversationKey());
+            Entry entry = entries.get(message.getConversationKey());
+            if (entry != null && !entry.append(message)) {
+                entries.remove(message.getConversationKey(), entry);
+            }
+        }
+        if (!clusterEnabled || keys.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, nodeId + "\n" + String.join("\n", keys));
+        } catch (Exception e) {
+            log.warn("聊天记录缓存淘汰通知发送失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 其他节点的淘汰通知：第一行为来源节点，其余每行一个会话键
+     */
+    @Override
+    public void onMessage(org.springframework.data.redis.connection.Message message, byte[] pattern) {
+        String[] lines = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+        if (lines.length == 0 || nodeId.equals(lines[0])) {
+            return;
+        }
+        for (int i = 1; i < lines.length; i++) {
+            entries.remove(lines[i]);
+        }
+    }
+
+    /**
+     * 单个会话的缓存，按ID升序保存最新的若干条消息
+     */
+    private final class Entry {
+
+        private final ArrayDeque<Message> recent = new ArrayDeque<>();
+
+        private boolean loaded;
+
+        /** 加载时间（纳秒） */
+        private long loadedAt;
+
+        /** 缓存的是否已是会话的全部消息 */
+        private boolean complete;
+
+        /** 加载期间有新消息落库时递增，使加载结果作废，避免缓存漏掉这条消息 */
+        private int generation;
+
+        synchronized boolean isLoaded() {
+            return loaded;
+        }
+
+        synchronized int generation() {
+            return generation;
+        }
+
+        /**
+         * @param newestFirst 按ID倒序的最新消息
+         */
+        synchronized void fill(int expectedGeneration, List<Message> newestFirst, boolean all) {
+            if (loaded || generation != expectedGeneration) {
+                return;
+            }
+            for (Message message : newestFirst) {
+                recent.addFirst(message);
+            }
+            complete = all;
+            loaded = true;
+            loadedAt = System.nanoTime();
+        }
+
+        /**
+         * 从缓存中取结果，缓存无法覆盖时返回 null
+         */
+        synchronized List<Message> slice(Long beforeId, int limit) {
+            if (loaded && System.nanoTime() - loadedAt > ttlNanos) {
+                // 超过有效期，丢弃后由调用方重新加载
+                recent.clear();
+                loaded = false;
+                complete = false;
+            }
+            if (!loaded) {
+                return null;
+            }
+            List<Message> result = new ArrayList<>(Math.min(limit, recent.size()));
+            Iterator<Message> it = recent.descendingIterator();
+            while (it.hasNext() && result.size() < limit) {
+                Message message = it.next();
+                if (beforeId == null || message.getId() < beforeId) {
+                    result.add(message);
+                }
+            }
+            return result.size() == limit || complete ? result : null;
+        }
+
+        /**
+         * @return ID 早于缓存中最新一条（乱序落库）时返回 false，由调用方淘汰整个会话
+         */
+        synchronized boolean append(Message message) {
+            if (!loaded) {
+                generation++;
+                return true;
+            }
+            if (message.getId() == null || (!recent.isEmpty() && message.getId() <= recent.peekLast().getId())) {
+                return false;
+            }
+            recent.addLast(message);
+            if (recent.size() > recentSize) {
+                recent.pollFirst();
+                complete = false;
+            }
+            return true;
+        }
+    }
+}
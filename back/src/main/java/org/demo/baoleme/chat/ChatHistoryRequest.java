@@ -11,9 +11,12 @@ public class ChatHistoryRequest {
     @NotNull
     private String receiver_role;
 
-    @NotNull
+    /** 页码；传 before_id 时忽略 */
     private Integer page;
 
     @NotNull
     private Integer page_size;
-}
\ No newline at end of file
+
+    /** 游标分页：只返回ID小于该值的消息，取上一页返回的 next_before_id */
+    private Long before_id;
+}
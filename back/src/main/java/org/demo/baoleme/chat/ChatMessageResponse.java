@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 
 @Data
 public class ChatMessageResponse {
+    private Long id;
     private Long senderId;
     private String senderRole;
     private String senderName;
@@ -0,0 +1,448 @@
+package org.demo.baoleme.chat;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.pojo.ChatMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天消息路由
+ * <p>
+ * 维护本节点的在线会话，并在 Redis 中登记在线状态 chat:presence:{角色:ID} -> 节点号。
+ * 接收方在本节点时直接发送；在其他节点时发布到该节点的频道 chat:node:{节点号}，由对方节点转交给会话；
+ * 都不在线（或目标节点已下线、无人订阅）时写入离线消息队列 offline:msg:{角色:ID}。
+ * 离线队列有条数上限和过期时间，超出上限时丢弃最早的消息。
+ * <p>
+ * 在线状态带过期时间，由定时任务批量续期，节点异常退出后登记会自动失效。
+ * 关闭 chat.cluster.enabled 时退化为单节点模式，不访问在线状态也不订阅频道。
+ */
+@Slf4j
+@Component
+public class ChatMessageRouter implements MessageListener {
+
+    static final String PRESENCE_PREFIX = "chat:presence:";
+    static final String NODE_CHANNEL_PREFIX = "chat:node:";
+    static final String OFFLINE_PREFIX = "offline:msg:";
+
+    /** 在线状态有效期（秒），续期周期为其三分之一 */
+    private static final long PRESENCE_SECONDS = 90;
+
+    /**
+     * 仅当在线状态仍指向本节点时删除，避免用户已重连到其他节点时误删
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 批量续期：仍指向本节点的在线状态刷新过期时间，已过期的重新登记，已被其他节点登记的不动
+     * <p>
+     * 用户重连到其他节点后，本节点的旧会话可能还未清理，无条件覆盖会把在线状态抢回本节点，
+     * 之后发给该用户的消息都会投到失效的连接上。
+     */
+    private static final DefaultRedisScript<Long> REFRESH_SCRIPT = new DefaultRedisScript<>("""
+            local refreshed = 0
+            for i, key in ipairs(KEYS) do
+                local node = redis.call('GET', key)
+                if node == ARGV[1] then
+                    redis.call('EXPIRE', key, ARGV[2])
+                    refreshed = refreshed + 1
+                elseif not node then
+                    redis.call('SET', key, ARGV[1], 'EX', ARGV[2])
+                    refreshed = refreshed + 1
+                end
+            end
+            return refreshed
+            """, Long.class);
+
+    /** 每次续期脚本处理的在线状态数，避免单次脚本执行过久阻塞 Redis */
+    private static final int PRESENCE_REFRESH_CHUNK = 500;
+
+    /**
+     * 原子取出离线队列头部的一段：LRANGE + LTRIM
+     */
+    private static final DefaultRedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>("""
+            local items = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+            if #items > 0 then
+                redis.call('LTRIM', KEYS[1], #items, -1)
+            end
+            return items
+            """, List.class);
+
+    /** 每次从离线队列取出的条数 */
+    private static final int OFFLINE_DRAIN_CHUNK = 100;
+
+    /**
+     * 在线会话映射表
+     * <p>
+     * Key: 用户唯一标识 (格式: "角色:ID", 如 "user:123")
+     * Value: 对应的 WebSocketSession
+     */
+    private final Map<String, OutboundSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 反向索引：会话 ID -> 出站会话（含用户唯一标识），断开连接时 O(1) 定位
+     */
+    private final Map<String, OutboundSession> sessionsById = new ConcurrentHashMap<>();
+
+    private final ChatFrameCodec chatFrameCodec;
+    private final ChatOutbound chatOutbound;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean clusterEnabled;
+    private final Duration offlineTtl;
+    private final int offlineMaxSize;
+    private final int reapBatchSize;
+
+    /** 本节点标识：主机名@进程号:随机后缀（进程重启后变化，旧频道上的消息不会被误收） */
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + ":"
+            + Integer.toHexString(ThreadLocalRandom.current().nextInt());
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    public ChatMessageRouter(ChatFrameCodec chatFrameCodec,
+                             ChatOutbound chatOutbound,
+                             RedisTemplate<String, Object> redisTemplate,
+                             StringRedisTemplate stringRedisTemplate,
+                             @Value("${chat.cluster.enabled:true}") boolean clusterEnabled,
+                             @Value("${chat.offline.ttl-days:7}") long offlineTtlDays,
+                             @Value("${chat.offline.max-size:1000}") int offlineMaxSize,
+                             @Value("${chat.heartbeat.reap-batch-size:500}") int reapBatchSize) {
+        this.chatFrameCodec = chatFrameCodec;
+        this.chatOutbound = chatOutbound;
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.clusterEnabled = clusterEnabled;
+        this.offlineTtl = Duration.ofDays(offlineTtlDays);
+        this.offlineMaxSize = offlineMaxSize;
+        this.reapBatchSize = reapBatchSize;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        RedisConnectionFactory connectionFactory = redisTemplate.getConnectionFactory();
+        if (!clusterEnabled || connectionFactory == null) {
+            return;
+        }
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this, new ChannelTopic(NODE_CHANNEL_PREFIX + nodeId));
+        listenerContainer.afterPropertiesSet();
+        try {
+            listenerContainer.start();
+            log.info("聊天节点已订阅：{}", nodeId);
+        } catch (Exception e) {
+            // 容器会在 Redis 恢复后自动重新订阅
+            log.error("聊天节点订阅失败：{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+        for (String key : sessions.keySet()) {
+            releasePresence(key);
+        }
+    }
+
+    /**
+     * 登记在线会话
+     */
+    public void register(String key, WebSocketSession session) {
+        OutboundSession outbound = chatOutbound.wrap(key, session);
+        sessionsById.put(session.getId(), outbound);
+        sessions.put(key, outbound);
+        if (!clusterEnabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(PRESENCE_PREFIX + key, nodeId, PRESENCE_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("在线状态登记失败 {}：{}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 注销会话（连接关闭时调用）
+     * <p>
+     * 同一用户已建立新连接时映射表中是新会话，此时只清理反向索引，不影响新会话和在线状态。
+     */
+    public void unregister(WebSocketSession session) {
+        OutboundSession outbound = sessionsById.remove(session.getId());
+        if (outbound == null) {
+            return;
+        }
+        outbound.close(CloseStatus.NORMAL);
+        if (sessions.remove(outbound.getKey(), outbound)) {
+            releasePresence(outbound.getKey());
+        }
+    }
+
+    /**
+     * 回复发送方自己的会话（错误提示等），与其他线程的投递共用同一出站缓冲
+     */
+    public void reply(WebSocketSession session, String frame) throws IOException {
+        OutboundSession outbound = sessionsById.get(session.getId());
+        if (outbound != null) {
+            outbound.send(frame);
+        } else {
+            session.sendMessage(new TextMessage(frame));
+        }
+    }
+
+    /**
+     * 投递消息：本节点 -> 其他节点 -> 离线队列
+     */
+    public void deliver(ChatMessage chatMsg, String frame) {
+        String receiverKey = chatMsg.getReceiverRole() + ":" + chatMsg.getReceiverId();
+        if (sendLocal(receiverKey, frame)) {
+            return;
+        }
+        if (clusterEnabled && relay(receiverKey, chatMsg)) {
+            return;
+        }
+        storeOffline(receiverKey, chatMsg);
+    }
+
+    /**
+     * 推送离线消息
+     * <p>
+     * 每次用一次 Lua 调用原子取出最多 {@value #OFFLINE_DRAIN_CHUNK} 条并从队列删除，批量编码后放入出站缓冲，
+     * 等这一段发完再取下一段，避免一次性把大量离线消息压进缓冲触发溢出策略。
+     * 会话在发送过程中断开时，把未放入缓冲的部分放回队列头部，下次连接时重新推送。
+     *
+     * @return 推送的条数
+     */
+    public int drainOffline(String key, WebSocketSession session) throws InterruptedException {
+        OutboundSession outbound = sessionsById.get(session.getId());
+        if (outbound == null) {
+            return 0;
+        }
+        String redisKey = OFFLINE_PREFIX + key;
+        int total = 0;
+        while (outbound.isOpen()) {
+            List<ChatMessage> chunk = popOffline(redisKey);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            int sent = 0;
+            for (ChatMessage chatMsg : chunk) {
+                if (!outbound.send(chatFrameCodec.encode(chatMsg))) {
+                    break;
+                }
+                sent++;
+            }
+            if (sent < chunk.size()) {
+                requeueOffline(redisKey, chunk.subList(sent, chunk.size()));
+                break;
+            }
+            total += sent;
+            if (chunk.size() < OFFLINE_DRAIN_CHUNK || !outbound.awaitDrained(chatOutbound.sendTimeLimitMillis())) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 接收其他节点转发的消息
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(body instanceof ChatMessage chatMsg)) {
+            log.warn("无法识别的聊天转发消息");
+            return;
+        }
+        String receiverKey = chatMsg.getReceiverRole() + ":" + chatMsg.getReceiverId();
+        // 转发期间接收方可能已断开，此时不再二次转发，直接写入离线队列
+        if (!sendLocal(receiverKey, chatFrameCodec.encode(chatMsg))) {
+            storeOffline(receiverKey, chatMsg);
+        }
+    }
+
+    /**
+     * 心跳检查：向空闲会话发送 ping，批量清理写出超时或空闲超时的会话
+     * <p>
+     * 被清理的会话立即从映射表移除，之后发给该用户的消息直接进入离线队列，不会再写进失效的连接。
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void heartbeat() {
+        long now = System.nanoTime();
+        int live = 0;
+        int stale = 0;
+        List<OutboundSession> dead = new ArrayList<>();
+        for (OutboundSession outbound : sessionsById.values()) {
+            switch (chatOutbound.inspect(outbound, now)) {
+                case LIVE -> live++;
+                case STALE -> stale++;
+                case DEAD -> {
+                    if (dead.size() < reapBatchSize) {
+                        dead.add(outbound);
+                    }
+                }
+            }
+        }
+        chatOutbound.metrics().sessions(live, stale);
+        for (OutboundSession outbound : dead) {
+            chatOutbound.reap(outbound);
+            unregister(outbound.getDelegate());
+        }
+        if (!dead.isEmpty()) {
+            log.info("清理失效会话 {} 个", dead.size());
+        }
+    }
+
+    /**
+     * 收到客户端数据（消息或 pong），刷新会话活跃时间
+     */
+    public void touch(WebSocketSession session) {
+        OutboundSession outbound = sessionsById.get(session.getId());
+        if (outbound != null) {
+            outbound.touch();
+        }
+    }
+
+    /**
+     * 批量续期本节点会话的在线状态，每 {@value #PRESENCE_REFRESH_CHUNK} 个一次脚本调用
+     */
+    @Scheduled(fixedDelay = PRESENCE_SECONDS * 1000 / 3)
+    public void refreshPresence() {
+        if (!clusterEnabled || sessions.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(sessions.size());
+        for (String key : sessions.keySet()) {
+            keys.add(PRESENCE_PREFIX + key);
+        }
+        try {
+            for (int from = 0; from < keys.size(); from += PRESENCE_REFRESH_CHUNK) {
+                List<String> chunk = keys.subList(from, Math.min(from + PRESENCE_REFRESH_CHUNK, keys.size()));
+                stringRedisTemplate.execute(REFRESH_SCRIPT, chunk, nodeId, String.valueOf(PRESENCE_SECONDS));
+            }
+        } catch (Exception e) {
+            log.warn("在线状态续期失败：{}", e.getMessage());
+        }
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    private boolean sendLocal(String receiverKey, String frame) {
+        OutboundSession outbound = sessions.get(receiverKey);
+        return outbound != null && outbound.send(frame);
+    }
+
+    /**
+     * 发布到接收方所在节点的频道
+     *
+     * @return 有节点订阅并收到消息时返回 true
+     */
+    private boolean relay(String receiverKey, ChatMessage chatMsg) {
+        try {
+            String node = stringRedisTemplate.opsForValue().get(PRESENCE_PREFIX + receiverKey);
+            if (node == null || node.equals(nodeId)) {
+                return false;
+            }
+            Long receivers = redisTemplate.convertAndSend(NODE_CHANNEL_PREFIX + node, chatMsg);
+            return receivers != null && receivers > 0;
+        } catch (Exception e) {
+            log.warn("聊天消息跨节点转发失败 {}：{}", receiverKey, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 写入离线队列：追加、截断到上限（丢弃最早的消息）并刷新过期时间，三条命令一次往返
+     */
+    private void storeOffline(String receiverKey, ChatMessage chatMsg) {
+        String redisKey = OFFLINE_PREFIX + receiverKey;
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForList().rightPush(redisKey, chatMsg);
+                operations.opsForList().trim(redisKey, -offlineMaxSize, -1);
+                operations.expire(redisKey, offlineTtl);
+                return null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ChatMessage> popOffline(String redisKey) {
+        List<Object> items = redisTemplate.execute(DRAIN_SCRIPT, StringRedisSerializer.UTF_8,
+                (RedisSerializer<List>) (RedisSerializer<?>) redisTemplate.getValueSerializer(),
+                Collections.singletonList(redisKey), String.valueOf(OFFLINE_DRAIN_CHUNK));
+        if (items == null || items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ChatMessage> messages = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (item instanceof ChatMessage chatMsg) {
+                messages.add(chatMsg);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * 按原顺序放回队列头部
+     */
+    private void requeueOffline(String redisKey, List<ChatMessage> unsent) {
+        if (unsent.isEmpty()) {
+            return;
+        }
+        List<Object> reversed = new ArrayList<>(unsent);
+        Collections.reverse(reversed);
+        try {
+            redisTemplate.opsForList().leftPushAll(redisKey, reversed);
+        } catch (Exception e) {
+            log.error("离线消息放回队列失败，丢失 {} 条：{}", unsent.size(), e.getMessage());
+        }
+    }
+
+    private void releasePresence(String key) {
+        if (!clusterEnabled) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(PRESENCE_PREFIX + key), nodeId);
+        } catch (Exception e) {
+            log.warn("在线状态注销失败 {}：{}", key, e.getMessage());
+        }
+    }
+}
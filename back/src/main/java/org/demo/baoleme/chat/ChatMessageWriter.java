@@ -0,0 +1,164 @@
+package org.demo.baoleme.chat;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.mapper.MessageMapper;
+import org.demo.baoleme.pojo.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天消息异步落库（write-behind）
+ * <p>
+ * WebSocket 线程转发消息后只把消息放入有界队列，由单独的写入线程攒批后用一条多行 INSERT 写入 message 表：
+ * 攒满 batch-size 条或距本批第一条消息超过 flush-interval-ms 即写入，投递路径上没有数据库往返。
+ * <p>
+ * 队列满时调用方最多等待 {@value #OFFER_TIMEOUT_MILLIS} ms，仍然放不进去则在调用线程同步写入，
+ * 把数据库的压力反馈给发送方而不是丢消息。停机时先停止写入线程，再把队列中剩余的消息全部写完。
+ * 关闭 chat.persist.write-behind 时每条消息同步写入，与原行为一致。
+ * <p>
+ * 写入成功的消息（已回填自增ID）随后追加到 {@link ChatHistoryCache}。
+ */
+@Slf4j
+@Component
+public class ChatMessageWriter {
+
+    /** 队列满时调用方的最长等待时间（毫秒） */
+    private static final long OFFER_TIMEOUT_MILLIS = 50;
+
+    /** 停机时等待写入线程退出的最长时间（毫秒） */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private final MessageMapper messageMapper;
+    private final ChatHistoryCache chatHistoryCache;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<Message> queue;
+
+    private volatile boolean running;
+
+    private Thread flusher;
+
+    public ChatMessageWriter(MessageMapper messageMapper,
+                             ChatHistoryCache chatHistoryCache,
+                             @Value("${chat.persist.write-behind:true}") boolean writeBehind,
+                             @Value("${chat.persist.batch-size:500}") int batchSize,
+                             @Value("${chat.persist.flush-interval-ms:200}") long flushIntervalMillis,
+                             @Value("${chat.persist.queue-capacity:50000}") int queueCapacity) {
+        this.messageMapper = messageMapper;
+        this.chatHistoryCache = chatHistoryCache;
+        this.writeBehind = writeBehind;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!writeBehind) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::run, "chat-message-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+        // 写入线程退出后，补写停机过程中仍在队列里的消息
+        List<Message> rest = new ArrayList<>();
+        while (queue.drainTo(rest, batchSize) > 0) {
+            flush(rest);
+            rest.clear();
+        }
+    }
+
+    /**
+     * 追加一条待落库的消息
+     */
+    public void append(Message message) {
+        if (running) {
+            try {
+                if (queue.offer(message, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                log.warn("聊天消息写入队列已满，改为同步写入");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        insert(message);
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    private void run() {
+        List<Message> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Message first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize && running) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    Message next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Message> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            messageMapper.insertBatch(batch);
+        } catch (Exception e) {
+            // 整批失败时逐条重试，只丢弃确实写不进去的消息
+            log.error("聊天消息批量写入失败（{} 条），逐条重试：{}", batch.size(), e.getMessage());
+            batch.forEach(this::insert);
+            return;
+        }
+        chatHistoryCache.appended(batch);
+    }
+
+    private void insert(Message message) {
+        try {
+            messageMapper.insert(message);
+        } catch (Exception e) {
+            log.error("聊天消息写入失败：{}:{} -> {}:{}", message.getSenderRole(), message.getSenderId(),
+                    message.getReceiverRole(), message.getReceiverId(), e);
+            return;
+        }
+        chatHistoryCache.appended(List.of(message));
+    }
+}
@@ -0,0 +1,221 @@
+package org.demo.baoleme.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 聊天出站发送
+ * <p>
+ * 为每个会话创建 {@link OutboundSession}，并提供共享的发送线程池、缓冲上限、溢出策略、心跳判定和监控指标：
+ * <ul>
+ *     <li>chat.outbound.queued.frames / chat.outbound.queued.chars：所有会话缓冲中的帧数与字符数</li>
+ *     <li>chat.outbound.dropped{policy}：按溢出策略丢弃的帧数</li>
+ *     <li>chat.outbound.disconnects{reason}：因缓冲溢出（overflow）、写出超时（send_timeout）
+ *     或心跳超时（idle）断开的连接数</li>
+ *     <li>chat.sessions{state}：本节点会话数，live 为近期有数据往来，stale 为已发出 ping 仍在等待回应</li>
+ * </ul>
+ * 心跳：会话超过 heartbeat.interval-ms 没有收到任何数据时发送 ping（浏览器会自动回 pong），
+ * 超过 heartbeat.idle-timeout-ms 仍无数据即视为半开连接，由路由批量清理。
+ */
+@Slf4j
+@Component
+public class ChatOutbound {
+
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitMillis;
+    private final long sendTimeLimitNanos;
+    private final OutboundSession.OverflowPolicy overflowPolicy;
+    private final long heartbeatIntervalNanos;
+    private final long idleTimeoutNanos;
+    private final ChatFrameCodec chatFrameCodec;
+    private final Metrics metrics;
+    private final ExecutorService senders;
+
+    /** 关闭连接专用线程，发送线程池被慢客户端占满时断开操作仍能执行 */
+    private final ExecutorService closer;
+
+    public ChatOutbound(ChatFrameCodec chatFrameCodec,
+                        MeterRegistry meterRegistry,
+                        @Value("${chat.outbound.buffer-size-limit:524288}") int bufferSizeLimit,
+                        @Value("${chat.outbound.send-time-limit-ms:5000}") long sendTimeLimitMillis,
+                        @Value("${chat.outbound.overflow-policy:DROP_OLDEST}") String overflowPolicy,
+                        @Value("${chat.outbound.threads:16}") int threads,
+                        @Value("${chat.heartbeat.interval-ms:25000}") long heartbeatIntervalMillis,
+                        @Value("${chat.heartbeat.idle-timeout-ms:60000}") long idleTimeoutMillis) {
+        this.chatFrameCodec = chatFrameCodec;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+        this.overflowPolicy = OutboundSession.OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase().replace('-', '_'));
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.metrics = new Metrics(meterRegistry);
+        AtomicInteger seq = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "chat-outbound-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.closer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "chat-outbound-closer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+        closer.shutdown();
+    }
+
+    /**
+     * 为会话创建出站缓冲
+     */
+    OutboundSession wrap(String key, WebSocketSession session) {
+        return new OutboundSession(key, session, this);
+    }
+
+    /**
+     * 心跳检查：写出超时或空闲超时的会话返回 DEAD，需要 ping 的会话顺带发送 ping
+     * <p>
+     * 写出超时的会话在此直接断开，释放被慢客户端占住的发送线程或异步写出；空闲超时的会话由调用方批量清理。
+     */
+    SessionState inspect(OutboundSession session, long nowNanos) {
+        if (session.isSendStuck(nowNanos, sendTimeLimitNanos)) {
+            log.warn("消息写出超时，断开连接：{}", session.getKey());
+            metrics.disconnected("send_timeout");
+            session.closeAsync(CloseStatus.SESSION_NOT_RELIABLE.withReason("消息写出超时"));
+            return SessionState.DEAD;
+        }
+        long idle = nowNanos - session.getLastActivityNanos();
+        if (idle > idleTimeoutNanos || !session.isOpen()) {
+            return SessionState.DEAD;
+        }
+        if (idle < heartbeatIntervalNanos) {
+            return SessionState.LIVE;
+        }
+        long lastPing = session.getLastPingNanos();
+        if (lastPing == 0 || nowNanos - lastPing >= heartbeatIntervalNanos) {
+            session.ping(nowNanos);
+        }
+        return SessionState.STALE;
+    }
+
+    /**
+     * 清理空闲超时的会话（异步关闭底层连接）
+     */
+    void reap(OutboundSession session) {
+        if (session.isOpen()) {
+            metrics.disconnected("idle");
+            session.closeAsync(CloseStatus.SESSION_NOT_RELIABLE.withReason("心跳超时"));
+        }
+    }
+
+    long sendTimeLimitMillis() {
+        return sendTimeLimitMillis;
+    }
+
+    int bufferSizeLimit() {
+        return bufferSizeLimit;
+    }
+
+    OutboundSession.OverflowPolicy overflowPolicy() {
+        return overflowPolicy;
+    }
+
+    String resyncFrame(int dropped) {
+        return chatFrameCodec.resync(dropped);
+    }
+
+    Metrics metrics() {
+        return metrics;
+    }
+
+    void execute(Runnable task) {
+        senders.execute(task);
+    }
+
+    void executeClose(Runnable task) {
+        closer.execute(task);
+    }
+
+    /**
+     * 心跳检查结果
+     */
+    enum SessionState {
+        LIVE, STALE, DEAD
+    }
+
+    /**
+     * 出站指标
+     */
+    static final class Metrics {
+
+        private final AtomicLong queuedFrames = new AtomicLong();
+        private final AtomicLong queuedChars = new AtomicLong();
+        private final Map<OutboundSession.OverflowPolicy, Counter> dropped =
+                new EnumMap<>(OutboundSession.OverflowPolicy.class);
+        private final Map<String, Counter> disconnects;
+        private final AtomicInteger liveSessions = new AtomicInteger();
+        private final AtomicInteger staleSessions = new AtomicInteger();
+
+        Metrics(MeterRegistry registry) {
+            Gauge.builder("chat.outbound.queued.frames", queuedFrames, AtomicLong::get)
+                    .description("出站缓冲中的帧数").register(registry);
+            Gauge.builder("chat.outbound.queued.chars", queuedChars, AtomicLong::get)
+                    .description("出站缓冲中的字符数").register(registry);
+            for (OutboundSession.OverflowPolicy policy : OutboundSession.OverflowPolicy.values()) {
+                dropped.put(policy, Counter.builder("chat.outbound.dropped")
+                        .tag("policy", policy.name().toLowerCase())
+                        .description("因缓冲溢出丢弃的帧数").register(registry));
+            }
+            disconnects = Map.of(
+                    "overflow", Counter.builder("chat.outbound.disconnects").tag("reason", "overflow").register(registry),
+                    "send_timeout", Counter.builder("chat.outbound.disconnects").tag("reason", "send_timeout").register(registry),
+                    "idle", Counter.builder("chat.outbound.disconnects").tag("reason", "idle").register(registry));
+            Gauge.builder("chat.sessions", liveSessions, AtomicInteger::get).tag("state", "live")
+                    .description("本节点会话数").register(registry);
+            Gauge.builder("chat.sessions", staleSessions, AtomicInteger::get).tag("state", "stale")
+                    .description("本节点会话数").register(registry);
+        }
+
+        void enqueued(int chars) {
+            queuedFrames.incrementAndGet();
+            queuedChars.addAndGet(chars);
+        }
+
+        void dequeued(int frames, int chars) {
+            queuedFrames.addAndGet(-frames);
+            queuedChars.addAndGet(-chars);
+        }
+
+        void dropped(OutboundSession.OverflowPolicy policy, int frames) {
+            dropped.get(policy).increment(frames);
+        }
+
+        void disconnected(String reason) {
+            disconnects.get(reason).increment();
+        }
+
+        void sessions(int live, int stale) {
+            liveSessions.set(live);
+            staleSessions.set(stale);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.demo.baoleme.chat;
+
+import org.demo.baoleme.pojo.Message;
+
+/**
+ * 会话键
+ * <p>
+ * 把聊天双方 (角色, ID) 按角色、ID 排序后拼成 "角色:ID|角色:ID"，同一对用户无论谁发送都得到相同的键，
+ * 存入 message.conversation_key 后，聊天记录只需一个 (conversation_key, id) 索引的范围扫描。
+ * 排序规则与 test.sql 中补齐存量数据的 SQL 一致：先比较角色字符串，再比较 ID。
+ */
+public final class ConversationKey {
+
+    private ConversationKey() {
+    }
+
+    public static String of(String roleA, Long idA, String roleB, Long idB) {
+        int cmp = roleA.compareTo(roleB);
+        if (cmp > 0 || (cmp == 0 && idA > idB)) {
+            return roleB + ":" + idB + "|" + roleA + ":" + idA;
+        }
+        return roleA + ":" + idA + "|" + roleB + ":" + idB;
+    }
+
+    public static String of(Message message) {
+        return of(message.getSenderRole(), message.getSenderId(), message.getReceiverRole(), message.getReceiverId());
+    }
+}
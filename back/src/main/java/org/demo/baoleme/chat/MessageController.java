@@ -9,6 +9,7 @@ import org.demo.baoleme.service.MessageService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -35,15 +36,23 @@ public class MessageController {
         Long senderId = UserHolder.getId();
         String senderRole = UserHolder.getRole();
 
-        // Step 2: 调用服务层获取历史消息
-        List<Message> history = messageService.getChatHistory(
-                senderId,
-                senderRole,
-                request.getReceiver_id(),
-                request.getReceiver_role(),
-                request.getPage(),
-                request.getPage_size()
-        );
+        // Step 2: 调用服务层获取历史消息（传 before_id 时按游标分页）
+        List<Message> history = request.getBefore_id() != null
+                ? messageService.getChatHistoryBefore(
+                        senderId,
+                        senderRole,
+                        request.getReceiver_id(),
+                        request.getReceiver_role(),
+                        request.getBefore_id(),
+                        request.getPage_size())
+                : messageService.getChatHistory(
+                        senderId,
+                        senderRole,
+                        request.getReceiver_id(),
+                        request.getReceiver_role(),
+                        request.getPage() == null ? 1 : request.getPage(),
+                        request.getPage_size()
+                );
 
         // Step 3: 转换实体对象为响应DTO
         List<ChatMessageResponse> responses = history.stream().map(msg -> {
@@ -55,7 +64,13 @@ public class MessageController {
             return resp;
         }).toList();
 
-        // Step 4: 构建成功响应
-        return ResponseBuilder.ok(Map.of("messages", responses));
+        // Step 4: 构建成功响应，附带下一页游标（不足一页时为空）
+        Long nextBeforeId = !history.isEmpty() && history.size() >= request.getPage_size()
+                ? history.get(history.size() - 1).getId()
+                : null;
+        Map<String, Object> result = new HashMap<>();
+        result.put("messages", responses);
+        result.put("next_before_id", nextBeforeId);
+        return ResponseBuilder.ok(result);
     }
 }
\ No newline at end of file
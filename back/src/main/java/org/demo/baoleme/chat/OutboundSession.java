@@ -0,0 +1,367 @@
+package org.demo.baoleme.chat;
+
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个会话的出站缓冲
+ * <p>
+ * 所有线程只把帧放入本会话的有界缓冲后立即返回，由 {@link ChatOutbound} 的发送线程池逐条写出；
+ * 同一时刻最多一个线程在写同一个会话，既避免并发写异常，也不会让慢客户端拖住发送方线程。
+ * 容器会话支持异步写出时，文本帧交给容器异步写出，写完后在回调中继续处理缓冲，
+ * 慢客户端不会占住发送线程，少量慢客户端也就无法耗尽发送线程池。
+ * <p>
+ * 缓冲超过字符数上限时按溢出策略处理；单次写出超过时间上限的会话由 {@link ChatOutbound} 定期检查并断开。
+ * <p>
+ * 同时记录最近一次收到客户端数据（消息或 pong）的时间，供心跳检查判断连接是否已失效。
+ */
+@Slf4j
+final class OutboundSession {
+
+    /**
+     * 缓冲溢出策略
+     */
+    enum OverflowPolicy {
+        /** 丢弃最早的帧，直到缓冲回到上限以内，并在剩余帧之前补发一条 resync 通知告知丢弃数量 */
+        DROP_OLDEST,
+        /** 丢弃全部积压帧，合并为一条 resync 通知，客户端据此通过历史消息接口补齐 */
+        COALESCE,
+        /** 断开连接，客户端重连后从离线队列和历史消息恢复 */
+        DISCONNECT
+    }
+
+    private final String key;
+    private final WebSocketSession delegate;
+    private final ChatOutbound outbound;
+
+    /** 容器的异步写出端点，会话不支持时为 null，退回在发送线程中阻塞写出 */
+    private final RemoteEndpoint.Async asyncRemote;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    private final ArrayDeque<WebSocketMessage<?>> buffer = new ArrayDeque<>();
+
+    /** 缓冲中帧的总字符数 */
+    private int bufferedChars;
+
+    /** DROP_OLDEST 丢弃后尚未通知客户端的帧数 */
+    private int droppedPending;
+
+    /** 发送线程（或异步写出）是否已在处理本会话 */
+    private boolean flushing;
+
+    /** 当前写出开始的时间（纳秒），0 表示未在写出 */
+    private volatile long sendStartNanos;
+
+    private volatile boolean closed;
+
+    /** 最近一次收到客户端数据的时间（纳秒） */
+    private volatile long lastActivityNanos = System.nanoTime();
+
+    /** 最近一次发送 ping 的时间（纳秒），0 表示收到数据后尚未 ping 过 */
+    private volatile long lastPingNanos;
+
+    OutboundSession(String key, WebSocketSession delegate, ChatOutbound outbound) {
+        this.key = key;
+        this.delegate = delegate;
+        this.outbound = outbound;
+        Session nativeSession = delegate instanceof NativeWebSocketSession nws
+                ? nws.getNativeSession(Session.class) : null;
+        this.asyncRemote = nativeSession != null ? nativeSession.getAsyncRemote() : null;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    WebSocketSession getDelegate() {
+        return delegate;
+    }
+
+    boolean isOpen() {
+        return !closed && delegate.isOpen();
+    }
+
+    /**
+     * 放入一帧，立即返回
+     *
+     * @return 会话已关闭或因溢出被断开时返回 false
+     */
+    boolean send(String frame) {
+        return enqueue(new TextMessage(frame));
+    }
+
+    /**
+     * 发送心跳 ping
+     */
+    boolean ping(long nowNanos) {
+        lastPingNanos = nowNanos;
+        return enqueue(new PingMessage(ByteBuffer.allocate(0)));
+    }
+
+    /**
+     * 收到客户端数据
+     */
+    void touch() {
+        lastActivityNanos = System.nanoTime();
+        lastPingNanos = 0;
+    }
+
+    long getLastActivityNanos() {
+        return lastActivityNanos;
+    }
+
+    long getLastPingNanos() {
+        return lastPingNanos;
+    }
+
+    /**
+     * 等待缓冲清空
+     *
+     * @return 在超时前清空时返回 true
+     */
+    boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (!buffer.isEmpty() && isOpen()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = drained.awaitNanos(remaining);
+            }
+            return isOpen();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前写出是否已超过时间上限
+     */
+    boolean isSendStuck(long nowNanos, long limitNanos) {
+        long start = sendStartNanos;
+        return start != 0 && nowNanos - start > limitNanos;
+    }
+
+    /**
+     * 断开连接并清空缓冲
+     */
+    void close(CloseStatus status) {
+        if (markClosed()) {
+            closeDelegate(status);
+        }
+    }
+
+    /**
+     * 立即停止接收新帧，在专用的关闭线程中关闭底层连接
+     * <p>
+     * 半开连接的关闭帧可能要等到 TCP 写超时才返回，不能阻塞心跳检查线程；
+     * 也不能交给发送线程池，慢客户端占满发送线程时正是最需要断开连接的时候。
+     */
+    void closeAsync(CloseStatus status) {
+        if (markClosed()) {
+            outbound.executeClose(() -> closeDelegate(status));
+        }
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    private boolean enqueue(WebSocketMessage<?> frame) {
+        int chars = sizeOf(frame);
+        boolean schedule = false;
+        boolean disconnect = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            buffer.addLast(frame);
+            bufferedChars += chars;
+            outbound.metrics().enqueued(chars);
+            if (bufferedChars > outbound.bufferSizeLimit() && !overflow()) {
+                disconnect = true;
+            } else if (!flushing) {
+                flushing = true;
+                schedule = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (disconnect) {
+            // 在锁外关闭连接，避免持锁等待网络
+            close(CloseStatus.SESSION_NOT_RELIABLE.withReason("消息积压过多"));
+            return false;
+        }
+        if (schedule) {
+            outbound.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * 在发送线程中逐条写出，直到缓冲为空；文本帧交给异步写出后即返回，由写完的回调继续
+     */
+    private void flush() {
+        while (true) {
+            WebSocketMessage<?> frame;
+            lock.lock();
+            try {
+                frame = closed ? null : nextFrame();
+                if (frame == null) {
+                    flushing = false;
+                    drained.signalAll();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            sendStartNanos = System.nanoTime();
+            if (asyncRemote != null && frame instanceof TextMessage text) {
+                try {
+                    asyncRemote.sendText(text.getPayload(), this::onSent);
+                    return;
+                } catch (Exception e) {
+                    sendStartNanos = 0;
+                    sendFailed(e);
+                    continue;
+                }
+            }
+            try {
+                delegate.sendMessage(frame);
+            } catch (Exception e) {
+                sendFailed(e);
+            } finally {
+                sendStartNanos = 0;
+            }
+        }
+    }
+
+    /**
+     * 异步写出完成的回调
+     * <p>
+     * 回调在容器线程中执行，也可能在调用 sendText 的线程内直接执行，因此交回发送线程池继续，
+     * 既不占用容器线程，也避免连续写出时递归调用。
+     */
+    private void onSent(SendResult result) {
+        sendStartNanos = 0;
+        if (!result.isOK()) {
+            sendFailed(result.getException());
+        }
+        outbound.execute(this::flush);
+    }
+
+    private void sendFailed(Throwable e) {
+        log.warn("消息发送失败，断开连接 {}：{}", key, e == null ? null : e.getMessage());
+        close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    /**
+     * 取出下一帧，有未通知的丢弃时先返回 resync 通知，调用方持有锁
+     */
+    private WebSocketMessage<?> nextFrame() {
+        if (droppedPending > 0) {
+            TextMessage notice = new TextMessage(outbound.resyncFrame(droppedPending));
+            droppedPending = 0;
+            return notice;
+        }
+        WebSocketMessage<?> frame = buffer.pollFirst();
+        if (frame != null) {
+            int chars = sizeOf(frame);
+            bufferedChars -= chars;
+            outbound.metrics().dequeued(1, chars);
+        }
+        return frame;
+    }
+
+    /**
+     * 缓冲超过上限时按策略处理，调用方持有锁
+     *
+     * @return 会话仍然可用时返回 true
+     */
+    private boolean overflow() {
+        OverflowPolicy policy = outbound.overflowPolicy();
+        switch (policy) {
+            case DROP_OLDEST -> {
+                // 至少保留刚放入的一帧，写出剩余帧前先通知客户端丢了多少帧
+                while (bufferedChars > outbound.bufferSizeLimit() && buffer.size() > 1) {
+                    dropFirst(policy);
+                    droppedPending++;
+                }
+                return true;
+            }
+            case COALESCE -> {
+                int dropped = buffer.size();
+                while (!buffer.isEmpty()) {
+                    dropFirst(policy);
+                }
+                TextMessage notice = new TextMessage(outbound.resyncFrame(dropped));
+                buffer.addLast(notice);
+                bufferedChars += sizeOf(notice);
+                outbound.metrics().enqueued(sizeOf(notice));
+                return true;
+            }
+            default -> {
+                outbound.metrics().dropped(policy, buffer.size());
+                outbound.metrics().disconnected("overflow");
+                log.warn("出站缓冲溢出，断开连接 {}：积压 {} 帧", key, buffer.size());
+                return false;
+            }
+        }
+    }
+
+    private void dropFirst(OverflowPolicy policy) {
+        int chars = sizeOf(buffer.pollFirst());
+        bufferedChars -= chars;
+        outbound.metrics().dequeued(1, chars);
+        outbound.metrics().dropped(policy, 1);
+    }
+
+    private boolean markClosed() {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            outbound.metrics().dequeued(buffer.size(), bufferedChars);
+            buffer.clear();
+            bufferedChars = 0;
+            droppedPending = 0;
+            drained.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeDelegate(CloseStatus status) {
+        try {
+            delegate.close(status);
+        } catch (IOException e) {
+            log.debug("关闭会话失败 {}：{}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 缓冲计量按文本帧字符数，控制帧不计
+     */
+    private static int sizeOf(WebSocketMessage<?> frame) {
+        return frame instanceof TextMessage text ? text.getPayload().length() : 0;
+    }
+}
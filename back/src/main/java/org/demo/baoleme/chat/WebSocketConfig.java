@@ -22,13 +22,23 @@ public class WebSocketConfig implements WebSocketConfigurer {
      */
     private final ChatWebSocketHandler chatWebSocketHandler;
 
+    /**
+     * 握手鉴权拦截器
+     * <p>
+     * 握手阶段校验 JWT 并把身份写入会话属性。
+     */
+    private final ChatHandshakeInterceptor chatHandshakeInterceptor;
+
     /**
      * 构造方法注入依赖
      *
-     * @param chatWebSocketHandler 自动注入的 WebSocket 处理器 bean
+     * @param chatWebSocketHandler     自动注入的 WebSocket 处理器 bean
+     * @param chatHandshakeInterceptor 自动注入的握手鉴权拦截器 bean
      */
-    public WebSocketConfig(ChatWebSocketHandler chatWebSocketHandler) {
+    public WebSocketConfig(ChatWebSocketHandler chatWebSocketHandler,
+                           ChatHandshakeInterceptor chatHandshakeInterceptor) {
         this.chatWebSocketHandler = chatWebSocketHandler;
+        this.chatHandshakeInterceptor = chatHandshakeInterceptor;
     }
 
     /**
@@ -38,11 +48,13 @@ public class WebSocketConfig implements WebSocketConfigurer {
      * <p>
      * 配置说明:
      * 1. 将 {@code chatWebSocketHandler} 注册到路径 {@code "/ws/chat"}
-     * 2. 设置允许所有来源跨域访问（{@code setAllowedOrigins("*")}），实际生产环境建议指定具体域名
+     * 2. 握手阶段由 {@code chatHandshakeInterceptor} 校验 Token，未通过时返回 401，不建立连接
+     * 3. 设置允许所有来源跨域访问（{@code setAllowedOrigins("*")}），实际生产环境建议指定具体域名
      */
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(chatWebSocketHandler, "/ws/chat")
+                .addInterceptors(chatHandshakeInterceptor)
                 .setAllowedOrigins("*");  // 允许所有来源跨域访问
     }
 }
\ No newline at end of file
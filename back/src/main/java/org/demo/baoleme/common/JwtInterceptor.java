@@ -15,6 +15,9 @@ public class JwtInterceptor implements HandlerInterceptor {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private TokenCache tokenCache;
+
     public JwtInterceptor() {
         System.out.println("✅ JwtInterceptor 已加载");
     }
@@ -24,28 +27,19 @@ public class JwtInterceptor implements HandlerInterceptor {
                              HttpServletResponse response,
                              Object handler) throws Exception {
 
-        String path = request.getRequestURI();
-        System.out.println("进入 JWT 拦截器，路径 = " + path);
-
         UserHolder.clear();
 
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            Map<String, Object> payload = JwtUtils.parsePayload(token);
-            if (payload != null) {
-                Number idNumber = (Number) payload.get("user_id");
-                String role = (String) payload.get("role");
-
-                if (idNumber != null && role != null) {
-                    // Redis 校验 token 是否存在
-                    String redisKey = role + ":token:" + token;
-                    Object storedId = redisTemplate.opsForValue().get(redisKey);
-                    if (storedId != null) {
-                        UserHolder.set(idNumber.longValue(), role);
-                        return true;
-                    }
-                }
+            // 已校验过的 token 直接命中本地缓存
+            TokenCache.Identity identity = tokenCache.get(token);
+            if (identity == null) {
+                identity = verify(token);
+            }
+            if (identity != null) {
+                UserHolder.set(identity.userId(), identity.role());
+                return true;
             }
         }
 
@@ -54,4 +48,26 @@ public class JwtInterceptor implements HandlerInterceptor {
         response.getWriter().write("{\"code\":401,\"message\":\"Token 无效或已过期\"}");
         return false;
     }
+
+    /**
+     * 校验签名并确认 Redis 中存在该 token，通过后放入本地缓存
+     */
+    private TokenCache.Identity verify(String token) {
+        Map<String, Object> payload = JwtUtils.parsePayload(token);
+        if (payload == null) {
+            return null;
+        }
+        Number idNumber = (Number) payload.get("user_id");
+        String role = (String) payload.get("role");
+        if (idNumber == null || role == null) {
+            return null;
+        }
+        // Redis 校验 token 是否存在
+        String redisKey = role + ":token:" + token;
+        Object storedId = redisTemplate.opsForValue().get(redisKey);
+        if (storedId == null) {
+            return null;
+        }
+        return tokenCache.put(token, idNumber.longValue(), role, (Long) payload.get("exp"));
+    }
 }
\ No newline at end of file
@@ -47,6 +47,7 @@ public class JwtUtils {
             payload.put("user_id", claims.get("user_id", Number.class));
             payload.put("role", claims.get("role", String.class));
             payload.put("username", claims.get("username", String.class));
+            payload.put("exp", claims.getExpiration() == null ? null : claims.getExpiration().getTime());
             return payload;
         } catch (JwtException e) {
             return null;
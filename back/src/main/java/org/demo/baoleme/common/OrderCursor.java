@@ -0,0 +1,69 @@
+package org.demo.baoleme.common;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 订单列表游标（keyset 分页）
+ * <p>
+ * 由最后一条记录的 (created_at, id) 组成，对外以不透明的 Base64 字符串传递。
+ * 下一页查询条件为 {@code created_at < t OR (created_at = t AND id < id)}，
+ * 配合 (…, created_at, id) 组合索引，翻到任意深度都只扫描一页数据。
+ */
+public class OrderCursor {
+
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    private OrderCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static OrderCursor of(LocalDateTime createdAt, Long id) {
+        return new OrderCursor(createdAt, id);
+    }
+
+    /**
+     * 从查询结果行的字段构造游标，兼容 Map 结果中的 Timestamp 与 LocalDateTime
+     */
+    public static OrderCursor fromRow(Object createdAt, Object id) {
+        LocalDateTime time = createdAt instanceof Timestamp ts ? ts.toLocalDateTime() : (LocalDateTime) createdAt;
+        return new OrderCursor(time, ((Number) id).longValue());
+    }
+
+    /**
+     * 解析客户端传来的游标；空字符串表示第一页，返回 null
+     *
+     * @throws IllegalArgumentException 游标格式不合法
+     */
+    public static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
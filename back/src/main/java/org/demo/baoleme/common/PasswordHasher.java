@@ -0,0 +1,172 @@
+package org.demo.baoleme.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 密码哈希（BCrypt）的专用有界线程池
+ * <p>
+ * 用户、骑手、商家、管理员的注册、登录和改密码都经由这里计算 BCrypt：
+ * 哈希只在固定数量的线程上执行（默认占一半 CPU 核），登录高峰时其余接口仍有 CPU 可用；
+ * 排队的任务超过 queue-capacity 时直接抛出 {@link ServiceBusyException}（429 + Retry-After），
+ * 而不是让请求线程无限堆积，Retry-After 按当前队列长度和平均单次耗时估算。
+ * <p>
+ * 代价因子由 auth.password.bcrypt-strength 配置。已有哈希的代价因子与配置不同时，
+ * 登录校验通过后用 {@link #rehashIfNeeded} 在池中有空闲线程且无排队任务时按新代价重新哈希并回写，对用户无感知；
+ * 池忙时跳过，下次登录再试，重新哈希不会占用登录请求的排队名额。
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$[./A-Za-z0-9]{53}$");
+
+    /** 单次哈希耗时的指数滑动平均权重 */
+    private static final double EWMA_WEIGHT = 0.1;
+
+    private final BCryptPasswordEncoder encoder;
+    private final int strength;
+    private final int threads;
+    private final ThreadPoolExecutor executor;
+
+    /** 单次哈希耗时的滑动平均（纳秒） */
+    private volatile double averageNanos;
+
+    private final Counter rejected;
+
+    public PasswordHasher(MeterRegistry meterRegistry,
+                          @Value("${auth.password.bcrypt-strength:10}") int strength,
+                          @Value("${auth.password.threads:0}") int threads,
+                          @Value("${auth.password.queue-capacity:64}") int queueCapacity) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        // 初始估计：代价 10 约 60ms，代价每加 1 耗时翻倍
+        this.averageNanos = TimeUnit.MILLISECONDS.toNanos(60) * Math.pow(2, strength - 10);
+
+        Gauge.builder("auth.password.queued", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 按当前代价因子哈希明文密码
+     *
+     * @throws ServiceBusyException 哈希队列已满
+     */
+    public String encode(String rawPassword) {
+        return call(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * 校验明文密码与哈希是否匹配，哈希格式不合法时返回 false
+     *
+     * @throws ServiceBusyException 哈希队列已满
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || !isHash(encodedPassword)) {
+            return false;
+        }
+        return call(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 是否为 BCrypt 哈希（管理员表中还有未加密的历史密码）
+     */
+    public boolean isHash(String encodedPassword) {
+        return encodedPassword != null && BCRYPT.matcher(encodedPassword).matches();
+    }
+
+    /**
+     * 哈希的代价因子与当前配置不同时，在池中按新代价重新哈希并交给 store 回写；
+     * 不阻塞调用方，只在有空闲线程且无排队任务时提交，否则跳过（下次登录再试）
+     */
+    public void rehashIfNeeded(String rawPassword, String encodedPassword, Consumer<String> store) {
+        Matcher matcher = BCRYPT.matcher(encodedPassword);
+        if (!matcher.matches() || Integer.parseInt(matcher.group(1)) == strength) {
+            return;
+        }
+        if (executor.getActiveCount() >= threads || !executor.getQueue().isEmpty()) {
+            log.debug("密码哈希线程池繁忙，跳过重新哈希");
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    store.accept(timed(() -> encoder.encode(rawPassword)));
+                } catch (Exception e) {
+                    log.warn("密码重新哈希失败：{}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("密码哈希队列已满，跳过重新哈希");
+        }
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    private <T> T call(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timed(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("请求过多，请稍后重试", retryAfterSeconds());
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待密码哈希时被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("密码哈希失败", e.getCause());
+        }
+    }
+
+    private <T> T timed(Callable<T> task) throws Exception {
+        long start = System.nanoTime();
+        T result = task.call();
+        averageNanos += (System.nanoTime() - start - averageNanos) * EWMA_WEIGHT;
+        return result;
+    }
+
+    /**
+     * 以当前排队任务全部完成所需时间作为建议的重试等待秒数
+     */
+    private long retryAfterSeconds() {
+        double drainNanos = (executor.getQueue().size() + threads) * averageNanos / threads;
+        return Math.max(1, (long) Math.ceil(drainNanos / TimeUnit.SECONDS.toNanos(1)));
+    }
+}
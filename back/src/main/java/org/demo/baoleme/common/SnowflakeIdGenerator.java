@@ -0,0 +1,161 @@
+package org.demo.baoleme.common;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花算法 ID 生成器
+ * <p>
+ * 64 位布局：1 位符号（恒为 0）| 41 位毫秒时间戳（自 2025-01-01 起，约 69 年）| 10 位机器号 | 12 位序列号。
+ * 同一机器号生成的 ID 严格递增，不同机器之间按时间大致有序，可在插入前预先分配主键、批量写入或按 ID 分片。
+ * <p>
+ * 上一次的时间戳和序列号打包在一个 AtomicLong 中，通过 CAS 推进，不加锁。
+ * 新毫秒的序列号从 0~15 的随机值开始，低流量时 ID 低位仍然分散，按 ID 取模分片不会集中。
+ * <p>
+ * 时钟回拨不超过 {@code maxBackwardMillis} 时沿用上一次的时间戳继续分配序列号（用尽后等待时钟追上），
+ * 超过时抛出 {@link IllegalStateException}，避免生成重复 ID。
+ * 机器号租约过期（见 {@link #setValidUntil(long)}）后同样抛出 {@link IllegalStateException}。
+ * <p>
+ * {@link #nextOrderNumber()} 把 ID 格式化为可读的订单号，取代原来的时间加 UUID 片段拼接。
+ */
+public class SnowflakeIdGenerator {
+
+    /** 起始时间 2025-01-01T00:00:00+08:00 */
+    public static final long EPOCH = 1735660800000L;
+
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int WORKER_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = WORKER_BITS + SEQUENCE_BITS;
+
+    /** 新毫秒序列号起始值的随机范围 */
+    private static final int SEQUENCE_START_SPREAD = 16;
+
+    /** 订单号中时间部分的格式（东八区，精确到毫秒） */
+    private static final DateTimeFormatter ORDER_NUMBER_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneId.of("Asia/Shanghai"));
+
+    /** 订单号中机器号与序列号部分的十进制位数（22 位二进制最大 4194303） */
+    private static final int ORDER_NUMBER_LOW_DIGITS = 7;
+
+    /** 默认可容忍的时钟回拨（毫秒） */
+    private static final long DEFAULT_MAX_BACKWARD_MILLIS = 5;
+
+    private final LongSupplier clock;
+    private final long maxBackwardMillis;
+
+    /** (上一次时间戳 << SEQUENCE_BITS) | 序列号 */
+    private final AtomicLong state = new AtomicLong();
+
+    private volatile long workerBits;
+
+    /** 机器号有效期截止时间（毫秒时间戳） */
+    private volatile long validUntil = Long.MAX_VALUE;
+
+    public SnowflakeIdGenerator(int workerId) {
+        this(workerId, System::currentTimeMillis, DEFAULT_MAX_BACKWARD_MILLIS);
+    }
+
+    public SnowflakeIdGenerator(int workerId, LongSupplier clock, long maxBackwardMillis) {
+        this.clock = clock;
+        this.maxBackwardMillis = maxBackwardMillis;
+        setWorkerId(workerId);
+    }
+
+    /**
+     * 生成下一个 ID
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long nowMillis = clock.getAsLong();
+            if (nowMillis > validUntil) {
+                throw new IllegalStateException("雪花机器号租约已过期，拒绝生成ID");
+            }
+            long now = nowMillis - EPOCH;
+            long next;
+            if (now > lastTimestamp) {
+                next = (now << SEQUENCE_BITS) | ThreadLocalRandom.current().nextInt(SEQUENCE_START_SPREAD);
+            } else {
+                long backward = lastTimestamp - now;
+                if (backward > maxBackwardMillis) {
+                    throw new IllegalStateException("系统时钟回拨 " + backward + " ms，拒绝生成ID");
+                }
+                if ((current & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                    // 本毫秒序列号已用尽，等待时钟前进
+                    Thread.onSpinWait();
+                    continue;
+                }
+                next = current + 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | workerBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 生成下一个订单号，与 {@link #nextId()} 一样不加锁、不重复
+     */
+    public String nextOrderNumber() {
+        return orderNumberOf(nextId());
+    }
+
+    /**
+     * 更换机器号（机器号租约丢失后重新分配时使用）
+     */
+    public void setWorkerId(int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("机器号超出范围 [0, " + MAX_WORKER_ID + "]：" + workerId);
+        }
+        this.workerBits = (long) workerId << WORKER_SHIFT;
+    }
+
+    /**
+     * 设置机器号有效期截止时间（毫秒时间戳），超过后拒绝生成 ID，直到租约续期后再次设置
+     */
+    public void setValidUntil(long validUntil) {
+        this.validUntil = validUntil;
+    }
+
+    public int getWorkerId() {
+        return (int) (workerBits >>> WORKER_SHIFT);
+    }
+
+    /**
+     * 解析 ID 的生成时间（毫秒时间戳）
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * 把 ID 格式化为订单号：ORD + 生成时间（yyyyMMddHHmmssSSS）+ 机器号与序列号（7 位十进制），
+     * 与 ID 一一对应，同一机器号生成的订单号按字典序递增
+     */
+    public static String orderNumberOf(long id) {
+        String low = Long.toString(id & ((1L << TIMESTAMP_SHIFT) - 1));
+        StringBuilder number = new StringBuilder(3 + 17 + ORDER_NUMBER_LOW_DIGITS)
+                .append("ORD")
+                .append(ORDER_NUMBER_TIME.format(Instant.ofEpochMilli(timestampOf(id))));
+        for (int i = low.length(); i < ORDER_NUMBER_LOW_DIGITS; i++) {
+            number.append('0');
+        }
+        return number.append(low).toString();
+    }
+
+    /**
+     * 解析 ID 的机器号
+     */
+    public static int workerIdOf(long id) {
+        return (int) ((id >>> WORKER_SHIFT) & MAX_WORKER_ID);
+    }
+}
@@ -0,0 +1,179 @@
+package org.demo.baoleme.common;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已校验 token 的本地缓存
+ * <p>
+ * {@link JwtInterceptor} 校验通过（签名有效且 Redis 中存在 role:token:xxx）后按 token 的 SHA-256 缓存身份，
+ * 之后同一 token 的请求只做一次哈希查找，不再解析签名、不访问 Redis。
+ * 缓存项在 token 过期时失效，且最长保留 max-age-seconds，错过吊销通知时也能在该时长内恢复一致。
+ * 缓存项数达到 max-size 时不再放入，由定时清理腾出空间后恢复。
+ * <p>
+ * 登出、修改用户名换发 token 时调用 {@link #revoke(String)}：本节点立即失效，
+ * 并在频道 {@value #CHANNEL} 上广播 token 哈希（不广播 token 本身），其他节点收到后失效对应缓存项。
+ * 吊销后的一段时间内拒绝再缓存同一 token，避免吊销前已开始的校验把它重新放回缓存。
+ */
+@Slf4j
+@Component
+public class TokenCache implements MessageListener {
+
+    static final String CHANNEL = "auth:token:revoked";
+
+    /** 吊销记录的保留时长（毫秒），远大于单次校验的耗时 */
+    private static final long REVOKED_RETENTION_MILLIS = 60_000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final int maxSize;
+    private final long maxAgeMillis;
+
+    private final Map<String, Identity> entries = new ConcurrentHashMap<>();
+
+    /** 最近吊销的 token 哈希 -> 吊销记录到期时刻 */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    public TokenCache(StringRedisTemplate stringRedisTemplate,
+                      @Value("${auth.token-cache.max-size:100000}") int maxSize,
+                      @Value("${auth.token-cache.max-age-seconds:300}") long maxAgeSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.maxSize = maxSize;
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(maxAgeSeconds);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        RedisConnectionFactory connectionFactory = stringRedisTemplate.getConnectionFactory();
+        if (connectionFactory == null) {
+            return;
+        }
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        try {
+            listenerContainer.start();
+        } catch (Exception e) {
+            // 容器会在 Redis 恢复后自动重新订阅
+            log.error("token 吊销通知订阅失败：{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    /**
+     * 查询已缓存的身份，未缓存或已过期时返回 null
+     */
+    public Identity get(String token) {
+        String hash = hash(token);
+        Identity identity = entries.get(hash);
+        if (identity == null) {
+            return null;
+        }
+        if (identity.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(hash, identity);
+            return null;
+        }
+        return identity;
+    }
+
+    /**
+     * 缓存校验通过的 token
+     *
+     * @param tokenExpiresAt token 的过期时刻（毫秒），为空时只按 max-age 失效
+     */
+    public Identity put(String token, long userId, String role, Long tokenExpiresAt) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + maxAgeMillis;
+        if (tokenExpiresAt != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiresAt);
+        }
+        Identity identity = new Identity(userId, role, expiresAt);
+        String hash = hash(token);
+        if (expiresAt > now && entries.size() < maxSize && !revoked.containsKey(hash)) {
+            entries.put(hash, identity);
+        }
+        return identity;
+    }
+
+    /**
+     * 吊销 token：本节点立即失效，并通知其他节点
+     */
+    public void revoke(String token) {
+        String hash = hash(token);
+        evict(hash);
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, hash);
+        } catch (Exception e) {
+            log.warn("token 吊销通知发送失败，其他节点的缓存最迟 {} 秒后失效：{}",
+                    TimeUnit.MILLISECONDS.toSeconds(maxAgeMillis), e.getMessage());
+        }
+    }
+
+    /**
+     * 其他节点（以及本节点自身）广播的吊销通知，消息体为 token 哈希
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        evict(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 清理过期的缓存项和吊销记录
+     */
+    @Scheduled(fixedDelay = 30_000)
+    public void purge() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(identity -> identity.expiresAt() <= now);
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    private void evict(String hash) {
+        revoked.put(hash, System.currentTimeMillis() + REVOKED_RETENTION_MILLIS);
+        entries.remove(hash);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 缓存的身份信息
+     *
+     * @param expiresAt 缓存项失效时刻（毫秒）
+     */
+    public record Identity(long userId, String role, long expiresAt) {
+    }
+}
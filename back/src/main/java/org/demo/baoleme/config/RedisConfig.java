@@ -1,5 +1,9 @@
 package org.demo.baoleme.config;
 
+import org.demo.baoleme.pojo.ChatMessage;
+import org.demo.baoleme.pojo.Product;
+import org.demo.baoleme.pojo.Store;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
@@ -9,9 +13,26 @@ import org.springframework.data.redis.core.RedisTemplate;
 public class RedisConfig {
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory connectionFactory,
+                                                       @Value("${redis.value-codec:jdk}") String valueCodec) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
+        // 键仍按 JDK 格式序列化，切换值编码时已有的键不受影响
+        CompactRedisSerializer valueSerializer = valueSerializer(valueCodec);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * 值序列化器；新增写入 Redis 的对象类型时在此注册，标签一经使用不可更改
+     *
+     * @param valueCodec jdk / migrate / compact，见 {@link CompactRedisSerializer.Mode}
+     */
+    public static CompactRedisSerializer valueSerializer(String valueCodec) {
+        return new CompactRedisSerializer(CompactRedisSerializer.Mode.valueOf(valueCodec.trim().toUpperCase()))
+                .register(16, ChatMessage.class)
+                .register(17, Store.class)
+                .register(18, Product.class);
+    }
+}
@@ -0,0 +1,30 @@
+package org.demo.baoleme.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * 定时任务配置
+ * 启用 {@code @Scheduled} 注解的后台任务（库存对账、订单到期、聊天心跳、批量派单等）。
+ * Spring 默认只用一个线程执行全部定时任务，一个任务变慢会拖住其余任务，
+ * 这里提供不少于任务数的线程池，让各任务互不阻塞
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * 按名称 taskScheduler 注册，{@code @Scheduled} 在存在多个 TaskScheduler 时优先使用它
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${scheduling.pool-size:8}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
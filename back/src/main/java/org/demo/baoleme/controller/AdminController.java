@@ -3,7 +3,9 @@ package org.demo.baoleme.controller;
 import jakarta.validation.Valid;
 import org.demo.baoleme.common.CommonResponse;
 import org.demo.baoleme.common.JwtUtils;
+import org.demo.baoleme.common.OrderCursor;
 import org.demo.baoleme.common.ResponseBuilder;
+import org.demo.baoleme.common.TokenCache;
 import org.demo.baoleme.common.UserHolder;
 import org.demo.baoleme.dto.request.admin.*;
 import org.demo.baoleme.dto.response.admin.*;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -32,6 +35,9 @@ public class AdminController {
     @Autowired
     private ProductService  productService;
 
+    @Autowired
+    private TokenCache tokenCache;
+
     @Autowired
     public AdminController(AdminService adminService, RedisTemplate<String, Object> redisTemplate) {
         this.adminService = adminService;
@@ -95,6 +101,7 @@ public class AdminController {
         }
 
         redisTemplate.delete(redisTokenKey);
+        tokenCache.revoke(token);
         return ResponseBuilder.ok("登出成功");
     }
 
@@ -301,16 +308,27 @@ public class AdminController {
             return ResponseBuilder.fail("无权限访问，仅管理员可操作");
         }
 
-        List<Order> orders = adminService.getAllOrdersPaged(
-                request.getUserId(),
-                request.getStoreId(),
-                request.getRiderId(),
-                request.getStatus(),
-                request.getCreatedAt(),
-                request.getEndedAt(),
-                request.getPage(),
-                request.getPageSize()
-        );
+        boolean byCursor = request.getCursor() != null;
+        List<Order> orders = byCursor
+                ? adminService.getAllOrdersByCursor(
+                        request.getUserId(),
+                        request.getStoreId(),
+                        request.getRiderId(),
+                        request.getStatus(),
+                        request.getCreatedAt(),
+                        request.getEndedAt(),
+                        OrderCursor.decode(request.getCursor()),
+                        request.getPageSize())
+                : adminService.getAllOrdersPaged(
+                        request.getUserId(),
+                        request.getStoreId(),
+                        request.getRiderId(),
+                        request.getStatus(),
+                        request.getCreatedAt(),
+                        request.getEndedAt(),
+                        request.getPage(),
+                        request.getPageSize()
+                );
 
         List<AdminOrderQueryResponse> responses = orders.stream().map(order -> {
             AdminOrderQueryResponse resp = new AdminOrderQueryResponse();
@@ -326,6 +344,18 @@ public class AdminController {
             return resp;
         }).toList();
 
+        if (byCursor) {
+            // 不足一页说明已到末尾，next_cursor 为空
+            String nextCursor = null;
+            if (!orders.isEmpty() && orders.size() >= request.getPageSize()) {
+                Order last = orders.get(orders.size() - 1);
+                nextCursor = OrderCursor.of(last.getCreatedAt(), last.getId()).encode();
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("orders", responses);
+            result.put("next_cursor", nextCursor);
+            return ResponseBuilder.ok(result);
+        }
         return ResponseBuilder.ok(Map.of("orders", responses));
     }
 
@@ -11,7 +11,6 @@ import org.demo.baoleme.common.*;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.concurrent.TimeUnit;
@@ -21,11 +20,16 @@ import java.util.concurrent.TimeUnit;
 public class MerchantController {
 
     private final MerchantService merchantService;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private TokenCache tokenCache;
+
     public MerchantController(MerchantService merchantService) {
         this.merchantService = merchantService;
     }
@@ -73,11 +77,13 @@ public class MerchantController {
         }
 
         // Step3: 验证密码匹配
-        // 使用 BCrypt 验证密码
+        // 使用 BCrypt 验证密码（在密码哈希线程池中执行，繁忙时返回 429）
         // 第一个参数是明文密码（未加密），第二个参数是加密后的密码哈希
-        if (!passwordEncoder.matches(request.getPassword(), result.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), result.getPassword())) {
             return ResponseBuilder.fail("密码错误");
         }
+        passwordHasher.rehashIfNeeded(request.getPassword(), result.getPassword(),
+                hash -> merchantService.updatePasswordHash(result.getId(), result.getPassword(), hash));
 
         String loginKey = "merchant:login:" + result.getId();
         if (redisTemplate.hasKey(loginKey)) {
@@ -163,6 +169,7 @@ public class MerchantController {
         String oldToken = tokenHeader.replace("Bearer ", "");
         redisTemplate.delete("merchant:token:" + oldToken);
         redisTemplate.delete("merchant:login:" + id);
+        tokenCache.revoke(oldToken);
 
         // Step8: 生成新Token并更新缓存
         String newToken = JwtUtils.createToken(id, "merchant", request.getUsername());
@@ -214,7 +221,8 @@ public class MerchantController {
             redisTemplate.delete(loginKey);
         }
 
-        // Step3: 删除Token本体
+        // Step3: 删除Token本体，并通知各节点失效本地缓存
         redisTemplate.delete(tokenKey);
+        tokenCache.revoke(token);
     }
 }
\ No newline at end of file
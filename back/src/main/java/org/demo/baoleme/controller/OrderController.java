@@ -2,6 +2,8 @@ package org.demo.baoleme.controller;
 
 import jakarta.validation.Valid;
 import org.demo.baoleme.common.CommonResponse;
+import org.demo.baoleme.common.OrderCursor;
+import org.demo.baoleme.dispatch.RiderOrderFeed;
 import org.demo.baoleme.common.ResponseBuilder;
 import org.demo.baoleme.dto.request.order.*;
 import org.demo.baoleme.dto.request.rider.RiderOrderHistoryQueryRequest;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +35,9 @@ public class OrderController {
     @Autowired
     private RiderService riderService;
 
+    @Autowired
+    private RiderOrderFeed riderOrderFeed;
+
     public OrderController(OrderService orderService, StoreService storeService) {
         this.storeService = storeService;
         this.orderService = orderService;
@@ -41,32 +47,30 @@ public class OrderController {
      * 获取可抢订单列表
      */
     @GetMapping("/available")
-    public CommonResponse getAvailableOrders(@RequestParam("page") int page,
-                                             @RequestParam("page_size") int pageSize) {
+    public CommonResponse getAvailableOrders(@RequestParam(value = "page", required = false, defaultValue = "1") int page,
+                                             @RequestParam("page_size") int pageSize,
+                                             @RequestParam(value = "cursor", required = false) String cursor) {
         // 权限验证：仅骑手可操作
         if (!"rider".equals(UserHolder.getRole())) {
             return ResponseBuilder.fail("无权限访问，仅骑手可操作");
         }
         
         try {
-            List<Order> orders = orderService.getAvailableOrders(page, pageSize);
+            // 传入 cursor 时使用游标分页，避免深翻页时 OFFSET 扫描
+            List<Order> orders = cursor != null
+                    ? orderService.getAvailableOrdersByCursor(OrderCursor.decode(cursor), pageSize)
+                    : orderService.getAvailableOrders(page, pageSize);
             
             // 转换为OrderListResponse格式
-            List<OrderListResponse.OrderBrief> orderBriefs = orders.stream().map(order -> {
-                OrderListResponse.OrderBrief brief = new OrderListResponse.OrderBrief();
-                brief.setOrderId(order.getId());
-                // 通过storeService获取店铺名称
-                String shopName = "店铺" + order.getStoreId(); // 临时方案，实际应该查询店铺表
-                brief.setShopName(shopName);
-                brief.setShopLocation(order.getStoreLocation());
-                brief.setDeliveryAddress(order.getUserLocation());
-                brief.setTotalAmount(order.getTotalPrice());
-                brief.setEstimatedTime(30); // 默认30分钟预估时间
-                return brief;
-            }).toList();
+            List<OrderListResponse.OrderBrief> orderBriefs = orders.stream()
+                    .map(OrderListResponse.OrderBrief::of)
+                    .toList();
             
             OrderListResponse response = new OrderListResponse();
             response.setOrders(orderBriefs);
+            if (cursor != null) {
+                response.setNextCursor(nextCursor(orders, pageSize));
+            }
             
             return ResponseBuilder.ok(response);
         } catch (Exception e) {
@@ -74,6 +78,20 @@ public class OrderController {
         }
     }
 
+    /**
+     * 订阅可抢订单推送（SSE），替代轮询 /orders/available
+     * <p>
+     * 事件：snapshot（订阅时的可抢订单列表）、created（新订单）、removed（订单被抢走或取消）
+     */
+    @GetMapping("/feed")
+    public Object subscribeOrderFeed() {
+        // 权限验证：仅骑手可操作
+        if (!"rider".equals(UserHolder.getRole())) {
+            return ResponseBuilder.fail("无权限访问，仅骑手可操作");
+        }
+        return riderOrderFeed.subscribe(UserHolder.getId());
+    }
+
     /**
      * 抢单
      */
@@ -154,14 +172,23 @@ public class OrderController {
         
         try {
             Long riderId = UserHolder.getId();
-            List<Order> orders = orderService.getRiderOrders(
-                    riderId,
-                    request.getStatus(),
-                    request.getStartTime(),
-                    request.getEndTime(),
-                    request.getPage(),
-                    request.getPageSize()
-            );
+            boolean byCursor = request.getCursor() != null;
+            List<Order> orders = byCursor
+                    ? orderService.getRiderOrdersByCursor(
+                            riderId,
+                            request.getStatus(),
+                            request.getStartTime(),
+                            request.getEndTime(),
+                            OrderCursor.decode(request.getCursor()),
+                            request.getPageSize())
+                    : orderService.getRiderOrders(
+                            riderId,
+                            request.getStatus(),
+                            request.getStartTime(),
+                            request.getEndTime(),
+                            request.getPage(),
+                            request.getPageSize()
+                    );
 
             List<RiderOrderHistoryResponse> responses = orders.stream().map(order -> {
                 RiderOrderHistoryResponse resp = new RiderOrderHistoryResponse();
@@ -176,6 +203,12 @@ public class OrderController {
                 return resp;
             }).toList();
 
+            if (byCursor) {
+                Map<String, Object> result = new HashMap<>();
+                result.put("orders", responses);
+                result.put("next_cursor", nextCursor(orders, request.getPageSize()));
+                return ResponseBuilder.ok(result);
+            }
             return ResponseBuilder.ok(Map.of("orders", responses));
         } catch (Exception e) {
             return ResponseBuilder.fail("获取骑手订单记录失败：" + e.getMessage());
@@ -200,6 +233,7 @@ public class OrderController {
             response.setCompletedOrders(((Number) result.getOrDefault("completed_orders", 0)).intValue());
             response.setTotalEarnings((BigDecimal) result.getOrDefault("total_earnings", BigDecimal.ZERO));
             response.setCurrentMonth((BigDecimal) result.getOrDefault("current_month", BigDecimal.ZERO));
+            response.setToday((BigDecimal) result.getOrDefault("today", BigDecimal.ZERO));
 
             return ResponseBuilder.ok(response);
         } catch (Exception e) {
@@ -314,4 +348,15 @@ public class OrderController {
             return ResponseBuilder.fail("订单查看失败：" + e.getMessage());
         }
     }
+
+    /**
+     * 根据本页最后一条订单生成下一页游标；不足一页说明没有更多数据，返回 null
+     */
+    private String nextCursor(List<Order> orders, int pageSize) {
+        if (orders.isEmpty() || orders.size() < pageSize) {
+            return null;
+        }
+        Order last = orders.get(orders.size() - 1);
+        return OrderCursor.of(last.getCreatedAt(), last.getId()).encode();
+    }
 }
@@ -1,12 +1,12 @@
 package org.demo.baoleme.controller;
 
+import org.demo.baoleme.cache.CatalogCache;
 import org.demo.baoleme.common.CommonResponse;
 import org.demo.baoleme.common.ResponseBuilder;
 import org.demo.baoleme.common.UserHolder;
 import org.demo.baoleme.dto.request.review.ReviewReadRequest;
 import org.demo.baoleme.dto.response.review.ReviewPageResponse;
 import org.demo.baoleme.dto.response.review.ReviewReadResponse;
-import org.demo.baoleme.mapper.ProductMapper;
 import org.demo.baoleme.mapper.UserMapper;
 import org.demo.baoleme.pojo.Page;
 import org.demo.baoleme.pojo.Product;
@@ -28,14 +28,14 @@ public class ReviewController {
     private final StoreService storeService;
     private final UserMapper userMapper;
     private final UserService userService;
-    private final ProductMapper productMapper;
+    private final CatalogCache catalogCache;
 
-    public ReviewController(ReviewService reviewService, StoreService storeService, UserMapper userMapper, UserService userService, ProductMapper productMapper) {
+    public ReviewController(ReviewService reviewService, StoreService storeService, UserMapper userMapper, UserService userService, CatalogCache catalogCache) {
         this.reviewService = reviewService;
         this.storeService = storeService;
         this.userMapper = userMapper;
         this.userService = userService;
-        this.productMapper = productMapper;
+        this.catalogCache = catalogCache;
     }
 
     @PostMapping("/list")
@@ -160,7 +160,7 @@ public class ReviewController {
             }
 
             // Step2
-            Product product = productMapper.selectById(review.getProductId());
+            Product product = catalogCache.getProduct(review.getProductId());
             if(product != null){
                 item.setProductId(product.getId());
                 item.setProductName(product.getName());
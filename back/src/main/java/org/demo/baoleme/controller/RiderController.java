@@ -5,6 +5,7 @@ import org.demo.baoleme.common.CommonResponse;
 import org.demo.baoleme.common.ResponseBuilder;
 import org.demo.baoleme.dto.request.rider.RiderDispatchModeRequest;
 import org.demo.baoleme.dto.request.rider.RiderLoginRequest;
+import org.demo.baoleme.dto.request.rider.RiderPositionRequest;
 import org.demo.baoleme.dto.request.rider.RiderRegisterRequest;
 import org.demo.baoleme.dto.request.rider.RiderUpdateRequest;
 import org.demo.baoleme.dto.response.rider.RiderDispatchModeResponse;
@@ -14,6 +15,7 @@ import org.demo.baoleme.dto.response.rider.RiderRegisterResponse;
 import org.demo.baoleme.pojo.Rider;
 import org.demo.baoleme.service.RiderService;
 import org.demo.baoleme.common.JwtUtils;
+import org.demo.baoleme.common.TokenCache;
 import org.demo.baoleme.common.UserHolder;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,6 +35,9 @@ public class RiderController {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private TokenCache tokenCache;
+
     public RiderController(RiderService riderService) {
         this.riderService = riderService;
     }
@@ -125,6 +130,7 @@ public class RiderController {
 
         redisTemplate.delete(oldTokenKey);
         redisTemplate.delete(oldLoginKey);
+        tokenCache.revoke(oldToken);
 
         String newToken = JwtUtils.createToken(id, "rider", request.getUsername());
         redisTemplate.opsForValue().set("rider:token:" + newToken, id, 1, TimeUnit.DAYS);
@@ -153,6 +159,15 @@ public class RiderController {
         return ResponseBuilder.ok(resp);
     }
 
+    /**
+     * 上报当前位置，自动接单时按位置就近派单
+     */
+    @PutMapping("/position")
+    public CommonResponse reportPosition(@Valid @RequestBody RiderPositionRequest request) {
+        riderService.reportPosition(UserHolder.getId(), request.getLatitude(), request.getLongitude());
+        return ResponseBuilder.ok();
+    }
+
     @PostMapping("/logout")
     public CommonResponse logout(@RequestHeader("Authorization") String tokenHeader) {
         String token = tokenHeader.replace("Bearer ", "");
@@ -165,6 +180,7 @@ public class RiderController {
         }
 
         redisTemplate.delete(tokenKey);          // ✅ 删除 token 本体
+        tokenCache.revoke(token);                // ✅ 失效各节点的本地缓存
 
         // 设置为离线
         Long id = UserHolder.getId();
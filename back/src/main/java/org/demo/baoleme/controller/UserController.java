@@ -4,6 +4,8 @@ import jakarta.validation.Valid;
 import org.demo.baoleme.common.CommonResponse;
 import org.demo.baoleme.common.ResponseBuilder;
 import org.demo.baoleme.common.JwtUtils;
+import org.demo.baoleme.common.OrderCursor;
+import org.demo.baoleme.common.TokenCache;
 import org.demo.baoleme.common.UserHolder;
 import org.demo.baoleme.dto.request.coupon.AvailableCouponRequest;
 import org.demo.baoleme.dto.request.order.OrderCreateRequest;
@@ -25,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 import java.sql.Timestamp;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.List;
@@ -38,6 +41,8 @@ public class UserController {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     @Autowired
+    private TokenCache tokenCache;
+    @Autowired
     private OrderService orderService;
     @Autowired
     private SalesStatsService saleStatsService;
@@ -99,6 +104,7 @@ public class UserController {
         }
 
         redisTemplate.delete(tokenKey);          // ✅ 删除 token 本体
+        tokenCache.revoke(token);                // ✅ 失效各节点的本地缓存
 
         // 更新用户状态（如果需要）
         Long id = UserHolder.getId();
@@ -171,6 +177,7 @@ public class UserController {
 
         redisTemplate.delete(oldTokenKey);
         redisTemplate.delete(oldLoginKey);
+        tokenCache.revoke(oldToken);
 
         String newToken = JwtUtils.createToken(id, "user", request.getUsername());
         redisTemplate.opsForValue().set("user:token:" + newToken, id, 1, TimeUnit.DAYS);
@@ -201,14 +208,23 @@ public class UserController {
         }
 
 
-        List<Map<String, Object>> records = userService.getUserOrdersPaged(
-                userId,
-                request.getStatus(),
-                request.getStartTime(),
-                request.getEndTime(),
-                request.getPage(),
-                request.getPageSize()
-        );
+        boolean byCursor = request.getCursor() != null;
+        List<Map<String, Object>> records = byCursor
+                ? userService.getUserOrdersByCursor(
+                        userId,
+                        request.getStatus(),
+                        request.getStartTime(),
+                        request.getEndTime(),
+                        OrderCursor.decode(request.getCursor()),
+                        request.getPageSize())
+                : userService.getUserOrdersPaged(
+                        userId,
+                        request.getStatus(),
+                        request.getStartTime(),
+                        request.getEndTime(),
+                        request.getPage(),
+                        request.getPageSize()
+                );
 
         List<UserOrderHistoryResponse> responses = records.stream().map(map -> {
             UserOrderHistoryResponse resp = new UserOrderHistoryResponse();
@@ -234,6 +250,9 @@ public class UserController {
             return resp;
         }).toList();
 
+        if (byCursor) {
+            return ResponseBuilder.ok(withNextCursor(responses, records, "id", request.getPageSize()));
+        }
         return ResponseBuilder.ok(Map.of("orders", responses));
     }
     @PostMapping("/history/item")
@@ -302,7 +321,10 @@ public class UserController {
     @PostMapping("/current")
     public CommonResponse getCurrentOrders(@Valid @RequestBody UserCurrentOrderRequest request) {
         Long userId = UserHolder.getId();
-        List<Map<String, Object>> result = userService.getCurrentOrders(userId, request.getPage(), request.getPageSize());
+        boolean byCursor = request.getCursor() != null;
+        List<Map<String, Object>> result = byCursor
+                ? userService.getCurrentOrdersByCursor(userId, OrderCursor.decode(request.getCursor()), request.getPageSize())
+                : userService.getCurrentOrders(userId, request.getPage(), request.getPageSize());
 
         List<UserCurrentOrderResponse> response = result.stream().map(map -> {
             UserCurrentOrderResponse r = new UserCurrentOrderResponse();
@@ -333,6 +355,9 @@ public class UserController {
             return r;
         }).toList();
 
+        if (byCursor) {
+            return ResponseBuilder.ok(withNextCursor(response, result, "order_id", request.getPageSize()));
+        }
         return ResponseBuilder.ok(Map.of("orders", response));
     }
 
@@ -443,4 +468,19 @@ public class UserController {
 
         return ResponseBuilder.ok(Map.of("stores", response));
     }
+
+    /**
+     * 游标分页响应：附带由本页最后一行生成的 next_cursor，不足一页时为空
+     */
+    private Map<String, Object> withNextCursor(List<?> orders, List<Map<String, Object>> rows, String idColumn, int pageSize) {
+        String nextCursor = null;
+        if (!rows.isEmpty() && rows.size() >= pageSize) {
+            Map<String, Object> last = rows.get(rows.size() - 1);
+            nextCursor = OrderCursor.fromRow(last.get("created_at"), last.get(idColumn)).encode();
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("orders", orders);
+        result.put("next_cursor", nextCursor);
+        return result;
+    }
 }
@@ -0,0 +1,152 @@
+package org.demo.baoleme.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.mapper.RiderMapper;
+import org.demo.baoleme.pojo.Order;
+import org.demo.baoleme.service.OrderService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 批量派单任务
+ * <p>
+ * 每个周期收集已上报位置、处于自动接单模式且空闲的骑手，以及空间索引中的待接单订单，
+ * 用 {@link BatchAssignmentSolver} 求总取餐距离尽量小的分配，再通过一条条件 UPDATE 批量写入。
+ * 与单个骑手调用 /rider/auto-order-taking 相比，同一周期内的骑手不会争抢同一个最近订单。
+ */
+@Slf4j
+@Component
+public class BatchDispatcher {
+
+    /** 每个骑手参与求解的最近候选订单数 */
+    private static final int CANDIDATES_PER_RIDER = 8;
+
+    /** 每个周期最多参与派单的骑手数 */
+    private static final int MAX_RIDERS_PER_TICK = 500;
+
+    private final GeoDispatchIndex geoDispatchIndex;
+    private final PendingOrderIndex pendingOrderIndex;
+    private final RiderPositionRegistry riderPositionRegistry;
+    private final RiderOrderFeed riderOrderFeed;
+    private final RiderMapper riderMapper;
+    private final OrderService orderService;
+
+    @Value("${dispatch.batch.enabled:false}")
+    private boolean enabled;
+
+    /** 超过该取餐距离（米）的订单不派给骑手 */
+    @Value("${dispatch.batch.max-pickup-meters:5000}")
+    private double maxPickupMeters;
+
+    public BatchDispatcher(GeoDispatchIndex geoDispatchIndex,
+                           PendingOrderIndex pendingOrderIndex,
+                           RiderPositionRegistry riderPositionRegistry,
+                           RiderOrderFeed riderOrderFeed,
+                           RiderMapper riderMapper,
+                           OrderService orderService) {
+        this.geoDispatchIndex = geoDispatchIndex;
+        this.pendingOrderIndex = pendingOrderIndex;
+        this.riderPositionRegistry = riderPositionRegistry;
+        this.riderOrderFeed = riderOrderFeed;
+        this.riderMapper = riderMapper;
+        this.orderService = orderService;
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.batch.interval-ms:2000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int dispatched = dispatch();
+            if (dispatched > 0) {
+                log.info("批量派单完成，派出订单数：{}", dispatched);
+            }
+        } catch (Exception e) {
+            log.error("批量派单失败", e);
+        }
+    }
+
+    /**
+     * 执行一轮批量派单
+     *
+     * @return 成功派出的订单数
+     */
+    int dispatch() {
+        Map<Long, GeoPoint> positions = riderPositionRegistry.snapshot();
+        if (positions.isEmpty() || geoDispatchIndex.size() == 0) {
+            return 0;
+        }
+        List<Long> riderIds = riderMapper.selectIdleAutoDispatchRiderIds(positions.keySet());
+        if (riderIds == null || riderIds.isEmpty()) {
+            return 0;
+        }
+        if (riderIds.size() > MAX_RIDERS_PER_TICK) {
+            riderIds = riderIds.subList(0, MAX_RIDERS_PER_TICK);
+        }
+
+        // Step1: 为每个骑手取最近的候选订单，构造稀疏二部图
+        List<Long> orderIds = new ArrayList<>();
+        Map<Long, Integer> orderIndex = new HashMap<>();
+        List<List<BatchAssignmentSolver.Arc>> candidates = new ArrayList<>(riderIds.size());
+        for (Long riderId : riderIds) {
+            GeoPoint position = positions.get(riderId);
+            List<BatchAssignmentSolver.Arc> arcs = new ArrayList<>(CANDIDATES_PER_RIDER);
+            for (Long orderId : geoDispatchIndex.nearestLocated(position, CANDIDATES_PER_RIDER)) {
+                GeoPoint store = geoDispatchIndex.pointOf(orderId);
+                if (store == null) {
+                    continue;
+                }
+                double distance = position.distanceTo(store);
+                if (distance > maxPickupMeters) {
+                    continue;
+                }
+                int index = orderIndex.computeIfAbsent(orderId, id -> {
+                    orderIds.add(id);
+                    return orderIds.size() - 1;
+                });
+                arcs.add(new BatchAssignmentSolver.Arc(index, distance));
+            }
+            candidates.add(arcs);
+        }
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        // Step2: 求解分配
+        int[] plan = BatchAssignmentSolver.solve(candidates, orderIds.size());
+        Map<Long, Long> assignments = new LinkedHashMap<>();
+        Map<Long, Order> snapshots = new HashMap<>();
+        for (int i = 0; i < plan.length; i++) {
+            if (plan[i] >= 0) {
+                Long orderId = orderIds.get(plan[i]);
+                assignments.put(orderId, riderIds.get(i));
+                Order order = pendingOrderIndex.get(orderId);
+                if (order != null) {
+                    snapshots.put(orderId, order);
+                }
+            }
+        }
+        if (assignments.isEmpty()) {
+            return 0;
+        }
+
+        // Step3: 批量写入并通知骑手
+        Set<Long> granted = orderService.grabOrdersBatch(assignments);
+        if (granted.isEmpty()) {
+            return 0;
+        }
+        List<Long> busyRiders = granted.stream().map(assignments::get).toList();
+        riderMapper.updateRiderOrderStatusAfterOrderGrabBatch(busyRiders);
+        for (Long orderId : granted) {
+            Order order = snapshots.get(orderId);
+            if (order != null) {
+                riderOrderFeed.notifyAssigned(assignments.get(orderId), order);
+            }
+        }
+        return granted.size();
+    }
+}
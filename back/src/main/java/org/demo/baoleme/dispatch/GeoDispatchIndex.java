@@ -0,0 +1,213 @@
+package org.demo.baoleme.dispatch;
+
+import org.demo.baoleme.pojo.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 待接单订单空间索引（自动派单用）
+ * <p>
+ * 按店铺坐标把订单放入固定大小的经纬度网格，查询时从骑手所在网格向外逐圈扩展，
+ * 只计算附近网格内订单的距离，代价与附近订单数相关，与全部待接单订单数无关。
+ * 店铺位置无法解析为坐标的订单单独按下单先后排队，附近没有可派订单时按先来先派兜底。
+ * <p>
+ * 索引内容由 {@link PendingOrderIndex} 的变化驱动维护。
+ * <p>
+ * 店铺位置目前是自由填写的地址文本，只有形如 "纬度,经度" 的才能解析为坐标，其余订单全部落入先来先派队列，
+ * 因此默认关闭（dispatch.geo.enabled），关闭时不维护索引，自动派单直接按数据库中的下单先后派单。
+ * 店铺录入坐标后再开启。
+ */
+@Component
+public class GeoDispatchIndex implements PendingOrderIndex.Listener {
+
+    /** 网格边长（度），约 1.1 公里 */
+    static final double CELL_DEGREES = 0.01;
+
+    /** 最大搜索圈数，超出（约 50 公里）的订单不参与就近派单 */
+    static final int MAX_RING = 45;
+
+    private static final double METERS_PER_DEGREE = 111_195d;
+
+    /** 网格 -> 订单ID */
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    /** 订单ID -> 店铺坐标 */
+    private final Map<Long, GeoPoint> points = new ConcurrentHashMap<>();
+
+    /** 无坐标的订单，订单ID自增，升序即下单先后 */
+    private final NavigableSet<Long> unlocated = new ConcurrentSkipListSet<>();
+
+    private final boolean enabled;
+
+    public GeoDispatchIndex(PendingOrderIndex pendingOrderIndex,
+                            @Value("${dispatch.geo.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            pendingOrderIndex.addListener(this);
+        }
+    }
+
+    /**
+     * 是否启用就近派单；关闭时索引始终为空
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void onAdded(Order order) {
+        add(order.getId(), GeoPoint.parse(order.getStoreLocation()));
+    }
+
+    @Override
+    public void onRemoved(Long orderId) {
+        remove(orderId);
+    }
+
+    @Override
+    public void onReset(Collection<Order> orders) {
+        cells.clear();
+        points.clear();
+        unlocated.clear();
+        orders.forEach(this::onAdded);
+    }
+
+    public void add(Long orderId, GeoPoint point) {
+        remove(orderId);
+        if (point == null) {
+            unlocated.add(orderId);
+            return;
+        }
+        points.put(orderId, point);
+        // 与 remove 一样在网格的桶锁内修改，避免加入一个刚被 remove 判空移出的集合
+        cells.compute(cellKey(point), (k, ids) -> {
+            Set<Long> cell = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            cell.add(orderId);
+            return cell;
+        });
+    }
+
+    public void remove(Long orderId) {
+        unlocated.remove(orderId);
+        GeoPoint point = points.remove(orderId);
+        if (point != null) {
+            cells.computeIfPresent(cellKey(point), (k, ids) -> {
+                ids.remove(orderId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * 查找距骑手最近的至多 limit 个订单，按距离升序返回
+     * <p>
+     * 骑手位置未知或附近没有订单时，返回最早的无坐标订单。
+     *
+     * @param from  骑手位置，可为空
+     * @param limit 候选数量（抢占失败时调用方可依次尝试下一个）
+     */
+    public List<Long> nearest(GeoPoint from, int limit) {
+        List<Long> result = from == null ? new ArrayList<>() : nearestLocated(from, limit);
+        Iterator<Long> it = unlocated.iterator();
+        while (result.size() < limit && it.hasNext()) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /**
+     * 订单的店铺坐标，无坐标或不在索引中时返回 null
+     */
+    public GeoPoint pointOf(Long orderId) {
+        return points.get(orderId);
+    }
+
+    public int size() {
+        return points.size() + unlocated.size();
+    }
+
+    /**
+     * 只在有坐标的订单中查找最近的至多 limit 个，按距离升序返回
+     */
+    public List<Long> nearestLocated(GeoPoint from, int limit) {
+        int row = latIndex(from.getLat());
+        int col = lngIndex(from.getLng());
+        // 网格在经度方向随纬度收窄，取较短的一边作为每圈最小间距
+        double cellMeters = CELL_DEGREES * METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(from.getLat())), 0.01);
+
+        // 大顶堆，保留当前最近的 limit 个
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance).reversed());
+        for (int r = 0; r <= MAX_RING; r++) {
+            // 第 r 圈与骑手之间至少隔着 r-1 个整格，已有足够候选且都更近时停止扩展
+            if (best.size() >= limit && (r - 1) * cellMeters > best.peek().distance()) {
+                break;
+            }
+            for (long key : ring(row, col, r)) {
+                Set<Long> ids = cells.get(key);
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    GeoPoint point = points.get(id);
+                    if (point == null) {
+                        continue;
+                    }
+                    best.offer(new Candidate(id, from.distanceTo(point)));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(Candidate::distance));
+        List<Long> result = new ArrayList<>(limit);
+        for (Candidate candidate : sorted) {
+            result.add(candidate.orderId());
+        }
+        return result;
+    }
+
+    /**
+     * 第 r 圈的全部网格
+     */
+    private static List<Long> ring(int row, int col, int r) {
+        if (r == 0) {
+            return List.of(cellKey(row, col));
+        }
+        List<Long> keys = new ArrayList<>(8 * r);
+        for (int d = -r; d <= r; d++) {
+            keys.add(cellKey(row - r, col + d));
+            keys.add(cellKey(row + r, col + d));
+        }
+        for (int d = -r + 1; d <= r - 1; d++) {
+            keys.add(cellKey(row + d, col - r));
+            keys.add(cellKey(row + d, col + r));
+        }
+        return keys;
+    }
+
+    private static long cellKey(GeoPoint point) {
+        return cellKey(latIndex(point.getLat()), lngIndex(point.getLng()));
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    private static int latIndex(double lat) {
+        return (int) Math.floor(lat / CELL_DEGREES);
+    }
+
+    private static int lngIndex(double lng) {
+        return (int) Math.floor(lng / CELL_DEGREES);
+    }
+
+    private record Candidate(long orderId, double distance) {
+    }
+}
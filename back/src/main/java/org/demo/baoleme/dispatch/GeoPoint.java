@@ -0,0 +1,70 @@
+package org.demo.baoleme.dispatch;
+
+/**
+ * 经纬度坐标
+ * <p>
+ * 店铺、订单中的位置字段为自由文本，只有形如 "纬度,经度"（如 "30.5,114.3"）的值才能解析为坐标，
+ * 其余（如 "北京海淀区"）返回 null，由调用方按无坐标处理。
+ */
+public final class GeoPoint {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000d;
+
+    private final double lat;
+    private final double lng;
+
+    public GeoPoint(double lat, double lng) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new IllegalArgumentException("经纬度超出范围");
+        }
+        this.lat = lat;
+        this.lng = lng;
+    }
+
+    /**
+     * 解析 "纬度,经度" 格式的位置，无法解析时返回 null
+     */
+    public static GeoPoint parse(String location) {
+        if (location == null) {
+            return null;
+        }
+        int comma = location.indexOf(',');
+        if (comma < 0) {
+            comma = location.indexOf('，');
+        }
+        if (comma <= 0) {
+            return null;
+        }
+        try {
+            return new GeoPoint(Double.parseDouble(location.substring(0, comma).trim()),
+                    Double.parseDouble(location.substring(comma + 1).trim()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 球面距离（米），Haversine 公式
+     */
+    public double distanceTo(GeoPoint other) {
+        double dLat = Math.toRadians(other.lat - lat);
+        double dLng = Math.toRadians(other.lng - lng);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(other.lat))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+
+    @Override
+    public String toString() {
+        return lat + "," + lng;
+    }
+}
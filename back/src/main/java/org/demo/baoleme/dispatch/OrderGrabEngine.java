@@ -0,0 +1,136 @@
+package org.demo.baoleme.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.mapper.OrderMapper;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存抢单引擎
+ * <p>
+ * 将待接单订单保存在按订单ID分片的内存表中，每个订单对应一个可 CAS 抢占的槽位：
+ * 槽位值为 0 表示空闲，否则为抢到该订单的骑手ID。
+ * 同一订单只有 CAS 成功的骑手才会去写数据库，其余骑手在内存中直接被拒绝，
+ * 不再经过 Redis 加锁和 MySQL 更新。
+ */
+@Slf4j
+@Component
+public class OrderGrabEngine {
+
+    /**
+     * 抢单结果
+     */
+    public enum ClaimResult {
+        /** 抢占成功，需要由调用方持久化 */
+        CLAIMED,
+        /** 已被其他骑手抢占 */
+        TAKEN,
+        /** 引擎中没有该订单（例如其他节点创建），需回退到数据库判断 */
+        UNKNOWN
+    }
+
+    private static final long FREE = 0L;
+
+    /**
+     * 分片数，必须为 2 的幂
+     */
+    private static final int SHARD_COUNT = 32;
+
+    private final OrderMapper orderMapper;
+
+    /**
+     * 分片表：orderId -> 抢占槽位
+     */
+    private final Map<Long, AtomicLong>[] shards;
+
+    @SuppressWarnings("unchecked")
+    public OrderGrabEngine(OrderMapper orderMapper) {
+        this.orderMapper = orderMapper;
+        this.shards = new Map[SHARD_COUNT];
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * 启动时根据数据库中 status = 0 AND rider_id IS NULL 的订单重建内存表
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Long> pendingIds = orderMapper.selectPendingOrderIds();
+        for (Map<Long, AtomicLong> shard : shards) {
+            shard.clear();
+        }
+        if (pendingIds != null) {
+            pendingIds.forEach(this::register);
+        }
+        log.info("抢单引擎重建完成，待接单订单数：{}", size());
+    }
+
+    /**
+     * 登记一个可抢订单（新建订单或骑手取消后重新开放）
+     */
+    public void register(Long orderId) {
+        if (orderId == null) {
+            return;
+        }
+        shard(orderId).put(orderId, new AtomicLong(FREE));
+    }
+
+    /**
+     * 从引擎中移除订单（已被持久化抢走、取消或失效）
+     */
+    public void remove(Long orderId) {
+        if (orderId == null) {
+            return;
+        }
+        shard(orderId).remove(orderId);
+    }
+
+    /**
+     * 尝试在内存中抢占订单
+     *
+     * @param orderId 订单ID
+     * @param riderId 骑手ID
+     * @return 抢占结果
+     */
+    public ClaimResult tryClaim(Long orderId, Long riderId) {
+        AtomicLong slot = shard(orderId).get(orderId);
+        if (slot == null) {
+            return ClaimResult.UNKNOWN;
+        }
+        return slot.compareAndSet(FREE, riderId) ? ClaimResult.CLAIMED : ClaimResult.TAKEN;
+    }
+
+    /**
+     * 持久化失败时释放抢占，允许其他骑手继续抢单
+     */
+    public void release(Long orderId, Long riderId) {
+        AtomicLong slot = shard(orderId).get(orderId);
+        if (slot != null) {
+            slot.compareAndSet(riderId, FREE);
+        }
+    }
+
+    /**
+     * 当前引擎中的订单数
+     */
+    public int size() {
+        int total = 0;
+        for (Map<Long, AtomicLong> shard : shards) {
+            total += shard.size();
+        }
+        return total;
+    }
+
+    private Map<Long, AtomicLong> shard(Long orderId) {
+        long h = orderId ^ (orderId >>> 32);
+        return shards[(int) (h & (SHARD_COUNT - 1))];
+    }
+}
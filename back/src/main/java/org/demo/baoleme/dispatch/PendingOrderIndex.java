@@ -0,0 +1,120 @@
+package org.demo.baoleme.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.mapper.OrderMapper;
+import org.demo.baoleme.pojo.Order;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 待接单订单内存索引
+ * <p>
+ * 保存所有 status = 0 且未分配骑手的订单快照，由下单、抢单、骑手取消等写路径同步维护，
+ * 变化时通知已注册的监听器（例如骑手订单推送），骑手端无需轮询 /orders/available。
+ */
+@Slf4j
+@Component
+public class PendingOrderIndex {
+
+    /**
+     * 索引变化监听器
+     */
+    public interface Listener {
+
+        /** 有新的可抢订单（新建或重新开放） */
+        void onAdded(Order order);
+
+        /** 订单已被抢走、取消或失效 */
+        void onRemoved(Long orderId);
+
+        /** 索引从数据库整体重建 */
+        default void onReset(Collection<Order> orders) {
+        }
+    }
+
+    /** 按创建时间倒序，与 /orders/available 的排序一致 */
+    private static final Comparator<Order> NEWEST_FIRST = Comparator
+            .comparing(Order::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Order::getId, Comparator.reverseOrder());
+
+    private final OrderMapper orderMapper;
+
+    private final Map<Long, Order> orders = new ConcurrentHashMap<>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public PendingOrderIndex(OrderMapper orderMapper) {
+        this.orderMapper = orderMapper;
+    }
+
+    /**
+     * 启动时从数据库加载待接单订单
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Order> pending = orderMapper.selectPendingOrders();
+        orders.clear();
+        if (pending != null) {
+            pending.forEach(order -> orders.put(order.getId(), order));
+        }
+        for (Listener listener : listeners) {
+            listener.onReset(orders.values());
+        }
+        log.info("待接单索引重建完成，订单数：{}", orders.size());
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 登记可抢订单，已存在时覆盖快照
+     */
+    public void add(Order order) {
+        if (order == null || order.getId() == null) {
+            return;
+        }
+        orders.put(order.getId(), order);
+        for (Listener listener : listeners) {
+            listener.onAdded(order);
+        }
+    }
+
+    /**
+     * 移除订单，不在索引中时不通知
+     */
+    public void remove(Long orderId) {
+        if (orderId == null || orders.remove(orderId) == null) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            listener.onRemoved(orderId);
+        }
+    }
+
+    public Order get(Long orderId) {
+        return orders.get(orderId);
+    }
+
+    /**
+     * 按创建时间倒序返回最多 limit 个待接单订单
+     */
+    public List<Order> newest(int limit) {
+        return orders.values().stream()
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
+                .toList();
+    }
+
+    public int size() {
+        return orders.size();
+    }
+}
@@ -0,0 +1,244 @@
+package org.demo.baoleme.dispatch;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.dto.response.order.OrderListResponse;
+import org.demo.baoleme.pojo.Order;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 骑手新订单推送（SSE）
+ * <p>
+ * 骑手订阅后先收到一次当前可抢订单快照（snapshot），之后由 {@link PendingOrderIndex} 的变化驱动推送：
+ * 新订单为 created 事件，被抢走或取消的订单为 removed 事件；批量派单派给该骑手的订单单独推送 assigned 事件，
+ * 超过截止时间仍未送达的订单推送 overdue 事件提醒骑手。
+ * <p>
+ * 每个连接有自己的有界事件队列，由发送线程池按连接串行发送，既保证同一连接上事件有序，也不会阻塞下单、抢单的请求线程。
+ * 写满网络缓冲区的慢客户端在写超时前会占住一个发送线程，但不影响其他线程上的连接；
+ * 它的队列写满后连接被关闭，客户端（EventSource）重连时重新收到快照。
+ */
+@Slf4j
+@Component
+public class RiderOrderFeed implements PendingOrderIndex.Listener {
+
+    /** 订阅时推送的快照条数 */
+    private static final int SNAPSHOT_SIZE = 50;
+
+    /** 连接超时时间，超时后客户端（EventSource）会自动重连 */
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    /** 每个连接最多积压的事件数，超过即视为跟不上推送并关闭连接 */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /** 发送线程数 */
+    private static final int SENDER_THREADS = 4;
+
+    private final PendingOrderIndex pendingOrderIndex;
+
+    /** riderId -> 推送连接，同一骑手新连接会替换旧连接 */
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger senderSequence = new AtomicInteger();
+
+    private final ExecutorService sender = Executors.newFixedThreadPool(SENDER_THREADS, r -> {
+        Thread thread = new Thread(r, "rider-order-feed-" + senderSequence.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RiderOrderFeed(PendingOrderIndex pendingOrderIndex) {
+        this.pendingOrderIndex = pendingOrderIndex;
+        pendingOrderIndex.addListener(this);
+    }
+
+    /**
+     * 骑手订阅推送
+     */
+    public SseEmitter subscribe(Long riderId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(riderId, emitter);
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(subscriber::detach);
+        emitter.onError(e -> subscriber.detach());
+
+        Subscriber previous = subscribers.put(riderId, subscriber);
+        if (previous != null) {
+            previous.close();
+        }
+
+        List<OrderListResponse.OrderBrief> snapshot = pendingOrderIndex.newest(SNAPSHOT_SIZE).stream()
+                .map(OrderListResponse.OrderBrief::of)
+                .toList();
+        subscriber.offer(SseEmitter.event().name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    @Override
+    public void onAdded(Order order) {
+        OrderListResponse.OrderBrief brief = OrderListResponse.OrderBrief.of(order);
+        broadcast(() -> SseEmitter.event().name("created").data(brief, MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void onRemoved(Long orderId) {
+        broadcast(() -> SseEmitter.event().name("removed")
+                .data(Map.of("order_id", orderId), MediaType.APPLICATION_JSON));
+    }
+
+    /**
+     * 通知骑手系统已为其派单
+     */
+    public void notifyAssigned(Long riderId, Order order) {
+        Subscriber subscriber = subscribers.get(riderId);
+        if (subscriber != null) {
+            subscriber.offer(SseEmitter.event().name("assigned")
+                    .data(OrderListResponse.OrderBrief.of(order), MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * 提醒骑手订单已超过截止时间
+     */
+    public void notifyOverdue(Long riderId, Long orderId) {
+        Subscriber subscriber = subscribers.get(riderId);
+        if (subscriber != null) {
+            subscriber.offer(SseEmitter.event().name("overdue")
+                    .data(Map.of("order_id", orderId), MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * 定时发送注释行作为心跳，防止代理因空闲断开连接，同时清理已失效的连接
+     */
+    @Scheduled(fixedDelay = 25_000)
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            broadcast(() -> SseEmitter.event().comment("ping"));
+        }
+    }
+
+    /**
+     * 当前在线订阅数
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * SseEventBuilder 在发送时会被修改，不能跨连接复用，因此每个连接单独构建事件
+     */
+    private void broadcast(Supplier<SseEmitter.SseEventBuilder> event) {
+        subscribers.values().forEach(subscriber -> subscriber.offer(event.get()));
+    }
+
+    /**
+     * 单个推送连接：事件先进入有界队列，同一时刻最多一个发送线程在发送该连接的事件
+     */
+    private final class Subscriber implements Runnable {
+
+        private final Long riderId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        /** 是否已提交到发送线程池（或正在发送） */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /** 不再发送新事件；由我方关闭时还需在发送线程上结束连接 */
+        private volatile boolean closed;
+        private volatile boolean completeOnDrain;
+
+        Subscriber(Long riderId, SseEmitter emitter) {
+            this.riderId = riderId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                log.info("骑手 {} 推送积压超过 {} 条，关闭连接等待重连", riderId, QUEUE_CAPACITY);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        /**
+         * 停止推送并结束连接；连接可能正阻塞在发送上，因此在发送线程上结束，调用方不会被阻塞
+         */
+        void close() {
+            completeOnDrain = true;
+            detach();
+            schedule();
+        }
+
+        /**
+         * 连接已结束（完成、超时或出错），只需停止推送
+         */
+        void detach() {
+            closed = true;
+            subscribers.remove(riderId, this);
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // 客户端已断开，移除连接
+                        detach();
+                        log.debug("骑手 {} 推送连接已断开：{}", riderId, e.getMessage());
+                    }
+                }
+                if (closed) {
+                    queue.clear();
+                    if (completeOnDrain) {
+                        completeOnDrain = false;
+                        emitter.complete();
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                if (closed ? completeOnDrain : !queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.demo.baoleme.dispatch;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 骑手实时位置
+ * <p>
+ * 骑手端定期上报坐标，只保存在内存中供派单使用；超过有效期未更新的位置视为未知。
+ */
+@Component
+public class RiderPositionRegistry {
+
+    /** 位置有效期（毫秒） */
+    private static final long POSITION_TTL_MILLIS = 10 * 60 * 1000L;
+
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+
+    public void update(Long riderId, GeoPoint point) {
+        positions.put(riderId, new Position(point, System.currentTimeMillis()));
+    }
+
+    /**
+     * 获取骑手最近上报的位置，未上报或已过期时返回 null
+     */
+    public GeoPoint get(Long riderId) {
+        Position position = positions.get(riderId);
+        if (position == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - position.reportedAt() > POSITION_TTL_MILLIS) {
+            positions.remove(riderId, position);
+            return null;
+        }
+        return position.point();
+    }
+
+    /**
+     * 所有位置仍有效的骑手
+     */
+    public Map<Long, GeoPoint> snapshot() {
+        long now = System.currentTimeMillis();
+        Map<Long, GeoPoint> result = new HashMap<>();
+        positions.forEach((riderId, position) -> {
+            if (now - position.reportedAt() <= POSITION_TTL_MILLIS) {
+                result.put(riderId, position.point());
+            }
+        });
+        return result;
+    }
+
+    public void remove(Long riderId) {
+        positions.remove(riderId);
+    }
+
+    private record Position(GeoPoint point, long reportedAt) {
+    }
+}
@@ -27,4 +27,7 @@ public class AdminOrderQueryRequest {
 
     private LocalDateTime createdAt; // 示例格式：2025-05-18
     private LocalDateTime endedAt;   // 示例格式：2025-05-20
+
+    /** 游标分页：上一页返回的 next_cursor，首页传空字符串；传入时忽略 page */
+    private String cursor;
 }
\ No newline at end of file
@@ -14,4 +14,7 @@ public class RiderOrderHistoryQueryRequest {
     private LocalDateTime endTime;
     private Integer page;
     private Integer pageSize;
+
+    /** 游标分页：上一页返回的 next_cursor，首页传空字符串；不传则按 page 分页 */
+    private String cursor;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package org.demo.baoleme.dto.request.rider;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class RiderPositionRequest {
+
+    @NotNull(message = "纬度不能为空")
+    @DecimalMin(value = "-90", message = "纬度超出范围")
+    @DecimalMax(value = "90", message = "纬度超出范围")
+    private Double latitude;
+
+    @NotNull(message = "经度不能为空")
+    @DecimalMin(value = "-180", message = "经度超出范围")
+    @DecimalMax(value = "180", message = "经度超出范围")
+    private Double longitude;
+}
@@ -1,8 +1,10 @@
 package org.demo.baoleme.dto.response.order;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import lombok.Data;
+import org.demo.baoleme.pojo.Order;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -20,6 +22,10 @@ import java.util.List;
 public class OrderListResponse {
     private List<OrderBrief> orders;
 
+    /** 下一页游标，仅游标分页时返回，没有更多数据时为空 */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
     @Data
     @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
     public static class OrderBrief {
@@ -29,5 +35,16 @@ public class OrderListResponse {
         private String deliveryAddress;
         private BigDecimal totalAmount;
         private Integer estimatedTime;
+
+        public static OrderBrief of(Order order) {
+            OrderBrief brief = new OrderBrief();
+            brief.setOrderId(order.getId());
+            brief.setShopName("店铺" + order.getStoreId()); // 临时方案，实际应该查询店铺表
+            brief.setShopLocation(order.getStoreLocation());
+            brief.setDeliveryAddress(order.getUserLocation());
+            brief.setTotalAmount(order.getTotalPrice());
+            brief.setEstimatedTime(30); // 默认30分钟预估时间
+            return brief;
+        }
     }
 }
\ No newline at end of file
@@ -19,5 +19,6 @@ import java.math.BigDecimal;
 public class RiderEarningsResponse {
     private BigDecimal totalEarnings;
     private BigDecimal currentMonth;
+    private BigDecimal today;
     private Integer completedOrders;
 }
\ No newline at end of file
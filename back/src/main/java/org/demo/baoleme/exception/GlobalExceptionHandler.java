@@ -11,7 +11,9 @@ package org.demo.baoleme.exception;
 import lombok.extern.slf4j.Slf4j;
 import org.demo.baoleme.common.CommonResponse;
 import org.demo.baoleme.common.ResponseBuilder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
@@ -117,6 +119,20 @@ public class GlobalExceptionHandler {
         return ResponseBuilder.fail("请求参数无效: " + ex.getMessage());
     }
 
+    /**
+     * 处理服务繁忙异常，返回 429 并告知客户端多久后重试
+     * 
+     * @param ex 服务繁忙异常
+     * @return ResponseEntity 带 Retry-After 头的错误响应
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<CommonResponse> handleServiceBusyException(ServiceBusyException ex) {
+        log.warn("服务繁忙: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ResponseBuilder.custom(false, HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage(), null));
+    }
+
     /**
      * 处理运行时异常
      * 
@@ -0,0 +1,26 @@
+/**
+ * 服务繁忙异常
+ * 有界资源（如密码哈希线程池）已满时抛出，由全局异常处理器转换为 429 响应
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.exception;
+
+import lombok.Getter;
+
+/**
+ * 服务繁忙异常类
+ * 携带建议的重试等待秒数，写入响应的 Retry-After 头
+ */
+@Getter
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
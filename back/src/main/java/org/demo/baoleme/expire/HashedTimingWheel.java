@@ -0,0 +1,151 @@
+package org.demo.baoleme.expire;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * 哈希时间轮
+ * <p>
+ * 把 [0, ∞) 的时间按 tick 划分，第 n 个 tick 的定时器放入槽 n % wheelSize。
+ * 每推进一个 tick 只扫描一个槽：到期的定时器回调并移除，属于后续轮次的留在原槽，
+ * 因此登记和触发都是 O(1)，不需要为每个定时器单独创建调度任务。
+ * <p>
+ * 槽内用两个 long 数组保存 (id, 到期 tick)，另有 id -> 到期 tick 的索引。
+ * 每个 id 只有一个有效定时器，重复登记以最后一次为准：旧定时器留在原槽中，扫描到时与索引不符即丢弃，
+ * 不需要在槽内查找删除；{@link #cancel} 同样只需移除索引。
+ * <p>
+ * {@link #schedule} 可在任意线程调用，{@link #advance} 只能由单个线程驱动。
+ * 两者互斥，且推进时先发布扫描位置再扫描槽，推进期间登记（包括回调中重新登记）的定时器
+ * 不会落入本轮已扫描过的槽，否则要多等一整圈才会触发。
+ */
+public class HashedTimingWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Bucket[] buckets;
+
+    /** id -> 当前有效定时器的到期 tick */
+    private final Map<Long, Long> live = new HashMap<>();
+
+    /** 下一个待处理的 tick */
+    private volatile long nextTick;
+
+    /**
+     * @param tickMillis  每个 tick 的时长（毫秒）
+     * @param wheelSize   槽数，向上取整为 2 的幂
+     * @param startMillis 时间轮起点，通常为当前时间
+     */
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis 和 wheelSize 必须为正数");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = Math.max(size, 1) - 1;
+        this.buckets = new Bucket[mask + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.nextTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 登记定时器，已过期的定时器在下一次推进时触发；该 id 已有定时器时替换为新的到期时间
+     *
+     * @param id             定时器标识（如订单ID）
+     * @param deadlineMillis 到期时间（毫秒时间戳）
+     */
+    public synchronized void schedule(long id, long deadlineMillis) {
+        long tick = Math.max(deadlineMillis / tickMillis, nextTick);
+        Long previous = live.put(id, tick);
+        if (previous == null || previous != tick) {
+            buckets[(int) (tick & mask)].add(id, tick);
+        }
+    }
+
+    /**
+     * 取消定时器
+     *
+     * @return 该 id 是否有尚未触发的定时器
+     */
+    public synchronized boolean cancel(long id) {
+        return live.remove(id) != null;
+    }
+
+    /**
+     * 推进到 nowMillis，依次触发其间到期的定时器
+     *
+     * @return 触发的定时器数量
+     */
+    public synchronized int advance(long nowMillis, LongConsumer expired) {
+        long target = nowMillis / tickMillis;
+        int fired = 0;
+        // 落后超过一整圈时，每个槽只需扫描一次
+        long from = Math.max(nextTick, target - mask);
+        for (long tick = from; tick <= target; tick++) {
+            // 先发布扫描位置，回调中重新登记的定时器至少落在下一个槽
+            nextTick = tick + 1;
+            fired += buckets[(int) (tick & mask)].expire(target, live, expired);
+        }
+        if (target + 1 > nextTick) {
+            nextTick = target + 1;
+        }
+        return fired;
+    }
+
+    /**
+     * 当前有效的定时器总数
+     */
+    public synchronized int size() {
+        return live.size();
+    }
+
+    private static final class Bucket {
+
+        private long[] ids = new long[4];
+        private long[] ticks = new long[4];
+        private int size;
+
+        synchronized void add(long id, long tick) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                ticks = Arrays.copyOf(ticks, size * 2);
+            }
+            ids[size] = id;
+            ticks[size] = tick;
+            size++;
+        }
+
+        /**
+         * 移除所有 tick <= target 的定时器并回调其中仍有效的，保留其余定时器
+         */
+        int expire(long target, Map<Long, Long> live, LongConsumer expired) {
+            long[] due;
+            int dueCount = 0;
+            synchronized (this) {
+                due = new long[size];
+                int kept = 0;
+                for (int i = 0; i < size; i++) {
+                    if (ticks[i] <= target) {
+                        // 已被重新登记或取消的旧定时器直接丢弃
+                        if (live.remove(ids[i], ticks[i])) {
+                            due[dueCount++] = ids[i];
+                        }
+                    } else {
+                        ids[kept] = ids[i];
+                        ticks[kept] = ticks[i];
+                        kept++;
+                    }
+                }
+                size = kept;
+            }
+            // 回调在槽锁外执行，回调中可以重新登记定时器（时间轮的锁可重入）
+            for (int i = 0; i < dueCount; i++) {
+                expired.accept(due[i]);
+            }
+            return dueCount;
+        }
+    }
+}
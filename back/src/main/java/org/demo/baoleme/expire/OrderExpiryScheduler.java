@@ -0,0 +1,261 @@
+package org.demo.baoleme.expire;
+
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.dispatch.OrderGrabEngine;
+import org.demo.baoleme.dispatch.PendingOrderIndex;
+import org.demo.baoleme.dispatch.RiderOrderFeed;
+import org.demo.baoleme.mapper.OrderMapper;
+import org.demo.baoleme.pojo.Order;
+import org.demo.baoleme.stock.StockReservationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 订单截止时间到期处理
+ * <p>
+ * 每个未结束订单在 {@link HashedTimingWheel} 中登记一个到期定时器，由单个定时任务推进时间轮：
+ * <ul>
+ *     <li>仍待接单的订单用一条条件 UPDATE 批量取消，并从抢单引擎、待接单索引中移除，预占模式下释放库存；</li>
+ *     <li>已接单但超时未送达的订单升级提醒骑手，隔一段时间后再次检查，最多提醒 {@value #MAX_ESCALATIONS} 次；</li>
+ *     <li>已完成、已取消的订单从抢单引擎、待接单索引中清理后丢弃，截止时间被推迟的订单重新登记。</li>
+ * </ul>
+ * 每个订单只有一个定时器，重复登记以最后一次为准。定时器只保存在内存中，启动时从订单表重建。
+ */
+@Slf4j
+@Component
+public class OrderExpiryScheduler implements PendingOrderIndex.Listener {
+
+    /** 时间轮 tick 时长（毫秒），与推进周期一致 */
+    private static final long TICK_MILLIS = 1000L;
+
+    /** 时间轮槽数，一圈约 68 分钟，默认 45 分钟截止的订单在第一圈内到期 */
+    private static final int WHEEL_SIZE = 4096;
+
+    /** 订单未指定截止时间时由数据库触发器填充为创建后 45 分钟 */
+    private static final long DEFAULT_DEADLINE_MILLIS = 45 * 60 * 1000L;
+
+    /** 每条 SQL 处理的订单数上限 */
+    private static final int BATCH_SIZE = 500;
+
+    /** 超时未送达的订单再次提醒的间隔（毫秒） */
+    private static final long ESCALATE_INTERVAL_MILLIS = 10 * 60 * 1000L;
+
+    /** 超时未送达的订单最多提醒的次数 */
+    private static final int MAX_ESCALATIONS = 3;
+
+    /** 取消条件未满足（如数据库时钟稍慢）时的重试间隔（毫秒） */
+    private static final long RETRY_MILLIS = 5000L;
+
+    private final HashedTimingWheel wheel = new HashedTimingWheel(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+
+    /** 订单ID -> 已提醒次数 */
+    private final Map<Long, Integer> escalations = new ConcurrentHashMap<>();
+
+    private final OrderMapper orderMapper;
+    private final OrderGrabEngine orderGrabEngine;
+    private final PendingOrderIndex pendingOrderIndex;
+    private final RiderOrderFeed riderOrderFeed;
+    private final StockReservationService stockReservationService;
+
+    @Value("${order.expiry.enabled:true}")
+    private boolean enabled;
+
+    public OrderExpiryScheduler(OrderMapper orderMapper,
+                                OrderGrabEngine orderGrabEngine,
+                                PendingOrderIndex pendingOrderIndex,
+                                RiderOrderFeed riderOrderFeed,
+                                StockReservationService stockReservationService) {
+        this.orderMapper = orderMapper;
+        this.orderGrabEngine = orderGrabEngine;
+        this.pendingOrderIndex = pendingOrderIndex;
+        this.riderOrderFeed = riderOrderFeed;
+        this.stockReservationService = stockReservationService;
+        pendingOrderIndex.addListener(this);
+    }
+
+    /**
+     * 启动时按主键分批加载未结束订单，重建到期定时器
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rehydrate() {
+        long lastId = 0;
+        int total = 0;
+        while (true) {
+            List<Order> page = orderMapper.selectOpenOrderDeadlines(lastId, BATCH_SIZE * 10);
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            for (Order order : page) {
+                schedule(order);
+            }
+            total += page.size();
+            lastId = page.get(page.size() - 1).getId();
+            if (page.size() < BATCH_SIZE * 10) {
+                break;
+            }
+        }
+        log.info("订单到期定时器重建完成，订单数：{}", total);
+    }
+
+    /**
+     * 订单新建或被骑手退回时登记定时器，替换该订单已有的定时器；到期时以数据库状态为准
+     */
+    @Override
+    public void onAdded(Order order) {
+        schedule(order);
+    }
+
+    @Override
+    public void onRemoved(Long orderId) {
+        // 不主动取消定时器，到期时按订单状态丢弃
+    }
+
+    /**
+     * 登记订单的到期定时器，替换该订单已有的定时器
+     */
+    public void schedule(Order order) {
+        if (order == null || order.getId() == null) {
+            return;
+        }
+        wheel.schedule(order.getId(), deadlineMillis(order));
+    }
+
+    /**
+     * 当前登记的定时器数量
+     */
+    public int pendingTimers() {
+        return wheel.size();
+    }
+
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> due = new ArrayList<>();
+        wheel.advance(System.currentTimeMillis(), due::add);
+        if (due.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            List<Long> batch = due.subList(from, Math.min(from + BATCH_SIZE, due.size()));
+            try {
+                expire(batch);
+            } catch (Exception e) {
+                // 数据库异常时稍后重试，避免定时器丢失
+                log.error("订单到期处理失败，订单数：{}", batch.size(), e);
+                long retryAt = System.currentTimeMillis() + RETRY_MILLIS;
+                batch.forEach(orderId -> wheel.schedule(orderId, retryAt));
+            }
+        }
+    }
+
+    /**
+     * 处理一批到期订单
+     *
+     * @return 取消的订单数
+     */
+    int expire(List<Long> orderIds) {
+        long now = System.currentTimeMillis();
+        List<Order> states = orderMapper.selectDeadlineStates(orderIds);
+        if (states == null || states.isEmpty()) {
+            return 0;
+        }
+
+        // Step1: 按当前状态分类
+        List<Long> cancelable = new ArrayList<>();
+        for (Order order : states) {
+            Integer status = order.getStatus();
+            if (status == null || status == 3 || status == 4) {
+                // 可能经由其他途径结束，确保内存索引中不再残留
+                orderGrabEngine.remove(order.getId());
+                pendingOrderIndex.remove(order.getId());
+                escalations.remove(order.getId());
+                continue;
+            }
+            long deadline = deadlineMillis(order);
+            if (deadline > now) {
+                // 截止时间被推迟，按新时间重新登记
+                escalations.remove(order.getId());
+                wheel.schedule(order.getId(), deadline);
+            } else if (status == 0 && order.getRiderId() == null) {
+                cancelable.add(order.getId());
+            } else {
+                int count = escalations.merge(order.getId(), 1, Integer::sum);
+                escalate(order);
+                if (count < MAX_ESCALATIONS) {
+                    wheel.schedule(order.getId(), now + ESCALATE_INTERVAL_MILLIS);
+                } else {
+                    escalations.remove(order.getId());
+                    wheel.cancel(order.getId());
+                    log.warn("订单超时未送达已提醒 {} 次，不再提醒，订单ID：{}", count, order.getId());
+                }
+            }
+        }
+        if (cancelable.isEmpty()) {
+            return 0;
+        }
+
+        // Step2: 一条条件 UPDATE 批量取消，期间被抢走的订单不受影响
+        int cancelled = orderMapper.cancelExpiredOrders(cancelable);
+        Set<Long> cancelledIds;
+        if (cancelled == cancelable.size()) {
+            cancelledIds = new HashSet<>(cancelable);
+        } else {
+            cancelledIds = new HashSet<>();
+            for (Order order : orderMapper.selectDeadlineStates(cancelable)) {
+                if (Integer.valueOf(4).equals(order.getStatus())) {
+                    cancelledIds.add(order.getId());
+                } else {
+                    // 被抢走或数据库时钟尚未到期，稍后按新状态处理
+                    wheel.schedule(order.getId(), now + RETRY_MILLIS);
+                }
+            }
+        }
+
+        // Step3: 同步内存状态
+        for (Long orderId : cancelledIds) {
+            orderGrabEngine.remove(orderId);
+            pendingOrderIndex.remove(orderId);
+            if (stockReservationService.isEnabled()) {
+                stockReservationService.release(orderId);
+            }
+        }
+        if (!cancelledIds.isEmpty()) {
+            log.info("超时未接单订单已取消，订单数：{}", cancelledIds.size());
+        }
+        return cancelledIds.size();
+    }
+
+    /**
+     * 已接单但超过截止时间仍未送达，提醒骑手
+     */
+    private void escalate(Order order) {
+        log.warn("订单超时未送达，订单ID：{}，骑手ID：{}，状态：{}", order.getId(), order.getRiderId(), order.getStatus());
+        if (order.getRiderId() != null) {
+            riderOrderFeed.notifyOverdue(order.getRiderId(), order.getId());
+        }
+    }
+
+    private static long deadlineMillis(Order order) {
+        LocalDateTime deadline = order.getDeadline();
+        if (deadline != null) {
+            return toMillis(deadline);
+        }
+        LocalDateTime createdAt = order.getCreatedAt();
+        long created = createdAt != null ? toMillis(createdAt) : System.currentTimeMillis();
+        return created + DEFAULT_DEADLINE_MILLIS;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
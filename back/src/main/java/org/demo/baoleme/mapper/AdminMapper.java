@@ -2,7 +2,9 @@ package org.demo.baoleme.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 import org.demo.baoleme.pojo.Admin;
 
 @Mapper
@@ -13,4 +15,13 @@ public interface AdminMapper extends BaseMapper<Admin> {
      */
     @Select("SELECT * FROM admin WHERE id = #{id}")
     Admin selectById(Long id);
+
+    /**
+     * 回写重新哈希的密码：仅当库中仍是校验通过的旧哈希时才更新，
+     * 避免重新哈希期间用户改了密码、迟到的回写把旧密码的哈希写回去
+     */
+    @Update("UPDATE admin SET password = #{newHash} WHERE id = #{id} AND password = #{oldHash}")
+    int updatePasswordIfUnchanged(@Param("id") Long id,
+                                  @Param("oldHash") String oldHash,
+                                  @Param("newHash") String newHash);
 }
\ No newline at end of file
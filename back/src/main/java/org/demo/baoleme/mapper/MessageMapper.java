@@ -1,7 +1,9 @@
 package org.demo.baoleme.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.demo.baoleme.pojo.Message;
@@ -11,25 +13,43 @@ import java.util.List;
 @Mapper
 public interface MessageMapper extends BaseMapper<Message> {
     // 可自定义扩展方法
+
+    /**
+     * 批量插入聊天消息（单条多行 INSERT），回填自增ID
+     */
+    @Insert("""
+            <script>
+            INSERT INTO message (content, sender_id, sender_role, receiver_id, receiver_role, conversation_key, created_at) VALUES
+            <foreach collection="messages" item="m" separator=",">
+                (#{m.content}, #{m.senderId}, #{m.senderRole}, #{m.receiverId}, #{m.receiverRole}, #{m.conversationKey}, #{m.createdAt})
+            </foreach>
+            </script>
+            """)
+    @Options(useGeneratedKeys = true, keyProperty = "messages.id", keyColumn = "id")
+    int insertBatch(@Param("messages") List<Message> messages);
+
+    /**
+     * 按会话键查询聊天记录，按消息ID倒序，走 (conversation_key, id) 索引
+     *
+     * @param conversationKey 会话键
+     * @param beforeId 只取ID小于该值的消息，为空时从最新一条开始
+     * @param offset 偏移量（游标分页时为 0）
+     * @param limit 条数
+     */
     @Select("""
-    SELECT sender_id, sender_role, receiver_id, receiver_role, content, created_at
-    FROM message
-    WHERE (
-        (sender_id = #{senderId} AND sender_role = #{senderRole}
-         AND receiver_id = #{receiverId} AND receiver_role = #{receiverRole})
-        OR
-        (sender_id = #{receiverId} AND sender_role = #{receiverRole}
-         AND receiver_id = #{senderId} AND receiver_role = #{senderRole})
-    )
-    ORDER BY created_at DESC
-    LIMIT #{offset}, #{limit}
-""")
+            <script>
+            SELECT id, sender_id, sender_role, receiver_id, receiver_role, content, created_at
+            FROM message
+            WHERE conversation_key = #{conversationKey}
+            <if test="beforeId != null">AND id &lt; #{beforeId}</if>
+            ORDER BY id DESC
+            LIMIT #{offset}, #{limit}
+            </script>
+            """)
     List<Message> selectChatHistory(
-            @Param("senderId") Long senderId,
-            @Param("senderRole") String senderRole,
-            @Param("receiverId") Long receiverId,
-            @Param("receiverRole") String receiverRole,
+            @Param("conversationKey") String conversationKey,
+            @Param("beforeId") Long beforeId,
             @Param("offset") int offset,
             @Param("limit") int limit
     );
-}
\ No newline at end of file
+}
@@ -14,6 +14,19 @@ public interface OrderItemMapper extends BaseMapper<OrderItem> {
             "VALUES (#{orderId}, #{productId}, #{quantity})")
     int insert(OrderItem orderItem);
 
+    /**
+     * 批量插入订单项（单条多行 INSERT）
+     */
+    @Insert("""
+            <script>
+            INSERT INTO order_item (order_id, product_id, quantity) VALUES
+            <foreach collection="items" item="item" separator=",">
+                (#{item.orderId}, #{item.productId}, #{item.quantity})
+            </foreach>
+            </script>
+            """)
+    int insertBatch(@Param("items") List<OrderItem> items);
+
     @Select("SELECT * FROM order_item WHERE order_id = #{orderId}")
     List<OrderItem> selectByOrderId(@Param("orderId") Long orderId);
 }
\ No newline at end of file
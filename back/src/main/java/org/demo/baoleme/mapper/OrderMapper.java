@@ -8,6 +8,7 @@ import org.demo.baoleme.pojo.Order;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -20,8 +21,38 @@ public interface OrderMapper extends BaseMapper<Order> {
     @Select("SELECT * FROM `order` WHERE status = 0 AND rider_id IS NULL ORDER BY created_at DESC LIMIT #{offset}, #{limit}")
     List<Order> selectAvailableOrders(@Param("offset") int offset, @Param("limit") int limit);
 
-    @Select("SELECT * FROM `order` WHERE status = 0 AND rider_id IS NULL ORDER BY RAND() LIMIT 1")
-    Order selectRandomOrderToSend();
+    /**
+     * 游标分页查询可抢订单，依赖索引 (status, created_at, id)
+     */
+    @Select("""
+            SELECT * FROM `order`
+            WHERE status = 0 AND rider_id IS NULL
+            AND (#{cursorId} IS NULL OR created_at < #{cursorTime} OR (created_at = #{cursorTime} AND id < #{cursorId}))
+            ORDER BY created_at DESC, id DESC
+            LIMIT #{limit}
+            """)
+    List<Order> selectAvailableOrdersByCursor(@Param("cursorTime") LocalDateTime cursorTime,
+                                              @Param("cursorId") Long cursorId,
+                                              @Param("limit") int limit);
+
+
+    /**
+     * 查询全部可抢订单ID，用于启动时重建内存抢单引擎
+     */
+    @Select("SELECT id FROM `order` WHERE status = 0 AND rider_id IS NULL")
+    List<Long> selectPendingOrderIds();
+
+    /**
+     * 查询全部可抢订单，用于启动时重建待接单索引
+     */
+    @Select("SELECT * FROM `order` WHERE status = 0 AND rider_id IS NULL")
+    List<Order> selectPendingOrders();
+
+    /**
+     * 查询最早的待接单订单ID，自动派单在内存索引无候选时兜底使用
+     */
+    @Select("SELECT id FROM `order` WHERE status = 0 AND rider_id IS NULL ORDER BY created_at, id LIMIT 1")
+    Long selectOldestPendingOrderId();
 
     /**
      * 尝试抢单（加乐观锁，确保 rider_id 为空时才能更新）
@@ -29,6 +60,26 @@ public interface OrderMapper extends BaseMapper<Order> {
     @Update("UPDATE `order` SET rider_id = #{riderId}, status = 1 WHERE id = #{orderId} AND rider_id IS NULL AND status = 0")
     int grabOrder(@Param("orderId") Long orderId, @Param("riderId") Long riderId);
 
+    /**
+     * 批量抢单：一条语句为多个订单写入各自的骑手，仍只更新 rider_id 为空且待接单的订单
+     *
+     * @param assignments orderId -> riderId
+     * @return 实际更新的订单数
+     */
+    @Update("""
+    <script>
+    UPDATE `order`
+    SET rider_id = CASE id
+        <foreach collection="assignments" index="orderId" item="riderId">WHEN #{orderId} THEN #{riderId} </foreach>
+        END,
+        status = 1
+    WHERE rider_id IS NULL AND status = 0
+      AND id IN
+      <foreach collection="assignments" index="orderId" open="(" separator="," close=")">#{orderId}</foreach>
+    </script>
+""")
+    int grabOrdersBatch(@Param("assignments") Map<Long, Long> assignments);
+
     /**
      * 骑手取消订单（只能取消 rider_id 是自己并且订单状态是 1）
      */
@@ -36,9 +87,46 @@ public interface OrderMapper extends BaseMapper<Order> {
     int riderCancelOrder(@Param("orderId") Long orderId, @Param("riderId") Long riderId);
 
     /**
-     * 骑手更新订单状态
+     * 批量取消已过截止时间且仍待接单的订单
+     *
+     * @return 实际取消的订单数
+     */
+    @Update("""
+    <script>
+    UPDATE `order` SET status = 4, ended_at = NOW()
+    WHERE status = 0 AND rider_id IS NULL AND deadline &lt;= NOW()
+      AND id IN
+      <foreach collection="orderIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+    </script>
+""")
+    int cancelExpiredOrders(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * 批量查询订单的状态、骑手和截止时间，供到期处理判断
      */
-    @Update("UPDATE `order` SET status = #{status} WHERE id = #{orderId} AND rider_id = #{riderId}")
+    @Select("""
+    <script>
+    SELECT id, status, rider_id, deadline, created_at FROM `order`
+    WHERE id IN
+      <foreach collection="orderIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+    </script>
+""")
+    List<Order> selectDeadlineStates(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * 按主键分批查询未结束订单的截止时间，启动时重建到期定时器
+     */
+    @Select("""
+            SELECT id, status, deadline, created_at FROM `order`
+            WHERE status IN (0, 1, 2) AND id > #{afterId}
+            ORDER BY id LIMIT #{limit}
+            """)
+    List<Order> selectOpenOrderDeadlines(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 骑手更新订单状态（已完成或已取消的订单不可再改）
+     */
+    @Update("UPDATE `order` SET status = #{status} WHERE id = #{orderId} AND rider_id = #{riderId} AND status IN (1, 2)")
     int riderUpdateOrderStatus(@Param("orderId") Long orderId, @Param("riderId") Long riderId, @Param("status") Integer status);
 
     /**
@@ -61,22 +149,31 @@ public interface OrderMapper extends BaseMapper<Order> {
                                   @Param("limit") int limit);
 
     /**
-     * 查询骑手收入统计
+     * 游标分页查询骑手历史订单，依赖索引 (rider_id, created_at, id)
      */
     @Select("""
-        SELECT
-            COUNT(*) AS completed_orders,
-            IFNULL(SUM(delivery_price), 0) AS total_earnings,
-            IFNULL(SUM(CASE WHEN DATE_FORMAT(created_at, '%Y-%m') = DATE_FORMAT(NOW(), '%Y-%m') THEN delivery_price ELSE 0 END), 0) AS current_month
-        FROM `order`
-        WHERE rider_id = #{riderId} AND status = 3
-        """)
-    Map<String, Object> selectRiderEarnings(@Param("riderId") Long riderId);
+            SELECT * FROM `order`
+            WHERE rider_id = #{riderId}
+            AND (#{status} IS NULL OR status = #{status})
+            AND (#{startTime} IS NULL OR created_at >= #{startTime})
+            AND (#{endTime} IS NULL OR created_at <= #{endTime})
+            AND (#{cursorId} IS NULL OR created_at < #{cursorTime} OR (created_at = #{cursorTime} AND id < #{cursorId}))
+            ORDER BY created_at DESC, id DESC
+            LIMIT #{limit}
+            """)
+    List<Order> selectRiderOrdersByCursor(@Param("riderId") Long riderId,
+                                          @Param("status") Integer status,
+                                          @Param("startTime") LocalDateTime startTime,
+                                          @Param("endTime") LocalDateTime endTime,
+                                          @Param("cursorTime") LocalDateTime cursorTime,
+                                          @Param("cursorId") Long cursorId,
+                                          @Param("limit") int limit);
 
     /**
      * 骑手完成订单（状态改为3，并设置结束时间）
+     * 只从已接单/配送中完成，重复提交不会再次计入骑手收入
      */
-    @Update("UPDATE `order` SET status = 3, ended_at = NOW() WHERE id = #{orderId} AND rider_id = #{riderId}")
+    @Update("UPDATE `order` SET status = 3, ended_at = NOW() WHERE id = #{orderId} AND rider_id = #{riderId} AND status IN (1, 2)")
     int completeOrder(@Param("orderId") Long orderId, @Param("riderId") Long riderId);
 
 
@@ -100,6 +197,31 @@ public interface OrderMapper extends BaseMapper<Order> {
                                   @Param("offset") int offset,
                                   @Param("limit") int limit);
 
+    /**
+     * 管理员游标分页查询订单，按 (created_at, id) 倒序
+     */
+    @Select("""
+    SELECT * FROM `order`
+    WHERE (#{userId} IS NULL OR user_id = #{userId})
+      AND (#{storeId} IS NULL OR store_id = #{storeId})
+      AND (#{riderId} IS NULL OR rider_id = #{riderId})
+      AND (#{status} IS NULL OR status = #{status})
+      AND (#{createdAt} IS NULL OR created_at >= #{createdAt})
+      AND (#{endedAt} IS NULL OR ended_at <= #{endedAt})
+      AND (#{cursorId} IS NULL OR created_at < #{cursorTime} OR (created_at = #{cursorTime} AND id < #{cursorId}))
+    ORDER BY created_at DESC, id DESC
+    LIMIT #{limit}
+""")
+    List<Order> selectOrdersByCursor(@Param("userId") Long userId,
+                                     @Param("storeId") Long storeId,
+                                     @Param("riderId") Long riderId,
+                                     @Param("status") Integer status,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("endedAt") LocalDateTime endedAt,
+                                     @Param("cursorTime") LocalDateTime cursorTime,
+                                     @Param("cursorId") Long cursorId,
+                                     @Param("limit") int limit);
+
     @Select("""
     SELECT order_item.product_id, p.name AS product_name, o.created_at
     FROM order_item
@@ -134,7 +256,10 @@ public interface OrderMapper extends BaseMapper<Order> {
                      @Param("comment") String comment,
                      @Param("image") String image);
 
-    @Update("UPDATE `order` SET status = #{newStatus} WHERE id = #{orderId}")
+    /**
+     * 商家更新订单状态，已完成或已取消的订单不再变更（完成只能由骑手经收入台账完成）
+     */
+    @Update("UPDATE `order` SET status = #{newStatus} WHERE id = #{orderId} AND status NOT IN (3, 4)")
     int updateByMerchant(
             @Param("orderId") Long orderId,
             @Param("newStatus") Integer newStatus
@@ -183,6 +308,34 @@ public interface OrderMapper extends BaseMapper<Order> {
             @Param("limit") int limit
     );
 
+    /**
+     * 游标分页查询用户历史订单，依赖索引 (user_id, created_at, id)
+     */
+    @Select("""
+    SELECT o.id, o.created_at, o.ended_at, o.status,o.total_price,o.actual_price,
+           s.name AS store_name, o.remark,o.user_location,o.store_location,o.store_id,o.rider_id,
+           r.username AS rider_name, r.phone AS rider_phone
+    FROM `order` o
+    LEFT JOIN store s ON o.store_id = s.id
+    LEFT JOIN rider r ON o.rider_id = r.id
+    WHERE o.user_id = #{userId}
+      AND (#{status} IS NULL OR o.status = #{status})
+      AND (#{startTime} IS NULL OR o.created_at >= #{startTime})
+      AND (#{endTime} IS NULL OR o.created_at <= #{endTime})
+      AND (#{cursorId} IS NULL OR o.created_at < #{cursorTime} OR (o.created_at = #{cursorTime} AND o.id < #{cursorId}))
+    ORDER BY o.created_at DESC, o.id DESC
+    LIMIT #{limit}
+""")
+    List<Map<String, Object>> selectUserOrdersByCursor(
+            @Param("userId") Long userId,
+            @Param("status") Integer status,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit
+    );
+
     @Select("""
     SELECT 
         o.id AS order_id, 
@@ -210,6 +363,38 @@ public interface OrderMapper extends BaseMapper<Order> {
                                                         @Param("offset") int offset,
                                                         @Param("limit") int limit);
 
+    /**
+     * 游标分页查询用户进行中的订单
+     */
+    @Select("""
+    SELECT
+        o.id AS order_id,
+        o.created_at,
+        o.status,
+        o.remark,
+        o.user_location,
+        s.location AS store_location,
+        o.total_price,
+        o.actual_price,
+        o.delivery_price,
+        s.name AS store_name,
+        m.phone AS store_phone,
+        r.username AS rider_name,
+        r.phone AS rider_phone
+    FROM `order` o
+    JOIN store s ON o.store_id = s.id
+    JOIN merchant m ON s.merchant_id = m.id
+    LEFT JOIN rider r ON o.rider_id = r.id
+    WHERE o.user_id = #{userId} AND o.status IN (0, 1, 2)
+      AND (#{cursorId} IS NULL OR o.created_at < #{cursorTime} OR (o.created_at = #{cursorTime} AND o.id < #{cursorId}))
+    ORDER BY o.created_at DESC, o.id DESC
+    LIMIT #{limit}
+""")
+    List<Map<String, Object>> selectCurrentOrdersByUserByCursor(@Param("userId") Long userId,
+                                                                @Param("cursorTime") LocalDateTime cursorTime,
+                                                                @Param("cursorId") Long cursorId,
+                                                                @Param("limit") int limit);
+
     @Select("SELECT oi.quantity, p.name, p.description, p.price, p.image " +
             "FROM order_item oi " +
             "JOIN product p ON oi.product_id = p.id " +
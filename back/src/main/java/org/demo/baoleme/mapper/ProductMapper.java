@@ -3,6 +3,7 @@ package org.demo.baoleme.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.*;
 import org.demo.baoleme.dto.response.user.UserSearchOrderItemResponse;
+import org.demo.baoleme.pojo.OrderItem;
 import org.demo.baoleme.pojo.Product;
 
 import java.util.List;
@@ -37,6 +38,69 @@ public interface ProductMapper extends BaseMapper<Product> {
     @Update("UPDATE product SET stock = stock - #{quantity} WHERE id = #{productId} AND stock >= #{quantity}")
     int decreaseStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
 
+    /**
+     * 批量条件扣减库存：只有库存充足的商品才会被扣减
+     * 调用方通过返回的影响行数与商品数比较判断是否有商品扣减失败
+     */
+    @Update("""
+            <script>
+            UPDATE product SET stock = stock - CASE id
+            <foreach collection="items" item="item">
+                WHEN #{item.productId} THEN #{item.quantity}
+            </foreach>
+            END
+            WHERE id IN
+            <foreach collection="items" item="item" open="(" separator="," close=")">
+                #{item.productId}
+            </foreach>
+            AND stock >= CASE id
+            <foreach collection="items" item="item">
+                WHEN #{item.productId} THEN #{item.quantity}
+            </foreach>
+            END
+            </script>
+            """)
+    int decreaseStockBatch(@Param("items") List<OrderItem> items);
+
+    /**
+     * 筛选库存足以满足订单行的商品ID，条件与 decreaseStockBatch 相同
+     * 批量扣减失败后在新事务中调用，与请求的商品比较得出未扣成的商品
+     */
+    @Select("""
+            <script>
+            SELECT id FROM product
+            WHERE id IN
+            <foreach collection="items" item="item" open="(" separator="," close=")">
+                #{item.productId}
+            </foreach>
+            AND stock >= CASE id
+            <foreach collection="items" item="item">
+                WHEN #{item.productId} THEN #{item.quantity}
+            </foreach>
+            END
+            </script>
+            """)
+    List<Long> selectSufficientStockIds(@Param("items") List<OrderItem> items);
+
+    /**
+     * 批量写回库存净变化（库存预占模式对账使用）
+     * @param deltas productId -> 库存变化量（负数为扣减）
+     */
+    @Update("""
+            <script>
+            UPDATE product SET stock = stock + CASE id
+            <foreach collection="deltas" index="productId" item="delta">
+                WHEN #{productId} THEN #{delta}
+            </foreach>
+            END
+            WHERE id IN
+            <foreach collection="deltas" index="productId" open="(" separator="," close=")">
+                #{productId}
+            </foreach>
+            </script>
+            """)
+    int applyStockDeltas(@Param("deltas") Map<Long, Long> deltas);
+
     @Select("SELECT id FROM product WHERE name = #{name} AND store_id = #{storeId}")
     Long getIdByNameAndStoreId(@Param("name") String name, @Param("storeId") Long storeId);
 
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.*;
 import org.demo.baoleme.pojo.Rider;
 
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -54,6 +55,33 @@ public interface RiderMapper extends BaseMapper<Rider> {
     @Update("UPDATE rider SET order_status = 0 WHERE id = #{riderId}")
     int updateRiderOrderStatusAfterOrderCompletion(@Param("riderId") Long riderId);
 
+    /**
+     * 批量派单后批量更新骑手接单状态
+     */
+    @Update("""
+    <script>
+    UPDATE rider SET order_status = 1
+    WHERE id IN
+    <foreach collection="riderIds" item="riderId" open="(" separator="," close=")">#{riderId}</foreach>
+    </script>
+""")
+    int updateRiderOrderStatusAfterOrderGrabBatch(@Param("riderIds") Collection<Long> riderIds);
+
+    /**
+     * 从给定骑手中筛选可参与批量派单的骑手：自动接单模式、已上线，且没有进行中的订单
+     */
+    @Select("""
+    <script>
+    SELECT r.id FROM rider r
+    WHERE r.dispatch_mode = 1
+      AND r.order_status != -1
+      AND r.id IN
+      <foreach collection="riderIds" item="riderId" open="(" separator="," close=")">#{riderId}</foreach>
+      AND NOT EXISTS (SELECT 1 FROM `order` o WHERE o.rider_id = r.id AND o.status IN (1, 2))
+    </script>
+""")
+    List<Long> selectIdleAutoDispatchRiderIds(@Param("riderIds") Collection<Long> riderIds);
+
     @Delete("DELETE FROM rider WHERE username = #{username}")
     int deleteByUsername(@Param("username") String username);
 
@@ -65,4 +93,13 @@ public interface RiderMapper extends BaseMapper<Rider> {
      */
     @Update("UPDATE rider SET avatar = #{avatar} WHERE id = #{id}")
     int updateAvatar(@Param("id") Long id, @Param("avatar") String avatar);
+
+    /**
+     * 回写重新哈希的密码：仅当库中仍是校验通过的旧哈希时才更新，
+     * 避免重新哈希期间用户改了密码、迟到的回写把旧密码的哈希写回去
+     */
+    @Update("UPDATE rider SET password = #{newHash} WHERE id = #{id} AND password = #{oldHash}")
+    int updatePasswordIfUnchanged(@Param("id") Long id,
+                                  @Param("oldHash") String oldHash,
+                                  @Param("newHash") String newHash);
 }
\ No newline at end of file
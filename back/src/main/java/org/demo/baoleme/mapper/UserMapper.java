@@ -118,6 +118,15 @@ public interface UserMapper extends BaseMapper<User> {
     @Update("UPDATE user SET avatar = #{avatarPath} WHERE id = #{userId}")
     int updateAvatarById(@Param("userId") Long userId, @Param("avatarPath") String avatarPath);
 
+    /**
+     * 回写重新哈希的密码：仅当库中仍是校验通过的旧哈希时才更新，
+     * 避免重新哈希期间用户改了密码、迟到的回写把旧密码的哈希写回去
+     */
+    @Update("UPDATE user SET password = #{newHash} WHERE id = #{id} AND password = #{oldHash}")
+    int updatePasswordIfUnchanged(@Param("id") Long id,
+                                  @Param("oldHash") String oldHash,
+                                  @Param("newHash") String newHash);
+
     @Select("""
     SELECT 
         s.id AS store_id, 
@@ -26,6 +26,10 @@ public class Message {
     @TableField("receiver_role")
     private String receiverRole;
 
+    /** 会话键，见 ConversationKey */
+    @TableField("conversation_key")
+    private String conversationKey;
+
     @TableField(value = "created_at", fill = FieldFill.INSERT)
     private LocalDateTime createdAt;
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package org.demo.baoleme.pojo;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 骑手收入台账
+ * 每个骑手一行累计（period = 'ALL'），以及每月（'yyyy-MM'）、每日（'yyyy-MM-dd'）各一行
+ */
+@Data
+@TableName("rider_earnings")
+public class RiderEarnings {
+
+    public static final String PERIOD_ALL = "ALL";
+
+    /**
+     * 划分日、月周期的时区：写入台账与读取台账都按此时区取日期，不依赖 JVM 与数据库会话时区
+     */
+    public static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private Long riderId;
+
+    private String period;
+
+    private Integer completedOrders;
+
+    private BigDecimal earnings;
+
+    private LocalDateTime updatedAt;
+
+    /**
+     * 台账时区下的今天
+     */
+    public static LocalDate today() {
+        return LocalDate.now(ZONE);
+    }
+
+    /**
+     * 日期所在月份的周期标识 'yyyy-MM'
+     */
+    public static String monthOf(LocalDate date) {
+        return date.format(MONTH);
+    }
+
+    /**
+     * 日期的周期标识 'yyyy-MM-dd'
+     */
+    public static String dayOf(LocalDate date) {
+        return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+}
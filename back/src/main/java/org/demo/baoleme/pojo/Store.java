@@ -2,6 +2,8 @@ package org.demo.baoleme.pojo;
 
 import com.baomidou.mybatisplus.annotation.*;
 import lombok.Data;
+
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -11,7 +13,7 @@ import java.time.LocalDateTime;
  */
 @Data
 @TableName("store")
-public class Store {
+public class Store implements Serializable {
     @TableId(type = IdType.AUTO)
     private Long id;
 
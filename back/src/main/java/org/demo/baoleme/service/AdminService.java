@@ -1,5 +1,6 @@
 package org.demo.baoleme.service;
 
+import org.demo.baoleme.common.OrderCursor;
 import org.demo.baoleme.pojo.*;
 
 import java.math.BigDecimal;
@@ -44,6 +45,18 @@ public interface AdminService {
                                   int page,
                                   int pageSize);
 
+    /**
+     * 游标分页查询订单，cursor 为空表示第一页
+     */
+    List<Order> getAllOrdersByCursor(Long userId,
+                                     Long storeId,
+                                     Long riderId,
+                                     Integer status,
+                                     LocalDateTime createdAt,
+                                     LocalDateTime endedAt,
+                                     OrderCursor cursor,
+                                     int pageSize);
+
     /**
      * 按条件分页查询评价
      */
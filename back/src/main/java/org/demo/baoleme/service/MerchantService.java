@@ -19,4 +19,6 @@ public interface MerchantService {
     boolean deleteMerchant(Long id);
 
     boolean updateAvatar(Long merchantId, String avatarPath);
+    // 回写按新代价因子重新哈希的密码（库中仍为 oldHash 时才更新）
+    boolean updatePasswordHash(Long merchantId, String oldHash, String newHash);
 }
@@ -11,4 +11,11 @@ public interface MessageService {
     List<Message> getChatHistory(Long senderId, String senderRole,
                                  Long receiverId, String receiverRole,
                                  int page, int pageSize);
-}
\ No newline at end of file
+
+    /**
+     * 游标分页查询聊天记录：返回ID小于 beforeId 的最新 pageSize 条，beforeId 为空时从最新一条开始
+     */
+    List<Message> getChatHistoryBefore(Long senderId, String senderRole,
+                                       Long receiverId, String receiverRole,
+                                       Long beforeId, int pageSize);
+}
@@ -1,5 +1,6 @@
 package org.demo.baoleme.service;
 
+import org.demo.baoleme.common.OrderCursor;
 import org.demo.baoleme.dto.request.order.OrderCreateRequest;
 import org.demo.baoleme.dto.response.user.UserCreateOrderResponse;
 import org.demo.baoleme.dto.response.user.UserSearchOrderItemResponse;
@@ -10,6 +11,7 @@ import org.demo.baoleme.pojo.Product;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public interface OrderService {
 
@@ -18,11 +20,24 @@ public interface OrderService {
      */
     List<Order> getAvailableOrders(int page, int pageSize);
 
+    /**
+     * 游标分页查询可抢订单，cursor 为空表示第一页
+     */
+    List<Order> getAvailableOrdersByCursor(OrderCursor cursor, int pageSize);
+
     /**
      * 骑手尝试抢单（并发安全）
      */
     boolean grabOrder(Long orderId, Long riderId);
 
+    /**
+     * 批量抢单（批量派单使用），一次写入全部分配
+     *
+     * @param assignments orderId -> riderId
+     * @return 实际派单成功的订单ID
+     */
+    Set<Long> grabOrdersBatch(Map<Long, Long> assignments);
+
     /**
      * 骑手取消已接订单
      */
@@ -38,6 +53,11 @@ public interface OrderService {
      */
     List<Order> getRiderOrders(Long riderId, Integer status, LocalDateTime startTime, LocalDateTime endTime, int page, int pageSize);
 
+    /**
+     * 游标分页查询骑手接单历史，cursor 为空表示第一页
+     */
+    List<Order> getRiderOrdersByCursor(Long riderId, Integer status, LocalDateTime startTime, LocalDateTime endTime, OrderCursor cursor, int pageSize);
+
     /**
      * 查询骑手收入统计
      */
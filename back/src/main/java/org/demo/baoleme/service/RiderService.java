@@ -44,8 +44,23 @@ public interface RiderService {
      */
     boolean delete(Long riderId);
 
+    /**
+     * 自动派单：把距骑手最近的待接单订单派给骑手
+     *
+     * @param riderId 骑手ID
+     * @return true 表示派单成功，false 表示暂无可派订单
+     */
     boolean randomSendOrder(Long riderId);
 
+    /**
+     * 上报骑手当前位置，供自动派单就近匹配
+     *
+     * @param riderId   骑手ID
+     * @param latitude  纬度
+     * @param longitude 经度
+     */
+    void reportPosition(Long riderId, double latitude, double longitude);
+
     boolean updateRiderOrderStatusAfterOrderGrab(Long riderId);
 
     /**
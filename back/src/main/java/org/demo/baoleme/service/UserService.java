@@ -1,5 +1,6 @@
 package org.demo.baoleme.service;
 
+import org.demo.baoleme.common.OrderCursor;
 import org.demo.baoleme.dto.response.user.*;
 import org.demo.baoleme.pojo.Rider;
 import org.demo.baoleme.pojo.Store;
@@ -98,6 +99,15 @@ public interface UserService {
      */
     List<Map<String, Object>> getCurrentOrders(Long userId, int page, int pageSize);
 
+    /**
+     * 游标分页获取用户当前订单
+     * @param userId 用户ID
+     * @param cursor 上一页最后一条订单的游标，为空表示第一页
+     * @param pageSize 每页数量
+     * @return 当前订单列表
+     */
+    List<Map<String, Object>> getCurrentOrdersByCursor(Long userId, OrderCursor cursor, int pageSize);
+
     /**
      * 全局搜索
      * @param keyword 关键词
@@ -127,6 +137,11 @@ public interface UserService {
             int page, int pageSize
     );
 
+    List<Map<String, Object>> getUserOrdersByCursor(
+            Long userId, Integer status, LocalDateTime startTime, LocalDateTime endTime,
+            OrderCursor cursor, int pageSize
+    );
+
     List<Map<String,Object>> getOrderItemHistory(Long orderId);
 
     String getMerchantPhoneByStoreId(Long storeId);
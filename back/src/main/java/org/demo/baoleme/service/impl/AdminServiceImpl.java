@@ -1,5 +1,8 @@
 package org.demo.baoleme.service.impl;
 
+import org.demo.baoleme.cache.CatalogCache;
+import org.demo.baoleme.common.OrderCursor;
+import org.demo.baoleme.common.PasswordHasher;
 import org.demo.baoleme.mapper.*;
 import org.demo.baoleme.pojo.*;
 import org.demo.baoleme.service.AdminService;
@@ -40,13 +43,28 @@ public class AdminServiceImpl implements AdminService {
     @Autowired
     private ReviewMapper reviewMapper;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
     @Override
     public Admin login(Long id, String password) {
         Admin admin = adminMapper.selectById(id);
-        if (admin != null && password.equals(admin.getPassword())) {
-            return admin;
+        if (admin == null) {
+            return null;
         }
-        return null;
+        // 管理员表中还有历史明文密码（admin-service 仍按明文比对），明文密码照旧比对，不自动转为哈希
+        if (!passwordHasher.isHash(admin.getPassword())) {
+            return password.equals(admin.getPassword()) ? admin : null;
+        }
+        if (!passwordHasher.matches(password, admin.getPassword())) {
+            return null;
+        }
+        passwordHasher.rehashIfNeeded(password, admin.getPassword(),
+                hash -> adminMapper.updatePasswordIfUnchanged(admin.getId(), admin.getPassword(), hash));
+        return admin;
     }
 
     @Override
@@ -85,17 +103,35 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     public boolean deleteMerchantByUsername(String username) {
-        return merchantMapper.deleteByUsername(username) > 0;
+        Merchant merchant = merchantMapper.selectByUsername(username);
+        if (merchantMapper.deleteByUsername(username) <= 0) {
+            return false;
+        }
+        if (merchant != null) {
+            catalogCache.evictMerchant(merchant.getId());
+        }
+        return true;
     }
 
     @Override
     public boolean deleteStoreByName(String storeName) {
-        return storeMapper.deleteByName(storeName) > 0;
+        Long storeId = storeMapper.getIdByName(storeName);
+        if (storeMapper.deleteByName(storeName) <= 0) {
+            return false;
+        }
+        catalogCache.evictStore(storeId);
+        return true;
     }
 
     @Override
     public boolean deleteProductByNameAndStore(String productName, String storeName) {
-        return productMapper.deleteByNameAndStore(productName, storeName) > 0;
+        Long storeId = storeMapper.getIdByName(storeName);
+        Long productId = storeId == null ? null : productMapper.getIdByNameAndStoreId(productName, storeId);
+        if (productMapper.deleteByNameAndStore(productName, storeName) <= 0) {
+            return false;
+        }
+        catalogCache.evictProduct(productId);
+        return true;
     }
 
     @Override
@@ -111,6 +147,21 @@ public class AdminServiceImpl implements AdminService {
         return orderMapper.selectOrdersPaged(userId, storeId, riderId, status, createdAt, endedAt, offset, pageSize);
     }
 
+    @Override
+    public List<Order> getAllOrdersByCursor(Long userId,
+                                            Long storeId,
+                                            Long riderId,
+                                            Integer status,
+                                            LocalDateTime createdAt,
+                                            LocalDateTime endedAt,
+                                            OrderCursor cursor,
+                                            int pageSize) {
+        return orderMapper.selectOrdersByCursor(userId, storeId, riderId, status, createdAt, endedAt,
+                cursor == null ? null : cursor.getCreatedAt(),
+                cursor == null ? null : cursor.getId(),
+                pageSize);
+    }
+
     @Override
     public List<Review> getReviewsByCondition(Long userId, Long storeId, Long productId,
                                               LocalDateTime startTime, LocalDateTime endTime,
@@ -1,5 +1,6 @@
 package org.demo.baoleme.service.impl;
 
+import org.demo.baoleme.cache.CatalogCache;
 import org.demo.baoleme.mapper.*;
 import org.demo.baoleme.pojo.Coupon;
 import org.demo.baoleme.pojo.Store;
@@ -13,6 +14,8 @@ public class CouponServiceImpl implements CouponService {
     private StoreMapper storeMapper;
     @Autowired
     private CouponMapper couponMapper;
+    @Autowired
+    private CatalogCache catalogCache;
 
     @Override
     public Coupon createCoupon(Coupon coupon){
@@ -20,7 +23,7 @@ public class CouponServiceImpl implements CouponService {
 
 
         // Step2: 检查store_id是否存在
-        Store store = storeMapper.selectById(coupon.getStoreId());
+        Store store = catalogCache.getStore(coupon.getStoreId());
         if (store == null) {
             System.out.println("[WARN]：店铺ID不存在");
             return null;
@@ -1,10 +1,11 @@
 package org.demo.baoleme.service.impl;
 
+import org.demo.baoleme.cache.CatalogCache;
+import org.demo.baoleme.common.PasswordHasher;
 import org.demo.baoleme.mapper.MerchantMapper;
 import org.demo.baoleme.pojo.Merchant;
 import org.demo.baoleme.service.MerchantService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -15,11 +16,14 @@ import java.util.List;
 @Transactional
 public class MerchantServiceImpl implements MerchantService {
     private final MerchantMapper merchantMapper;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHasher passwordHasher;
+    private final CatalogCache catalogCache;
 
     @Autowired
-    public MerchantServiceImpl(MerchantMapper merchantMapper) {
+    public MerchantServiceImpl(MerchantMapper merchantMapper, PasswordHasher passwordHasher, CatalogCache catalogCache) {
         this.merchantMapper = merchantMapper;
+        this.passwordHasher = passwordHasher;
+        this.catalogCache = catalogCache;
     }
 
     /* ========================= 插入操作 ========================= */
@@ -40,7 +44,7 @@ public class MerchantServiceImpl implements MerchantService {
         }
 
         // Step3: 敏感数据处理
-        merchant.setPassword(passwordEncoder.encode(merchant.getPassword()));
+        merchant.setPassword(passwordHasher.encode(merchant.getPassword()));
 
         // Step4: 执行持久化操作
         merchantMapper.insert(merchant);
@@ -96,8 +100,9 @@ public class MerchantServiceImpl implements MerchantService {
         // Step4: 安全更新字段
         applyUpdates(merchant, existing);
 
-        // Step5: 执行数据库更新
+        // Step5: 执行数据库更新，提交后失效缓存的商家电话
         merchantMapper.updateMerchant(existing);
+        catalogCache.evictMerchant(existing.getId());
 
         // Step6: 返回最新数据
         return merchantMapper.selectById(merchant.getId());
@@ -108,6 +113,7 @@ public class MerchantServiceImpl implements MerchantService {
     public boolean deleteMerchant(Long id) {
         // Step1: 执行删除操作
         int affectedRows = merchantMapper.deleteById(id);
+        if (affectedRows > 0) catalogCache.evictMerchant(id);
 
         // Step2: 返回操作结果
         return affectedRows > 0;
@@ -138,7 +144,7 @@ public class MerchantServiceImpl implements MerchantService {
 
         // Step2: 更新密码（带加密）
         if (StringUtils.hasText(source.getPassword())) {
-            target.setPassword(passwordEncoder.encode(source.getPassword()));
+            target.setPassword(passwordHasher.encode(source.getPassword()));
         }
 
         // Step3: 更新手机号
@@ -176,4 +182,9 @@ public class MerchantServiceImpl implements MerchantService {
         int rows = merchantMapper.updateAvatarById(merchantId, avatarPath);
         return rows > 0;
     }
+
+    @Override
+    public boolean updatePasswordHash(Long merchantId, String oldHash, String newHash) {
+        return merchantMapper.updatePasswordIfUnchanged(merchantId, oldHash, newHash) > 0;
+    }
 }
\ No newline at end of file
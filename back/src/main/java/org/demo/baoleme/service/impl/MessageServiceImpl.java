@@ -1,5 +1,7 @@
 package org.demo.baoleme.service.impl;
 
+import org.demo.baoleme.chat.ChatHistoryCache;
+import org.demo.baoleme.chat.ConversationKey;
 import org.demo.baoleme.mapper.MessageMapper;
 import org.demo.baoleme.pojo.Message;
 import org.demo.baoleme.service.MessageService;
@@ -14,16 +16,35 @@ public class MessageServiceImpl implements MessageService {
     @Autowired
     private MessageMapper messageMapper;
 
+    @Autowired
+    private ChatHistoryCache chatHistoryCache;
+
     @Override
     public void saveMessage(Message message) {
+        if (message.getConversationKey() == null) {
+            message.setConversationKey(ConversationKey.of(message));
+        }
         messageMapper.insert(message);
+        chatHistoryCache.appended(List.of(message));
     }
 
     @Override
     public List<Message> getChatHistory(Long senderId, String senderRole,
                                         Long receiverId, String receiverRole,
                                         int page, int pageSize) {
+        if (page <= 1) {
+            return getChatHistoryBefore(senderId, senderRole, receiverId, receiverRole, null, pageSize);
+        }
         int offset = (page - 1) * pageSize;
-        return messageMapper.selectChatHistory(senderId, senderRole, receiverId, receiverRole, offset, pageSize);
+        String key = ConversationKey.of(senderRole, senderId, receiverRole, receiverId);
+        return messageMapper.selectChatHistory(key, null, offset, pageSize);
+    }
+
+    @Override
+    public List<Message> getChatHistoryBefore(Long senderId, String senderRole,
+                                              Long receiverId, String receiverRole,
+                                              Long beforeId, int pageSize) {
+        String key = ConversationKey.of(senderRole, senderId, receiverRole, receiverId);
+        return chatHistoryCache.history(key, beforeId, pageSize);
     }
-}
\ No newline at end of file
+}
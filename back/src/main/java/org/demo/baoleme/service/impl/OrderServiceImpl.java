@@ -1,6 +1,10 @@
 package org.demo.baoleme.service.impl;
 
-import org.demo.baoleme.common.RedisLockUtil;
+import org.demo.baoleme.cache.CatalogCache;
+import org.demo.baoleme.common.OrderCursor;
+import org.demo.baoleme.common.SnowflakeIdGenerator;
+import org.demo.baoleme.dispatch.OrderGrabEngine;
+import org.demo.baoleme.dispatch.PendingOrderIndex;
 import org.demo.baoleme.dto.request.order.CartItemDTO;
 import org.demo.baoleme.dto.request.order.OrderCreateRequest;
 import org.demo.baoleme.dto.response.user.UserCreateOrderResponse;
@@ -11,18 +15,28 @@ import org.demo.baoleme.service.CartService;
 import org.demo.baoleme.service.OrderService;
 import org.demo.baoleme.service.StoreService;
 import org.demo.baoleme.service.UserService;
+import org.demo.baoleme.stock.StockReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -40,17 +54,26 @@ public class OrderServiceImpl implements OrderService {
     private ProductMapper productMapper;
 
     @Autowired
-    private RedisLockUtil redisLockUtil;
+    private OrderGrabEngine orderGrabEngine;
+
+    @Autowired
+    private PendingOrderIndex pendingOrderIndex;
 
     @Autowired
     private OrderItemMapper orderItemMapper;
 
+    @Autowired
+    private StockReservationService stockReservationService;
+
     @Autowired
     private StoreService storeService;
 
     @Autowired
     private StoreMapper storeMapper;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
     @Autowired
     private CartService cartService;
 
@@ -60,43 +83,128 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private RiderMapper riderMapper;
 
+    @Autowired
+    private RiderEarningsMapper riderEarningsMapper;
+
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** 订单主键由雪花算法预先分配；关闭时沿用数据库自增 */
+    @Value("${order.id.snowflake:false}")
+    private boolean snowflakeOrderId;
+
     @Override
     public List<Order> getAvailableOrders(int page, int pageSize) {
         int offset = (page - 1) * pageSize;
         return orderMapper.selectAvailableOrders(offset, pageSize);
     }
 
+    @Override
+    public List<Order> getAvailableOrdersByCursor(OrderCursor cursor, int pageSize) {
+        return orderMapper.selectAvailableOrdersByCursor(
+                cursor == null ? null : cursor.getCreatedAt(),
+                cursor == null ? null : cursor.getId(),
+                pageSize);
+    }
+
     @Override
     public boolean grabOrder(Long orderId, Long riderId) {
-        String lockKey = "order_lock:" + orderId;
-        String lockValue = String.valueOf(riderId);
-        boolean locked = redisLockUtil.tryLock(lockKey, lockValue, 30, TimeUnit.SECONDS);
-        if (!locked) {
-            return false;  // 没抢到锁，直接返回
+        // Step1: 内存中 CAS 抢占，失败的骑手直接返回，不访问 Redis/MySQL
+        OrderGrabEngine.ClaimResult claim = orderGrabEngine.tryClaim(orderId, riderId);
+        if (claim == OrderGrabEngine.ClaimResult.TAKEN) {
+            return false;
+        }
+
+        // Step2: 抢占成功（或引擎中无该订单）时，依赖 SQL 条件更新做最终裁决
+        boolean persisted;
+        try {
+            persisted = orderMapper.grabOrder(orderId, riderId) > 0;
+        } catch (RuntimeException e) {
+            orderGrabEngine.release(orderId, riderId);
+            throw e;
         }
+        // 无论成功与否，该订单都已不再可抢（已落库，或被其他节点抢走 / 已取消），从引擎中剔除
+        orderGrabEngine.remove(orderId);
+        pendingOrderIndex.remove(orderId);
+        return persisted;
+    }
+
+    @Override
+    public Set<Long> grabOrdersBatch(Map<Long, Long> assignments) {
+        // Step1: 内存抢占，已被其他骑手抢走的订单直接跳过
+        Map<Long, Long> claimed = new LinkedHashMap<>();
+        assignments.forEach((orderId, riderId) -> {
+            if (orderGrabEngine.tryClaim(orderId, riderId) != OrderGrabEngine.ClaimResult.TAKEN) {
+                claimed.put(orderId, riderId);
+            }
+        });
+        if (claimed.isEmpty()) {
+            return Set.of();
+        }
+
+        // Step2: 一条条件 UPDATE 写入全部分配，再回查每个订单的实际归属
         try {
-            // 加锁后执行数据库更新
-            return orderMapper.grabOrder(orderId, riderId) > 0;
-        } finally {
-            redisLockUtil.unlock(lockKey, lockValue);
+            orderMapper.grabOrdersBatch(claimed);
+        } catch (RuntimeException e) {
+            claimed.forEach(orderGrabEngine::release);
+            throw e;
+        }
+        Set<Long> granted = new HashSet<>();
+        for (Order order : orderMapper.selectBatchIds(claimed.keySet())) {
+            if (Objects.equals(order.getRiderId(), claimed.get(order.getId()))) {
+                granted.add(order.getId());
+            }
         }
+
+        // 无论成功与否，这些订单都已不再可抢
+        for (Long orderId : claimed.keySet()) {
+            orderGrabEngine.remove(orderId);
+            pendingOrderIndex.remove(orderId);
+        }
+        return granted;
     }
 
     @Override
     public boolean riderCancelOrder(Long orderId, Long riderId) {
-        return orderMapper.riderCancelOrder(orderId, riderId) > 0;
+        boolean ok = orderMapper.riderCancelOrder(orderId, riderId) > 0;
+        if (ok) {
+            // 订单重新回到待接单状态
+            orderGrabEngine.register(orderId);
+            pendingOrderIndex.add(orderMapper.selectById(orderId));
+        }
+        return ok;
     }
 
     @Override
+    @Transactional
     public boolean riderUpdateOrderStatus(Long orderId, Long riderId, Integer targetStatus) {
         if (targetStatus != null && targetStatus == 3) {
 
             // 特判：完成订单，调用专门 SQL
-            return (orderMapper.completeOrder(orderId, riderId) > 0 && riderMapper.updateRiderOrderStatusAfterOrderCompletion(riderId) > 0);
+            orderGrabEngine.remove(orderId);
+            pendingOrderIndex.remove(orderId);
+            boolean completed = orderMapper.completeOrder(orderId, riderId) > 0;
+            if (completed) {
+                // 与完成订单同一事务累加收入台账，周期按台账时区的完成日期划分
+                LocalDate today = RiderEarnings.today();
+                riderEarningsMapper.accrue(orderId, RiderEarnings.monthOf(today), RiderEarnings.dayOf(today));
+            }
+            if (completed && stockReservationService.isEnabled()) {
+                stockReservationService.confirm(orderId);
+            }
+            return (completed && riderMapper.updateRiderOrderStatusAfterOrderCompletion(riderId) > 0);
         } else {
             // 其他普通状态
             //System.out.println("1");
-            return orderMapper.riderUpdateOrderStatus(orderId, riderId, targetStatus) > 0;
+            boolean ok = orderMapper.riderUpdateOrderStatus(orderId, riderId, targetStatus) > 0;
+            if (ok) {
+                orderGrabEngine.remove(orderId);
+                pendingOrderIndex.remove(orderId);
+            }
+            return ok;
         }
     }
 
@@ -106,9 +214,36 @@ public class OrderServiceImpl implements OrderService {
         return orderMapper.selectRiderOrders(riderId, status, startTime, endTime, offset, pageSize);
     }
 
+    @Override
+    public List<Order> getRiderOrdersByCursor(Long riderId, Integer status, LocalDateTime startTime, LocalDateTime endTime, OrderCursor cursor, int pageSize) {
+        return orderMapper.selectRiderOrdersByCursor(riderId, status, startTime, endTime,
+                cursor == null ? null : cursor.getCreatedAt(),
+                cursor == null ? null : cursor.getId(),
+                pageSize);
+    }
+
     @Override
     public Map<String, Object> getRiderEarnings(Long riderId) {
-        return orderMapper.selectRiderEarnings(riderId);
+        // 台账按主键读取累计、当月、当日三行，跨月时自然读到新月份的行
+        LocalDate today = RiderEarnings.today();
+        String month = RiderEarnings.monthOf(today);
+        String day = RiderEarnings.dayOf(today);
+        Map<String, RiderEarnings> rows = new HashMap<>();
+        for (RiderEarnings row : riderEarningsMapper.selectByPeriods(riderId, List.of(RiderEarnings.PERIOD_ALL, month, day))) {
+            rows.put(row.getPeriod(), row);
+        }
+
+        RiderEarnings total = rows.get(RiderEarnings.PERIOD_ALL);
+        Map<String, Object> result = new HashMap<>();
+        result.put("completed_orders", total == null ? 0 : total.getCompletedOrders());
+        result.put("total_earnings", earningsOf(total));
+        result.put("current_month", earningsOf(rows.get(month)));
+        result.put("today", earningsOf(rows.get(day)));
+        return result;
+    }
+
+    private static BigDecimal earningsOf(RiderEarnings row) {
+        return row == null || row.getEarnings() == null ? BigDecimal.ZERO : row.getEarnings();
     }
 
     @Override
@@ -128,9 +263,82 @@ public class OrderServiceImpl implements OrderService {
         return totalAmount;
     }
 
-    private String generateOrderNumber() {
-        return "ORD" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) +
-                UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+    /**
+     * 用内存中已查询到的商品信息构造订单项明细，字段与 selectOrderItemsWithProductInfo 保持一致
+     */
+    private List<Map<String, Object>> toOrderItemInfo(List<OrderItem> orderItems, Map<Long, Product> products) {
+        List<Map<String, Object>> items = new ArrayList<>(orderItems.size());
+        for (OrderItem orderItem : orderItems) {
+            Product product = products.get(orderItem.getProductId());
+            Map<String, Object> item = new HashMap<>();
+            item.put("quantity", orderItem.getQuantity());
+            item.put("name", product.getName());
+            item.put("description", product.getDescription());
+            item.put("price", product.getPrice());
+            item.put("image", product.getImage());
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * 在当前事务提交后执行回调，无事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 找出批量扣减中未扣成的商品
+     * <p>
+     * 本事务的扣减尚未提交，在新的只读事务中读取已提交的库存：扣成的行被本事务锁住，已提交库存仍满足条件；
+     * 其余即为库存不足或已删除的商品。只在扣减失败时执行，不增加正常下单的往返。
+     * 若读取前不足的商品已被补货，返回空列表，由调用方给出通用提示。
+     */
+    private List<Long> failedStockLines(List<OrderItem> items) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        List<Long> sufficientIds = template.execute(status -> productMapper.selectSufficientStockIds(items));
+        Set<Long> sufficient = sufficientIds == null ? Set.of() : new HashSet<>(sufficientIds);
+        return items.stream()
+                .map(OrderItem::getProductId)
+                .filter(id -> !sufficient.contains(id))
+                .toList();
+    }
+
+    /**
+     * 库存不足异常，列出商品名称和ID
+     */
+    private static RuntimeException stockShortage(List<Long> failed, Map<Long, Product> products) {
+        return new RuntimeException("商品库存不足：" + String.join("、", failed.stream()
+                .map(id -> products.get(id).getName() + "（ID: " + id + "）")
+                .toList()));
+    }
+
+    /**
+     * 在当前事务回滚后执行回调，无事务时不执行
+     */
+    private void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
     }
 
     @Override
@@ -152,6 +360,11 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public boolean updateOrderByMerchant(Long merchantId, Long orderId, Integer newStatus) {
+        // 完成订单须由骑手提交，才会累加收入台账并确认库存扣减
+        if (Integer.valueOf(3).equals(newStatus)) {
+            throw new IllegalArgumentException("商家不能将订单置为已完成");
+        }
+
         // Step 1: 查询订单当前状态和店铺ID
         Order order = orderMapper.selectById(orderId);
         if (order == null) {
@@ -162,13 +375,23 @@ public class OrderServiceImpl implements OrderService {
             return false; // 商家无权处理订单
         }
 
-        // Step 2: 执行更新操作
+        // Step 2: 执行更新操作（已完成、已取消的订单不会被更新）
         int rowsUpdated = orderMapper.updateByMerchant(
                 orderId,
                 newStatus
         );
 
-        // Step 3: 返回更新结果
+        // Step 3: 订单离开待接单状态后不再参与抢单
+        if (rowsUpdated > 0 && !Integer.valueOf(0).equals(newStatus)) {
+            orderGrabEngine.remove(orderId);
+            pendingOrderIndex.remove(orderId);
+        }
+        // 商家取消订单时释放库存预占
+        if (rowsUpdated > 0 && Integer.valueOf(4).equals(newStatus) && stockReservationService.isEnabled()) {
+            stockReservationService.release(orderId);
+        }
+
+        // Step 4: 返回更新结果
         return rowsUpdated > 0;
     }
 
@@ -189,23 +412,41 @@ public class OrderServiceImpl implements OrderService {
         String userLocation = request.getUserLocation();
 
         // 3. 查询店铺，获取店铺地址
-        Store store = storeMapper.selectById(request.getStoreId());
+        Store store = catalogCache.getStore(request.getStoreId());
         if (store == null) {
             throw new RuntimeException("店铺不存在");
         }
         String storeLocation = store.getLocation();
 
-        // 4. 商品库存和价格验证，并计算商品总价
-        BigDecimal totalProductPrice = BigDecimal.ZERO;
+        // 4. 一次性批量查询商品，校验库存并计算商品总价（同一商品多行时合并数量）
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (CartItemDTO item : request.getItems()) {
-            Product product = productMapper.selectById(item.getProductId());
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("商品ID或数量无效");
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productMapper.selectBatchIds(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+
+        BigDecimal totalProductPrice = BigDecimal.ZERO;
+        List<String> shortages = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
             if (product == null) {
-                throw new RuntimeException("商品不存在，ID: " + item.getProductId());
+                throw new RuntimeException("商品不存在，ID: " + line.getKey());
             }
-            if (product.getStock() < item.getQuantity()) {
-                throw new RuntimeException("商品库存不足：" + product.getName());
+            // 预占模式下以 Redis 库存为准，数据库库存可能尚未对账
+            if (!stockReservationService.isEnabled() && product.getStock() < line.getValue()) {
+                shortages.add(product.getName());
+                continue;
             }
-            totalProductPrice = totalProductPrice.add(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            totalProductPrice = totalProductPrice.add(product.getPrice().multiply(BigDecimal.valueOf(line.getValue())));
+        }
+        if (!shortages.isEmpty()) {
+            throw new RuntimeException("商品库存不足：" + String.join("、", shortages));
         }
 
         // 5. 优惠券处理，先计算优惠后的商品总价
@@ -242,17 +483,41 @@ public class OrderServiceImpl implements OrderService {
         order.setDeadline(request.getDeadline()); // 订单截止时间30分钟后
         order.setRemark(request.getRemark());
         order.setDeliveryPrice(deliveryPrice);
+        if (snowflakeOrderId) {
+            order.setId(snowflakeIdGenerator.nextId());
+        }
         orderMapper.insert(order);
-
-        // 8. 创建订单项并扣库存
-        for (CartItemDTO item : request.getItems()) {
+        Long orderId = order.getId();
+        afterCommit(() -> {
+            orderGrabEngine.register(orderId);
+            pendingOrderIndex.add(order);
+        });
+
+        // 8. 批量写入订单项，并一次性条件扣减库存
+        List<OrderItem> orderItems = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
             OrderItem orderItem = new OrderItem();
             orderItem.setOrderId(order.getId());
-            orderItem.setProductId(item.getProductId());
-            orderItem.setQuantity(item.getQuantity());
-            orderItemMapper.insert(orderItem);
+            orderItem.setProductId(line.getKey());
+            orderItem.setQuantity(line.getValue());
+            orderItems.add(orderItem);
+        }
+        orderItemMapper.insertBatch(orderItems);
 
-            productMapper.decreaseStock(item.getProductId(), item.getQuantity());
+        if (stockReservationService.isEnabled()) {
+            // 预占模式：在 Redis 中原子预占全部商品行，数据库库存由对账任务异步写回
+            List<Long> failed = stockReservationService.reserve(orderId, orderItems, order.getDeadline());
+            if (!failed.isEmpty()) {
+                throw stockShortage(failed, products);
+            }
+            afterRollback(() -> stockReservationService.release(orderId));
+        } else if (productMapper.decreaseStockBatch(orderItems) < orderItems.size()) {
+            // 影响行数少于商品数说明在查询与扣减之间库存被其他订单占用，整单回滚
+            List<Long> failed = failedStockLines(orderItems);
+            if (failed.isEmpty()) {
+                throw new RuntimeException("商品库存不足，请刷新后重新下单");
+            }
+            throw stockShortage(failed, products);
         }
 
         // 9. 处理优惠券状态，标记为已使用
@@ -273,7 +538,7 @@ public class OrderServiceImpl implements OrderService {
         response.setStoreName(store.getName());
         response.setRemark(order.getRemark());
         response.setCreatedAt(order.getCreatedAt());
-        response.setItems(orderMapper.selectOrderItemsWithProductInfo(order.getId()));
+        response.setItems(toOrderItemInfo(orderItems, products));
         return response;
     }
     @Override
@@ -1,11 +1,13 @@
 package org.demo.baoleme.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import org.demo.baoleme.cache.CatalogCache;
 import org.demo.baoleme.common.UserHolder;
 import org.demo.baoleme.mapper.*;
 import org.demo.baoleme.pojo.*;
 import org.demo.baoleme.service.ProductService;
 import org.demo.baoleme.service.StoreService;
+import org.demo.baoleme.stock.StockReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +25,10 @@ public class ProductServiceImpl implements ProductService {
     private final StoreMapper storeMapper;
     @Autowired
     private StoreService storeService;
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private CatalogCache catalogCache;
 
     public ProductServiceImpl(
             ProductMapper productMapper,
@@ -41,15 +47,17 @@ public class ProductServiceImpl implements ProductService {
         }
 
         // Step2: 检查store_id是否存在
-        Store store = storeMapper.selectById(product.getStoreId());
+        Store store = catalogCache.getStore(product.getStoreId());
         if (store == null) {
             System.out.println("错误：店铺ID不存在");
             return null;
         }
 
-        // Step3: 插入商品数据
+        // Step3: 插入商品数据，并清除该ID可能残留的空值缓存
         int result = productMapper.insert(product);
-        return result > 0 ? product : null;
+        if (result <= 0) return null;
+        catalogCache.evictProduct(product.getId());
+        return product;
     }
 
     @Override
@@ -60,8 +68,8 @@ public class ProductServiceImpl implements ProductService {
             return null;
         }
 
-        // Step2: 查询商品详情
-        return productMapper.selectById(productId);
+        // Step2: 查询商品详情（经两级缓存）
+        return catalogCache.getProduct(productId);
     }
 
     @Override
@@ -116,8 +124,15 @@ public class ProductServiceImpl implements ProductService {
         // Step3: 安全合并字段更新
         applyProductUpdates(product, existing);
 
-        // Step4: 执行更新操作
-        return productMapper.updateById(existing) > 0;
+        // Step4: 执行更新操作，提交后失效缓存
+        boolean updated = productMapper.updateById(existing) > 0;
+        if (updated) catalogCache.evictProduct(existing.getId());
+
+        // Step5: 商家修改库存后，让 Redis 预占库存按新值重新加载
+        if (updated && product.getStock() != null && stockReservationService.isEnabled()) {
+            stockReservationService.evict(product.getId());
+        }
+        return updated;
     }
 
     @Override
@@ -136,8 +151,10 @@ public class ProductServiceImpl implements ProductService {
         // Step3: 应用状态更新
         existing.setStatus(status);
 
-        // Step4: 执行更新
-        return productMapper.updateById(existing) > 0;
+        // Step4: 执行更新，提交后失效缓存
+        boolean updated = productMapper.updateById(existing) > 0;
+        if (updated) catalogCache.evictProduct(productId);
+        return updated;
     }
 
     /* ------------------------- 安全更新策略 ------------------------- */
@@ -204,8 +221,9 @@ public class ProductServiceImpl implements ProductService {
         Product existing = getExistingProduct(productId);
         if(existing == null) return false;
 
-        // Step2: 执行删除操作
+        // Step2: 执行删除操作，提交后失效缓存
         int result = productMapper.deleteById(productId);
+        if (result > 0) catalogCache.evictProduct(productId);
         return result > 0;
     }
 
@@ -215,6 +233,7 @@ public class ProductServiceImpl implements ProductService {
             return false;
         }
         int rows = productMapper.updateImageById(productId, imagePath);
+        if (rows > 0) catalogCache.evictProduct(productId);
         return rows > 0;
     }
 }
\ No newline at end of file
@@ -1,25 +1,41 @@
 package org.demo.baoleme.service.impl;
 
+import org.demo.baoleme.common.PasswordHasher;
+import org.demo.baoleme.dispatch.GeoDispatchIndex;
+import org.demo.baoleme.dispatch.GeoPoint;
+import org.demo.baoleme.dispatch.RiderPositionRegistry;
 import org.demo.baoleme.mapper.OrderMapper;
 import org.demo.baoleme.mapper.RiderMapper;
-import org.demo.baoleme.pojo.Order;
 import org.demo.baoleme.pojo.Rider;
+import org.demo.baoleme.service.OrderService;
 import org.demo.baoleme.service.RiderService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 @Service
 public class RiderServiceImpl implements RiderService {
 
+    /** 自动派单时依次尝试的最近订单数 */
+    private static final int DISPATCH_CANDIDATES = 5;
+
     @Autowired
     private RiderMapper riderMapper;
 
     @Autowired
     private OrderMapper orderMapper;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private GeoDispatchIndex geoDispatchIndex;
+
+    @Autowired
+    private RiderPositionRegistry riderPositionRegistry;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     @Override
     public Rider register(Rider rider) {
@@ -46,7 +62,7 @@ public class RiderServiceImpl implements RiderService {
         }
 
         // 初始化字段
-        rider.setPassword(passwordEncoder.encode(rider.getPassword()));
+        rider.setPassword(passwordHasher.encode(rider.getPassword()));
         rider.setOrderStatus(-1);   // -1 表示未激活
         rider.setDispatchMode(1);   // 默认开启自动接单
         rider.setBalance(0L);
@@ -63,7 +79,7 @@ public class RiderServiceImpl implements RiderService {
             return null;
         }
 
-        if (!passwordEncoder.matches(rawPassword, rider.getPassword())) {
+        if (!passwordHasher.matches(rawPassword, rider.getPassword())) {
             System.out.println("登录失败：密码错误");
             return null;
         }
@@ -71,6 +87,10 @@ public class RiderServiceImpl implements RiderService {
         // 登录成功，设置空闲状态
         rider.setOrderStatus(1);
         riderMapper.updateById(rider);
+
+        // 代价因子调整后，在后台按新代价重新哈希；库中密码已不是本次校验的哈希时不回写
+        passwordHasher.rehashIfNeeded(rawPassword, rider.getPassword(),
+                hash -> riderMapper.updatePasswordIfUnchanged(rider.getId(), rider.getPassword(), hash));
         return rider;
     }
 
@@ -94,7 +114,7 @@ public class RiderServiceImpl implements RiderService {
             existing.setUsername(rider.getUsername());
         }
         if (StringUtils.hasText(rider.getPassword())) {
-            existing.setPassword(passwordEncoder.encode(rider.getPassword()));
+            existing.setPassword(passwordHasher.encode(rider.getPassword()));
         }
         if (StringUtils.hasText(rider.getPhone())) {
             existing.setPhone(rider.getPhone());
@@ -109,6 +129,9 @@ public class RiderServiceImpl implements RiderService {
         return riderMapper.updateById(existing) > 0;
     }
 
+    /**
+     * 自动派单：启用就近派单时按骑手最近上报的位置派最近的待接单订单，否则派最早的待接单订单
+     */
     @Override
     public boolean randomSendOrder(Long riderId) {
         //获取当前骑手
@@ -116,14 +139,34 @@ public class RiderServiceImpl implements RiderService {
         if(rider == null){
             return false;
         }
-        Order orderToSend = orderMapper.selectRandomOrderToSend();
+
+        // 从空间索引中由近到远尝试，候选被他人抢走时继续下一个
+        boolean assigned = false;
+        if (geoDispatchIndex.isEnabled()) {
+            GeoPoint position = riderPositionRegistry.get(riderId);
+            for (Long orderId : geoDispatchIndex.nearest(position, DISPATCH_CANDIDATES)) {
+                if (orderService.grabOrder(orderId, riderId)) {
+                    assigned = true;
+                    break;
+                }
+            }
+        }
+        if (!assigned) {
+            // 索引中没有可派订单（如其他节点刚创建的订单），回退到数据库中最早的待接单订单
+            Long orderId = orderMapper.selectOldestPendingOrderId();
+            assigned = orderId != null && orderService.grabOrder(orderId, riderId);
+        }
+        if (!assigned) {
+            return false;
+        }
+
         rider.setOrderStatus(1);
-        //找到并更新该订单状态
-        Order order = orderMapper.selectById(orderToSend.getId());
-        order.setRiderId(riderId);
-        order.setStatus(1);
-        //将更新写入数据库
-        return orderMapper.updateById(order) > 0 && riderMapper.updateById(rider) > 0;
+        return riderMapper.updateById(rider) > 0;
+    }
+
+    @Override
+    public void reportPosition(Long riderId, double latitude, double longitude) {
+        riderPositionRegistry.update(riderId, new GeoPoint(latitude, longitude));
     }
 
     @Override
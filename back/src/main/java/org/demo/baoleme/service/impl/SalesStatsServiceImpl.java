@@ -1,5 +1,6 @@
 package org.demo.baoleme.service.impl;
 
+import org.demo.baoleme.cache.CatalogCache;
 import org.demo.baoleme.dto.request.salesStats.SaleTrendStatsRequest;
 import org.demo.baoleme.dto.response.salesStats.SaleTrendData;
 import org.demo.baoleme.mapper.ProductMapper;
@@ -25,10 +26,12 @@ public class SalesStatsServiceImpl implements SalesStatsService {
 
     private final SaleMapper saleMapper;
     private final ProductMapper productMapper;
+    private final CatalogCache catalogCache;
 
-    public SalesStatsServiceImpl(SaleMapper saleMapper, ProductMapper productMapper) {
+    public SalesStatsServiceImpl(SaleMapper saleMapper, ProductMapper productMapper, CatalogCache catalogCache) {
         this.productMapper = productMapper;
         this.saleMapper = saleMapper;
+        this.catalogCache = catalogCache;
     }
 
     @Override
@@ -146,7 +149,7 @@ public class SalesStatsServiceImpl implements SalesStatsService {
     @Transactional
     public int getProductVolume(Long productId){
         // Step2: 检查id是否存在
-        Product product = productMapper.selectById(productId);
+        Product product = catalogCache.getProduct(productId);
         if (product == null) {
             System.out.println("错误：商品ID不存在");
             return -1;
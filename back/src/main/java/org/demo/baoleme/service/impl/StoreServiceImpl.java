@@ -2,6 +2,7 @@ package org.demo.baoleme.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.demo.baoleme.cache.CatalogCache;
 import org.demo.baoleme.mapper.StoreMapper;
 import org.demo.baoleme.pojo.Store;
 import org.demo.baoleme.service.StoreService;
@@ -18,9 +19,11 @@ import java.util.List;
 @Service
 public class StoreServiceImpl implements StoreService {
     private final StoreMapper storeMapper;
+    private final CatalogCache catalogCache;
 
-    public StoreServiceImpl(StoreMapper storeMapper) {
+    public StoreServiceImpl(StoreMapper storeMapper, CatalogCache catalogCache) {
         this.storeMapper = storeMapper;
+        this.catalogCache = catalogCache;
     }
 
     /* ========================= 店铺创建 ========================= */
@@ -45,8 +48,10 @@ public class StoreServiceImpl implements StoreService {
             return null;
         }
 
-        // Step3: 执行持久化
-        return storeMapper.insert(store) > 0 ? store : null;
+        // Step3: 执行持久化，并清除该ID可能残留的空值缓存
+        if (storeMapper.insert(store) <= 0) return null;
+        catalogCache.evictStore(store.getId());
+        return store;
     }
 
     /* ========================= 店铺查询 ========================= */
@@ -65,8 +70,8 @@ public class StoreServiceImpl implements StoreService {
             return null;
         }
 
-        // Step2: 执行查询
-        return storeMapper.selectById(storeId);
+        // Step2: 执行查询（经两级缓存）
+        return catalogCache.getStore(storeId);
     }
 
     /**
@@ -139,8 +144,10 @@ public class StoreServiceImpl implements StoreService {
         // Step4: 安全更新字段
         applyUpdates(store, existing);
 
-        // Step5: 执行更新
-        return storeMapper.updateById(existing) > 0;
+        // Step5: 执行更新，提交后失效缓存
+        boolean updated = storeMapper.updateById(existing) > 0;
+        if (updated) catalogCache.evictStore(existing.getId());
+        return updated;
     }
 
     /**
@@ -160,8 +167,10 @@ public class StoreServiceImpl implements StoreService {
         update.setId(storeId);
         update.setStatus(status);
 
-        // Step3: 执行更新
-        return storeMapper.updateById(update) > 0;
+        // Step3: 执行更新，提交后失效缓存
+        boolean updated = storeMapper.updateById(update) > 0;
+        if (updated) catalogCache.evictStore(storeId);
+        return updated;
     }
 
     /* ========================= 店铺删除 ========================= */
@@ -180,8 +189,10 @@ public class StoreServiceImpl implements StoreService {
             return false;
         }
 
-        // Step2: 执行删除
-        return storeMapper.deleteById(storeId) > 0;
+        // Step2: 执行删除，提交后失效缓存
+        boolean deleted = storeMapper.deleteById(storeId) > 0;
+        if (deleted) catalogCache.evictStore(storeId);
+        return deleted;
     }
 
     /* ========================= 业务校验 ========================= */
@@ -202,7 +213,7 @@ public class StoreServiceImpl implements StoreService {
         }
 
         // Step2: 获取店铺信息
-        Store store = storeMapper.selectById(storeId);
+        Store store = catalogCache.getStore(storeId);
         if (store == null) {
             System.out.println("[ERROR] 权限校验失败：店铺不存在 ID=" + storeId);
             return false;
@@ -305,7 +316,7 @@ public class StoreServiceImpl implements StoreService {
      */
     private boolean isStoreExists(Long storeId) {
         return storeId != null &&
-                storeMapper.selectById(storeId) != null;
+                catalogCache.getStore(storeId) != null;
     }
 
     /**
@@ -337,6 +348,7 @@ public class StoreServiceImpl implements StoreService {
             return false;
         }
         int rows = storeMapper.updateImageById(storeId, imagePath);
+        if (rows > 0) catalogCache.evictStore(storeId);
         return rows > 0;
     }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package org.demo.baoleme.service.impl;
 
 import ch.qos.logback.classic.Logger;
+import org.demo.baoleme.cache.CatalogCache;
+import org.demo.baoleme.common.OrderCursor;
+import org.demo.baoleme.common.PasswordHasher;
 import org.demo.baoleme.dto.request.user.UserReviewRequest;
 import org.demo.baoleme.dto.response.user.*;
 import org.demo.baoleme.mapper.*;
@@ -8,7 +11,6 @@ import org.demo.baoleme.pojo.*;
 import org.demo.baoleme.service.SalesStatsService;
 import org.demo.baoleme.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -43,8 +45,13 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private RiderMapper riderMapper;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
     private Logger log;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     // 用户核心功能保持不变
     @Override
@@ -72,7 +79,7 @@ public class UserServiceImpl implements UserService {
             return null;
         }
 
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHasher.encode(user.getPassword()));
         boolean inserted = userMapper.insert(user) > 0;
         return inserted ? user : null;
     }
@@ -85,11 +92,14 @@ public class UserServiceImpl implements UserService {
             return null;
         }
 
-        if (!passwordEncoder.matches(rawPassword, user.getPassword())) {
+        if (!passwordHasher.matches(rawPassword, user.getPassword())) {
             System.out.println("登录失败：密码错误");
             return null;
         }
 
+        // 代价因子调整后，在后台按新代价重新哈希；库中密码已不是本次校验的哈希时不回写
+        passwordHasher.rehashIfNeeded(rawPassword, user.getPassword(),
+                hash -> userMapper.updatePasswordIfUnchanged(user.getId(), user.getPassword(), hash));
         return user;
     }
     @Override
@@ -118,7 +128,7 @@ public class UserServiceImpl implements UserService {
             existing.setUsername(user.getUsername());
         }
         if (StringUtils.hasText(user.getPassword())) {
-            existing.setPassword(passwordEncoder.encode(user.getPassword()));
+            existing.setPassword(passwordHasher.encode(user.getPassword()));
         }
         if (StringUtils.hasText(user.getPhone())) {
             //System.out.println("111");
@@ -217,6 +227,14 @@ public class UserServiceImpl implements UserService {
         return orderMapper.selectCurrentOrdersByUser(userId, offset, pageSize);
     }
 
+    @Override
+    public List<Map<String, Object>> getCurrentOrdersByCursor(Long userId, OrderCursor cursor, int pageSize) {
+        return orderMapper.selectCurrentOrdersByUserByCursor(userId,
+                cursor == null ? null : cursor.getCreatedAt(),
+                cursor == null ? null : cursor.getId(),
+                pageSize);
+    }
+
     @Override
     public List<UserSearchResponse> searchStores(String keyword, BigDecimal distance,BigDecimal wishPrice, BigDecimal startRating,BigDecimal endRating,Integer page,Integer pageSize) {
         int offset = (page - 1) * pageSize;
@@ -240,7 +258,7 @@ public class UserServiceImpl implements UserService {
         Long productId = request.getProductId();
 
         // 校验店铺是否存在
-        String storeName = storeMapper.getNameById(storeId);
+        String storeName = catalogCache.getStoreName(storeId);
         if (storeName == null) {
             throw new IllegalArgumentException("无效的店铺ID");
         }
@@ -249,7 +267,7 @@ public class UserServiceImpl implements UserService {
         // 如果 productId 不为 null，则查询商品名称
         String productName = null;
         if (productId != null) {
-            productName = productMapper.getNameById(productId);
+            productName = catalogCache.getProductName(productId);
             if (productName == null) {
                 throw new IllegalArgumentException("无效的商品ID");
             }
@@ -285,6 +303,14 @@ public class UserServiceImpl implements UserService {
         return orderMapper.selectUserOrders(userId, status, startTime, endTime, offset, pageSize);
     }
 
+    @Override
+    public List<Map<String, Object>> getUserOrdersByCursor(Long userId, Integer status, LocalDateTime startTime, LocalDateTime endTime, OrderCursor cursor, int pageSize) {
+        return orderMapper.selectUserOrdersByCursor(userId, status, startTime, endTime,
+                cursor == null ? null : cursor.getCreatedAt(),
+                cursor == null ? null : cursor.getId(),
+                pageSize);
+    }
+
     @Override
     public List<Map<String,Object>> getOrderItemHistory(Long orderId) {
         List<Map<String,Object>> items = orderMapper.selectOrderItemsWithProductInfo(orderId);
@@ -294,7 +320,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public String getMerchantPhoneByStoreId(Long storeId){
-        return merchantMapper.selectPhoneByStoreId(storeId);
+        return catalogCache.getMerchantPhoneByStoreId(storeId);
     }
 
     @Override
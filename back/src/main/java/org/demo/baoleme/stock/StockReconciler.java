@@ -0,0 +1,162 @@
+package org.demo.baoleme.stock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.mapper.OrderMapper;
+import org.demo.baoleme.mapper.ProductMapper;
+import org.demo.baoleme.pojo.Order;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 库存对账任务（预占模式）
+ * <p>
+ * 定时执行两件事：
+ * <ol>
+ *     <li>处理已过截止时间的预占：已取消的订单释放库存，已完成的订单确认扣减，其余订单稍后再检查；</li>
+ *     <li>把 Redis 中累积的库存净变化批量写回 product.stock。</li>
+ * </ol>
+ * 超时未接单订单的取消统一由 {@link org.demo.baoleme.expire.OrderExpiryScheduler} 负责，
+ * 它会同时清理抢单引擎、待接单索引并释放预占，这里不另行取消订单。
+ */
+@Slf4j
+@Component
+public class StockReconciler {
+
+    /** 每轮最多处理的过期预占数 */
+    private static final int EXPIRE_BATCH = 500;
+
+    /** 未结束的过期订单推迟再检查的时长（毫秒） */
+    private static final long IN_PROGRESS_RECHECK_MILLIS = 5 * 60 * 1000L;
+
+    /**
+     * 把增量哈希原子移入写回中哈希并返回本批要写回的增量；写回中哈希在数据库提交前一直保留，
+     * 预加载据此识别正在写回的商品。上一批写回中途宕机留下的增量会并入本批重写
+     * KEYS: [delta, flushing]
+     */
+    private static final DefaultRedisScript<List> DRAIN_DELTA_SCRIPT = new DefaultRedisScript<>("""
+            local deltas = redis.call('HGETALL', KEYS[1])
+            for i = 1, #deltas, 2 do
+                redis.call('HINCRBY', KEYS[2], deltas[i], deltas[i + 1])
+            end
+            redis.call('DEL', KEYS[1])
+            return redis.call('HGETALL', KEYS[2])
+            """, List.class);
+
+    /**
+     * 本批已提交：删除写回中哈希并递增批次号
+     * KEYS: [flushing, epoch]
+     */
+    private static final DefaultRedisScript<Long> FINISH_FLUSH_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            return redis.call('INCR', KEYS[2])
+            """, Long.class);
+
+    /**
+     * 本批写回失败：把写回中的增量原子并回增量哈希并递增批次号
+     * KEYS: [delta, flushing, epoch]
+     */
+    private static final DefaultRedisScript<Long> RESTORE_FLUSH_SCRIPT = new DefaultRedisScript<>("""
+            local deltas = redis.call('HGETALL', KEYS[2])
+            for i = 1, #deltas, 2 do
+                redis.call('HINCRBY', KEYS[1], deltas[i], deltas[i + 1])
+            end
+            redis.call('DEL', KEYS[2])
+            return redis.call('INCR', KEYS[3])
+            """, Long.class);
+
+    private final StockReservationService stockReservationService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductMapper productMapper;
+    private final OrderMapper orderMapper;
+
+    public StockReconciler(StockReservationService stockReservationService,
+                           StringRedisTemplate stringRedisTemplate,
+                           ProductMapper productMapper,
+                           OrderMapper orderMapper) {
+        this.stockReservationService = stockReservationService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.productMapper = productMapper;
+        this.orderMapper = orderMapper;
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.reconcile-interval-ms:1000}")
+    public void reconcile() {
+        if (!stockReservationService.isEnabled()) {
+            return;
+        }
+        try {
+            expireReservations();
+            flushDeltas();
+        } catch (Exception e) {
+            log.error("库存对账失败", e);
+        }
+    }
+
+    /**
+     * 处理已过截止时间的预占
+     */
+    void expireReservations() {
+        long now = System.currentTimeMillis();
+        Set<String> expired = stringRedisTemplate.opsForZSet()
+                .rangeByScore(StockReservationService.DEADLINE_KEY, 0, now, 0, EXPIRE_BATCH);
+        if (expired == null || expired.isEmpty()) {
+            return;
+        }
+
+        List<Long> orderIds = expired.stream().map(Long::valueOf).toList();
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order order : orderMapper.selectBatchIds(orderIds)) {
+            orders.put(order.getId(), order);
+        }
+
+        for (Long orderId : orderIds) {
+            Order order = orders.get(orderId);
+            Integer status = order == null ? null : order.getStatus();
+            if (status == null || status == 4) {
+                // 订单不存在（下单事务已回滚）或已取消
+                stockReservationService.release(orderId);
+            } else if (status == 3) {
+                stockReservationService.confirm(orderId);
+            } else {
+                // 待接单（等待到期任务取消）或配送中，稍后再检查
+                stringRedisTemplate.opsForZSet().add(StockReservationService.DEADLINE_KEY,
+                        String.valueOf(orderId), now + IN_PROGRESS_RECHECK_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * 将累积的库存净变化批量写回数据库，提交后才清除写回中的增量，写入失败时把增量加回 Redis
+     */
+    void flushDeltas() {
+        List<?> raw = stringRedisTemplate.execute(DRAIN_DELTA_SCRIPT,
+                List.of(StockReservationService.DELTA_KEY, StockReservationService.FLUSHING_KEY));
+        if (raw == null || raw.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> deltas = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < raw.size(); i += 2) {
+            long delta = Long.parseLong(String.valueOf(raw.get(i + 1)));
+            if (delta != 0) {
+                deltas.put(Long.valueOf(String.valueOf(raw.get(i))), delta);
+            }
+        }
+
+        try {
+            if (!deltas.isEmpty()) {
+                productMapper.applyStockDeltas(deltas);
+            }
+        } catch (RuntimeException e) {
+            stringRedisTemplate.execute(RESTORE_FLUSH_SCRIPT, List.of(StockReservationService.DELTA_KEY,
+                    StockReservationService.FLUSHING_KEY, StockReservationService.EPOCH_KEY));
+            throw e;
+        }
+        stringRedisTemplate.execute(FINISH_FLUSH_SCRIPT,
+                List.of(StockReservationService.FLUSHING_KEY, StockReservationService.EPOCH_KEY));
+    }
+}
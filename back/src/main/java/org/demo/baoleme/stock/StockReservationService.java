@@ -0,0 +1,272 @@
+package org.demo.baoleme.stock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.demo.baoleme.mapper.ProductMapper;
+import org.demo.baoleme.pojo.OrderItem;
+import org.demo.baoleme.pojo.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Redis 库存预占服务（预占模式）
+ * <p>
+ * 开启后，热门商品的可用库存预加载到 Redis，一个订单的所有商品行通过一段 Lua 脚本原子预占，
+ * 下单不再对 product 行加锁。预占产生的库存净变化记录在增量哈希中，
+ * 由 {@link StockReconciler} 异步批量写回 product.stock。
+ * <p>
+ * Redis 结构：
+ * <ul>
+ *     <li>stock:avail:{productId} —— 可用库存</li>
+ *     <li>stock:delta —— 待写回数据库的库存净变化（productId -> delta）</li>
+ *     <li>stock:delta:flushing —— 已从 stock:delta 取出、正在写回数据库的增量，提交后才删除</li>
+ *     <li>stock:delta:epoch —— 写回批次号，每批写回结束（提交或回滚）时加一</li>
+ *     <li>stock:resv:{orderId} —— 订单的预占明细（productId -> quantity）</li>
+ *     <li>stock:resv:deadline —— 未结算预占的截止时间（orderId -> 截止时间毫秒）</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class StockReservationService {
+
+    static final String AVAIL_PREFIX = "stock:avail:";
+    static final String DELTA_KEY = "stock:delta";
+    static final String FLUSHING_KEY = "stock:delta:flushing";
+    static final String EPOCH_KEY = "stock:delta:epoch";
+    static final String RESV_PREFIX = "stock:resv:";
+    static final String DEADLINE_KEY = "stock:resv:deadline";
+
+    /** 预占明细在截止时间之后的兜底保留时长（秒），防止孤立数据常驻 */
+    private static final long RESV_GRACE_SECONDS = 24 * 60 * 60;
+
+    /** 订单未指定截止时间时的默认有效期（与数据库触发器一致） */
+    private static final long DEFAULT_DEADLINE_MINUTES = 45;
+
+    /** 预加载遇到写回进行中时的重试次数与间隔 */
+    private static final int PRELOAD_ATTEMPTS = 5;
+    private static final long PRELOAD_RETRY_MILLIS = 20;
+
+    private static final long STATUS_INSUFFICIENT = 1;
+    private static final long STATUS_NOT_LOADED = 2;
+
+    /**
+     * 原子预占：全部商品行库存充足才扣减，否则返回失败的行号（从 1 开始）
+     * KEYS: [delta, resv, deadline, avail_1 .. avail_n]
+     * ARGV: [orderId, deadlineMillis, ttlSeconds, productId_1, qty_1, ..., productId_n, qty_n]
+     */
+    private static final DefaultRedisScript<List> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local n = #KEYS - 3
+            local missing = {}
+            local short = {}
+            for i = 1, n do
+                local avail = redis.call('GET', KEYS[3 + i])
+                if not avail then
+                    table.insert(missing, i)
+                elseif tonumber(avail) < tonumber(ARGV[3 + 2 * i]) then
+                    table.insert(short, i)
+                end
+            end
+            if #missing > 0 then
+                table.insert(missing, 1, 2)
+                return missing
+            end
+            if #short > 0 then
+                table.insert(short, 1, 1)
+                return short
+            end
+            for i = 1, n do
+                local pid = ARGV[2 + 2 * i]
+                local qty = tonumber(ARGV[3 + 2 * i])
+                redis.call('DECRBY', KEYS[3 + i], qty)
+                redis.call('HINCRBY', KEYS[1], pid, -qty)
+                redis.call('HINCRBY', KEYS[2], pid, qty)
+            end
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            redis.call('ZADD', KEYS[3], ARGV[2], ARGV[1])
+            return {0}
+            """, List.class);
+
+    /**
+     * 释放预占：把订单预占的数量加回可用库存，并记录正向增量；重复调用无副作用
+     * KEYS: [delta, resv, deadline]  ARGV: [orderId, availPrefix]
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local lines = redis.call('HGETALL', KEYS[2])
+            for i = 1, #lines, 2 do
+                local pid = lines[i]
+                local qty = tonumber(lines[i + 1])
+                if redis.call('EXISTS', ARGV[2] .. pid) == 1 then
+                    redis.call('INCRBY', ARGV[2] .. pid, qty)
+                end
+                redis.call('HINCRBY', KEYS[1], pid, qty)
+            end
+            redis.call('DEL', KEYS[2])
+            redis.call('ZREM', KEYS[3], ARGV[1])
+            return #lines / 2
+            """, Long.class);
+
+    /**
+     * 预加载：仅当 Redis 中没有该商品库存时，用数据库库存加上尚未写回的增量初始化。
+     * 该商品的增量正在写回，或读库之后有一批写回已结束时，数据库库存与增量对不上，返回 -1 由调用方重读
+     * KEYS: [avail, delta, flushing, epoch]  ARGV: [productId, dbStock, epochBeforeRead]
+     */
+    private static final DefaultRedisScript<Long> PRELOAD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            if redis.call('HEXISTS', KEYS[3], ARGV[1]) == 1
+                    or (redis.call('GET', KEYS[4]) or '0') ~= ARGV[3] then
+                return -1
+            end
+            local pending = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0')
+            redis.call('SET', KEYS[1], tonumber(ARGV[2]) + pending)
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductMapper productMapper;
+
+    @Value("${stock.reservation.enabled:false}")
+    private boolean enabled;
+
+    public StockReservationService(StringRedisTemplate stringRedisTemplate, ProductMapper productMapper) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.productMapper = productMapper;
+    }
+
+    /**
+     * 是否开启预占模式
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 为订单原子预占全部商品行
+     *
+     * @param orderId  订单ID
+     * @param items    订单项（同一商品只出现一次）
+     * @param deadline 订单截止时间，超时未完成的预占会被释放；为空时按默认有效期处理
+     * @return 库存不足的商品ID，为空表示预占成功
+     */
+    public List<Long> reserve(Long orderId, List<OrderItem> items, LocalDateTime deadline) {
+        List<Long> failed = runReserve(orderId, items, deadline);
+        if (failed == null) {
+            // 有商品尚未加载到 Redis，加载后重试一次
+            preload(items.stream().map(OrderItem::getProductId).toList());
+            failed = runReserve(orderId, items, deadline);
+        }
+        if (failed == null) {
+            throw new IllegalStateException("商品库存加载失败");
+        }
+        return failed;
+    }
+
+    /**
+     * 释放订单的全部预占（订单取消或过期时调用）
+     *
+     * @return 释放的商品行数
+     */
+    public long release(Long orderId) {
+        Long released = stringRedisTemplate.execute(RELEASE_SCRIPT,
+                List.of(DELTA_KEY, RESV_PREFIX + orderId, DEADLINE_KEY),
+                String.valueOf(orderId), AVAIL_PREFIX);
+        return released == null ? 0 : released;
+    }
+
+    /**
+     * 订单完成，预占转为实际扣减，不再参与过期释放
+     */
+    public void confirm(Long orderId) {
+        stringRedisTemplate.delete(RESV_PREFIX + orderId);
+        stringRedisTemplate.opsForZSet().remove(DEADLINE_KEY, String.valueOf(orderId));
+    }
+
+    /**
+     * 将商品库存预加载到 Redis（已存在的不覆盖）
+     * <p>
+     * 先读写回批次号再读库；与增量写回交错时脚本拒绝初始化，稍后重读数据库再试，
+     * 避免用写回提交前的旧库存加上已清空的增量，把已预占的数量重新算作可用
+     */
+    public void preload(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        Collection<Long> pending = productIds;
+        for (int attempt = 0; attempt < PRELOAD_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                try {
+                    Thread.sleep(PRELOAD_RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            String epoch = Objects.requireNonNullElse(stringRedisTemplate.opsForValue().get(EPOCH_KEY), "0");
+            List<Long> stale = new ArrayList<>();
+            for (Product product : productMapper.selectBatchIds(pending)) {
+                Long loaded = stringRedisTemplate.execute(PRELOAD_SCRIPT,
+                        List.of(AVAIL_PREFIX + product.getId(), DELTA_KEY, FLUSHING_KEY, EPOCH_KEY),
+                        String.valueOf(product.getId()), String.valueOf(product.getStock()), epoch);
+                if (loaded != null && loaded < 0) {
+                    stale.add(product.getId());
+                }
+            }
+            pending = stale;
+        }
+        if (!pending.isEmpty()) {
+            log.warn("商品库存写回进行中，暂未加载：{}", pending);
+        }
+    }
+
+    /**
+     * 移除 Redis 中的商品库存，下次预占时按数据库最新库存重新加载
+     */
+    public void evict(Long productId) {
+        stringRedisTemplate.delete(AVAIL_PREFIX + productId);
+    }
+
+    /**
+     * 返回 null 表示存在未加载的商品，否则返回库存不足的商品ID
+     */
+    private List<Long> runReserve(Long orderId, List<OrderItem> items, LocalDateTime deadline) {
+        LocalDateTime expireAt = deadline != null ? deadline : LocalDateTime.now().plusMinutes(DEFAULT_DEADLINE_MINUTES);
+        long deadlineMillis = expireAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long ttlSeconds = Math.max(0, (deadlineMillis - System.currentTimeMillis()) / 1000) + RESV_GRACE_SECONDS;
+
+        List<String> keys = new ArrayList<>(items.size() + 3);
+        keys.add(DELTA_KEY);
+        keys.add(RESV_PREFIX + orderId);
+        keys.add(DEADLINE_KEY);
+        List<String> args = new ArrayList<>(items.size() * 2 + 3);
+        args.add(String.valueOf(orderId));
+        args.add(String.valueOf(deadlineMillis));
+        args.add(String.valueOf(ttlSeconds));
+        for (OrderItem item : items) {
+            keys.add(AVAIL_PREFIX + item.getProductId());
+            args.add(String.valueOf(item.getProductId()));
+            args.add(String.valueOf(item.getQuantity()));
+        }
+
+        List<?> result = stringRedisTemplate.execute(RESERVE_SCRIPT, keys, args.toArray());
+        if (result == null || result.isEmpty()) {
+            throw new IllegalStateException("库存预占脚本执行失败");
+        }
+        long status = ((Number) result.get(0)).longValue();
+        if (status == STATUS_NOT_LOADED) {
+            return null;
+        }
+        List<Long> failed = new ArrayList<>();
+        if (status == STATUS_INSUFFICIENT) {
+            for (int i = 1; i < result.size(); i++) {
+                failed.add(items.get(((Number) result.get(i)).intValue() - 1).getProductId());
+            }
+        }
+        return failed;
+    }
+}
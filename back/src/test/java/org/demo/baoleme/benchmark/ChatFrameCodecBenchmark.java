@@ -0,0 +1,168 @@
+/**
+ * 聊天帧编解码 JMH 基准测试
+ * 比较原字符串扫描解析 + ObjectMapper 序列化与 ChatFrameCodec 流式编解码的吞吐量和每条消息分配字节数
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.demo.baoleme.chat.ChatFrameCodec;
+import org.demo.baoleme.pojo.ChatMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天帧编解码 JMH 基准测试
+ * <p>
+ * 运行 main 方法即可（需先执行 mvn test-compile 生成 JMH 元数据），结果中的 gc.alloc.rate.norm 为每条消息分配的字节数。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChatFrameCodecBenchmark {
+
+    private static final String FRAME = """
+            {"body":{"sender_id":10000001,"sender_role":"user","sender_name":"张三",\
+            "receiver_id":20000001,"receiver_role":"merchant","receiver_name":"老王烧烤",\
+            "content":"你好，我的订单大概什么时候能出餐？麻烦尽快，谢谢！",\
+            "created_at":"2025-01-25T12:30:00"}}""";
+
+    private ObjectMapper objectMapper;
+    private ChatFrameCodec codec;
+    private ChatMessage reusable;
+    private ChatMessage outbound;
+
+    @Setup
+    public void setup() {
+        // 与 Spring Boot 默认配置一致：日期输出为 ISO 字符串
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        codec = new ChatFrameCodec(objectMapper);
+        reusable = new ChatMessage();
+        outbound = legacyDecode(FRAME);
+        outbound.setTimeStamp(LocalDateTime.of(2025, 1, 25, 12, 30, 0, 123_000_000));
+
+        if (!objectMapperEncode().equals(streamingEncode())) {
+            throw new IllegalStateException("编码结果与 ObjectMapper 不一致");
+        }
+    }
+
+    @Benchmark
+    public ChatMessage legacyDecode() {
+        return legacyDecode(FRAME);
+    }
+
+    @Benchmark
+    public ChatMessage streamingDecode() {
+        codec.decode(FRAME, reusable);
+        return reusable;
+    }
+
+    @Benchmark
+    public String objectMapperEncode() {
+        try {
+            return objectMapper.writeValueAsString(outbound);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public String streamingEncode() {
+        return codec.encode(outbound);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ChatFrameCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    // ==================== 原 ChatWebSocketHandler 的解析方式 ====================
+
+    private static ChatMessage legacyDecode(String json) {
+        ChatMessage chatMsg = new ChatMessage();
+        int bodyPos = json.indexOf("\"body\":{");
+        if (bodyPos < 0) {
+            return null;
+        }
+        int bodyStart = bodyPos + "\"body\":".length();
+        int braceCount = 0, i = bodyStart, bodyEnd = -1;
+        for (; i < json.length(); ++i) {
+            if (json.charAt(i) == '{') braceCount++;
+            else if (json.charAt(i) == '}') {
+                braceCount--;
+                if (braceCount == 0) {
+                    bodyEnd = i;
+                    break;
+                }
+            }
+        }
+        if (bodyEnd == -1) {
+            return null;
+        }
+        String bodyJson = json.substring(bodyStart, bodyEnd + 1);
+
+        String createdAt = getJsonString(bodyJson, "created_at");
+        chatMsg.setContent(getJsonString(bodyJson, "content"));
+        chatMsg.setReceiverRole(getJsonString(bodyJson, "receiver_role"));
+        chatMsg.setReceiverName(getJsonString(bodyJson, "receiver_name"));
+        chatMsg.setSenderName(getJsonString(bodyJson, "sender_name"));
+        chatMsg.setSenderRole(getJsonString(bodyJson, "sender_role"));
+        chatMsg.setSenderId(getJsonLong(bodyJson, "sender_id"));
+        chatMsg.setReceiverId(getJsonLong(bodyJson, "receiver_id"));
+        if (createdAt != null) {
+            try {
+                chatMsg.setTimeStamp(LocalDateTime.parse(createdAt, DateTimeFormatter.ISO_DATE_TIME));
+            } catch (Exception e) {
+                // 解析失败忽略
+            }
+        }
+        return chatMsg;
+    }
+
+    private static String getJsonString(String json, String key) {
+        String pat = "\"" + key + "\":";
+        int p = json.indexOf(pat);
+        if (p < 0) return null;
+        int vstart = p + pat.length();
+        while (vstart < json.length() && (json.charAt(vstart) == ' ' || json.charAt(vstart) == '\n')) vstart++;
+        if (vstart >= json.length()) return null;
+        if (json.charAt(vstart) == '"') {
+            vstart++;
+            int vend = json.indexOf('"', vstart);
+            return vend > vstart ? json.substring(vstart, vend) : null;
+        } else {
+            int vend = vstart;
+            while (vend < json.length() && (Character.isDigit(json.charAt(vend)) || json.charAt(vend) == '-')) vend++;
+            return json.substring(vstart, vend);
+        }
+    }
+
+    private static Long getJsonLong(String json, String key) {
+        String v = getJsonString(json, key);
+        try { return v == null ? null : Long.parseLong(v); } catch (Exception e) { return null; }
+    }
+}
@@ -0,0 +1,640 @@
+/**
+ * 聊天负载压测工具
+ * 模拟大量已登录的 WebSocket 客户端按设定速率收发消息并持续上下线，统计投递延迟分位数、离线队列积压和服务端 CPU/堆内存
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.demo.baoleme.chat.ChatFrameCodec;
+import org.demo.baoleme.chat.ChatHandshakeInterceptor;
+import org.demo.baoleme.chat.ChatHistoryCache;
+import org.demo.baoleme.chat.ChatMessageRouter;
+import org.demo.baoleme.chat.ChatMessageWriter;
+import org.demo.baoleme.chat.ChatOutbound;
+import org.demo.baoleme.chat.ChatWebSocketHandler;
+import org.demo.baoleme.chat.WebSocketConfig;
+import org.demo.baoleme.common.JwtUtils;
+import org.demo.baoleme.config.RedisConfig;
+import org.demo.baoleme.config.SchedulingConfig;
+import org.demo.baoleme.config.SecurityConfig;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 聊天负载压测工具
+ * <p>
+ * 默认在子进程中启动本地聊天服务：back 的聊天组件（握手鉴权、路由、出站缓冲、心跳、异步落库、最近消息缓存）
+ * 加 H2 内存库（MySQL 模式）和 jedis-mock 提供的 Redis 替身，配置见 application-loadtest.yml。
+ * 集群模式保持开启，在线状态、离线队列都经过 Redis，与多实例部署的路径一致。服务端单独一个 JVM，
+ * 通过 /actuator/metrics 读取其 CPU 和堆内存，不受压测客户端影响。
+ * <p>
+ * 客户端以 user 角色登录（JWT 由 {@link JwtUtils} 直接签发），逐个建立连接后：
+ * <ul>
+ *     <li>每秒共发送 rate 条消息，发送方从在线客户端中随机选取，接收方从全部客户端中随机选取（可能离线）</li>
+ *     <li>每秒随机断开 churn 个在线客户端，offline-ms 后以同一身份重连，重连时收到离线期间的消息</li>
+ *     <li>消息内容携带发送时刻，收到后计算投递延迟：在线直达与离线补发分开统计</li>
+ * </ul>
+ * 每 report 秒输出一行：在线数、收发速率、延迟分位数、离线队列总长度、服务端 CPU/堆内存和出站缓冲积压。
+ * 结束后停止发送、让所有客户端重新上线，等待离线消息补发完毕，再输出全程汇总和未送达条数。
+ * <p>
+ * 参数均为系统属性（括号内为默认值）：
+ * <pre>
+ * -Dclients=2000         客户端数量，节日高峰容量评估建议 20000 以上
+ * -Drate=2000            每秒发送的消息总数
+ * -Dduration=30          发送阶段持续秒数
+ * -Dchurn=20             每秒断开重连的客户端数
+ * -Doffline-ms=3000      断开后多久重连（毫秒）
+ * -Dreport=5             报告间隔（秒）
+ * -Dserver-opts=-Xmx1g   本地聊天服务子进程的 JVM 参数，多个参数以空格分隔
+ * -Dtarget=ws://host:8080/ws/chat   压测已运行的 back 实例，此时不启动本地服务
+ * -Dredis=host:6379      target 模式下统计离线队列用的 Redis 地址，不传则不统计
+ * </pre>
+ * 数万连接时需先调大文件句柄数（ulimit -n），单个本机 IP 的临时端口约 2.8 万个，更多连接需要多台压测机。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行，在 IDE 中直接运行 main 方法即可。
+ */
+public class ChatLoadHarness {
+
+    private static final int CLIENTS = Integer.getInteger("clients", 2000);
+    private static final int RATE = Integer.getInteger("rate", 2000);
+    private static final int DURATION_SECONDS = Integer.getInteger("duration", 30);
+    private static final int CHURN = Integer.getInteger("churn", 20);
+    private static final long OFFLINE_MILLIS = Long.getLong("offline-ms", 3000);
+    private static final int REPORT_SECONDS = Integer.getInteger("report", 5);
+
+    /** 同时进行中的握手数上限 */
+    private static final int CONNECT_CONCURRENCY = 200;
+
+    /** 每个 HttpClient 承载的连接数 */
+    private static final int CONNECTIONS_PER_HTTP_CLIENT = 2000;
+
+    /** 发送节拍（毫秒） */
+    private static final long SEND_TICK_MILLIS = 10;
+
+    /** 结束后等待离线消息补发的最长时间（毫秒） */
+    private static final long DRAIN_TIMEOUT_MILLIS = 30_000;
+
+    private static final long FIRST_USER_ID = 10000001L;
+    private static final String ROLE = "user";
+    private static final String OFFLINE_PREFIX = "offline:msg:";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "server".equals(args[0])) {
+            runServer();
+            return;
+        }
+        String target = System.getProperty("target");
+        String redis = System.getProperty("redis");
+        Process server = null;
+        if (target == null) {
+            server = startServer();
+            String[] ready = awaitReady(server);
+            target = "ws://127.0.0.1:" + ready[0] + "/ws/chat";
+            redis = "127.0.0.1:" + ready[1];
+        }
+        try {
+            new ChatLoadHarness(URI.create(target), redis).run();
+        } finally {
+            if (server != null) {
+                server.destroy();
+                server.waitFor(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    // ------------ 本地聊天服务（子进程） ------------ //
+
+    /**
+     * 只装配 back 的聊天组件，不扫描整个包，避免依赖订单、库存等表
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @MapperScan("org.demo.baoleme.mapper")
+    @Import({SecurityConfig.class, RedisConfig.class, SchedulingConfig.class, WebSocketConfig.class,
+            ChatWebSocketHandler.class, ChatHandshakeInterceptor.class, ChatMessageRouter.class,
+            ChatOutbound.class, ChatFrameCodec.class, ChatMessageWriter.class, ChatHistoryCache.class})
+    static class ChatServer {
+    }
+
+    /**
+     * 子进程入口：启动 Redis 替身和聊天服务，输出 "READY 服务端口 Redis端口"，标准输入关闭（父进程退出）后停止
+     */
+    private static void runServer() throws IOException {
+        RedisServer redisServer = RedisServer.newRedisServer(0).start();
+        // 系统属性优先于 application.yml，默认属性（SpringApplicationBuilder.properties）则会被其覆盖
+        System.setProperty("server.port", "0");
+        System.setProperty("spring.data.redis.host", "127.0.0.1");
+        System.setProperty("spring.data.redis.port", Integer.toString(redisServer.getBindPort()));
+        ConfigurableApplicationContext context;
+        try {
+            context = new SpringApplicationBuilder(ChatServer.class).profiles("loadtest").run();
+        } catch (RuntimeException e) {
+            // Redis 替身的线程不是守护线程，启动失败时需要显式退出，否则父进程一直等不到 READY
+            redisServer.stop();
+            System.exit(1);
+            return;
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        System.out.println("READY " + port + " " + redisServer.getBindPort());
+        System.out.flush();
+        while (System.in.read() >= 0) {
+            // 等待父进程退出
+        }
+        context.close();
+        redisServer.stop();
+    }
+
+    private static Process startServer() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String opt : System.getProperty("server-opts", "-Xmx1g").trim().split("\\s+")) {
+            if (!opt.isEmpty()) {
+                command.add(opt);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ChatLoadHarness.class.getName());
+        command.add("server");
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    private static String[] awaitReady(Process server) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(server.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("READY ")) {
+                Thread pump = new Thread(() -> reader.lines().forEach(System.out::println), "chat-server-stdout");
+                pump.setDaemon(true);
+                pump.start();
+                return line.substring("READY ".length()).trim().split(" ");
+            }
+            System.out.println(line);
+        }
+        throw new IllegalStateException("聊天服务启动失败");
+    }
+
+    // ------------ 压测客户端 ------------ //
+
+    private final URI target;
+    private final URI actuator;
+    private final List<HttpClient> httpClients = new ArrayList<>();
+    private final HttpClient metricsClient = HttpClient.newHttpClient();
+    private final ExecutorService callbacks = Executors.newFixedThreadPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2), daemon("chat-load-client"));
+    private final ScheduledExecutorService ticker = Executors.newScheduledThreadPool(2, daemon("chat-load-ticker"));
+    private final Semaphore connecting = new Semaphore(CONNECT_CONCURRENCY);
+    private final Client[] clients = new Client[CLIENTS];
+
+    private final Recorder liveLatency = new Recorder(3);
+    private final Recorder offlineLatency = new Recorder(3);
+    private final Histogram liveTotal = new Histogram(3);
+    private final Histogram offlineTotal = new Histogram(3);
+
+    private final AtomicInteger online = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong sendFailed = new AtomicLong();
+    private final AtomicLong receivedLive = new AtomicLong();
+    private final AtomicLong receivedOffline = new AtomicLong();
+    private final AtomicLong errorFrames = new AtomicLong();
+    private final AtomicLong resyncFrames = new AtomicLong();
+    private final AtomicLong connectFailed = new AtomicLong();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private volatile boolean churning;
+
+    ChatLoadHarness(URI target, String redis) {
+        this.target = target;
+        this.actuator = URI.create("http://" + target.getHost() + ":" + target.getPort() + "/actuator/metrics/");
+        for (int i = 0; i < (CLIENTS + CONNECTIONS_PER_HTTP_CLIENT - 1) / CONNECTIONS_PER_HTTP_CLIENT; i++) {
+            httpClients.add(HttpClient.newBuilder().executor(callbacks).connectTimeout(Duration.ofSeconds(10)).build());
+        }
+        this.redisTemplate = redis == null ? null : redisTemplate(redis);
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = new Client(FIRST_USER_ID + i, httpClients.get(i / CONNECTIONS_PER_HTTP_CLIENT));
+        }
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf("目标 %s，客户端 %d，发送 %d 条/秒，持续 %d 秒，每秒上下线 %d 个（离线 %d ms）%n",
+                target, CLIENTS, RATE, DURATION_SECONDS, CHURN, OFFLINE_MILLIS);
+
+        long begin = System.nanoTime();
+        for (Client client : clients) {
+            connecting.acquire();
+            client.connect().whenComplete((ws, e) -> connecting.release());
+        }
+        connecting.acquire(CONNECT_CONCURRENCY);
+        connecting.release(CONNECT_CONCURRENCY);
+        System.out.printf("建立连接 %d 个（失败 %d），耗时 %d ms%n",
+                online.get(), connectFailed.get(), (System.nanoTime() - begin) / 1_000_000);
+        report("连接后", 0);
+
+        churning = true;
+        ticker.scheduleAtFixedRate(new Sender(), 0, SEND_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        ticker.scheduleAtFixedRate(this::churn, 1, 1, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        for (int elapsed = REPORT_SECONDS; elapsed <= DURATION_SECONDS; elapsed += REPORT_SECONDS) {
+            TimeUnit.SECONDS.sleep(REPORT_SECONDS);
+            report(elapsed + "s", System.nanoTime() - start);
+        }
+        ticker.shutdownNow();
+        churning = false;
+
+        // 所有客户端重新上线，等待离线消息补发完毕
+        for (Client client : clients) {
+            if (!client.online) {
+                connecting.acquire();
+                client.connect().whenComplete((ws, e) -> connecting.release());
+            }
+        }
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        long delivered;
+        do {
+            TimeUnit.MILLISECONDS.sleep(200);
+            delivered = receivedLive.get() + receivedOffline.get();
+        } while (delivered < sent.get() - sendFailed.get() && System.currentTimeMillis() < deadline);
+        report("补发后", 0);
+        summary();
+
+        for (Client client : clients) {
+            client.close();
+        }
+        callbacks.shutdownNow();
+    }
+
+    /**
+     * 每个节拍按速率发送一批消息
+     */
+    private final class Sender implements Runnable {
+
+        private final double perTick = RATE * SEND_TICK_MILLIS / 1000.0;
+        private double carry;
+        private long seq;
+
+        @Override
+        public void run() {
+            carry += perTick;
+            int count = (int) carry;
+            carry -= count;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < count; i++) {
+                Client from = pickOnline(random);
+                if (from == null) {
+                    return;
+                }
+                Client to = clients[random.nextInt(CLIENTS)];
+                if (to == from) {
+                    to = clients[(random.nextInt(CLIENTS - 1) + 1 + from.index()) % CLIENTS];
+                }
+                from.send(to.userId, ++seq);
+            }
+        }
+    }
+
+    private Client pickOnline(ThreadLocalRandom random) {
+        for (int attempt = 0; attempt < 16; attempt++) {
+            Client client = clients[random.nextInt(CLIENTS)];
+            if (client.online) {
+                return client;
+            }
+        }
+        return null;
+    }
+
+    private void churn() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < CHURN; i++) {
+            Client client = pickOnline(random);
+            if (client == null) {
+                return;
+            }
+            client.close();
+            ticker.schedule(() -> {
+                if (churning && connecting.tryAcquire()) {
+                    client.connect().whenComplete((ws, e) -> connecting.release());
+                }
+            }, OFFLINE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 单个压测客户端：一个用户身份，断开后可用同一身份重连
+     */
+    private final class Client implements WebSocket.Listener {
+
+        private final long userId;
+        private final String authorization;
+        private final HttpClient httpClient;
+        private final StringBuilder partial = new StringBuilder();
+
+        private volatile WebSocket webSocket;
+        private volatile boolean online;
+
+        /** 本次连接建立的时刻，早于该时刻发出的消息计为离线补发 */
+        private volatile long connectedNanos;
+
+        /** 同一连接上的发送必须串行，上一条写完再写下一条 */
+        private CompletableFuture<?> sending = CompletableFuture.completedFuture(null);
+
+        Client(long userId, HttpClient httpClient) {
+            this.userId = userId;
+            this.authorization = "Bearer " + JwtUtils.createToken(userId, ROLE, "load" + userId);
+            this.httpClient = httpClient;
+        }
+
+        int index() {
+            return (int) (userId - FIRST_USER_ID);
+        }
+
+        CompletableFuture<WebSocket> connect() {
+            return httpClient.newWebSocketBuilder()
+                    .header("Authorization", authorization)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .buildAsync(target, this)
+                    .whenComplete((ws, e) -> {
+                        if (e != null) {
+                            connectFailed.incrementAndGet();
+                        }
+                    });
+        }
+
+        synchronized void send(long receiverId, long seq) {
+            WebSocket ws = webSocket;
+            if (ws == null || !online) {
+                return;
+            }
+            String frame = "{\"body\":{\"sender_id\":" + userId + ",\"sender_role\":\"" + ROLE
+                    + "\",\"receiver_id\":" + receiverId + ",\"receiver_role\":\"" + ROLE
+                    + "\",\"content\":\"" + seq + ":" + System.nanoTime() + "\"}}";
+            sent.incrementAndGet();
+            sending = sending.thenCompose(v -> ws.sendText(frame, true))
+                    .exceptionally(e -> {
+                        sendFailed.incrementAndGet();
+                        return null;
+                    });
+        }
+
+        synchronized void close() {
+            WebSocket ws = webSocket;
+            if (ws == null || !online) {
+                return;
+            }
+            markOffline();
+            sending = sending.thenCompose(v -> ws.sendClose(WebSocket.NORMAL_CLOSURE, "churn"))
+                    .exceptionally(e -> {
+                        ws.abort();
+                        return null;
+                    });
+        }
+
+        @Override
+        public void onOpen(WebSocket ws) {
+            synchronized (this) {
+                webSocket = ws;
+                connectedNanos = System.nanoTime();
+                if (!online) {
+                    online = true;
+                    ChatLoadHarness.this.online.incrementAndGet();
+                }
+            }
+            ws.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                handle(partial.toString());
+                partial.setLength(0);
+            }
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            if (ws == webSocket) {
+                markOffline();
+            }
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            if (ws == webSocket) {
+                markOffline();
+            }
+        }
+
+        private synchronized void markOffline() {
+            if (online) {
+                online = false;
+                ChatLoadHarness.this.online.decrementAndGet();
+            }
+        }
+
+        private void handle(String frame) {
+            long now = System.nanoTime();
+            JsonNode node;
+            try {
+                node = MAPPER.readTree(frame);
+            } catch (IOException e) {
+                errorFrames.incrementAndGet();
+                return;
+            }
+            if (node.has("error")) {
+                errorFrames.incrementAndGet();
+                return;
+            }
+            if (node.has("type")) {
+                resyncFrames.incrementAndGet();
+                return;
+            }
+            String content = node.path("content").asText("");
+            int colon = content.indexOf(':');
+            if (colon < 0) {
+                return;
+            }
+            long sentNanos = Long.parseLong(content.substring(colon + 1));
+            long micros = Math.max(0, (now - sentNanos) / 1000);
+            if (sentNanos < connectedNanos) {
+                receivedOffline.incrementAndGet();
+                offlineLatency.recordValue(micros);
+            } else {
+                receivedLive.incrementAndGet();
+                liveLatency.recordValue(micros);
+            }
+        }
+    }
+
+    // ------------ 统计输出 ------------ //
+
+    private long lastSent;
+    private long lastReceived;
+    private long lastReportNanos = System.nanoTime();
+
+    private void report(String label, long elapsedNanos) {
+        long now = System.nanoTime();
+        double seconds = (now - lastReportNanos) / 1e9;
+        long sentNow = sent.get();
+        long receivedNow = receivedLive.get() + receivedOffline.get();
+        Histogram live = liveLatency.getIntervalHistogram();
+        Histogram offline = offlineLatency.getIntervalHistogram();
+        liveTotal.add(live);
+        offlineTotal.add(offline);
+
+        System.out.printf("[%-6s] 在线 %6d | 发送 %7.0f/s 接收 %7.0f/s | 直达 p50 %s p99 %s p99.9 %s max %s"
+                        + " | 离线补发 %d 条 p99 %s | 离线队列 %s | 服务端 CPU %s 堆 %s 出站积压 %s 帧%n",
+                label, online.get(), (sentNow - lastSent) / seconds, (receivedNow - lastReceived) / seconds,
+                millis(live, 50), millis(live, 99), millis(live, 99.9), maxMillis(live),
+                offline.getTotalCount(), millis(offline, 99), offlineQueueLength(),
+                percent(metric("process.cpu.usage")), megabytes(metric("jvm.memory.used?tag=area:heap")),
+                number(metric("chat.outbound.queued.frames")));
+        lastSent = sentNow;
+        lastReceived = receivedNow;
+        lastReportNanos = now;
+    }
+
+    private void summary() {
+        long sentTotal = sent.get() - sendFailed.get();
+        long delivered = receivedLive.get() + receivedOffline.get();
+        System.out.println("========== 汇总 ==========");
+        System.out.printf("发送 %d 条（写出失败 %d），直达 %d，离线补发 %d，未送达 %d，错误帧 %d，resync 通知 %d，连接失败 %d%n",
+                sent.get(), sendFailed.get(), receivedLive.get(), receivedOffline.get(),
+                Math.max(0, sentTotal - delivered), errorFrames.get(), resyncFrames.get(), connectFailed.get());
+        System.out.printf("直达延迟 p50 %s  p90 %s  p99 %s  p99.9 %s  max %s%n",
+                millis(liveTotal, 50), millis(liveTotal, 90), millis(liveTotal, 99), millis(liveTotal, 99.9),
+                maxMillis(liveTotal));
+        System.out.printf("离线补发延迟（含离线时长） p50 %s  p99 %s  max %s%n",
+                millis(offlineTotal, 50), millis(offlineTotal, 99), maxMillis(offlineTotal));
+    }
+
+    /**
+     * 压测用户离线队列的总长度（与服务端相同的 RedisTemplate 配置，键序列化一致）
+     */
+    private String offlineQueueLength() {
+        if (redisTemplate == null) {
+            return "-";
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+            List<Object> lengths = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Client client : clients) {
+                    connection.listCommands().lLen(keySerializer.serialize(OFFLINE_PREFIX + ROLE + ":" + client.userId));
+                }
+                return null;
+            });
+            long total = 0;
+            for (Object length : lengths) {
+                total += length == null ? 0 : (Long) length;
+            }
+            return Long.toString(total);
+        } catch (Exception e) {
+            return "?";
+        }
+    }
+
+    /**
+     * 读取服务端 actuator 指标的当前值，读取失败时返回 NaN
+     */
+    private double metric(String name) {
+        try {
+            HttpResponse<String> response = metricsClient.send(
+                    HttpRequest.newBuilder(actuator.resolve(name)).timeout(Duration.ofSeconds(2)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return Double.NaN;
+            }
+            return MAPPER.readTree(response.body()).path("measurements").path(0).path("value").asDouble(Double.NaN);
+        } catch (IOException e) {
+            return Double.NaN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Double.NaN;
+        }
+    }
+
+    private static RedisTemplate<String, Object> redisTemplate(String address) {
+        int colon = address.lastIndexOf(':');
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        factory.afterPropertiesSet();
+        RedisTemplate<String, Object> template = new RedisConfig().redisTemplate(factory, "jdk");
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    private static String millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? "-" : String.format("%.1fms", histogram.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static String maxMillis(Histogram histogram) {
+        return histogram.getTotalCount() == 0 ? "-" : String.format("%.1fms", histogram.getMaxValue() / 1000.0);
+    }
+
+    private static String percent(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.0f%%", value * 100);
+    }
+
+    private static String megabytes(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.0fMB", value / 1024 / 1024);
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.0f", value);
+    }
+
+    private static java.util.concurrent.ThreadFactory daemon(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
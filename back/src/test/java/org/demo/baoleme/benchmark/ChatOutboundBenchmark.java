@@ -0,0 +1,141 @@
+/**
+ * 聊天出站缓冲基准测试
+ * 一个慢客户端混在正常客户端中，比较发送方线程直接写会话与按会话出站缓冲两种方式下其他客户端的吞吐量
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.demo.baoleme.chat.ChatFrameCodec;
+import org.demo.baoleme.chat.ChatMessageRouter;
+import org.demo.baoleme.chat.ChatOutbound;
+import org.demo.baoleme.pojo.ChatMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 聊天出站缓冲基准测试
+ * <p>
+ * {@value #RECEIVERS} 个接收方中第 0 个是慢客户端（每帧写出耗时 {@value #SLOW_SEND_MILLIS} ms），
+ * {@value #SENDERS} 个发送线程轮流给所有接收方发消息。统计发送线程全部发完的耗时，
+ * 以及正常客户端收齐各自消息的耗时；出站缓冲模式下额外输出丢弃帧数等指标。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行，在 IDE 中直接运行 main 方法即可。
+ */
+public class ChatOutboundBenchmark {
+
+    private static final int RECEIVERS = 200;
+    private static final int SENDERS = 4;
+    private static final int MESSAGES_PER_SENDER = 4_000;
+    private static final long SLOW_SEND_MILLIS = 50;
+
+    private static final ChatFrameCodec CODEC = new ChatFrameCodec(new ObjectMapper());
+
+    public static void main(String[] args) throws InterruptedException {
+        AtomicLong fastReceived = new AtomicLong();
+        Map<String, WebSocketSession> direct = new HashMap<>();
+        for (int i = 0; i < RECEIVERS; i++) {
+            direct.put(key(i), newSession(i, fastReceived));
+        }
+        run("发送线程直接写", fastReceived, message -> {
+            WebSocketSession session = direct.get(message.getReceiverRole() + ":" + message.getReceiverId());
+            try {
+                synchronized (session) {
+                    session.sendMessage(new TextMessage(CODEC.encode(message)));
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChatOutbound outbound = new ChatOutbound(CODEC, registry, 8 * 1024, 5000, "DROP_OLDEST", 8, 25000, 60000);
+        ChatMessageRouter router = new ChatMessageRouter(CODEC, outbound, null, null, false, 7, 1000, 500);
+        fastReceived.set(0);
+        for (int i = 0; i < RECEIVERS; i++) {
+            router.register(key(i), newSession(i, fastReceived));
+        }
+        run("按会话出站缓冲", fastReceived, message -> router.deliver(message, CODEC.encode(message)));
+        for (Meter meter : registry.getMeters()) {
+            System.out.printf("  %s%s = %.0f%n", meter.getId().getName(), meter.getId().getTags(),
+                    meter.measure().iterator().next().getValue());
+        }
+        outbound.shutdown();
+    }
+
+    private static void run(String name, AtomicLong fastReceived, Consumer<ChatMessage> deliver)
+            throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(SENDERS);
+        long begin = System.nanoTime();
+        for (int t = 0; t < SENDERS; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < MESSAGES_PER_SENDER; i++) {
+                    deliver.accept(message(i % RECEIVERS));
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long sent = System.nanoTime() - begin;
+
+        long expectedFast = (long) SENDERS * MESSAGES_PER_SENDER / RECEIVERS * (RECEIVERS - 1);
+        while (fastReceived.get() < expectedFast) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        long received = System.nanoTime() - begin;
+        long total = (long) SENDERS * MESSAGES_PER_SENDER;
+        System.out.printf("%-10s 共 %d 条：发送方 %d ms（%.0f 条/秒），正常客户端收齐 %d ms%n",
+                name, total, sent / 1_000_000, total / (sent / 1e9), received / 1_000_000);
+    }
+
+    private static String key(int receiver) {
+        return "user:" + (10000001 + receiver);
+    }
+
+    private static ChatMessage message(int receiver) {
+        ChatMessage message = new ChatMessage();
+        message.setSenderId(20000001L);
+        message.setSenderRole("merchant");
+        message.setReceiverId(10000001L + receiver);
+        message.setReceiverRole("user");
+        message.setContent("您的订单已出餐，骑手正在赶来");
+        return message;
+    }
+
+    /**
+     * 只实现测试所需方法的轻量会话，第 0 个接收方每帧写出都会阻塞
+     */
+    private static WebSocketSession newSession(int receiver, AtomicLong fastReceived) {
+        String id = "s" + receiver;
+        Map<String, Object> attributes = new HashMap<>();
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[]{WebSocketSession.class}, (proxy, method, methodArgs) -> switch (method.getName()) {
+                    case "sendMessage" -> {
+                        if (receiver == 0) {
+                            TimeUnit.MILLISECONDS.sleep(SLOW_SEND_MILLIS);
+                        } else {
+                            fastReceived.incrementAndGet();
+                        }
+                        yield null;
+                    }
+                    case "getId" -> id;
+                    case "isOpen" -> true;
+                    case "getAttributes" -> attributes;
+                    case "equals" -> proxy == methodArgs[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * 聊天消息落库基准测试
+ * 对比每条消息同步 INSERT 与 ChatMessageWriter 异步攒批写入的吞吐量和数据库往返次数
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import org.demo.baoleme.chat.ChatHistoryCache;
+import org.demo.baoleme.chat.ChatMessageWriter;
+import org.demo.baoleme.mapper.MessageMapper;
+import org.demo.baoleme.pojo.Message;
+import org.mockito.stubbing.Answer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 聊天消息落库基准测试
+ * <p>
+ * 使用 Mock Mapper 模拟数据库：每条语句等待一次网络往返，每行再额外计入固定的写入开销。
+ * 多个发送线程模拟 WebSocket I/O 线程，分别统计投递路径吞吐量（消息交给落库组件即返回）和全部写入完成的吞吐量。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行，在 IDE 中直接运行 main 方法即可。
+ */
+public class ChatPersistBenchmark {
+
+    private static final int SENDERS = 8;
+    private static final int MESSAGES_PER_SENDER = 5_000;
+
+    /** 模拟的单次数据库往返延迟 */
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    /** 模拟的单行写入开销 */
+    private static final long PER_ROW_NANOS = TimeUnit.MICROSECONDS.toNanos(5);
+
+    private static final AtomicInteger roundTrips = new AtomicInteger();
+    private static final AtomicInteger rows = new AtomicInteger();
+
+    public static void main(String[] args) throws InterruptedException {
+        MessageMapper messageMapper = mockMapper();
+
+        run("同步 INSERT", messageMapper::insert, () -> { });
+
+        ChatMessageWriter writer = new ChatMessageWriter(messageMapper, new ChatHistoryCache(messageMapper, null, false, 50, 10_000, 60), true, 500, 200, 50_000);
+        writer.start();
+        run("异步攒批写入", writer::append, () -> {
+            try {
+                writer.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private static void run(String name, Consumer<Message> sink, Runnable drain) throws InterruptedException {
+        roundTrips.set(0);
+        rows.set(0);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(SENDERS);
+        for (int t = 0; t < SENDERS; t++) {
+            long senderId = 10000001L + t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < MESSAGES_PER_SENDER; i++) {
+                        sink.accept(message(senderId, i));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long delivered = System.nanoTime() - begin;
+        drain.run();
+        long persisted = System.nanoTime() - begin;
+
+        int total = SENDERS * MESSAGES_PER_SENDER;
+        System.out.printf("%-10s 共 %d 条：投递路径 %.0f 条/秒，全部落库 %.0f 条/秒，数据库往返 %d 次，写入 %d 行%n",
+                name, total, total / (delivered / 1e9), total / (persisted / 1e9), roundTrips.get(), rows.get());
+    }
+
+    private static MessageMapper mockMapper() {
+        MessageMapper messageMapper = mock(MessageMapper.class);
+        when(messageMapper.insert(any(Message.class))).thenAnswer(statement(1));
+        when(messageMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(0);
+            return statement(batch.size()).answer(invocation);
+        });
+        return messageMapper;
+    }
+
+    private static Answer<Integer> statement(int rowCount) {
+        return invocation -> {
+            roundTrips.incrementAndGet();
+            rows.addAndGet(rowCount);
+            LockSupport.parkNanos(ROUND_TRIP_NANOS + rowCount * PER_ROW_NANOS);
+            return rowCount;
+        };
+    }
+
+    private static Message message(long senderId, int seq) {
+        Message message = new Message();
+        message.setSenderId(senderId);
+        message.setSenderRole("user");
+        message.setReceiverId(20000001L);
+        message.setReceiverRole("merchant");
+        message.setContent("第 " + seq + " 条消息：你好，我的订单大概什么时候能出餐？");
+        message.setCreatedAt(LocalDateTime.now());
+        return message;
+    }
+}
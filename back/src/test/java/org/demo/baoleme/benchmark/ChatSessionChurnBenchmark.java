@@ -0,0 +1,134 @@
+/**
+ * 聊天会话登记/注销压力测试
+ * 2 万个在线连接持续断开重连，比较按值遍历删除与反向索引删除的吞吐量
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.demo.baoleme.chat.ChatFrameCodec;
+import org.demo.baoleme.chat.ChatMessageRouter;
+import org.demo.baoleme.chat.ChatOutbound;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 聊天会话登记/注销压力测试
+ * <p>
+ * 先建立 {@value #CONNECTIONS} 个在线会话，再由多个线程随机挑选用户执行“断开 + 以新会话重连”，
+ * 在线人数始终保持不变。原实现断开时遍历整个映射表按值删除，反向索引实现按会话 ID 直接定位。
+ * 只测会话簿记本身（单节点模式，不访问 Redis，不含网络和握手开销）。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行，在 IDE 中直接运行 main 方法即可。
+ */
+public class ChatSessionChurnBenchmark {
+
+    private static final int CONNECTIONS = 20_000;
+    private static final int THREADS = 8;
+    private static final long DURATION_MILLIS = 3_000;
+
+    private static final AtomicLong sessionSeq = new AtomicLong();
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, WebSocketSession> legacy = new ConcurrentHashMap<>();
+        run("原实现 removeIf", new Bookkeeping() {
+            @Override
+            public void register(String key, WebSocketSession session) {
+                legacy.put(key, session);
+            }
+
+            @Override
+            public void unregister(WebSocketSession session) {
+                legacy.values().removeIf(s -> s.equals(session));
+            }
+        });
+
+        ChatFrameCodec codec = new ChatFrameCodec(new ObjectMapper());
+        ChatOutbound outbound = new ChatOutbound(codec, new SimpleMeterRegistry(), 512 * 1024, 5000, "DROP_OLDEST", 4, 25000, 60000);
+        ChatMessageRouter router = new ChatMessageRouter(codec, outbound, null, null, false, 7, 1000, 500);
+        run("反向索引", new Bookkeeping() {
+            @Override
+            public void register(String key, WebSocketSession session) {
+                router.register(key, session);
+            }
+
+            @Override
+            public void unregister(WebSocketSession session) {
+                router.unregister(session);
+            }
+        });
+    }
+
+    private static void run(String name, Bookkeeping bookkeeping) throws InterruptedException {
+        AtomicReferenceArray<WebSocketSession> online = new AtomicReferenceArray<>(CONNECTIONS);
+        for (int i = 0; i < CONNECTIONS; i++) {
+            WebSocketSession session = newSession();
+            online.set(i, session);
+            bookkeeping.register(key(i), session);
+        }
+
+        AtomicLong churns = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+        long begin = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    int user = random.nextInt(CONNECTIONS);
+                    WebSocketSession replacement = newSession();
+                    WebSocketSession previous = online.getAndSet(user, replacement);
+                    bookkeeping.unregister(previous);
+                    bookkeeping.register(key(user), replacement);
+                    count++;
+                }
+                churns.addAndGet(count);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%-14s 在线 %d，%d 线程：断开重连 %d 次，%.0f 次/秒，平均 %.1f µs/次%n",
+                name, CONNECTIONS, THREADS, churns.get(), churns.get() / (elapsed / 1e9),
+                elapsed / 1e3 * THREADS / churns.get());
+    }
+
+    private static String key(int user) {
+        return "user:" + (10000001 + user);
+    }
+
+    /**
+     * 只实现 getId/isOpen/getAttributes 的轻量会话，避免 Mock 框架的开销影响结果
+     */
+    private static WebSocketSession newSession() {
+        String id = Long.toHexString(sessionSeq.incrementAndGet());
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[]{WebSocketSession.class}, (proxy, method, methodArgs) -> switch (method.getName()) {
+                    case "getId" -> id;
+                    case "isOpen" -> true;
+                    case "getAttributes" -> attributes;
+                    case "equals" -> proxy == methodArgs[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Session[" + id + "]";
+                    default -> null;
+                });
+    }
+
+    private interface Bookkeeping {
+        void register(String key, WebSocketSession session);
+
+        void unregister(WebSocketSession session);
+    }
+}
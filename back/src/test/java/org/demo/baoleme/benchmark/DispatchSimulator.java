@@ -0,0 +1,260 @@
+/**
+ * 派单策略离线仿真
+ * 回放订单/骑手轨迹，比较随机派单、就近派单与批量派单的吞吐量和平均取餐距离
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import org.demo.baoleme.dispatch.BatchAssignmentSolver;
+import org.demo.baoleme.dispatch.GeoDispatchIndex;
+import org.demo.baoleme.dispatch.GeoPoint;
+import org.demo.baoleme.dispatch.PendingOrderIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 派单策略离线仿真
+ * <p>
+ * 轨迹为 CSV，每行一个事件：
+ * <pre>
+ * 时间(秒),rider,骑手ID,纬度,经度
+ * 时间(秒),order,订单ID,店铺纬度,店铺经度,收货纬度,收货经度
+ * </pre>
+ * rider 事件表示骑手上线，order 事件表示下单。骑手接单后以固定速度前往店铺取餐再送达，
+ * 送达后在收货地重新空闲。超过截止时间仍未派出的订单计为超时取消。
+ * <p>
+ * 不传参数时使用固定种子生成的合成轨迹；传入 CSV 路径时回放该轨迹。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行，在 IDE 中直接运行 main 方法即可。
+ */
+public class DispatchSimulator {
+
+    /** 派单周期（秒），与批量派单默认周期一致 */
+    private static final int TICK_SECONDS = 2;
+
+    /** 骑手平均速度（米/秒） */
+    private static final double RIDER_SPEED = 5.0;
+
+    /** 订单截止时间（秒），与数据库触发器一致 */
+    private static final int ORDER_DEADLINE_SECONDS = 45 * 60;
+
+    /** 批量派单参数，与 BatchDispatcher 一致 */
+    private static final int CANDIDATES_PER_RIDER = 8;
+    private static final double MAX_PICKUP_METERS = 5000;
+
+    enum Policy {
+        /** 原 ORDER BY RAND()：空闲骑手随机取一个待接单订单 */
+        RANDOM,
+        /** 空闲骑手依次取最近的订单 */
+        NEAREST,
+        /** 每个周期统一求解分配 */
+        BATCH
+    }
+
+    record Event(int time, boolean rider, long id, GeoPoint point, GeoPoint drop) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Event> trace = args.length > 0 ? load(Path.of(args[0])) : synthetic(42L);
+        System.out.printf("轨迹事件数：%d%n", trace.size());
+        for (Policy policy : Policy.values()) {
+            long start = System.nanoTime();
+            Result result = new DispatchSimulator().run(trace, policy);
+            result.print(policy, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // ==================== 仿真 ====================
+
+    private static final class Rider {
+        final long id;
+        GeoPoint position;
+        int busyUntil;
+
+        Rider(long id, GeoPoint position) {
+            this.id = id;
+            this.position = position;
+        }
+    }
+
+    private final Random random = new Random(7L);
+    private final GeoDispatchIndex index = new GeoDispatchIndex(new PendingOrderIndex(null), true);
+    private final Map<Long, Event> pending = new LinkedHashMap<>();
+    private final List<Rider> riders = new ArrayList<>();
+
+    private Result run(List<Event> trace, Policy policy) {
+        Result result = new Result();
+        int cursor = 0;
+        int end = trace.get(trace.size() - 1).time() + ORDER_DEADLINE_SECONDS;
+        for (int now = 0; now <= end; now += TICK_SECONDS) {
+            // 到达的事件
+            while (cursor < trace.size() && trace.get(cursor).time() <= now) {
+                Event event = trace.get(cursor++);
+                if (event.rider()) {
+                    riders.add(new Rider(event.id(), event.point()));
+                } else {
+                    pending.put(event.id(), event);
+                    index.add(event.id(), event.point());
+                }
+            }
+            // 超时取消
+            Iterator<Event> it = pending.values().iterator();
+            while (it.hasNext()) {
+                Event order = it.next();
+                if (now - order.time() > ORDER_DEADLINE_SECONDS) {
+                    it.remove();
+                    index.remove(order.id());
+                    result.expired++;
+                }
+            }
+
+            int currentTime = now;
+            List<Rider> idle = riders.stream().filter(r -> r.busyUntil <= currentTime).toList();
+            if (idle.isEmpty() || pending.isEmpty()) {
+                continue;
+            }
+            switch (policy) {
+                case RANDOM -> dispatchRandom(idle, now, result);
+                case NEAREST -> dispatchNearest(idle, now, result);
+                case BATCH -> dispatchBatch(idle, now, result);
+            }
+        }
+        return result;
+    }
+
+    private void dispatchRandom(List<Rider> idle, int now, Result result) {
+        List<Rider> shuffled = new ArrayList<>(idle);
+        Collections.shuffle(shuffled, random);
+        for (Rider rider : shuffled) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Long> ids = new ArrayList<>(pending.keySet());
+            assign(rider, ids.get(random.nextInt(ids.size())), now, result);
+        }
+    }
+
+    private void dispatchNearest(List<Rider> idle, int now, Result result) {
+        for (Rider rider : idle) {
+            List<Long> nearest = index.nearest(rider.position, 1);
+            if (nearest.isEmpty()) {
+                return;
+            }
+            assign(rider, nearest.get(0), now, result);
+        }
+    }
+
+    private void dispatchBatch(List<Rider> idle, int now, Result result) {
+        List<Long> orderIds = new ArrayList<>();
+        Map<Long, Integer> orderIndex = new HashMap<>();
+        List<List<BatchAssignmentSolver.Arc>> candidates = new ArrayList<>(idle.size());
+        for (Rider rider : idle) {
+            List<BatchAssignmentSolver.Arc> arcs = new ArrayList<>();
+            for (Long orderId : index.nearestLocated(rider.position, CANDIDATES_PER_RIDER)) {
+                double distance = rider.position.distanceTo(index.pointOf(orderId));
+                if (distance <= MAX_PICKUP_METERS) {
+                    int i = orderIndex.computeIfAbsent(orderId, id -> {
+                        orderIds.add(id);
+                        return orderIds.size() - 1;
+                    });
+                    arcs.add(new BatchAssignmentSolver.Arc(i, distance));
+                }
+            }
+            candidates.add(arcs);
+        }
+        int[] plan = BatchAssignmentSolver.solve(candidates, orderIds.size());
+        for (int i = 0; i < plan.length; i++) {
+            if (plan[i] >= 0) {
+                assign(idle.get(i), orderIds.get(plan[i]), now, result);
+            }
+        }
+    }
+
+    private void assign(Rider rider, long orderId, int now, Result result) {
+        Event order = pending.remove(orderId);
+        index.remove(orderId);
+        double pickup = rider.position.distanceTo(order.point());
+        double delivery = order.point().distanceTo(order.drop());
+        rider.busyUntil = now + (int) Math.ceil((pickup + delivery) / RIDER_SPEED);
+        rider.position = order.drop();
+
+        result.delivered++;
+        result.pickupMeters += pickup;
+        result.waitSeconds += now - order.time();
+        result.lastDelivery = Math.max(result.lastDelivery, rider.busyUntil);
+    }
+
+    private static final class Result {
+        int delivered;
+        int expired;
+        double pickupMeters;
+        long waitSeconds;
+        int lastDelivery;
+
+        void print(Policy policy, long elapsedMillis) {
+            double hours = Math.max(lastDelivery, 1) / 3600.0;
+            System.out.printf("%-8s 派出 %d 单，超时 %d 单，吞吐 %.0f 单/小时，平均取餐距离 %.0f 米，平均等待 %.0f 秒（仿真耗时 %d ms）%n",
+                    policy, delivered, expired, delivered / hours,
+                    delivered == 0 ? 0 : pickupMeters / delivered,
+                    delivered == 0 ? 0 : (double) waitSeconds / delivered,
+                    elapsedMillis);
+        }
+    }
+
+    // ==================== 轨迹 ====================
+
+    private static List<Event> load(Path path) throws IOException {
+        List<Event> events = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] f = line.split(",");
+            int time = Integer.parseInt(f[0].trim());
+            boolean rider = "rider".equals(f[1].trim());
+            GeoPoint point = new GeoPoint(Double.parseDouble(f[3]), Double.parseDouble(f[4]));
+            GeoPoint drop = rider ? null : new GeoPoint(Double.parseDouble(f[5]), Double.parseDouble(f[6]));
+            events.add(new Event(time, rider, Long.parseLong(f[2].trim()), point, drop));
+        }
+        events.sort(Comparator.comparingInt(Event::time));
+        return events;
+    }
+
+    /**
+     * 合成轨迹：约 20km 见方的城区，300 名骑手，订单集中在 40 个商圈，1 小时内平均每秒 1.5 单
+     */
+    private static List<Event> synthetic(long seed) {
+        Random random = new Random(seed);
+        double baseLat = 30.45;
+        double baseLng = 114.25;
+        double span = 0.2;
+
+        GeoPoint[] hotspots = new GeoPoint[40];
+        for (int i = 0; i < hotspots.length; i++) {
+            hotspots[i] = new GeoPoint(baseLat + random.nextDouble() * span, baseLng + random.nextDouble() * span);
+        }
+
+        List<Event> events = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            events.add(new Event(0, true, id,
+                    new GeoPoint(baseLat + random.nextDouble() * span, baseLng + random.nextDouble() * span), null));
+        }
+        double time = 0;
+        long orderId = 1;
+        while (time < 3600) {
+            time += -Math.log(1 - random.nextDouble()) / 1.5;
+            GeoPoint hotspot = hotspots[random.nextInt(hotspots.length)];
+            GeoPoint store = new GeoPoint(hotspot.getLat() + random.nextGaussian() * 0.003,
+                    hotspot.getLng() + random.nextGaussian() * 0.003);
+            GeoPoint drop = new GeoPoint(store.getLat() + random.nextGaussian() * 0.02,
+                    store.getLng() + random.nextGaussian() * 0.02);
+            events.add(new Event((int) time, false, orderId++, store, drop));
+        }
+        return events;
+    }
+}
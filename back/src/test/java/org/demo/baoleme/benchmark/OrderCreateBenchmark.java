@@ -0,0 +1,227 @@
+/**
+ * 下单链路基准测试
+ * 对比逐行查询/插入/扣库存的旧链路与批量写入的新链路在数据库往返次数和延迟上的差异
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import org.demo.baoleme.cache.CatalogCache;
+import org.demo.baoleme.dispatch.OrderGrabEngine;
+import org.demo.baoleme.dispatch.PendingOrderIndex;
+import org.demo.baoleme.dto.request.order.CartItemDTO;
+import org.demo.baoleme.dto.request.order.OrderCreateRequest;
+import org.demo.baoleme.mapper.*;
+import org.demo.baoleme.pojo.*;
+import org.demo.baoleme.service.CartService;
+import org.demo.baoleme.service.impl.OrderServiceImpl;
+import org.demo.baoleme.stock.StockReservationService;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 下单链路基准测试
+ * <p>
+ * 使用 Mock Mapper 模拟数据库，每次 Mapper 调用计为一次往返并等待固定的网络延迟，
+ * 从而在没有真实 MySQL 的环境下比较两条链路。类名不以 Test 结尾，不会被 Surefire 自动执行，
+ * 在 IDE 中直接运行 main 方法即可。
+ */
+public class OrderCreateBenchmark {
+
+    /** 每个订单的商品行数 */
+    private static final int LINES_PER_ORDER = 15;
+
+    /** 预热与测量的下单次数 */
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1000;
+
+    /** 模拟的单次数据库往返延迟 */
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private final AtomicLong orderIdSeq = new AtomicLong(80000001L);
+
+    private OrderMapper orderMapper;
+    private UserMapper userMapper;
+    private StoreMapper storeMapper;
+    private ProductMapper productMapper;
+    private OrderItemMapper orderItemMapper;
+    private CartService cartService;
+
+    public static void main(String[] args) {
+        OrderCreateBenchmark benchmark = new OrderCreateBenchmark();
+        benchmark.setUp();
+        OrderServiceImpl service = benchmark.batchedService();
+        OrderCreateRequest request = benchmark.request();
+
+        Runnable legacy = () -> benchmark.legacyCreateOrder(1L, request);
+        Runnable batched = () -> service.createOrder(1L, request);
+
+        benchmark.run(legacy, WARMUP);
+        benchmark.run(batched, WARMUP);
+        benchmark.report("逐行链路（旧）", benchmark.run(legacy, ITERATIONS));
+        benchmark.report("批量链路（新）", benchmark.run(batched, ITERATIONS));
+    }
+
+    private void setUp() {
+        orderMapper = mock(OrderMapper.class);
+        userMapper = mock(UserMapper.class);
+        storeMapper = mock(StoreMapper.class);
+        productMapper = mock(ProductMapper.class);
+        orderItemMapper = mock(OrderItemMapper.class);
+        cartService = mock(CartService.class);
+
+        User user = new User();
+        user.setId(1L);
+        Store store = new Store();
+        store.setId(50000001L);
+        store.setName("基准店铺");
+        store.setLocation("30.5,114.3");
+        Map<Long, Product> products = new HashMap<>();
+        for (long i = 1; i <= LINES_PER_ORDER; i++) {
+            Product product = new Product();
+            product.setId(i);
+            product.setStoreId(store.getId());
+            product.setName("商品" + i);
+            product.setPrice(BigDecimal.valueOf(10 + i));
+            product.setStock(Integer.MAX_VALUE);
+            products.put(i, product);
+        }
+
+        doAnswer(roundTrip(user)).when(userMapper).selectById(anyLong());
+        doAnswer(roundTrip(store)).when(storeMapper).selectById(anyLong());
+        doAnswer(inv -> {
+            roundTrip();
+            return products.get((Long) inv.getArgument(0));
+        }).when(productMapper).selectById(anyLong());
+        doAnswer(inv -> {
+            roundTrip();
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().map(products::get).toList();
+        }).when(productMapper).selectBatchIds(anyCollection());
+        doAnswer(roundTrip(1)).when(productMapper).decreaseStock(anyLong(), anyInt());
+        doAnswer(inv -> {
+            roundTrip();
+            return ((List<?>) inv.getArgument(0)).size();
+        }).when(productMapper).decreaseStockBatch(anyList());
+        doAnswer(inv -> {
+            roundTrip();
+            ((Order) inv.getArgument(0)).setId(orderIdSeq.getAndIncrement());
+            return 1;
+        }).when(orderMapper).insert(any(Order.class));
+        doAnswer(roundTrip(List.of())).when(orderMapper).selectOrderItemsWithProductInfo(anyLong());
+        doAnswer(roundTrip(1)).when(orderItemMapper).insert(any(OrderItem.class));
+        doAnswer(inv -> {
+            roundTrip();
+            return ((List<?>) inv.getArgument(0)).size();
+        }).when(orderItemMapper).insertBatch(anyList());
+        doAnswer(roundTrip(null)).when(cartService).removeCart(anyLong());
+    }
+
+    private OrderServiceImpl batchedService() {
+        OrderServiceImpl service = new OrderServiceImpl();
+        ReflectionTestUtils.setField(service, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(service, "userMapper", userMapper);
+        ReflectionTestUtils.setField(service, "storeMapper", storeMapper);
+        ReflectionTestUtils.setField(service, "catalogCache", new CatalogCache(storeMapper, productMapper, null,
+                null, null, null, false, 0, 0, 0, 0, 0));
+        ReflectionTestUtils.setField(service, "productMapper", productMapper);
+        ReflectionTestUtils.setField(service, "orderItemMapper", orderItemMapper);
+        ReflectionTestUtils.setField(service, "cartService", cartService);
+        ReflectionTestUtils.setField(service, "orderGrabEngine", new OrderGrabEngine(orderMapper));
+        ReflectionTestUtils.setField(service, "pendingOrderIndex", new PendingOrderIndex(orderMapper));
+        ReflectionTestUtils.setField(service, "stockReservationService", new StockReservationService(null, productMapper));
+        return service;
+    }
+
+    private OrderCreateRequest request() {
+        OrderCreateRequest request = new OrderCreateRequest();
+        request.setStoreId(50000001L);
+        request.setUserLocation("30.6,114.4");
+        request.setDeliveryPrice(BigDecimal.valueOf(3));
+        List<CartItemDTO> items = new ArrayList<>();
+        for (long i = 1; i <= LINES_PER_ORDER; i++) {
+            CartItemDTO item = new CartItemDTO();
+            item.setProductId(i);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        request.setItems(items);
+        return request;
+    }
+
+    /**
+     * 旧链路：逐行查询商品、逐行插入订单项并扣减库存，最后回查订单项
+     */
+    private void legacyCreateOrder(Long userId, OrderCreateRequest request) {
+        userMapper.selectById(userId);
+        storeMapper.selectById(request.getStoreId());
+        BigDecimal total = BigDecimal.ZERO;
+        for (CartItemDTO item : request.getItems()) {
+            Product product = productMapper.selectById(item.getProductId());
+            total = total.add(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setTotalPrice(total);
+        order.setCreatedAt(LocalDateTime.now());
+        orderMapper.insert(order);
+        for (CartItemDTO item : request.getItems()) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrderId(order.getId());
+            orderItem.setProductId(item.getProductId());
+            orderItem.setQuantity(item.getQuantity());
+            orderItemMapper.insert(orderItem);
+            productMapper.decreaseStock(item.getProductId(), item.getQuantity());
+        }
+        cartService.removeCart(userId);
+        orderMapper.selectOrderItemsWithProductInfo(order.getId());
+    }
+
+    private Result run(Runnable createOrder, int iterations) {
+        long[] latencies = new long[iterations];
+        roundTrips.set(0);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            createOrder.run();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return new Result(roundTrips.get() / (double) iterations,
+                latencies[iterations / 2], latencies[(int) Math.ceil(iterations * 0.99) - 1]);
+    }
+
+    private void report(String name, Result result) {
+        System.out.printf("%s：%d 行/单，平均往返 %.1f 次，p50 %.2f ms，p99 %.2f ms%n",
+                name, LINES_PER_ORDER, result.roundTrips,
+                result.p50Nanos / 1_000_000.0, result.p99Nanos / 1_000_000.0);
+    }
+
+    private Answer<Object> roundTrip(Object value) {
+        return inv -> {
+            roundTrip();
+            return value;
+        };
+    }
+
+    private void roundTrip() {
+        roundTrips.incrementAndGet();
+        LockSupport.parkNanos(ROUND_TRIP_NANOS);
+    }
+
+    private record Result(double roundTrips, long p50Nanos, long p99Nanos) {
+    }
+}
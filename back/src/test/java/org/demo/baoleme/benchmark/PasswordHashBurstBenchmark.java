@@ -0,0 +1,123 @@
+/**
+ * 登录高峰密码哈希基准测试
+ * 对比在请求线程上直接计算 BCrypt 与使用 PasswordHasher 专用有界线程池时，其他接口的延迟和登录吞吐量
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.demo.baoleme.common.PasswordHasher;
+import org.demo.baoleme.exception.ServiceBusyException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+/**
+ * 登录高峰密码哈希基准测试
+ * <p>
+ * {@value #LOGIN_THREADS} 个线程模拟 Tomcat 请求线程持续登录，同时 {@value #OTHER_THREADS} 个线程循环调用
+ * 一个约几百微秒 CPU 开销的普通接口，统计普通接口的 p50 / p99 延迟、登录成功次数和被 429 拒绝的次数。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行，在 IDE 中直接运行 main 方法即可。
+ */
+public class PasswordHashBurstBenchmark {
+
+    private static final int LOGIN_THREADS = 200;
+    private static final int OTHER_THREADS = 8;
+    private static final long DURATION_MILLIS = 10_000;
+
+    private static final String PASSWORD = "password123";
+
+    public static void main(String[] args) throws Exception {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+        String hash = encoder.encode(PASSWORD);
+
+        run("请求线程直接哈希", encoder::matches, hash);
+
+        PasswordHasher hasher = new PasswordHasher(new SimpleMeterRegistry(), 10, 0, 64);
+        run("专用有界线程池", hasher::matches, hash);
+        hasher.shutdown();
+    }
+
+    private static void run(String name, BiPredicate<String, String> matcher, String hash) throws InterruptedException {
+        AtomicLong logins = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        Histogram other = new Histogram(TimeUnit.SECONDS.toMicros(10), 3);
+        long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < LOGIN_THREADS; i++) {
+            threads.add(new Thread(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    try {
+                        if (matcher.test(PASSWORD, hash)) {
+                            logins.incrementAndGet();
+                        }
+                    } catch (ServiceBusyException e) {
+                        rejected.incrementAndGet();
+                        // 客户端按 Retry-After 退避，这里缩短为 50ms 以保持压力
+                        sleep(50);
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < OTHER_THREADS; i++) {
+            threads.add(new Thread(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    long start = System.nanoTime();
+                    otherEndpoint();
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                    synchronized (other) {
+                        other.recordValue(Math.min(micros, other.getHighestTrackableValue()));
+                    }
+                    sleep(5);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.printf("%-12s 普通接口 p50=%.2fms p99=%.2fms max=%.2fms | 登录 %d 次/秒，拒绝 %d 次%n",
+                name,
+                other.getValueAtPercentile(50) / 1000.0,
+                other.getValueAtPercentile(99) / 1000.0,
+                other.getMaxValue() / 1000.0,
+                logins.get() * 1000 / DURATION_MILLIS,
+                rejected.get());
+    }
+
+    /**
+     * 模拟普通接口的 CPU 开销
+     */
+    private static void otherEndpoint() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] data = new byte[4096];
+            for (int i = 0; i < 50; i++) {
+                data = digest.digest(data);
+                data = Arrays.copyOf(data, 4096);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Redis 值编码 JMH 基准测试
+ * 比较 JDK 序列化与 CompactRedisSerializer 对离线消息、登录 token 等值的编解码吞吐量和写入 Redis 的字节数
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import org.demo.baoleme.config.CompactRedisSerializer;
+import org.demo.baoleme.config.RedisConfig;
+import org.demo.baoleme.pojo.ChatMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 值编码 JMH 基准测试
+ * <p>
+ * 三类值对应 RedisTemplate 中实际存放的内容：离线消息队列中的 {@link ChatMessage}、
+ * role:token:xxx 下的用户ID（Long）、role:login:xxx 下的 token（String）。
+ * 运行 main 方法即可（需先执行 mvn test-compile 生成 JMH 元数据），运行前先打印每种值编码后的字节数。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RedisValueCodecBenchmark {
+
+    private static final String TOKEN = "eyJhbGciOiJIUzI1NiJ9.eyJ1c2VySWQiOjEwMDAwMDAxLCJyb2xlIjoidXNlciIsInVzZXJuYW1lIjoi"
+            + "emhhbmdzYW4iLCJpYXQiOjE3Mzc3Nzk0MDAsImV4cCI6MTczNzg2NTgwMH0.5cWq0mQ2l6oU7mYJ0f9m1yS3mQ7fQbq2oWm8T7yq1Ew";
+
+    @Param({"jdk", "compact"})
+    public String codec;
+
+    private CompactRedisSerializer serializer;
+    private ChatMessage message;
+    private byte[] messageBytes;
+    private byte[] userIdBytes;
+    private byte[] tokenBytes;
+
+    @Setup
+    public void setup() {
+        serializer = RedisConfig.valueSerializer(codec);
+        message = sampleMessage();
+        messageBytes = serializer.serialize(message);
+        userIdBytes = serializer.serialize(10000001L);
+        tokenBytes = serializer.serialize(TOKEN);
+
+        // 迁移模式必须能读出两种格式写入的数据
+        CompactRedisSerializer migrate = RedisConfig.valueSerializer("migrate");
+        if (!Objects.equals(migrate.deserialize(messageBytes), message)
+                || !Objects.equals(migrate.deserialize(userIdBytes), 10000001L)
+                || !Objects.equals(migrate.deserialize(tokenBytes), TOKEN)) {
+            throw new IllegalStateException("迁移模式读取 " + codec + " 格式的数据结果不一致");
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeMessage() {
+        return serializer.serialize(message);
+    }
+
+    @Benchmark
+    public Object decodeMessage() {
+        return serializer.deserialize(messageBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeUserId() {
+        return serializer.serialize(10000001L);
+    }
+
+    @Benchmark
+    public Object decodeUserId() {
+        return serializer.deserialize(userIdBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeToken() {
+        return serializer.serialize(TOKEN);
+    }
+
+    @Benchmark
+    public Object decodeToken() {
+        return serializer.deserialize(tokenBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        printSizes();
+        Options options = new OptionsBuilder()
+                .include(RedisValueCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    private static void printSizes() {
+        CompactRedisSerializer jdk = RedisConfig.valueSerializer("jdk");
+        CompactRedisSerializer compact = RedisConfig.valueSerializer("compact");
+        ChatMessage message = sampleMessage();
+        System.out.println("==================== 编码后字节数 ====================");
+        System.out.printf("%-14s %8s %8s%n", "值", "jdk", "compact");
+        System.out.printf("%-14s %8d %8d%n", "ChatMessage", jdk.serialize(message).length, compact.serialize(message).length);
+        System.out.printf("%-14s %8d %8d%n", "用户ID", jdk.serialize(10000001L).length, compact.serialize(10000001L).length);
+        System.out.printf("%-14s %8d %8d%n", "token", jdk.serialize(TOKEN).length, compact.serialize(TOKEN).length);
+    }
+
+    private static ChatMessage sampleMessage() {
+        ChatMessage message = new ChatMessage();
+        message.setSenderId(10000001L);
+        message.setSenderRole("user");
+        message.setSenderName("张三");
+        message.setReceiverId(20000001L);
+        message.setReceiverRole("merchant");
+        message.setReceiverName("老王烧烤");
+        message.setContent("你好，我的订单大概什么时候能出餐？麻烦尽快，谢谢！");
+        message.setTimeStamp(LocalDateTime.of(2025, 1, 25, 12, 30, 0, 123_000_000));
+        return message;
+    }
+}
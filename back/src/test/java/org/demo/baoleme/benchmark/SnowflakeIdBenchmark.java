@@ -0,0 +1,129 @@
+/**
+ * 雪花算法 ID 生成器并发基准测试
+ * 32 个线程同时生成 ID，比较无锁实现、加锁实现、雪花订单号与原 UUID 订单号的吞吐量，并校验唯一性与单线程内递增
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import org.demo.baoleme.common.SnowflakeIdGenerator;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花算法 ID 生成器并发基准测试
+ * <p>
+ * 单个机器号每毫秒最多 4096 个 ID，理论上限约 409 万/秒。32 线程下无锁实现与加锁实现都能跑满该上限，
+ * 基准主要验证无锁实现在高竞争下不重复、单线程内不回退，且远快于原 UUID 订单号的拼接方式。
+ * 需要更高吞吐时应为实例分配多个机器号，而不是优化单个生成器。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行，在 IDE 中直接运行 main 方法即可。
+ */
+public class SnowflakeIdBenchmark {
+
+    private static final int THREADS = 32;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        // 预热
+        run("预热", new SnowflakeIdGenerator(1)::nextId, false);
+
+        SnowflakeIdGenerator lockFree = new SnowflakeIdGenerator(1);
+        run("无锁 CAS", lockFree::nextId, true);
+
+        LockingGenerator locking = new LockingGenerator(2);
+        run("synchronized", locking::nextId, true);
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+        SnowflakeIdGenerator numbers = new SnowflakeIdGenerator(3);
+        run("雪花订单号", () -> numbers.nextOrderNumber().hashCode(), false);
+
+        run("原 UUID 订单号", () -> ("ORD" + LocalDateTime.now().format(formatter)
+                + UUID.randomUUID().toString().substring(0, 6).toUpperCase()).hashCode(), false);
+    }
+
+    private static void run(String name, LongSupplier generator, boolean verify) throws InterruptedException {
+        long[][] ids = new long[THREADS][IDS_PER_THREAD];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            long[] out = ids[t];
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        out[i] = generator.getAsLong();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        long total = (long) THREADS * IDS_PER_THREAD;
+        System.out.printf("%-14s %d 线程共 %d 个，耗时 %d ms，吞吐 %.0f 万/秒",
+                name, THREADS, total, elapsed / 1_000_000, total / (elapsed / 1e9) / 10_000);
+        if (verify) {
+            System.out.printf("，%s", verify(ids));
+        }
+        System.out.println();
+    }
+
+    private static String verify(long[][] ids) {
+        for (long[] perThread : ids) {
+            for (int i = 1; i < perThread.length; i++) {
+                if (perThread[i] <= perThread[i - 1]) {
+                    return "单线程内出现非递增 ID";
+                }
+            }
+        }
+        long[] all = Arrays.stream(ids).flatMapToLong(Arrays::stream).sorted().toArray();
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                return "出现重复 ID：" + all[i];
+            }
+        }
+        return "无重复、单线程内递增";
+    }
+
+    /**
+     * 对照组：常见的加锁实现
+     */
+    private static final class LockingGenerator {
+        private final long workerBits;
+        private long lastTimestamp = -1;
+        private long sequence;
+
+        LockingGenerator(int workerId) {
+            this.workerBits = (long) workerId << 12;
+        }
+
+        synchronized long nextId() {
+            long now = System.currentTimeMillis() - SnowflakeIdGenerator.EPOCH;
+            if (now == lastTimestamp) {
+                sequence = (sequence + 1) & 4095;
+                if (sequence == 0) {
+                    while (now <= lastTimestamp) {
+                        now = System.currentTimeMillis() - SnowflakeIdGenerator.EPOCH;
+                    }
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = now;
+            return (now << 22) | workerBits | sequence;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * 订单到期定时器基准测试
+ * 比较哈希时间轮与每个订单一个 ScheduledExecutorService 任务的登记耗时、内存占用和触发开销
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.benchmark;
+
+import org.demo.baoleme.expire.HashedTimingWheel;
+
+import java.util.Random;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单到期定时器基准测试
+ * <p>
+ * 登记 TIMERS 个截止时间均匀分布在 45 分钟内的定时器，然后用虚拟时钟逐秒推进 45 分钟，
+ * 统计每个 tick 的平均与最大耗时。对照组为每个订单调度一个延迟任务。
+ * 类名不以 Test 结尾，不会被 Surefire 自动执行，在 IDE 中直接运行 main 方法即可。
+ */
+public class TimingWheelBenchmark {
+
+    private static final int TIMERS = 500_000;
+    private static final long HORIZON_MILLIS = 45 * 60 * 1000L;
+
+    public static void main(String[] args) {
+        long[] deadlines = new long[TIMERS];
+        Random random = new Random(42L);
+        for (int i = 0; i < TIMERS; i++) {
+            deadlines[i] = 1000 + (long) (random.nextDouble() * HORIZON_MILLIS);
+        }
+
+        wheel(deadlines);
+        executor(deadlines);
+    }
+
+    private static void wheel(long[] deadlines) {
+        long heapBefore = usedHeap();
+        HashedTimingWheel wheel = new HashedTimingWheel(1000L, 4096, 0L);
+        long start = System.nanoTime();
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.schedule(i, deadlines[i]);
+        }
+        long scheduleNanos = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+
+        long[] fired = new long[1];
+        long maxTickNanos = 0;
+        long totalTickNanos = 0;
+        int ticks = 0;
+        for (long now = 0; now <= HORIZON_MILLIS + 1000; now += 1000) {
+            long tickStart = System.nanoTime();
+            wheel.advance(now, id -> fired[0]++);
+            long elapsed = System.nanoTime() - tickStart;
+            maxTickNanos = Math.max(maxTickNanos, elapsed);
+            totalTickNanos += elapsed;
+            ticks++;
+        }
+
+        System.out.printf("时间轮：登记 %d 个定时器 %.1f ms（%.0f ns/个），内存约 %.1f MB，触发 %d 个，"
+                        + "每 tick 平均 %.1f µs、最大 %.1f µs%n",
+                deadlines.length, scheduleNanos / 1e6, (double) scheduleNanos / deadlines.length,
+                (heapAfter - heapBefore) / 1024.0 / 1024.0, fired[0],
+                totalTickNanos / 1e3 / ticks, maxTickNanos / 1e3);
+    }
+
+    private static void executor(long[] deadlines) {
+        long heapBefore = usedHeap();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        long start = System.nanoTime();
+        for (long deadline : deadlines) {
+            executor.schedule(() -> { }, deadline + HORIZON_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        long scheduleNanos = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+        executor.shutdownNow();
+
+        System.out.printf("单任务调度：登记 %d 个任务 %.1f ms（%.0f ns/个），内存约 %.1f MB%n",
+                deadlines.length, scheduleNanos / 1e6, (double) scheduleNanos / deadlines.length,
+                (heapAfter - heapBefore) / 1024.0 / 1024.0);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
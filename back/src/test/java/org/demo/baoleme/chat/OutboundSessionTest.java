@@ -0,0 +1,249 @@
+/**
+ * 聊天出站缓冲单元测试类
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * OutboundSession 单元测试
+ * <p>
+ * 测试覆盖范围：
+ * 1. 三种溢出策略：DROP_OLDEST 丢弃后补发 resync 通知、COALESCE 合并为 resync 通知、DISCONNECT 断开连接
+ * 2. 异步写出：同一会话串行写出，慢客户端不占用发送线程
+ */
+class OutboundSessionTest {
+
+    private static final ChatFrameCodec CODEC = new ChatFrameCodec(new ObjectMapper());
+
+    /** 缓冲上限 10 个字符，每帧 4 个字符，缓冲中最多容纳两帧 */
+    private static final int BUFFER_LIMIT = 10;
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private ChatOutbound outbound;
+
+    @AfterEach
+    void tearDown() {
+        if (outbound != null) {
+            outbound.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("DROP_OLDEST - 正向测试：丢弃最早的帧，并在剩余帧之前补发 resync 通知")
+    void testOverflow_DropOldestSendsResync() throws Exception {
+        // 准备测试数据
+        outbound = newOutbound("DROP_OLDEST", 1);
+        BlockingSession blocking = new BlockingSession();
+        OutboundSession session = outbound.wrap("user:1", blocking.session);
+
+        // 执行测试：第一帧写出阻塞期间放入四帧，缓冲超限两次
+        assertTrue(session.send("f001"));
+        assertTrue(blocking.entered.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(session.send("f002"));
+        assertTrue(session.send("f003"));
+        assertTrue(session.send("f004"));
+        assertTrue(session.send("f005"));
+        blocking.release.countDown();
+
+        // 验证结果
+        assertTrue(session.awaitDrained(TIMEOUT_MILLIS));
+        assertEquals(List.of("f001", CODEC.resync(2), "f004", "f005"), blocking.received);
+    }
+
+    @Test
+    @DisplayName("COALESCE - 正向测试：丢弃全部积压帧，合并为一条 resync 通知")
+    void testOverflow_CoalesceToResync() throws Exception {
+        // 准备测试数据
+        outbound = newOutbound("COALESCE", 1);
+        BlockingSession blocking = new BlockingSession();
+        OutboundSession session = outbound.wrap("user:1", blocking.session);
+
+        // 执行测试
+        assertTrue(session.send("f001"));
+        assertTrue(blocking.entered.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(session.send("f002"));
+        assertTrue(session.send("f003"));
+        assertTrue(session.send("f004"));
+        blocking.release.countDown();
+
+        // 验证结果
+        assertTrue(session.awaitDrained(TIMEOUT_MILLIS));
+        assertEquals(List.of("f001", CODEC.resync(3)), blocking.received);
+    }
+
+    @Test
+    @DisplayName("DISCONNECT - 正向测试：缓冲超限时断开连接，不再接收新帧")
+    void testOverflow_Disconnect() throws Exception {
+        // 准备测试数据
+        outbound = newOutbound("DISCONNECT", 1);
+        BlockingSession blocking = new BlockingSession();
+        OutboundSession session = outbound.wrap("user:1", blocking.session);
+
+        // 执行测试
+        assertTrue(session.send("f001"));
+        assertTrue(blocking.entered.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(session.send("f002"));
+        assertTrue(session.send("f003"));
+        boolean accepted = session.send("f004");
+        blocking.release.countDown();
+
+        // 验证结果
+        assertFalse(accepted);
+        assertFalse(session.isOpen());
+        assertFalse(session.send("f005"));
+        verify(blocking.session).close(any(CloseStatus.class));
+    }
+
+    @Test
+    @DisplayName("异步写出 - 正向测试：同一会话上一帧写完才写下一帧")
+    void testAsync_SendsSerially() throws Exception {
+        // 准备测试数据
+        outbound = newOutbound("DROP_OLDEST", 1);
+        AsyncSession async = new AsyncSession();
+        OutboundSession session = outbound.wrap("user:1", async.session);
+
+        // 执行测试
+        assertTrue(session.send("f001"));
+        assertTrue(session.send("f002"));
+        SendHandler first = async.handlers.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        // 验证结果：第一帧未写完前不会写第二帧
+        assertNotNull(first);
+        assertNull(async.handlers.poll(100, TimeUnit.MILLISECONDS));
+        first.onResult(new SendResult());
+        SendHandler second = async.handlers.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull(second);
+        second.onResult(new SendResult());
+        assertTrue(session.awaitDrained(TIMEOUT_MILLIS));
+        assertEquals(List.of("f001", "f002"), async.sent);
+        verify(async.session, never()).sendMessage(any());
+    }
+
+    @Test
+    @DisplayName("异步写出 - 正向测试：慢客户端写不完时，唯一的发送线程仍能为其他会话写出")
+    void testAsync_SlowClientDoesNotHoldSender() throws Exception {
+        // 准备测试数据
+        outbound = newOutbound("DROP_OLDEST", 1);
+        AsyncSession slow = new AsyncSession();
+        AsyncSession fast = new AsyncSession();
+        OutboundSession slowSession = outbound.wrap("user:1", slow.session);
+        OutboundSession fastSession = outbound.wrap("user:2", fast.session);
+
+        // 执行测试：慢客户端的写出始终不完成
+        assertTrue(slowSession.send("f001"));
+        assertNotNull(slow.handlers.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(fastSession.send("f002"));
+
+        // 验证结果
+        SendHandler handler = fast.handlers.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull(handler);
+        handler.onResult(new SendResult());
+        assertTrue(fastSession.awaitDrained(TIMEOUT_MILLIS));
+        assertEquals(List.of("f002"), fast.sent);
+    }
+
+    @Test
+    @DisplayName("异步写出 - 负向测试：写出失败时断开连接")
+    void testAsync_FailureClosesSession() throws Exception {
+        // 准备测试数据
+        outbound = newOutbound("DROP_OLDEST", 1);
+        AsyncSession async = new AsyncSession();
+        OutboundSession session = outbound.wrap("user:1", async.session);
+
+        // 执行测试
+        assertTrue(session.send("f001"));
+        SendHandler handler = async.handlers.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull(handler);
+        handler.onResult(new SendResult(new java.io.IOException("broken pipe")));
+
+        // 验证结果
+        assertFalse(session.isOpen());
+        verify(async.session).close(any(CloseStatus.class));
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    private static ChatOutbound newOutbound(String policy, int threads) {
+        return new ChatOutbound(CODEC, new SimpleMeterRegistry(), BUFFER_LIMIT, 5000, policy, threads, 25000, 60000);
+    }
+
+    /**
+     * 第一帧写出会阻塞，直到测试放行，用于在写出期间积压缓冲
+     */
+    private static final class BlockingSession {
+
+        final WebSocketSession session = mock(WebSocketSession.class);
+        final List<String> received = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingSession() throws Exception {
+            AtomicBoolean first = new AtomicBoolean(true);
+            when(session.isOpen()).thenReturn(true);
+            doAnswer(invocation -> {
+                if (first.compareAndSet(true, false)) {
+                    entered.countDown();
+                    release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                received.add(((TextMessage) invocation.getArgument(0)).getPayload());
+                return null;
+            }).when(session).sendMessage(any());
+        }
+    }
+
+    /**
+     * 支持异步写出的会话，记录每次写出的回调，由测试决定何时写完
+     */
+    private static final class AsyncSession {
+
+        final WebSocketSession session = mock(WebSocketSession.class,
+                withSettings().extraInterfaces(NativeWebSocketSession.class));
+        final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        final BlockingQueue<SendHandler> handlers = new LinkedBlockingQueue<>();
+
+        AsyncSession() {
+            Session nativeSession = mock(Session.class);
+            RemoteEndpoint.Async remote = mock(RemoteEndpoint.Async.class);
+            when(session.isOpen()).thenReturn(true);
+            when(((NativeWebSocketSession) session).getNativeSession(Session.class)).thenReturn(nativeSession);
+            when(nativeSession.getAsyncRemote()).thenReturn(remote);
+            doAnswer(invocation -> {
+                sent.add(invocation.getArgument(0));
+                handlers.add(invocation.getArgument(1));
+                return null;
+            }).when(remote).sendText(anyString(), any(SendHandler.class));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * 雪花算法 ID 生成器单元测试类
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SnowflakeIdGenerator 单元测试
+ * <p>
+ * 测试覆盖范围：
+ * 1. 位布局与单调递增
+ * 2. 时钟回拨（容忍范围内沿用上次时间戳，超出时拒绝）
+ * 3. 机器号租约过期后拒绝发号
+ * 4. 订单号格式
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH + 1_000_000L;
+
+    @Test
+    @DisplayName("生成ID - 正向测试：ID 中解析出的时间戳与机器号与生成时一致，且严格递增")
+    void testNextId_LayoutAndMonotonic() {
+        // 准备测试数据
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, clock::get, 5);
+
+        // 执行测试
+        long first = generator.nextId();
+        long second = generator.nextId();
+        clock.incrementAndGet();
+        long third = generator.nextId();
+
+        // 验证结果
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(first));
+        assertEquals(7, SnowflakeIdGenerator.workerIdOf(first));
+        assertEquals(NOW + 1, SnowflakeIdGenerator.timestampOf(third));
+        assertTrue(first < second && second < third);
+    }
+
+    @Test
+    @DisplayName("生成ID - 正向测试：同一毫秒内序列号用尽后等待时钟前进，不产生重复")
+    void testNextId_SequenceExhausted() {
+        // 准备测试数据：时钟每被读取 5000 次才前进 1 毫秒
+        AtomicLong reads = new AtomicLong();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW + reads.incrementAndGet() / 5000, 5);
+
+        // 执行测试
+        Set<Long> ids = new HashSet<>();
+        long previous = -1;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+            ids.add(id);
+        }
+
+        // 验证结果
+        assertEquals(10_000, ids.size());
+    }
+
+    @Test
+    @DisplayName("时钟回拨 - 正向测试：容忍范围内的回拨沿用上次时间戳继续递增")
+    void testNextId_SmallBackwardJump() {
+        // 准备测试数据
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get, 5);
+        long before = generator.nextId();
+
+        // 执行测试
+        clock.addAndGet(-3);
+        long after = generator.nextId();
+
+        // 验证结果
+        assertTrue(after > before);
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(after));
+    }
+
+    @Test
+    @DisplayName("时钟回拨 - 反向测试：超出容忍范围的回拨拒绝生成ID，时钟追上后恢复")
+    void testNextId_LargeBackwardJump() {
+        // 准备测试数据
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get, 5);
+        long before = generator.nextId();
+
+        // 执行测试 & 验证结果
+        clock.addAndGet(-100);
+        IllegalStateException e = assertThrows(IllegalStateException.class, generator::nextId);
+        assertTrue(e.getMessage().contains("回拨"));
+
+        clock.set(NOW + 1);
+        assertTrue(generator.nextId() > before);
+    }
+
+    @Test
+    @DisplayName("租约过期 - 反向测试：超过机器号有效期后拒绝生成ID，续期后恢复")
+    void testNextId_LeaseExpired() {
+        // 准备测试数据
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get, 5);
+        generator.setValidUntil(NOW + 10);
+        generator.nextId();
+
+        // 执行测试 & 验证结果
+        clock.set(NOW + 11);
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        generator.setValidUntil(NOW + 60_000);
+        assertEquals(NOW + 11, SnowflakeIdGenerator.timestampOf(generator.nextId()));
+    }
+
+    @Test
+    @DisplayName("机器号 - 反向测试：超出范围的机器号被拒绝")
+    void testSetWorkerId_OutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+    }
+
+    @Test
+    @DisplayName("订单号 - 正向测试：订单号由东八区生成时间与机器号、序列号组成，与 ID 一一对应")
+    void testOrderNumberOf() {
+        // 准备测试数据：2025-01-01T00:00:01.234+08:00，机器号 1，序列号 5
+        long id = (1234L << 22) | (1L << 12) | 5;
+
+        // 执行测试
+        String number = SnowflakeIdGenerator.orderNumberOf(id);
+
+        // 验证结果
+        assertEquals("ORD20250101000001234" + String.format("%07d", (1 << 12) | 5), number);
+        assertEquals(27, number.length());
+    }
+}
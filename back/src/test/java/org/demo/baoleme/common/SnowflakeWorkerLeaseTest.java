@@ -0,0 +1,103 @@
+/**
+ * 雪花算法机器号租约单元测试类
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.common;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SnowflakeWorkerLease 单元测试
+ * <p>
+ * 测试覆盖范围：未开启雪花主键或固定机器号时不访问 Redis；通过租约取得机器号、续期与被抢占后重新分配
+ */
+class SnowflakeWorkerLeaseTest {
+
+    @Test
+    @DisplayName("租约 - 正向测试：未开启雪花主键时不访问 Redis，也不发号")
+    void testDisabled_NoRedis() {
+        // 准备测试数据
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+
+        // 执行测试
+        SnowflakeWorkerLease lease = new SnowflakeWorkerLease(redis, -1, false);
+        lease.release();
+
+        // 验证结果
+        verifyNoInteractions(redis);
+        assertEquals(0, lease.getValidUntil());
+    }
+
+    @Test
+    @DisplayName("租约 - 正向测试：固定机器号时不访问 Redis，且永不过期")
+    void testFixedWorkerId() {
+        // 准备测试数据
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+
+        // 执行测试
+        SnowflakeWorkerLease lease = new SnowflakeWorkerLease(redis, 42, true);
+
+        // 验证结果
+        verifyNoInteractions(redis);
+        assertEquals(42, lease.getWorkerId());
+        assertEquals(Long.MAX_VALUE, lease.getValidUntil());
+    }
+
+    @Test
+    @DisplayName("租约 - 正向测试：取得机器号后续期延长有效期，被其他实例占用时重新分配")
+    void testLeaseRenewAndReassign() throws IOException {
+        RedisServer redisServer = RedisServer.newRedisServer(0).start();
+        LettuceConnectionFactory factory = new LettuceConnectionFactory("127.0.0.1", redisServer.getBindPort());
+        factory.afterPropertiesSet();
+        StringRedisTemplate redis = new StringRedisTemplate(factory);
+        SnowflakeWorkerLease lease = null;
+        try {
+            // 准备测试数据
+            long before = System.currentTimeMillis();
+            lease = new SnowflakeWorkerLease(redis, -1, true);
+            int workerId = lease.getWorkerId();
+            String key = SnowflakeWorkerLease.KEY_PREFIX + workerId;
+            assertNotNull(redis.opsForValue().get(key));
+            assertTrue(lease.getValidUntil() >= before + 60_000);
+
+            // 执行测试：续期
+            lease.renew();
+            assertEquals(workerId, lease.getWorkerId());
+
+            // 执行测试：机器号被其他实例占用
+            int[] reassigned = {-1};
+            lease.onReassigned(id -> reassigned[0] = id);
+            redis.opsForValue().set(key, "other@host");
+            lease.renew();
+
+            // 验证结果
+            assertNotEquals(workerId, lease.getWorkerId());
+            assertEquals(lease.getWorkerId(), reassigned[0]);
+            assertEquals("other@host", redis.opsForValue().get(key));
+            assertTrue(lease.getValidUntil() > System.currentTimeMillis());
+
+            // 释放时只删除自己持有的机器号
+            lease.release();
+            assertFalse(redis.hasKey(SnowflakeWorkerLease.KEY_PREFIX + lease.getWorkerId()));
+            assertEquals("other@host", redis.opsForValue().get(key));
+        } finally {
+            if (lease != null) {
+                lease.release();
+            }
+            factory.destroy();
+            redisServer.stop();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.demo.baoleme.common.JwtUtils;
 import org.demo.baoleme.common.JwtInterceptor;
+import org.demo.baoleme.common.TokenCache;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
@@ -135,6 +136,12 @@ public class TestConfig {
         return Mockito.mock(org.demo.baoleme.mapper.OrderItemMapper.class);
     }
 
+    @Bean
+    @Primary
+    public org.demo.baoleme.mapper.RiderEarningsMapper riderEarningsMapper() {
+        return Mockito.mock(org.demo.baoleme.mapper.RiderEarningsMapper.class);
+    }
+
     /**
      * 配置测试环境的密码编码器
      *
@@ -190,6 +197,17 @@ public class TestConfig {
         return Mockito.mock(StringRedisTemplate.class);
     }
 
+    /**
+     * Mock token 本地缓存，WebMvcTest 切片不会加载该组件
+     *
+     * @return TokenCache Mock对象
+     */
+    @Bean
+    @Primary
+    public TokenCache testTokenCache() {
+        return Mockito.mock(TokenCache.class);
+    }
+
     /**
      * Mock JWT工具类
      * 在测试环境中提供JWT相关功能的Mock实现
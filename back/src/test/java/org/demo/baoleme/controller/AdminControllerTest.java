@@ -14,6 +14,7 @@ import org.demo.baoleme.pojo.*;
 import org.demo.baoleme.service.AdminService;
 import org.demo.baoleme.service.ProductService;
 import org.demo.baoleme.common.JwtUtils;
+import org.demo.baoleme.common.OrderCursor;
 import org.demo.baoleme.common.UserHolder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -589,6 +590,42 @@ class AdminControllerTest {
         verify(adminService).getAllOrdersPaged(eq(1L), eq(1L), isNull(), isNull(), isNull(), isNull(), eq(1), eq(10));
     }
 
+    /**
+     * 测试游标分页获取订单列表
+     * 验证传入游标时按游标查询，并在满页时返回下一页游标
+     */
+    @Test
+    @DisplayName("获取订单列表 - 游标分页")
+    void testGetOrderList_Cursor() throws Exception {
+        // 准备测试数据
+        LocalDateTime cursorTime = LocalDateTime.of(2025, 5, 20, 12, 0, 0);
+        AdminOrderQueryRequest request = new AdminOrderQueryRequest();
+        request.setPage(1);
+        request.setPageSize(2);
+        request.setCursor(OrderCursor.of(cursorTime, 10L).encode());
+
+        Order last = createMockOrder(8L, 1L, 1L);
+        last.setCreatedAt(cursorTime.minusMinutes(5));
+        List<Order> mockOrders = Arrays.asList(createMockOrder(9L, 1L, 1L), last);
+
+        // 模拟Service层行为
+        when(adminService.getAllOrdersByCursor(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                argThat(c -> c.getId() == 10L && cursorTime.equals(c.getCreatedAt())), eq(2)))
+                .thenReturn(mockOrders);
+
+        // 执行测试
+        mockMvc.perform(post("/admin/orderlist")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.orders.length()").value(2))
+                .andExpect(jsonPath("$.data.next_cursor").value(OrderCursor.of(last.getCreatedAt(), 8L).encode()));
+
+        // 验证未走 OFFSET 分页
+        verify(adminService, never()).getAllOrdersPaged(any(), any(), any(), any(), any(), any(), anyInt(), anyInt());
+    }
+
     /**
      * 测试获取评论列表成功场景
      * 验证管理员能够成功获取评论列表
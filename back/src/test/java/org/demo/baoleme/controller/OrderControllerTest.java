@@ -15,6 +15,7 @@
 package org.demo.baoleme.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.demo.baoleme.common.OrderCursor;
 import org.demo.baoleme.common.UserHolder;
 import org.demo.baoleme.common.JwtUtils;
 import org.demo.baoleme.common.JwtInterceptor;
@@ -256,6 +257,105 @@ class OrderControllerTest extends BaseControllerTest {
         verify(orderService, times(1)).getAvailableOrders(1, 10);
     }
 
+    /**
+     * 测试游标分页获取可用订单 - 正向测试用例
+     * 
+     * 验证场景：首页传空游标，返回满页数据
+     * 预期结果：走游标查询，返回可解析的 next_cursor
+     * 
+     * @throws Exception 测试异常
+     */
+    @Test
+    @DisplayName("获取可用订单 - 正向测试：游标分页")
+    void testGetAvailableOrders_Cursor() throws Exception {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 5, 20, 12, 0, 0);
+        Order first = new Order();
+        first.setId(101L);
+        first.setCreatedAt(createdAt.plusMinutes(1));
+        Order last = new Order();
+        last.setId(100L);
+        last.setCreatedAt(createdAt);
+
+        when(orderService.getAvailableOrdersByCursor(isNull(), eq(2))).thenReturn(List.of(first, last));
+
+        mockedUserHolder.when(UserHolder::getId).thenReturn(1L);
+        mockedUserHolder.when(UserHolder::getRole).thenReturn("rider");
+
+        mockMvc.perform(get("/orders/available")
+                        .param("page_size", "2")
+                        .param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(200))
+                .andExpect(jsonPath("$.data.orders.length()").value(2))
+                .andExpect(jsonPath("$.data.next_cursor").value(OrderCursor.of(createdAt, 100L).encode()));
+
+        verify(orderService, never()).getAvailableOrders(anyInt(), anyInt());
+    }
+
+    /**
+     * 测试游标分页获取可用订单 - 反向测试用例
+     * 
+     * 验证场景：游标格式非法
+     * 预期结果：返回获取失败的错误响应，不查询数据库
+     * 
+     * @throws Exception 测试异常
+     */
+    @Test
+    @DisplayName("获取可用订单 - 反向测试：游标非法")
+    void testGetAvailableOrders_InvalidCursor() throws Exception {
+        mockedUserHolder.when(UserHolder::getId).thenReturn(1L);
+        mockedUserHolder.when(UserHolder::getRole).thenReturn("rider");
+
+        mockMvc.perform(get("/orders/available")
+                        .param("page_size", "10")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(400))
+                .andExpect(jsonPath("$.message").value("获取可用订单失败：无效的分页游标"));
+
+        verify(orderService, never()).getAvailableOrdersByCursor(any(), anyInt());
+    }
+
+    /**
+     * 测试订阅订单推送 - 正向测试用例
+     * 
+     * 验证场景：骑手订阅可抢订单推送
+     * 预期结果：建立 SSE 异步连接，不查询数据库
+     * 
+     * @throws Exception 测试异常
+     */
+    @Test
+    @DisplayName("订阅订单推送 - 正向测试：骑手建立连接")
+    void testSubscribeOrderFeed_Success() throws Exception {
+        mockedUserHolder.when(UserHolder::getId).thenReturn(1L);
+        mockedUserHolder.when(UserHolder::getRole).thenReturn("rider");
+
+        mockMvc.perform(get("/orders/feed"))
+                .andExpect(request().asyncStarted());
+
+        verify(orderService, never()).getAvailableOrders(anyInt(), anyInt());
+    }
+
+    /**
+     * 测试订阅订单推送 - 反向测试用例
+     * 
+     * 验证场景：非骑手角色订阅
+     * 预期结果：返回权限错误响应
+     * 
+     * @throws Exception 测试异常
+     */
+    @Test
+    @DisplayName("订阅订单推送 - 反向测试：权限不足")
+    void testSubscribeOrderFeed_NoPermission() throws Exception {
+        mockedUserHolder.when(UserHolder::getId).thenReturn(1L);
+        mockedUserHolder.when(UserHolder::getRole).thenReturn("user");
+
+        mockMvc.perform(get("/orders/feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(400))
+                .andExpect(jsonPath("$.message").value("无权限访问，仅骑手可操作"));
+    }
+
     // ==================== 抢单接口测试 ====================
 
     /**
@@ -729,6 +829,7 @@ class OrderControllerTest extends BaseControllerTest {
         Map<String, Object> mockEarnings = new HashMap<>();
         mockEarnings.put("total_earnings", new BigDecimal("500.00"));
         mockEarnings.put("current_month", new BigDecimal("50.00"));
+        mockEarnings.put("today", new BigDecimal("12.00"));
         mockEarnings.put("completed_orders", 25);
 
         // 配置Mock行为
@@ -744,6 +845,7 @@ class OrderControllerTest extends BaseControllerTest {
                 .andExpect(jsonPath("$.code").value(200))
                 .andExpect(jsonPath("$.data.total_earnings").value(500.00))
                 .andExpect(jsonPath("$.data.current_month").value(50.00))
+                .andExpect(jsonPath("$.data.today").value(12.00))
                 .andExpect(jsonPath("$.data.completed_orders").value(25));
 
         // 验证Mock调用
@@ -665,6 +665,58 @@ class RiderControllerTest extends BaseControllerTest {
         verify(riderService).delete(TEST_USER_ID);
     }
 
+    // ==================== 位置上报测试 ====================
+
+    /**
+     * 测试上报位置成功场景
+     * 验证骑手能够上报当前坐标
+     */
+    @Test
+    @DisplayName("上报位置 - 成功")
+    void testReportPosition_Success() throws Exception {
+        RiderPositionRequest request = new RiderPositionRequest();
+        request.setLatitude(30.52);
+        request.setLongitude(114.31);
+
+        // 模拟UserHolder
+        mockedUserHolder.when(UserHolder::getId).thenReturn(TEST_USER_ID);
+
+        // 执行测试
+        mockMvc.perform(put("/rider/position")
+                        .header("Authorization", "Bearer " + TEST_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+
+        // 验证Service方法调用
+        verify(riderService).reportPosition(TEST_USER_ID, 30.52, 114.31);
+    }
+
+    /**
+     * 测试上报位置参数校验
+     * 验证纬度超出范围时返回400
+     */
+    @Test
+    @DisplayName("上报位置 - 纬度超出范围")
+    void testReportPosition_InvalidLatitude() throws Exception {
+        RiderPositionRequest request = new RiderPositionRequest();
+        request.setLatitude(91.0);
+        request.setLongitude(114.31);
+
+        mockedUserHolder.when(UserHolder::getId).thenReturn(TEST_USER_ID);
+
+        // 执行测试
+        mockMvc.perform(put("/rider/position")
+                        .header("Authorization", "Bearer " + TEST_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        // 验证Service方法未被调用
+        verify(riderService, never()).reportPosition(anyLong(), anyDouble(), anyDouble());
+    }
+
     // ==================== 自动接单测试 ====================
 
     /**
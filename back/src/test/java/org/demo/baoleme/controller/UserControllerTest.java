@@ -16,6 +16,7 @@ package org.demo.baoleme.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.demo.baoleme.common.JwtUtils;
+import org.demo.baoleme.common.OrderCursor;
 import org.demo.baoleme.common.UserHolder;
 import org.demo.baoleme.dto.request.user.*;
 import org.demo.baoleme.dto.request.order.OrderCreateRequest;
@@ -830,6 +831,48 @@ class UserControllerTest extends BaseControllerTest {
         verify(userService, never()).getUserOrdersPaged(anyLong(), anyInt(), any(LocalDateTime.class), any(LocalDateTime.class), anyInt(), anyInt());
     }
 
+    /**
+     * 测试游标分页获取订单历史 - 正向测试用例
+     * 
+     * 验证场景：返回不足一页的数据
+     * 预期结果：走游标查询，next_cursor 为空
+     * 
+     * @throws Exception 测试异常
+     */
+    @Test
+    @DisplayName("获取订单历史 - 正向测试：游标分页最后一页")
+    void testGetOrderHistory_CursorLastPage() throws Exception {
+        // 准备测试数据
+        Long userId = 1L;
+        UserOrderHistoryRequest request = new UserOrderHistoryRequest();
+        request.setPageSize(10);
+        request.setCursor("");
+
+        Map<String, Object> orderRecord = new HashMap<>();
+        orderRecord.put("id", 1L);
+        orderRecord.put("status", 3);
+        orderRecord.put("created_at", LocalDateTime.now());
+
+        // 配置Mock行为
+        when(userService.getUserOrdersByCursor(eq(userId), isNull(), any(), any(), isNull(), eq(10)))
+                .thenReturn(List.of(orderRecord));
+
+        mockedUserHolder.when(UserHolder::getId).thenReturn(userId);
+        mockedUserHolder.when(UserHolder::getRole).thenReturn("user");
+
+        // 执行测试
+        mockMvc.perform(post("/user/history")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(200))
+                .andExpect(jsonPath("$.data.orders[0].order_id").value(1L))
+                .andExpect(jsonPath("$.data.next_cursor").doesNotExist());
+
+        // 验证Mock调用
+        verify(userService, never()).getUserOrdersPaged(anyLong(), any(), any(), any(), anyInt(), anyInt());
+    }
+
     // ==================== 收藏店铺接口测试 ====================
 
     /**
@@ -0,0 +1,175 @@
+/**
+ * 哈希时间轮单元测试类
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.expire;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HashedTimingWheel 单元测试
+ * <p>
+ * 测试覆盖范围：
+ * 1. 到期触发与多轮定时器
+ * 2. 回调中重新登记
+ * 3. 重复登记替换与取消
+ */
+class HashedTimingWheelTest {
+
+    private static final long TICK = 1000L;
+
+    /** 槽数为 8，第 8 个 tick 之后的定时器属于后续轮次 */
+    private static final int SIZE = 8;
+
+    private static final long START = 1_000_000L * TICK;
+
+    private HashedTimingWheel wheel;
+    private List<Long> fired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimingWheel(TICK, SIZE, START);
+        fired = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("到期触发 - 正向测试：到期前不触发，到期后触发一次")
+    void testAdvance_FiresAtDeadline() {
+        // 准备测试数据
+        wheel.schedule(1L, START + 3 * TICK);
+
+        // 执行测试
+        wheel.advance(START + 2 * TICK, fired::add);
+        assertTrue(fired.isEmpty());
+        int count = wheel.advance(START + 3 * TICK, fired::add);
+
+        // 验证结果
+        assertEquals(1, count);
+        assertEquals(List.of(1L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("多轮定时器 - 正向测试：同槽但属于后续轮次的定时器等到对应轮次才触发")
+    void testAdvance_LaterRoundStaysInSlot() {
+        // 准备测试数据：tick 2 与 tick 10 落在同一个槽
+        wheel.schedule(1L, START + 2 * TICK);
+        wheel.schedule(2L, START + (2 + SIZE) * TICK);
+
+        // 执行测试
+        wheel.advance(START + 2 * TICK, fired::add);
+        assertEquals(List.of(1L), fired);
+        wheel.advance(START + (1 + SIZE) * TICK, fired::add);
+        assertEquals(List.of(1L), fired);
+        wheel.advance(START + (2 + SIZE) * TICK, fired::add);
+
+        // 验证结果
+        assertEquals(List.of(1L, 2L), fired);
+    }
+
+    @Test
+    @DisplayName("落后推进 - 正向测试：落后超过一整圈时所有到期定时器都会触发")
+    void testAdvance_FarBehind() {
+        // 准备测试数据
+        for (long id = 0; id < 3 * SIZE; id++) {
+            wheel.schedule(id, START + id * TICK);
+        }
+
+        // 执行测试
+        int count = wheel.advance(START + 5 * SIZE * TICK, fired::add);
+
+        // 验证结果
+        assertEquals(3 * SIZE, count);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("已过期定时器 - 正向测试：登记时已过截止时间，下一次推进即触发")
+    void testSchedule_PastDeadline() {
+        // 准备测试数据
+        wheel.advance(START + 5 * TICK, fired::add);
+        wheel.schedule(1L, START);
+
+        // 执行测试
+        wheel.advance(START + 6 * TICK, fired::add);
+
+        // 验证结果
+        assertEquals(List.of(1L), fired);
+    }
+
+    @Test
+    @DisplayName("回调中重新登记 - 正向测试：重新登记的定时器在下一个 tick 触发，而不是多等一圈")
+    void testAdvance_RescheduleInCallback() {
+        // 准备测试数据
+        wheel.schedule(1L, START + TICK);
+
+        // 执行测试：回调中按当前时间重新登记
+        wheel.advance(START + TICK, id -> {
+            fired.add(id);
+            wheel.schedule(id, START + TICK);
+        });
+        wheel.advance(START + 2 * TICK, fired::add);
+
+        // 验证结果
+        assertEquals(List.of(1L, 1L), fired);
+    }
+
+    @Test
+    @DisplayName("重复登记 - 正向测试：同一 id 只保留最后一次登记的定时器")
+    void testSchedule_ReplacesExisting() {
+        // 准备测试数据
+        wheel.schedule(1L, START + 2 * TICK);
+        wheel.schedule(1L, START + 2 * TICK);
+        wheel.schedule(1L, START + 5 * TICK);
+        assertEquals(1, wheel.size());
+
+        // 执行测试
+        wheel.advance(START + 4 * TICK, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(START + 5 * TICK, fired::add);
+
+        // 验证结果
+        assertEquals(List.of(1L), fired);
+    }
+
+    @Test
+    @DisplayName("重复登记 - 正向测试：改回原到期时间后只触发一次")
+    void testSchedule_BackToEarlierTick() {
+        // 准备测试数据
+        wheel.schedule(1L, START + 2 * TICK);
+        wheel.schedule(1L, START + 5 * TICK);
+        wheel.schedule(1L, START + 2 * TICK);
+
+        // 执行测试
+        wheel.advance(START + 10 * TICK, fired::add);
+
+        // 验证结果
+        assertEquals(List.of(1L), fired);
+    }
+
+    @Test
+    @DisplayName("取消定时器 - 反向测试：取消后不再触发")
+    void testCancel() {
+        // 准备测试数据
+        wheel.schedule(1L, START + 2 * TICK);
+
+        // 执行测试
+        assertTrue(wheel.cancel(1L));
+        assertFalse(wheel.cancel(1L));
+        wheel.advance(START + 3 * TICK, fired::add);
+
+        // 验证结果
+        assertTrue(fired.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * 订单到期处理单元测试类
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.expire;
+
+import org.demo.baoleme.dispatch.OrderGrabEngine;
+import org.demo.baoleme.dispatch.PendingOrderIndex;
+import org.demo.baoleme.dispatch.RiderOrderFeed;
+import org.demo.baoleme.mapper.OrderMapper;
+import org.demo.baoleme.pojo.Order;
+import org.demo.baoleme.stock.StockReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * OrderExpiryScheduler 单元测试
+ * <p>
+ * 测试覆盖范围：按订单当前状态分类处理到期订单（已结束、截止时间推迟、待接单取消、超时未送达提醒）
+ */
+class OrderExpirySchedulerTest {
+
+    private OrderMapper orderMapper;
+    private OrderGrabEngine orderGrabEngine;
+    private PendingOrderIndex pendingOrderIndex;
+    private RiderOrderFeed riderOrderFeed;
+    private StockReservationService stockReservationService;
+    private OrderExpiryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        orderMapper = mock(OrderMapper.class);
+        orderGrabEngine = mock(OrderGrabEngine.class);
+        pendingOrderIndex = mock(PendingOrderIndex.class);
+        riderOrderFeed = mock(RiderOrderFeed.class);
+        stockReservationService = mock(StockReservationService.class);
+        scheduler = new OrderExpiryScheduler(orderMapper, orderGrabEngine, pendingOrderIndex,
+                riderOrderFeed, stockReservationService);
+    }
+
+    private static Order order(long id, Integer status, Long riderId, LocalDateTime deadline) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(status);
+        order.setRiderId(riderId);
+        order.setDeadline(deadline);
+        return order;
+    }
+
+    @Test
+    @DisplayName("到期处理 - 正向测试：已完成、已取消的订单只清理内存索引")
+    void testExpire_FinishedOrders() {
+        // 准备测试数据
+        LocalDateTime past = LocalDateTime.now().minusMinutes(1);
+        when(orderMapper.selectDeadlineStates(anyCollection()))
+                .thenReturn(List.of(order(1L, 3, 10L, past), order(2L, 4, null, past)));
+
+        // 执行测试
+        int cancelled = scheduler.expire(List.of(1L, 2L));
+
+        // 验证结果
+        assertEquals(0, cancelled);
+        assertEquals(0, scheduler.pendingTimers());
+        verify(orderGrabEngine).remove(1L);
+        verify(orderGrabEngine).remove(2L);
+        verify(pendingOrderIndex).remove(1L);
+        verify(pendingOrderIndex).remove(2L);
+        verify(orderMapper, never()).cancelExpiredOrders(anyCollection());
+    }
+
+    @Test
+    @DisplayName("到期处理 - 正向测试：截止时间被推迟的订单按新时间重新登记")
+    void testExpire_DeadlinePostponed() {
+        // 准备测试数据
+        when(orderMapper.selectDeadlineStates(anyCollection()))
+                .thenReturn(List.of(order(1L, 0, null, LocalDateTime.now().plusMinutes(10))));
+
+        // 执行测试
+        int cancelled = scheduler.expire(List.of(1L));
+
+        // 验证结果
+        assertEquals(0, cancelled);
+        assertEquals(1, scheduler.pendingTimers());
+        verify(orderMapper, never()).cancelExpiredOrders(anyCollection());
+    }
+
+    @Test
+    @DisplayName("到期处理 - 正向测试：超时未接单的订单批量取消并释放预占库存")
+    void testExpire_CancelPending() {
+        // 准备测试数据
+        LocalDateTime past = LocalDateTime.now().minusMinutes(1);
+        when(orderMapper.selectDeadlineStates(anyCollection()))
+                .thenReturn(List.of(order(1L, 0, null, past), order(2L, 0, null, past)));
+        when(orderMapper.cancelExpiredOrders(anyCollection())).thenReturn(2);
+        when(stockReservationService.isEnabled()).thenReturn(true);
+
+        // 执行测试
+        int cancelled = scheduler.expire(List.of(1L, 2L));
+
+        // 验证结果
+        assertEquals(2, cancelled);
+        verify(orderGrabEngine).remove(1L);
+        verify(pendingOrderIndex).remove(2L);
+        verify(stockReservationService).release(1L);
+        verify(stockReservationService).release(2L);
+        assertEquals(0, scheduler.pendingTimers());
+    }
+
+    @Test
+    @DisplayName("到期处理 - 反向测试：取消时已被抢走的订单不释放库存，稍后按新状态重查")
+    void testExpire_GrabbedDuringCancel() {
+        // 准备测试数据
+        LocalDateTime past = LocalDateTime.now().minusMinutes(1);
+        when(orderMapper.selectDeadlineStates(anyCollection()))
+                .thenReturn(List.of(order(1L, 0, null, past), order(2L, 0, null, past)))
+                .thenReturn(List.of(order(1L, 4, null, past), order(2L, 1, 10L, past)));
+        when(orderMapper.cancelExpiredOrders(anyCollection())).thenReturn(1);
+        when(stockReservationService.isEnabled()).thenReturn(true);
+
+        // 执行测试
+        int cancelled = scheduler.expire(List.of(1L, 2L));
+
+        // 验证结果
+        assertEquals(1, cancelled);
+        verify(stockReservationService).release(1L);
+        verify(stockReservationService, never()).release(2L);
+        verify(orderGrabEngine, never()).remove(2L);
+        assertEquals(1, scheduler.pendingTimers());
+    }
+
+    @Test
+    @DisplayName("到期处理 - 正向测试：超时未送达的订单提醒骑手，达到次数上限后不再登记")
+    void testExpire_EscalateOverdue() {
+        // 准备测试数据
+        LocalDateTime past = LocalDateTime.now().minusMinutes(1);
+        when(orderMapper.selectDeadlineStates(anyCollection()))
+                .thenReturn(List.of(order(1L, 1, 10L, past)));
+
+        // 执行测试 & 验证结果
+        scheduler.expire(List.of(1L));
+        assertEquals(1, scheduler.pendingTimers());
+        scheduler.expire(List.of(1L));
+        assertEquals(1, scheduler.pendingTimers());
+        scheduler.expire(List.of(1L));
+        assertEquals(0, scheduler.pendingTimers());
+
+        verify(riderOrderFeed, times(3)).notifyOverdue(10L, 1L);
+        verify(orderMapper, never()).cancelExpiredOrders(anyCollection());
+    }
+
+    @Test
+    @DisplayName("登记定时器 - 正向测试：同一订单重复登记只保留一个定时器")
+    void testSchedule_Deduplicates() {
+        // 准备测试数据
+        Order order = order(1L, 0, null, LocalDateTime.now().plusMinutes(5));
+
+        // 执行测试
+        scheduler.schedule(order);
+        scheduler.onAdded(order);
+        scheduler.schedule(order);
+
+        // 验证结果
+        assertEquals(1, scheduler.pendingTimers());
+    }
+}
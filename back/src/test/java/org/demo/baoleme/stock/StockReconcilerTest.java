@@ -0,0 +1,111 @@
+/**
+ * 库存对账任务单元测试类
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.stock;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.demo.baoleme.mapper.OrderMapper;
+import org.demo.baoleme.mapper.ProductMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * StockReconciler 单元测试
+ * <p>
+ * 在 jedis-mock 提供的 Redis 替身上验证增量写回：提交前增量保留在写回中哈希，提交后清除，失败时并回增量哈希
+ */
+class StockReconcilerTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    private ProductMapper productMapper;
+    private StockReconciler reconciler;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redisServer = RedisServer.newRedisServer(0).start();
+        connectionFactory = new LettuceConnectionFactory("127.0.0.1", redisServer.getBindPort());
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.getConnectionFactory().getConnection().serverCommands().flushAll();
+        productMapper = mock(ProductMapper.class);
+        StockReservationService service = new StockReservationService(redis, productMapper);
+        reconciler = new StockReconciler(service, redis, productMapper, mock(OrderMapper.class));
+    }
+
+    @Test
+    @DisplayName("增量写回 - 正向测试：提交前增量保留在写回中哈希，提交后清除并递增批次号")
+    void testFlushDeltas_Success() {
+        // 准备测试数据
+        redis.opsForHash().put(StockReservationService.DELTA_KEY, "1", "-3");
+        redis.opsForHash().put(StockReservationService.DELTA_KEY, "2", "0");
+        when(productMapper.applyStockDeltas(anyMap())).thenAnswer(invocation -> {
+            // 写回期间增量仍可见，预加载据此拒绝按旧库存初始化
+            assertEquals("-3", redis.opsForHash().get(StockReservationService.FLUSHING_KEY, "1"));
+            assertFalse(redis.hasKey(StockReservationService.DELTA_KEY));
+            return 1;
+        });
+
+        // 执行测试
+        reconciler.flushDeltas();
+
+        // 验证结果
+        verify(productMapper).applyStockDeltas(Map.of(1L, -3L));
+        assertFalse(redis.hasKey(StockReservationService.FLUSHING_KEY));
+        assertEquals("1", redis.opsForValue().get(StockReservationService.EPOCH_KEY));
+    }
+
+    @Test
+    @DisplayName("增量写回 - 反向测试：写入数据库失败时增量并回增量哈希")
+    void testFlushDeltas_Failure() {
+        // 准备测试数据
+        redis.opsForHash().put(StockReservationService.DELTA_KEY, "1", "-3");
+        when(productMapper.applyStockDeltas(anyMap())).thenAnswer(invocation -> {
+            // 写回期间又有新的预占
+            redis.opsForHash().increment(StockReservationService.DELTA_KEY, "1", -2);
+            throw new IllegalStateException("db down");
+        });
+
+        // 执行测试
+        assertThrows(IllegalStateException.class, () -> reconciler.flushDeltas());
+
+        // 验证结果
+        assertEquals("-5", redis.opsForHash().get(StockReservationService.DELTA_KEY, "1"));
+        assertFalse(redis.hasKey(StockReservationService.FLUSHING_KEY));
+        assertEquals("1", redis.opsForValue().get(StockReservationService.EPOCH_KEY));
+    }
+
+    @Test
+    @DisplayName("增量写回 - 正向测试：没有增量时不访问数据库")
+    void testFlushDeltas_Empty() {
+        // 执行测试
+        reconciler.flushDeltas();
+
+        // 验证结果
+        verify(productMapper, never()).applyStockDeltas(anyMap());
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Redis 库存预占服务单元测试类
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.baoleme.stock;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.demo.baoleme.mapper.ProductMapper;
+import org.demo.baoleme.pojo.OrderItem;
+import org.demo.baoleme.pojo.Product;
+import org.junit.jupiter.api.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * StockReservationService 单元测试
+ * <p>
+ * 在 jedis-mock 提供的 Redis 替身上执行真实的 Lua 脚本，测试覆盖范围：
+ * 1. 整单原子预占与库存不足
+ * 2. 释放预占
+ * 3. 预加载（含尚未写回的增量、写回进行中的拒绝）
+ */
+class StockReservationServiceTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    private ProductMapper productMapper;
+    private StockReservationService service;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redisServer = RedisServer.newRedisServer(0).start();
+        connectionFactory = new LettuceConnectionFactory("127.0.0.1", redisServer.getBindPort());
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.getConnectionFactory().getConnection().serverCommands().flushAll();
+        productMapper = mock(ProductMapper.class);
+        service = new StockReservationService(redis, productMapper);
+    }
+
+    private static OrderItem item(long productId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static Product product(long id, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setStock(stock);
+        return product;
+    }
+
+    private String avail(long productId) {
+        return redis.opsForValue().get(StockReservationService.AVAIL_PREFIX + productId);
+    }
+
+    private Object delta(long productId) {
+        return redis.opsForHash().get(StockReservationService.DELTA_KEY, String.valueOf(productId));
+    }
+
+    @Test
+    @DisplayName("预占 - 正向测试：库存充足时扣减全部商品行并记录增量与明细")
+    void testReserve_Success() {
+        // 准备测试数据
+        redis.opsForValue().set(StockReservationService.AVAIL_PREFIX + 1, "5");
+        redis.opsForValue().set(StockReservationService.AVAIL_PREFIX + 2, "3");
+
+        // 执行测试
+        List<Long> failed = service.reserve(100L, List.of(item(1, 2), item(2, 3)), LocalDateTime.now().plusMinutes(30));
+
+        // 验证结果
+        assertTrue(failed.isEmpty());
+        assertEquals("3", avail(1));
+        assertEquals("0", avail(2));
+        assertEquals("-2", delta(1));
+        assertEquals("-3", delta(2));
+        assertEquals("2", redis.opsForHash().get(StockReservationService.RESV_PREFIX + 100, "1"));
+        assertNotNull(redis.opsForZSet().score(StockReservationService.DEADLINE_KEY, "100"));
+    }
+
+    @Test
+    @DisplayName("预占 - 反向测试：任一商品库存不足时整单不扣减，返回不足的商品ID")
+    void testReserve_Insufficient() {
+        // 准备测试数据
+        redis.opsForValue().set(StockReservationService.AVAIL_PREFIX + 1, "5");
+        redis.opsForValue().set(StockReservationService.AVAIL_PREFIX + 2, "1");
+
+        // 执行测试
+        List<Long> failed = service.reserve(100L, List.of(item(1, 2), item(2, 2)), null);
+
+        // 验证结果
+        assertEquals(List.of(2L), failed);
+        assertEquals("5", avail(1));
+        assertEquals("1", avail(2));
+        assertNull(delta(1));
+        assertFalse(redis.hasKey(StockReservationService.RESV_PREFIX + 100));
+    }
+
+    @Test
+    @DisplayName("释放预占 - 正向测试：加回可用库存并抵消增量，重复释放无副作用")
+    void testRelease() {
+        // 准备测试数据
+        redis.opsForValue().set(StockReservationService.AVAIL_PREFIX + 1, "5");
+        service.reserve(100L, List.of(item(1, 2)), null);
+
+        // 执行测试
+        long released = service.release(100L);
+        long again = service.release(100L);
+
+        // 验证结果
+        assertEquals(1, released);
+        assertEquals(0, again);
+        assertEquals("5", avail(1));
+        assertEquals("0", delta(1));
+        assertNull(redis.opsForZSet().score(StockReservationService.DEADLINE_KEY, "100"));
+    }
+
+    @Test
+    @DisplayName("预加载 - 正向测试：未加载的商品按数据库库存加上未写回增量初始化后预占")
+    void testReserve_PreloadsMissing() {
+        // 准备测试数据：数据库库存 10，另有 3 件已预占尚未写回
+        redis.opsForHash().put(StockReservationService.DELTA_KEY, "1", "-3");
+        when(productMapper.selectBatchIds(anyCollection())).thenReturn(List.of(product(1, 10)));
+
+        // 执行测试
+        List<Long> failed = service.reserve(100L, List.of(item(1, 4)), null);
+
+        // 验证结果
+        assertTrue(failed.isEmpty());
+        assertEquals("3", avail(1));
+        assertEquals("-7", delta(1));
+    }
+
+    @Test
+    @DisplayName("预加载 - 反向测试：商品增量正在写回时不按旧库存初始化")
+    void testPreload_RefusedWhileFlushing() {
+        // 准备测试数据：3 件的增量已取出、尚未提交到数据库
+        redis.opsForHash().put(StockReservationService.FLUSHING_KEY, "1", "-3");
+        when(productMapper.selectBatchIds(anyCollection())).thenReturn(List.of(product(1, 10)));
+
+        // 执行测试
+        service.preload(List.of(1L));
+
+        // 验证结果
+        assertNull(avail(1));
+        assertThrows(IllegalStateException.class, () -> service.reserve(100L, List.of(item(1, 1)), null));
+    }
+
+    @Test
+    @DisplayName("预加载 - 反向测试：读库后有一批写回结束时重读数据库")
+    void testPreload_RereadsAfterFlushFinished() {
+        // 准备测试数据：第一次读到写回提交前的库存，读库期间写回结束（批次号变化）
+        when(productMapper.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            redis.opsForValue().increment(StockReservationService.EPOCH_KEY);
+            return List.of(product(1, 10));
+        }).thenReturn(List.of(product(1, 7)));
+
+        // 执行测试
+        service.preload(List.of(1L));
+
+        // 验证结果
+        assertEquals("7", avail(1));
+        verify(productMapper, times(2)).selectBatchIds(anyCollection());
+    }
+}
@@ -0,0 +1,12 @@
+-- 聊天压测（ChatLoadHarness）使用的 H2 表结构，与 test.sql 中的 message 表一致
+CREATE TABLE IF NOT EXISTS message (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    content VARCHAR(300) NOT NULL,
+    sender_id BIGINT NOT NULL,
+    receiver_id BIGINT NOT NULL,
+    sender_role VARCHAR(10) NOT NULL,
+    receiver_role VARCHAR(10) NOT NULL,
+    conversation_key VARCHAR(64) NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_conversation ON message (conversation_key, id);
@@ -107,11 +107,31 @@ CREATE TABLE IF NOT EXISTS `order` (
                                        created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
                                        deadline DATETIME DEFAULT CURRENT_TIMESTAMP,
                                        ended_at DATETIME NULL,
-                                       INDEX (status),
-                                       INDEX (rider_id),
+                                       INDEX idx_status_created (status, created_at, id),
+                                       INDEX idx_rider_created (rider_id, created_at, id),
+                                       INDEX idx_user_created (user_id, created_at, id),
+                                       INDEX idx_created (created_at, id),
                                        INDEX (store_id)
 ) AUTO_INCREMENT=80000001;
 
+-- 存量库迁移：CREATE TABLE IF NOT EXISTS 不会修改已有的表，缺少键集分页所需的索引时补上
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'order' AND INDEX_NAME = 'idx_status_created') = 0,
+               'ALTER TABLE `order` ADD INDEX idx_status_created (status, created_at, id)', 'DO 0');
+PREPARE stmt FROM @ddl; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'order' AND INDEX_NAME = 'idx_rider_created') = 0,
+               'ALTER TABLE `order` ADD INDEX idx_rider_created (rider_id, created_at, id)', 'DO 0');
+PREPARE stmt FROM @ddl; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'order' AND INDEX_NAME = 'idx_user_created') = 0,
+               'ALTER TABLE `order` ADD INDEX idx_user_created (user_id, created_at, id)', 'DO 0');
+PREPARE stmt FROM @ddl; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'order' AND INDEX_NAME = 'idx_created') = 0,
+               'ALTER TABLE `order` ADD INDEX idx_created (created_at, id)', 'DO 0');
+PREPARE stmt FROM @ddl; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
 -- 触发器：订单创建时自动设置deadline为created_at + 45分钟
 DROP TRIGGER IF EXISTS order_set_deadline;
 DELIMITER $$
@@ -176,9 +196,21 @@ CREATE TABLE IF NOT EXISTS message(
                                       receiver_id BIGINT NOT NULL,
                                       sender_role VARCHAR(10) NOT NULL,
                                       receiver_role VARCHAR(10) NOT NULL,
-                                      created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+                                      conversation_key VARCHAR(64) NULL,
+                                      created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+                                      INDEX idx_conversation (conversation_key, id)
 ) AUTO_INCREMENT=120000001;
 
+-- 存量库迁移：CREATE TABLE IF NOT EXISTS 不会修改已有的表，缺少会话键列和索引时补上（MySQL 不支持 ADD COLUMN IF NOT EXISTS）
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'message' AND COLUMN_NAME = 'conversation_key') = 0,
+               'ALTER TABLE message ADD COLUMN conversation_key VARCHAR(64) NULL AFTER receiver_role', 'DO 0');
+PREPARE stmt FROM @ddl; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'message' AND INDEX_NAME = 'idx_conversation') = 0,
+               'ALTER TABLE message ADD INDEX idx_conversation (conversation_key, id)', 'DO 0');
+PREPARE stmt FROM @ddl; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
 -- 十四、收藏夹表 favorite
 CREATE TABLE IF NOT EXISTS favorite (
                                         user_id BIGINT NOT NULL,
@@ -194,6 +226,17 @@ CREATE TABLE IF NOT EXISTS browse_history (
                                               UNIQUE KEY uc_user_store (user_id, store_id)  -- 联合唯一约束
 );
 
+-- 十六、骑手收入台账 rider_earnings
+-- period 为 'ALL'（累计）、'yyyy-MM'（按月）或 'yyyy-MM-dd'（按日），按订单完成时间归属
+CREATE TABLE IF NOT EXISTS rider_earnings (
+                                              rider_id BIGINT NOT NULL,
+                                              period VARCHAR(10) NOT NULL,
+                                              completed_orders INT NOT NULL DEFAULT 0,
+                                              earnings DECIMAL(12,2) NOT NULL DEFAULT 0,
+                                              updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                                              PRIMARY KEY (rider_id, period)
+);
+
 -- 1. 创建第一个触发器：当order状态更新为3时，将order_item插入sales表
 DELIMITER $$
 DROP TRIGGER IF EXISTS order_status_to_sales;
@@ -551,6 +594,13 @@ INSERT INTO message (content, sender_id, receiver_id, sender_role, receiver_role
                                                                                       ('骑手已取餐，请耐心等候。',      30000005, 10000005, 'rider',     'user'),
                                                                                       ('活动优惠已为您发送，请查收。',  20000005, 10000006, 'merchant',  'user');
 
+-- 补齐会话键：双方 (角色, ID) 排序后拼接，与 ConversationKey 一致；存量数据迁移时执行同一语句
+UPDATE message
+SET conversation_key = IF((sender_role, sender_id) <= (receiver_role, receiver_id),
+                          CONCAT(sender_role, ':', sender_id, '|', receiver_role, ':', receiver_id),
+                          CONCAT(receiver_role, ':', receiver_id, '|', sender_role, ':', sender_id))
+WHERE conversation_key IS NULL;
+
 -- 十四、收藏夹表 favorite 15 条插入语句
 INSERT INTO favorite (user_id, product_id, store_id) VALUES
                                                          (10000001, 60000001, NULL),
@@ -568,3 +618,20 @@ INSERT INTO favorite (user_id, product_id, store_id) VALUES
                                                          (10000013, 60000013, NULL),
                                                          (10000014, NULL,       50000014),
                                                          (10000015, 60000015, NULL);
+
+-- 骑手收入台账初始化：汇总已完成订单，与 RiderEarningsBackfill 的逻辑一致
+INSERT INTO rider_earnings (rider_id, period, completed_orders, earnings)
+SELECT rider_id, period, COUNT(*), IFNULL(SUM(delivery_price), 0)
+FROM (
+         SELECT o.rider_id,
+                CASE k.kind
+                    WHEN 0 THEN 'ALL'
+                    WHEN 1 THEN DATE_FORMAT(CONVERT_TZ(COALESCE(o.ended_at, o.created_at), @@session.time_zone, '+08:00'), '%Y-%m')
+                    ELSE DATE_FORMAT(CONVERT_TZ(COALESCE(o.ended_at, o.created_at), @@session.time_zone, '+08:00'), '%Y-%m-%d')
+                    END AS period,
+                o.delivery_price
+         FROM `order` o
+                  CROSS JOIN (SELECT 0 AS kind UNION ALL SELECT 1 UNION ALL SELECT 2) k
+         WHERE o.status = 3 AND o.rider_id IS NOT NULL
+     ) t
+GROUP BY rider_id, period;
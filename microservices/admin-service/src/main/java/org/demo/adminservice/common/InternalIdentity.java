@@ -0,0 +1,154 @@
+/**
+ * 内部身份头
+ * 边缘认证模式下由网关转发服务签发、各服务只校验签名的内部身份凭证
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.adminservice.common;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * 内部身份头工具类
+ * <p>
+ * 开启 edge-auth.enabled 后，gateway-forward-service 对每个请求只做一次完整的 JWT 校验（签名 + Redis），
+ * 通过后附加请求头 {@value #HEADER}，格式为：用户ID.角色.过期时刻(毫秒).用户名(Base64URL).签名，
+ * 签名为前四段的 HMAC-SHA256。下游服务收到该头时只校验签名和过期时刻，不再解析 JWT、不访问 Redis；
+ * 服务之间互相调用时原样透传该头。所有服务的 edge-auth.secret 必须一致。
+ * <p>
+ * 未开启时忽略该头，仍按 Authorization 完整校验。网关转发服务总会丢弃客户端自带的该请求头。
+ */
+@Component
+public class InternalIdentity {
+
+    /**
+     * 内部身份请求头名称
+     */
+    public static final String HEADER = "X-Internal-Identity";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * 示例密钥中的占位标记，配置了此类密钥时拒绝启动
+     */
+    private static final String PLACEHOLDER_MARK = "change_me";
+
+    /**
+     * 是否开启边缘认证
+     */
+    private final boolean enabled;
+
+    /**
+     * 身份头有效期（毫秒）
+     */
+    private final long ttlMillis;
+
+    /**
+     * 每个线程复用一个已初始化的 Mac 实例
+     */
+    private final ThreadLocal<Mac> mac;
+
+    public InternalIdentity(@Value("${edge-auth.enabled:false}") boolean enabled,
+                            @Value("${edge-auth.secret:}") String secret,
+                            @Value("${edge-auth.ttl-seconds:60}") long ttlSeconds) {
+        if (enabled && secret.length() < 32) {
+            throw new IllegalStateException("edge-auth.secret 至少 32 个字符");
+        }
+        if (enabled && secret.toLowerCase().contains(PLACEHOLDER_MARK)) {
+            throw new IllegalStateException("edge-auth.secret 仍是示例密钥，请通过环境变量 EDGE_AUTH_SECRET 配置");
+        }
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        SecretKeySpec key = enabled ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM) : null;
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * 是否开启边缘认证
+     *
+     * @return true表示开启
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 签发内部身份头
+     *
+     * @param userId 用户ID
+     * @param role 用户角色
+     * @param username 用户名，可为空
+     * @return 身份头的值
+     */
+    public String sign(long userId, String role, String username) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        String name = username == null ? "" : ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8));
+        String content = userId + "." + role + "." + expiresAt + "." + name;
+        return content + "." + ENCODER.encodeToString(mac(content));
+    }
+
+    /**
+     * 校验内部身份头
+     *
+     * @param header 身份头的值
+     * @return 身份信息，未开启、格式错误、签名不符或已过期时返回null
+     */
+    public Identity verify(String header) {
+        if (!enabled || header == null) {
+            return null;
+        }
+        String[] parts = header.split("\\.", -1);
+        if (parts.length != 5) {
+            return null;
+        }
+        try {
+            String content = header.substring(0, header.lastIndexOf('.'));
+            if (!MessageDigest.isEqual(mac(content), DECODER.decode(parts[4]))) {
+                return null;
+            }
+            if (Long.parseLong(parts[2]) < System.currentTimeMillis()) {
+                return null;
+            }
+            String username = parts[3].isEmpty() ? null : new String(DECODER.decode(parts[3]), StandardCharsets.UTF_8);
+            return new Identity(Long.parseLong(parts[0]), parts[1], username);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] mac(String content) {
+        return mac.get().doFinal(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 内部身份头中的身份信息
+     *
+     * @param userId 用户ID
+     * @param role 用户角色
+     * @param username 用户名
+     */
+    public record Identity(long userId, String role, String username) {
+    }
+}
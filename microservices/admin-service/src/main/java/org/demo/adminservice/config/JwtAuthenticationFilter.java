@@ -12,6 +12,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.demo.adminservice.common.InternalIdentity;
 import org.demo.adminservice.common.JwtUtils;
 import org.demo.adminservice.common.UserHolder;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +39,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    /**
+     * 内部身份头校验，边缘认证模式下代替JWT解析和Redis查询
+     */
+    @Autowired
+    private InternalIdentity internalIdentity;
+
     /**
      * 执行JWT认证过滤
      * 
@@ -58,6 +65,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 清除之前的用户信息
         UserHolder.clear();
         
+        // 边缘认证：网关转发服务已完成JWT校验，只需校验内部身份头的签名
+        InternalIdentity.Identity identity = internalIdentity.verify(request.getHeader(InternalIdentity.HEADER));
+        if (identity != null) {
+            UserHolder.set(identity.userId(), identity.role());
+            UsernamePasswordAuthenticationToken authentication = 
+                new UsernamePasswordAuthenticationToken(identity.userId(), null, new ArrayList<>());
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
         // 从请求头获取Authorization
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
@@ -0,0 +1,235 @@
+/**
+ * 雪花算法机器号租约
+ * 通过Redis为服务实例分配互不重复的机器号
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.common.common;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * 雪花算法机器号租约
+ * <p>
+ * 各服务实例在 Redis 中用 SET NX 抢占 snowflake:worker:{id}（0~1023），并定期续期；
+ * 所有服务共用同一组键，因此 back 与各微服务生成的 ID 互不重复。
+ * 配置了 snowflake.worker-id 或未开启 order.id.snowflake 时不访问 Redis。
+ * <p>
+ * 续期用 Lua 脚本比较持有者后再延长有效期。最近一次成功续期（从发出请求时算起）超过有效期后，
+ * 机器号可能已被其他实例占用，生成器随即拒绝发号，直到重新取得租约；
+ * Redis 不可用、尚未取得租约时同样拒绝发号，不使用可能重复的随机机器号。
+ * 续期在独立线程上执行，不受其他定时任务耗时影响。
+ */
+@Slf4j
+@Component
+public class SnowflakeWorkerLease {
+
+    static final String KEY_PREFIX = "snowflake:worker:";
+
+    /** 租约有效期（秒），续期周期为其三分之一 */
+    private static final long LEASE_SECONDS = 60;
+
+    /**
+     * 仍由本实例持有时延长有效期，返回 1；否则返回 0
+     */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('EXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 仍由本实例持有时删除，返回 1；否则返回 0
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /** 本实例标识：主机名@进程号 */
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final boolean fixed;
+
+    /** 是否需要通过 Redis 租约分配机器号 */
+    private final boolean leasing;
+
+    private final ScheduledExecutorService renewer;
+
+    private volatile int workerId = -1;
+
+    private volatile boolean leased;
+
+    /** 租约有效期截止时间（毫秒时间戳），固定机器号时不过期 */
+    private volatile long validUntil;
+
+    private volatile IntConsumer reassignListener = id -> { };
+
+    private volatile LongConsumer validityListener = millis -> { };
+
+    public SnowflakeWorkerLease(StringRedisTemplate stringRedisTemplate,
+                                @Value("${snowflake.worker-id:-1}") int configuredWorkerId,
+                                @Value("${order.id.snowflake:false}") boolean enabled) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.fixed = configuredWorkerId >= 0;
+        this.leasing = enabled && !fixed;
+        if (fixed) {
+            this.workerId = configuredWorkerId;
+            this.validUntil = Long.MAX_VALUE;
+        } else if (!leasing) {
+            // 未使用雪花主键，不占用机器号；生成器需要合法机器号才能构造，但没有租约不会发号
+            this.workerId = 0;
+        }
+        if (leasing) {
+            this.renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "snowflake-lease");
+                thread.setDaemon(true);
+                return thread;
+            });
+            acquire();
+            long period = TimeUnit.SECONDS.toMillis(LEASE_SECONDS) / 3;
+            renewer.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.renewer = null;
+        }
+    }
+
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 机器号变更时回调（租约丢失且被其他实例占用后重新分配）
+     */
+    public void onReassigned(IntConsumer listener) {
+        this.reassignListener = listener;
+    }
+
+    public long getValidUntil() {
+        return validUntil;
+    }
+
+    /**
+     * 租约有效期截止时间变化时回调（毫秒时间戳，0 表示当前没有有效租约）
+     */
+    public void onValidUntilChanged(LongConsumer listener) {
+        this.validityListener = listener;
+    }
+
+    /**
+     * 续期租约；租约已丢失时重新获取
+     */
+    void renew() {
+        try {
+            if (!leased) {
+                acquire();
+                return;
+            }
+            String key = KEY_PREFIX + workerId;
+            long requestedAt = System.currentTimeMillis();
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(key), owner, String.valueOf(LEASE_SECONDS));
+            if (renewed != null && renewed == 1) {
+                extend(requestedAt);
+            } else if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(key, owner, LEASE_SECONDS, TimeUnit.SECONDS))) {
+                extend(requestedAt);
+                log.warn("雪花机器号租约已过期，重新占用机器号：{}", workerId);
+            } else {
+                log.error("雪花机器号 {} 已被其他实例占用，重新分配", workerId);
+                acquire();
+            }
+        } catch (Exception e) {
+            log.warn("雪花机器号续期失败，租约有效期至 {}：{}", validUntil, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (!leasing) {
+            return;
+        }
+        renewer.shutdownNow();
+        if (!leased) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + workerId), owner);
+        } catch (Exception e) {
+            log.warn("雪花机器号释放失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从随机位置开始依次尝试占用空闲机器号
+     */
+    private void acquire() {
+        int previous = workerId;
+        // 原租约已失效，重新取得租约前停止发号
+        leased = false;
+        updateValidUntil(0);
+        int start = ThreadLocalRandom.current().nextInt(SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+        try {
+            for (int i = 0; i <= SnowflakeIdGenerator.MAX_WORKER_ID; i++) {
+                int candidate = (start + i) & SnowflakeIdGenerator.MAX_WORKER_ID;
+                long requestedAt = System.currentTimeMillis();
+                if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                        .setIfAbsent(KEY_PREFIX + candidate, owner, LEASE_SECONDS, TimeUnit.SECONDS))) {
+                    assign(candidate, true);
+                    extend(requestedAt);
+                    log.info("雪花机器号租约获取成功：{}", candidate);
+                    return;
+                }
+            }
+            log.error("雪花机器号已全部被占用");
+        } catch (Exception e) {
+            log.warn("雪花机器号租约获取失败：{}", e.getMessage());
+        }
+        // 没有租约时停止发号，续期任务会继续尝试获取租约
+        if (previous < 0) {
+            // 机器号须在合法范围内才能构造生成器，取得租约前不会用它发号
+            assign(start, false);
+        }
+    }
+
+    /**
+     * 租约自发出请求起至少还有 LEASE_SECONDS 秒有效
+     */
+    private void extend(long requestedAt) {
+        updateValidUntil(requestedAt + TimeUnit.SECONDS.toMillis(LEASE_SECONDS));
+    }
+
+    private void updateValidUntil(long millis) {
+        this.validUntil = millis;
+        validityListener.accept(millis);
+    }
+
+    private void assign(int id, boolean leased) {
+        boolean changed = id != workerId;
+        this.workerId = id;
+        this.leased = leased;
+        if (changed) {
+            reassignListener.accept(id);
+        }
+    }
+}
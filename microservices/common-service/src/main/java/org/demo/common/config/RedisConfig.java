@@ -8,6 +8,7 @@
  */
 package org.demo.common.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
@@ -24,12 +25,19 @@ public class RedisConfig {
      * 配置RedisTemplate Bean
      * 
      * @param connectionFactory Lettuce连接工厂
+     * @param valueCodec 值编码模式：jdk / migrate / compact，见 {@link CompactRedisSerializer.Mode}
      * @return RedisTemplate<String, Object> Redis操作模板
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory connectionFactory,
+                                                       @Value("${redis.value-codec:jdk}") String valueCodec) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
+        // 键仍按 JDK 格式序列化，切换值编码时已有的键不受影响；本服务只存 Long / String，使用标量版序列化器
+        CompactRedisSerializer valueSerializer = new CompactRedisSerializer(
+                CompactRedisSerializer.Mode.valueOf(valueCodec.trim().toUpperCase()));
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
         return template;
     }
 }
\ No newline at end of file
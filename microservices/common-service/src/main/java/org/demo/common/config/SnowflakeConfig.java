@@ -0,0 +1,30 @@
+/**
+ * 雪花算法ID生成器配置类
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.common.config;
+
+import org.demo.common.common.SnowflakeIdGenerator;
+import org.demo.common.common.SnowflakeWorkerLease;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 雪花算法 ID 生成器配置
+ * 机器号由 {@link SnowflakeWorkerLease} 分配，租约重新分配或续期时同步更新生成器
+ */
+@Configuration
+public class SnowflakeConfig {
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(SnowflakeWorkerLease lease) {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(lease.getWorkerId());
+        lease.onReassigned(generator::setWorkerId);
+        lease.onValidUntilChanged(generator::setValidUntil);
+        generator.setValidUntil(lease.getValidUntil());
+        return generator;
+    }
+}
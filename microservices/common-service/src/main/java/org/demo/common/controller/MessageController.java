@@ -19,6 +19,7 @@ import org.demo.common.service.MessageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -59,16 +60,23 @@ public class MessageController {
                     senderRole,
                     request.getReceiverId(),
                     request.getReceiverRole(),
-                    request.getPage(),
+                    request.getBeforeId(),
+                    request.getPage() == null ? 1 : request.getPage(),
                     request.getPageSize()
             );
 
-            return ResponseBuilder.ok(Map.of(
-                    "messages", messages,
-                    "current_page", request.getPage(),
-                    "page_size", request.getPageSize(),
-                    "total_count", messages.size()
-            ));
+            // 下一页游标：本页最后一条消息的ID，不足一页时为空
+            Long nextBeforeId = !messages.isEmpty() && messages.size() >= request.getPageSize()
+                    ? messages.get(messages.size() - 1).getId()
+                    : null;
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("messages", messages);
+            result.put("current_page", request.getPage());
+            result.put("page_size", request.getPageSize());
+            result.put("total_count", messages.size());
+            result.put("next_before_id", nextBeforeId);
+            return ResponseBuilder.ok(result);
         } catch (Exception e) {
             return ResponseBuilder.fail("获取聊天记录失败: " + e.getMessage());
         }
@@ -145,6 +153,30 @@ public class MessageController {
         }
     }
 
+    /**
+     * 获取未读消息总数接口（角标）
+     * 
+     * @return 未读消息数响应
+     */
+    @GetMapping("/unread-count")
+    public CommonResponse getUnreadCount() {
+        try {
+            // 获取当前用户身份信息
+            Long userId = UserHolder.getId();
+            String userRole = UserHolder.getRole();
+
+            if (userId == null || userRole == null) {
+                return ResponseBuilder.fail("用户身份验证失败");
+            }
+
+            Integer unreadCount = messageService.getUnreadMessageCount(userId, userRole);
+
+            return ResponseBuilder.ok(Map.of("unread_count", unreadCount));
+        } catch (Exception e) {
+            return ResponseBuilder.fail("获取未读消息数失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 标记消息为已读接口
      * 
@@ -31,11 +31,10 @@ public class ChatHistoryRequest {
     private String receiverRole;
     
     /**
-     * 页码
+     * 页码（不传时为第一页；传 beforeId 时忽略）
      */
-    @NotNull(message = "页码不能为空")
     @Min(value = 1, message = "页码必须大于0")
-    private Integer page;
+    private Integer page = 1;
     
     /**
      * 每页大小
@@ -43,4 +42,9 @@ public class ChatHistoryRequest {
     @NotNull(message = "每页大小不能为空")
     @Min(value = 1, message = "每页大小必须大于0")
     private Integer pageSize;
+
+    /**
+     * 游标分页：只返回ID小于该值的消息，取上一页返回的 next_before_id
+     */
+    private Long beforeId;
 }
\ No newline at end of file
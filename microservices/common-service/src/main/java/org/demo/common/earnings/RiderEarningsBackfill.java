@@ -0,0 +1,72 @@
+/**
+ * 骑手收入台账回填任务
+ * 从订单表重新汇总已完成订单，写入 rider_earnings
+ *
+ * @author System
+ * @version 1.0
+ * @since 2024-01-01
+ */
+package org.demo.common.earnings;
+
+import lombok.extern.slf4j.Slf4j;
+import org.demo.common.mapper.RiderEarningsMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 骑手收入台账回填任务
+ * 按骑手ID分段执行 INSERT ... SELECT ... ON DUPLICATE KEY UPDATE，可重复执行，中断后重跑即可
+ * 通过 rider.earnings.backfill-on-startup 在启动时执行，也可直接调用 {@link #backfill()}
+ */
+@Slf4j
+@Component
+public class RiderEarningsBackfill {
+
+    /**
+     * 每段覆盖的骑手ID数
+     */
+    private static final long RIDERS_PER_BATCH = 200;
+
+    private final RiderEarningsMapper riderEarningsMapper;
+
+    @Value("${rider.earnings.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    public RiderEarningsBackfill(RiderEarningsMapper riderEarningsMapper) {
+        this.riderEarningsMapper = riderEarningsMapper;
+    }
+
+    /**
+     * 应用启动完成后按配置执行回填
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    /**
+     * 重新汇总全部骑手的台账
+     *
+     * @return long 影响行数
+     */
+    public long backfill() {
+        Long minId = riderEarningsMapper.selectMinRiderId();
+        Long maxId = riderEarningsMapper.selectMaxRiderId();
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        long affected = 0;
+        for (long from = minId; from <= maxId; from += RIDERS_PER_BATCH) {
+            long to = Math.min(from + RIDERS_PER_BATCH - 1, maxId);
+            affected += riderEarningsMapper.rebuildRange(from, to);
+        }
+        log.info("骑手收入台账回填完成，骑手ID {}~{}，影响行数：{}，耗时 {} ms",
+                minId, maxId, affected, System.currentTimeMillis() - start);
+        return affected;
+    }
+}
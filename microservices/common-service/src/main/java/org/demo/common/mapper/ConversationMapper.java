@@ -0,0 +1,138 @@
+/**
+ * 会话摘要数据访问接口
+ * 提供会话摘要的增量维护、分页查询和回填操作
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.*;
+import org.demo.common.pojo.Conversation;
+import org.demo.common.pojo.Message;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会话摘要数据访问接口
+ * 继承MyBatis-Plus的BaseMapper，主键为 (owner_id, owner_role, peer_id, peer_role)
+ */
+@Mapper
+public interface ConversationMapper extends BaseMapper<Conversation> {
+
+    /**
+     * 消息入库后更新双方的会话摘要：两行都刷新最后一条消息，接收方一行未读数加一
+     * 需与消息的 INSERT 在同一事务内执行；按消息ID取较新者，乱序提交也不会回退最后一条消息
+     *
+     * @param message 已入库的消息（需带ID）
+     * @return int 影响行数
+     */
+    @Insert("""
+            INSERT INTO conversation (owner_id, owner_role, peer_id, peer_role,
+                                      last_message_id, last_message, last_time, unread_count)
+            VALUES (#{m.senderId}, #{m.senderRole}, #{m.receiverId}, #{m.receiverRole},
+                    #{m.id}, #{m.content}, #{m.createdAt}, 0),
+                   (#{m.receiverId}, #{m.receiverRole}, #{m.senderId}, #{m.senderRole},
+                    #{m.id}, #{m.content}, #{m.createdAt}, 1)
+            ON DUPLICATE KEY UPDATE
+                last_message = IF(VALUES(last_message_id) > last_message_id, VALUES(last_message), last_message),
+                last_time = IF(VALUES(last_message_id) > last_message_id, VALUES(last_time), last_time),
+                last_message_id = GREATEST(last_message_id, VALUES(last_message_id)),
+                unread_count = unread_count + VALUES(unread_count)
+            """)
+    int touch(@Param("m") Message message);
+
+    /**
+     * 分页查询用户的会话列表，按最后消息时间倒序，走 (owner_id, owner_role, last_time) 索引
+     *
+     * @param ownerId 用户ID
+     * @param ownerRole 用户角色
+     * @param offset 偏移量
+     * @param limit 限制数量
+     * @return List<Map<String, Object>> 会话列表
+     */
+    @Select("SELECT peer_id AS contact_id, peer_role AS contact_role, last_message, " +
+            "       last_time AS last_message_time, unread_count " +
+            "FROM conversation " +
+            "WHERE owner_id = #{ownerId} AND owner_role = #{ownerRole} " +
+            "ORDER BY last_time DESC LIMIT #{offset}, #{limit}")
+    List<Map<String, Object>> selectPage(@Param("ownerId") Long ownerId,
+                                         @Param("ownerRole") String ownerRole,
+                                         @Param("offset") int offset,
+                                         @Param("limit") int limit);
+
+    /**
+     * 清零用户与对方（任意角色）会话的未读数
+     *
+     * @param ownerId 用户ID
+     * @param ownerRole 用户角色
+     * @param peerId 对方ID
+     * @return int 被清零的会话数
+     */
+    @Update("UPDATE conversation SET unread_count = 0 " +
+            "WHERE owner_id = #{ownerId} AND owner_role = #{ownerRole} " +
+            "  AND peer_id = #{peerId} AND unread_count > 0")
+    int clearUnread(@Param("ownerId") Long ownerId,
+                    @Param("ownerRole") String ownerRole,
+                    @Param("peerId") Long peerId);
+
+    /**
+     * 汇总用户全部会话的未读数，用于重建 Redis 未读计数
+     *
+     * @param ownerId 用户ID
+     * @param ownerRole 用户角色
+     * @return long 未读消息总数
+     */
+    @Select("SELECT IFNULL(SUM(unread_count), 0) FROM conversation " +
+            "WHERE owner_id = #{ownerId} AND owner_role = #{ownerRole}")
+    long sumUnread(@Param("ownerId") Long ownerId, @Param("ownerRole") String ownerRole);
+
+    /**
+     * 按ID顺序取下一批在消息表中出现过的用户ID（发送方或接收方）
+     *
+     * @param afterId 上一批最后一个用户ID（不包含）
+     * @param limit 批大小
+     * @return List<Long> 用户ID，升序
+     */
+    @Select("SELECT id FROM (" +
+            "  (SELECT DISTINCT sender_id AS id FROM message WHERE sender_id > #{afterId} ORDER BY sender_id LIMIT #{limit}) " +
+            "  UNION " +
+            "  (SELECT DISTINCT receiver_id FROM message WHERE receiver_id > #{afterId} ORDER BY receiver_id LIMIT #{limit}) " +
+            ") ids ORDER BY id LIMIT #{limit}")
+    List<Long> selectOwnerIdsAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 从消息表重新汇总 [fromOwnerId, toOwnerId] 区间内用户的会话摘要并覆盖写入，可重复执行
+     *
+     * @param fromOwnerId 起始用户ID（包含）
+     * @param toOwnerId 结束用户ID（包含）
+     * @return int 影响行数
+     */
+    @Insert("""
+            INSERT INTO conversation (owner_id, owner_role, peer_id, peer_role,
+                                      last_message_id, last_message, last_time, unread_count)
+            SELECT t.owner_id, t.owner_role, t.peer_id, t.peer_role, m.id, m.content, m.created_at, t.unread_count
+            FROM (
+                SELECT owner_id, owner_role, peer_id, peer_role, MAX(id) AS last_id, SUM(unread) AS unread_count
+                FROM (
+                    SELECT sender_id AS owner_id, sender_role AS owner_role,
+                           receiver_id AS peer_id, receiver_role AS peer_role, id, 0 AS unread
+                    FROM message WHERE sender_id BETWEEN #{fromOwnerId} AND #{toOwnerId}
+                    UNION ALL
+                    SELECT receiver_id, receiver_role, sender_id, sender_role, id, IF(is_read, 0, 1)
+                    FROM message WHERE receiver_id BETWEEN #{fromOwnerId} AND #{toOwnerId}
+                ) x
+                GROUP BY owner_id, owner_role, peer_id, peer_role
+            ) t
+            JOIN message m ON m.id = t.last_id
+            ON DUPLICATE KEY UPDATE
+                last_message_id = VALUES(last_message_id),
+                last_message = VALUES(last_message),
+                last_time = VALUES(last_time),
+                unread_count = VALUES(unread_count)
+            """)
+    int rebuildRange(@Param("fromOwnerId") Long fromOwnerId, @Param("toOwnerId") Long toOwnerId);
+}
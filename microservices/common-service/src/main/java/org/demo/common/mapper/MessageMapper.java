@@ -13,7 +13,6 @@ import org.apache.ibatis.annotations.*;
 import org.demo.common.pojo.Message;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * 消息数据访问接口
@@ -24,57 +23,24 @@ import java.util.Map;
 public interface MessageMapper extends BaseMapper<Message> {
 
     /**
-     * 获取聊天记录
+     * 按会话键获取聊天记录，按消息ID倒序，走 (conversation_key, id) 索引
      * 
-     * @param senderId 发送方ID
-     * @param senderRole 发送方角色
-     * @param receiverId 接收方ID
-     * @param receiverRole 接收方角色
-     * @param offset 偏移量
+     * @param conversationKey 会话键
+     * @param beforeId 只取ID小于该值的消息，为空时从最新一条开始
+     * @param offset 偏移量（游标分页时为 0）
      * @param limit 限制数量
      * @return List<Message> 消息列表
      */
-    @Select("SELECT * FROM message " +
-            "WHERE (sender_id = #{senderId} AND sender_role = #{senderRole} AND receiver_id = #{receiverId} AND receiver_role = #{receiverRole}) " +
-            "   OR (sender_id = #{receiverId} AND sender_role = #{receiverRole} AND receiver_id = #{senderId} AND receiver_role = #{senderRole}) " +
-            "ORDER BY created_at DESC LIMIT #{offset}, #{limit}")
-    List<Message> getChatHistory(@Param("senderId") Long senderId,
-                                @Param("senderRole") String senderRole,
-                                @Param("receiverId") Long receiverId,
-                                @Param("receiverRole") String receiverRole,
-                                @Param("offset") int offset,
-                                @Param("limit") int limit);
-
-    /**
-     * 获取用户会话列表
-     * 
-     * @param userId 用户ID
-     * @param userRole 用户角色
-     * @param offset 偏移量
-     * @param limit 限制数量
-     * @return List<Map<String, Object>> 会话列表
-     */
-    @Select("SELECT DISTINCT " +
-            "  CASE " +
-            "    WHEN sender_id = #{userId} AND sender_role = #{userRole} THEN receiver_id " +
-            "    ELSE sender_id " +
-            "  END as contact_id, " +
-            "  CASE " +
-            "    WHEN sender_id = #{userId} AND sender_role = #{userRole} THEN receiver_role " +
-            "    ELSE sender_role " +
-            "  END as contact_role, " +
-            "  MAX(created_at) as last_message_time, " +
-            "  COUNT(CASE WHEN receiver_id = #{userId} AND receiver_role = #{userRole} AND is_read = 0 THEN 1 END) as unread_count " +
-            "FROM message " +
-            "WHERE (sender_id = #{userId} AND sender_role = #{userRole}) " +
-            "   OR (receiver_id = #{userId} AND receiver_role = #{userRole}) " +
-            "GROUP BY contact_id, contact_role " +
-            "ORDER BY last_message_time DESC " +
-            "LIMIT #{offset}, #{limit}")
-    List<Map<String, Object>> getConversations(@Param("userId") Long userId,
-                                              @Param("userRole") String userRole,
-                                              @Param("offset") int offset,
-                                              @Param("limit") int limit);
+    @Select("<script>" +
+            "SELECT * FROM message " +
+            "WHERE conversation_key = #{conversationKey} " +
+            "<if test='beforeId != null'>AND id &lt; #{beforeId} </if>" +
+            "ORDER BY id DESC LIMIT #{offset}, #{limit}" +
+            "</script>")
+    List<Message> getChatHistory(@Param("conversationKey") String conversationKey,
+                                 @Param("beforeId") Long beforeId,
+                                 @Param("offset") int offset,
+                                 @Param("limit") int limit);
 
     /**
      * 标记消息为已读
@@ -91,18 +57,6 @@ public interface MessageMapper extends BaseMapper<Message> {
                    @Param("userId") Long userId,
                    @Param("userRole") String userRole);
 
-    /**
-     * 获取未读消息数量
-     * 
-     * @param userId 用户ID
-     * @param userRole 用户角色
-     * @return Integer 未读消息数量
-     */
-    @Select("SELECT COUNT(*) FROM message " +
-            "WHERE receiver_id = #{userId} AND receiver_role = #{userRole} AND is_read = 0")
-    Integer getUnreadMessageCount(@Param("userId") Long userId,
-                                 @Param("userRole") String userRole);
-
     /**
      * 检查用户是否存在
      * 
@@ -48,16 +48,27 @@ public interface OrderMapper extends BaseMapper<Order> {
     int grabOrder(@Param("orderId") Long orderId, @Param("riderId") Long riderId);
 
     /**
-     * 更新订单状态
+     * 更新订单状态（已完成的订单不可再改，避免重复计入骑手收入）
      * 
      * @param orderId 订单ID
      * @param riderId 骑手ID
      * @param status 新状态
      * @return int 影响行数
      */
-    @Update("UPDATE `order` SET status = #{status} WHERE id = #{orderId} AND rider_id = #{riderId}")
+    @Update("UPDATE `order` SET status = #{status} WHERE id = #{orderId} AND rider_id = #{riderId} AND status <> 3")
     int updateOrderStatus(@Param("orderId") Long orderId, @Param("riderId") Long riderId, @Param("status") Integer status);
 
+    /**
+     * 骑手完成订单（状态改为3并设置结束时间）
+     * 只从已接单/配送中完成，重复提交不会再次计入骑手收入
+     * 
+     * @param orderId 订单ID
+     * @param riderId 骑手ID
+     * @return int 影响行数
+     */
+    @Update("UPDATE `order` SET status = 3, ended_at = NOW() WHERE id = #{orderId} AND rider_id = #{riderId} AND status IN (1, 2)")
+    int completeOrder(@Param("orderId") Long orderId, @Param("riderId") Long riderId);
+
     /**
      * 根据骑手ID和条件查询订单
      * 
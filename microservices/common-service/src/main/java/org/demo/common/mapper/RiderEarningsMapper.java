@@ -0,0 +1,114 @@
+/**
+ * 骑手收入台账数据访问层接口
+ * 提供台账的增量累加、查询和回填操作
+ *
+ * @author System
+ * @version 1.0
+ * @since 2024-01-01
+ */
+package org.demo.common.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.*;
+import org.demo.common.pojo.RiderEarnings;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 骑手收入台账数据访问层接口
+ * 继承MyBatis-Plus的BaseMapper，台账主键为 (rider_id, period)
+ */
+@Mapper
+public interface RiderEarningsMapper extends BaseMapper<RiderEarnings> {
+
+    /**
+     * 订单完成后累加骑手台账：累计、完成当月、完成当日三行各加一单和该单配送费
+     * 需与订单完成的 UPDATE 在同一事务内执行
+     *
+     * @param orderId 已完成的订单ID
+     * @param month 完成当月的周期标识，由 {@link RiderEarnings#monthOf} 按台账时区计算
+     * @param day 完成当日的周期标识，由 {@link RiderEarnings#dayOf} 按台账时区计算
+     * @return int 影响行数
+     */
+    @Insert("""
+            INSERT INTO rider_earnings (rider_id, period, completed_orders, earnings)
+            SELECT o.rider_id,
+                   CASE k.kind
+                       WHEN 0 THEN 'ALL'
+                       WHEN 1 THEN #{month}
+                       ELSE #{day}
+                   END,
+                   1,
+                   IFNULL(o.delivery_price, 0)
+            FROM `order` o
+            CROSS JOIN (SELECT 0 AS kind UNION ALL SELECT 1 UNION ALL SELECT 2) k
+            WHERE o.id = #{orderId} AND o.status = 3 AND o.rider_id IS NOT NULL
+            ON DUPLICATE KEY UPDATE
+                completed_orders = completed_orders + VALUES(completed_orders),
+                earnings = earnings + VALUES(earnings)
+            """)
+    int accrue(@Param("orderId") Long orderId, @Param("month") String month, @Param("day") String day);
+
+    /**
+     * 按主键查询骑手的若干台账行
+     *
+     * @param riderId 骑手ID
+     * @param periods 周期列表
+     * @return List<RiderEarnings> 台账行
+     */
+    @Select("""
+            <script>
+            SELECT rider_id, period, completed_orders, earnings, updated_at FROM rider_earnings
+            WHERE rider_id = #{riderId} AND period IN
+            <foreach collection="periods" item="period" open="(" separator="," close=")">#{period}</foreach>
+            </script>
+            """)
+    List<RiderEarnings> selectByPeriods(@Param("riderId") Long riderId, @Param("periods") Collection<String> periods);
+
+    /**
+     * 从订单表重新汇总 [fromRiderId, toRiderId] 区间内骑手的台账并覆盖写入，可重复执行
+     * 完成时间先从会话时区换算到 +08:00（即 {@link RiderEarnings#ZONE}）再划分周期，与 accrue 写入的周期一致
+     *
+     * @param fromRiderId 起始骑手ID（包含）
+     * @param toRiderId 结束骑手ID（包含）
+     * @return int 影响行数
+     */
+    @Insert("""
+            INSERT INTO rider_earnings (rider_id, period, completed_orders, earnings)
+            SELECT rider_id, period, COUNT(*), IFNULL(SUM(delivery_price), 0)
+            FROM (
+                SELECT o.rider_id,
+                       CASE k.kind
+                           WHEN 0 THEN 'ALL'
+                           WHEN 1 THEN DATE_FORMAT(CONVERT_TZ(COALESCE(o.ended_at, o.created_at), @@session.time_zone, '+08:00'), '%Y-%m')
+                           ELSE DATE_FORMAT(CONVERT_TZ(COALESCE(o.ended_at, o.created_at), @@session.time_zone, '+08:00'), '%Y-%m-%d')
+                       END AS period,
+                       o.delivery_price
+                FROM `order` o
+                CROSS JOIN (SELECT 0 AS kind UNION ALL SELECT 1 UNION ALL SELECT 2) k
+                WHERE o.status = 3 AND o.rider_id BETWEEN #{fromRiderId} AND #{toRiderId}
+            ) t
+            GROUP BY rider_id, period
+            ON DUPLICATE KEY UPDATE
+                completed_orders = VALUES(completed_orders),
+                earnings = VALUES(earnings)
+            """)
+    int rebuildRange(@Param("fromRiderId") Long fromRiderId, @Param("toRiderId") Long toRiderId);
+
+    /**
+     * 订单表中出现过的最小骑手ID（本服务库中没有骑手表）
+     *
+     * @return Long 最小骑手ID，无订单时为 null
+     */
+    @Select("SELECT MIN(rider_id) FROM `order`")
+    Long selectMinRiderId();
+
+    /**
+     * 订单表中出现过的最大骑手ID
+     *
+     * @return Long 最大骑手ID，无订单时为 null
+     */
+    @Select("SELECT MAX(rider_id) FROM `order`")
+    Long selectMaxRiderId();
+}
@@ -0,0 +1,79 @@
+/**
+ * 会话摘要回填任务
+ * 从消息表重新汇总会话摘要，写入 conversation
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.common.message;
+
+import lombok.extern.slf4j.Slf4j;
+import org.demo.common.mapper.ConversationMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 会话摘要回填任务
+ * 按用户ID分批执行 INSERT ... SELECT ... ON DUPLICATE KEY UPDATE，可重复执行，中断后重跑即可
+ * 通过 message.conversation.backfill-on-startup 在启动时执行，也可直接调用 {@link #backfill()}
+ * 回填只覆盖数据库，Redis 中的未读计数会在过期后按新数据重建
+ */
+@Slf4j
+@Component
+public class ConversationBackfill {
+
+    /**
+     * 每批处理的用户数
+     */
+    private static final int OWNERS_PER_BATCH = 200;
+
+    private final ConversationMapper conversationMapper;
+
+    @Value("${message.conversation.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    public ConversationBackfill(ConversationMapper conversationMapper) {
+        this.conversationMapper = conversationMapper;
+    }
+
+    /**
+     * 应用启动完成后按配置执行回填
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    /**
+     * 重新汇总全部用户的会话摘要
+     *
+     * @return long 影响行数
+     */
+    public long backfill() {
+        long start = System.currentTimeMillis();
+        long affected = 0;
+        long owners = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = conversationMapper.selectOwnerIdsAfter(afterId, OWNERS_PER_BATCH);
+            if (ids.isEmpty()) {
+                break;
+            }
+            long from = ids.get(0);
+            long to = ids.get(ids.size() - 1);
+            affected += conversationMapper.rebuildRange(from, to);
+            owners += ids.size();
+            afterId = to;
+        }
+        log.info("会话摘要回填完成，用户数：{}，影响行数：{}，耗时 {} ms",
+                owners, affected, System.currentTimeMillis() - start);
+        return affected;
+    }
+}
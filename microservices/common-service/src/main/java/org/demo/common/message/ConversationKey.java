@@ -0,0 +1,38 @@
+/**
+ * 会话键
+ * 把聊天双方规范化为一个有序的 (角色, ID) 对
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.common.message;
+
+/**
+ * 会话键
+ * 双方按角色、ID 排序后拼成 "角色:ID|角色:ID"，同一对用户无论谁发送都得到相同的键，
+ * 存入 message.conversation_key 后，聊天记录只需一个 (conversation_key, id) 索引的范围扫描
+ * 排序规则与 common-service.sql 中补齐存量数据的 SQL 一致：先比较角色字符串，再比较 ID
+ */
+public final class ConversationKey {
+
+    private ConversationKey() {
+    }
+
+    /**
+     * 生成会话键
+     *
+     * @param roleA 一方角色
+     * @param idA 一方ID
+     * @param roleB 另一方角色
+     * @param idB 另一方ID
+     * @return String 会话键
+     */
+    public static String of(String roleA, Long idA, String roleB, Long idB) {
+        int cmp = roleA.compareTo(roleB);
+        if (cmp > 0 || (cmp == 0 && idA > idB)) {
+            return roleB + ":" + idB + "|" + roleA + ":" + idA;
+        }
+        return roleA + ":" + idA + "|" + roleB + ":" + idB;
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * 未读消息计数
+ * 在Redis中缓存每个用户的未读消息总数，供角标查询使用
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.common.message;
+
+import lombok.extern.slf4j.Slf4j;
+import org.demo.common.mapper.ConversationMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 未读消息计数
+ * <p>
+ * 计数键为 chat:unread:{role}:{id}，以 conversation 表的 unread_count 之和为准：
+ * <ul>
+ *     <li>读取时键不存在则从 conversation 表汇总一次并写回（SET NX，带过期时间）</li>
+ *     <li>新消息提交后仅在键已存在时 INCR，避免在缺失的键上累加出错误的部分计数</li>
+ *     <li>标记已读提交后直接删除键，下次读取时重建</li>
+ * </ul>
+ * 每次加一或删除都会递增版本键 chat:unread:gen:{role}:{id}。重建时先记下版本，汇总后由 Lua 脚本
+ * 确认版本未变才写回；汇总期间有消息提交或已读时放弃写回，避免旧的汇总值覆盖这些变化。
+ * 所有写操作都在数据库事务提交后执行；Redis 异常只记录日志，计数最多在过期时间内偏差，随后自动修正。
+ */
+@Slf4j
+@Component
+public class UnreadCounter {
+
+    private static final String KEY_PREFIX = "chat:unread:";
+
+    private static final String GEN_KEY_PREFIX = "chat:unread:gen:";
+
+    /**
+     * 递增版本；计数键存在时加一，返回新值，不存在时返回 nil
+     * KEYS: [count, gen]  ARGV: [ttlSeconds]
+     */
+    private static final DefaultRedisScript<Long> INCR_IF_PRESENT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return redis.call('INCR', KEYS[1])
+            end
+            return nil
+            """, Long.class);
+
+    /**
+     * 递增版本并删除计数键
+     * KEYS: [count, gen]  ARGV: [ttlSeconds]
+     */
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            return redis.call('DEL', KEYS[1])
+            """, Long.class);
+
+    /**
+     * 版本与汇总前一致时写回计数（SET NX），返回 1；否则返回 0
+     * KEYS: [count, gen]  ARGV: [汇总前的版本（无版本时为空串）, total, ttlSeconds]
+     */
+    private static final DefaultRedisScript<Long> REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            local gen = redis.call('GET', KEYS[2]) or ''
+            if gen ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3], 'NX')
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ConversationMapper conversationMapper;
+    private final Duration ttl;
+
+    public UnreadCounter(StringRedisTemplate stringRedisTemplate,
+                         ConversationMapper conversationMapper,
+                         @Value("${message.unread.ttl-minutes:30}") long ttlMinutes) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.conversationMapper = conversationMapper;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * 查询用户的未读消息总数
+     *
+     * @param userId 用户ID
+     * @param userRole 用户角色
+     * @return long 未读消息总数
+     */
+    public long get(Long userId, String userRole) {
+        List<String> keys = keys(userId, userRole);
+        String gen;
+        try {
+            List<String> cached = stringRedisTemplate.opsForValue().multiGet(keys);
+            if (cached != null && cached.get(0) != null) {
+                return Long.parseLong(cached.get(0));
+            }
+            gen = cached == null || cached.get(1) == null ? "" : cached.get(1);
+        } catch (Exception e) {
+            log.warn("读取未读计数失败，回退到数据库：{}", e.getMessage());
+            return conversationMapper.sumUnread(userId, userRole);
+        }
+        long total = conversationMapper.sumUnread(userId, userRole);
+        try {
+            stringRedisTemplate.execute(REBUILD_SCRIPT, keys, gen, Long.toString(total), ttlSeconds());
+        } catch (Exception e) {
+            log.warn("写回未读计数失败：{}", e.getMessage());
+        }
+        return total;
+    }
+
+    /**
+     * 事务提交后为接收方的未读计数加一
+     *
+     * @param userId 接收方ID
+     * @param userRole 接收方角色
+     */
+    public void incrementAfterCommit(Long userId, String userRole) {
+        List<String> keys = keys(userId, userRole);
+        afterCommit(() -> stringRedisTemplate.execute(INCR_IF_PRESENT_SCRIPT, keys, ttlSeconds()));
+    }
+
+    /**
+     * 事务提交后使用户的未读计数失效
+     *
+     * @param userId 用户ID
+     * @param userRole 用户角色
+     */
+    public void evictAfterCommit(Long userId, String userRole) {
+        List<String> keys = keys(userId, userRole);
+        afterCommit(() -> stringRedisTemplate.execute(EVICT_SCRIPT, keys, ttlSeconds()));
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    private void afterCommit(Runnable action) {
+        Runnable safe = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("更新未读计数失败：{}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safe.run();
+                }
+            });
+        } else {
+            safe.run();
+        }
+    }
+
+    /**
+     * [计数键, 版本键]
+     */
+    private static List<String> keys(Long userId, String userRole) {
+        String suffix = userRole + ":" + userId;
+        return List.of(KEY_PREFIX + suffix, GEN_KEY_PREFIX + suffix);
+    }
+
+    private String ttlSeconds() {
+        return Long.toString(ttl.toSeconds());
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * 会话摘要实体类
+ * 对应数据库中的conversation表
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.common.pojo;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 会话摘要实体类
+ * 每对聊天双方各有一行（以自己为 owner、对方为 peer），发送消息和标记已读时增量维护
+ */
+@Data
+@TableName("conversation")
+public class Conversation {
+
+    /**
+     * 会话所属用户ID
+     */
+    @TableField("owner_id")
+    private Long ownerId;
+
+    /**
+     * 会话所属用户角色
+     */
+    @TableField("owner_role")
+    private String ownerRole;
+
+    /**
+     * 对方用户ID
+     */
+    @TableField("peer_id")
+    private Long peerId;
+
+    /**
+     * 对方用户角色
+     */
+    @TableField("peer_role")
+    private String peerRole;
+
+    /**
+     * 最后一条消息ID
+     */
+    @TableField("last_message_id")
+    private Long lastMessageId;
+
+    /**
+     * 最后一条消息内容
+     */
+    @TableField("last_message")
+    private String lastMessage;
+
+    /**
+     * 最后一条消息时间
+     */
+    @TableField("last_time")
+    private LocalDateTime lastTime;
+
+    /**
+     * owner 在该会话中的未读消息数
+     */
+    @TableField("unread_count")
+    private Integer unreadCount;
+}
@@ -56,6 +56,12 @@ public class Message {
     @TableField("receiver_role")
     private String receiverRole;
 
+    /**
+     * 会话键（双方有序的 "角色:ID|角色:ID"）
+     */
+    @TableField("conversation_key")
+    private String conversationKey;
+
     /**
      * 消息类型（text/image/file等）
      */
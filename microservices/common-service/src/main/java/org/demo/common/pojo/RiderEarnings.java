@@ -0,0 +1,91 @@
+/**
+ * 骑手收入台账实体类
+ * 对应数据库中的rider_earnings表
+ *
+ * @author System
+ * @version 1.0
+ * @since 2024-01-01
+ */
+package org.demo.common.pojo;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 骑手收入台账实体类
+ * 每个骑手一行累计，以及每月、每日各一行，订单完成时增量累加
+ */
+@Data
+@TableName("rider_earnings")
+public class RiderEarnings {
+
+    /**
+     * 累计行的周期标识
+     */
+    public static final String PERIOD_ALL = "ALL";
+
+    /**
+     * 划分日、月周期的时区：写入台账与读取台账都按此时区取日期，不依赖 JVM 与数据库会话时区
+     */
+    public static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    /**
+     * 骑手ID
+     */
+    @TableField("rider_id")
+    private Long riderId;
+
+    /**
+     * 周期：'ALL'（累计）、'yyyy-MM'（按月）或 'yyyy-MM-dd'（按日）
+     */
+    @TableField("period")
+    private String period;
+
+    /**
+     * 该周期内完成的订单数
+     */
+    @TableField("completed_orders")
+    private Integer completedOrders;
+
+    /**
+     * 该周期内的配送费收入
+     */
+    @TableField("earnings")
+    private BigDecimal earnings;
+
+    /**
+     * 最后更新时间
+     */
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * 台账时区下的今天
+     */
+    public static LocalDate today() {
+        return LocalDate.now(ZONE);
+    }
+
+    /**
+     * 日期所在月份的周期标识 'yyyy-MM'
+     */
+    public static String monthOf(LocalDate date) {
+        return date.format(MONTH);
+    }
+
+    /**
+     * 日期的周期标识 'yyyy-MM-dd'
+     */
+    public static String dayOf(LocalDate date) {
+        return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+}
@@ -27,13 +27,14 @@ public interface MessageService {
      * @param senderRole 发送方角色
      * @param receiverId 接收方ID
      * @param receiverRole 接收方角色
+     * @param beforeId 游标：只返回ID小于该值的消息，为空时按页码分页
      * @param page 页码
      * @param pageSize 每页大小
-     * @return List<ChatMessageResponse> 聊天记录列表
+     * @return List<ChatMessageResponse> 聊天记录列表，按消息ID倒序
      */
     List<ChatMessageResponse> getChatHistory(Long senderId, String senderRole,
                                              Long receiverId, String receiverRole,
-                                             int page, int pageSize);
+                                             Long beforeId, int page, int pageSize);
 
     /**
      * 发送消息
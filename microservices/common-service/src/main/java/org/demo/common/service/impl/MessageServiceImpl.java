@@ -9,11 +9,15 @@
 package org.demo.common.service.impl;
 
 import org.demo.common.dto.response.message.ChatMessageResponse;
+import org.demo.common.mapper.ConversationMapper;
 import org.demo.common.mapper.MessageMapper;
+import org.demo.common.message.ConversationKey;
+import org.demo.common.message.UnreadCounter;
 import org.demo.common.pojo.Message;
 import org.demo.common.service.MessageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -33,6 +37,18 @@ public class MessageServiceImpl implements MessageService {
     @Autowired
     private MessageMapper messageMapper;
 
+    /**
+     * 会话摘要数据访问接口
+     */
+    @Autowired
+    private ConversationMapper conversationMapper;
+
+    /**
+     * 未读消息计数
+     */
+    @Autowired
+    private UnreadCounter unreadCounter;
+
     /**
      * 获取聊天记录
      * 
@@ -40,6 +56,7 @@ public class MessageServiceImpl implements MessageService {
      * @param senderRole 发送方角色
      * @param receiverId 接收方ID
      * @param receiverRole 接收方角色
+     * @param beforeId 游标：只返回ID小于该值的消息，为空时按页码分页
      * @param page 页码
      * @param pageSize 每页大小
      * @return List<ChatMessageResponse> 聊天记录列表
@@ -47,10 +64,11 @@ public class MessageServiceImpl implements MessageService {
     @Override
     public List<ChatMessageResponse> getChatHistory(Long senderId, String senderRole,
                                                     Long receiverId, String receiverRole,
-                                                    int page, int pageSize) {
+                                                    Long beforeId, int page, int pageSize) {
         try {
-            int offset = (page - 1) * pageSize;
-            List<Message> messages = messageMapper.getChatHistory(senderId, senderRole, receiverId, receiverRole, offset, pageSize);
+            String conversationKey = ConversationKey.of(senderRole, senderId, receiverRole, receiverId);
+            int offset = beforeId != null ? 0 : (page - 1) * pageSize;
+            List<Message> messages = messageMapper.getChatHistory(conversationKey, beforeId, offset, pageSize);
             
             List<ChatMessageResponse> responses = new ArrayList<>();
             for (Message message : messages) {
@@ -84,6 +102,7 @@ public class MessageServiceImpl implements MessageService {
      * @return ChatMessageResponse 发送的消息信息
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public ChatMessageResponse sendMessage(Long senderId, String senderRole, 
                                           Long receiverId, String receiverRole, 
                                           String content) {
@@ -99,6 +118,7 @@ public class MessageServiceImpl implements MessageService {
             message.setSenderRole(senderRole);
             message.setReceiverId(receiverId);
             message.setReceiverRole(receiverRole);
+            message.setConversationKey(ConversationKey.of(senderRole, senderId, receiverRole, receiverId));
             message.setContent(content);
             message.setMessageType("text");
             message.setIsRead(0);
@@ -130,14 +150,21 @@ public class MessageServiceImpl implements MessageService {
 
     /**
      * 保存消息到数据库
+     * 同一事务内更新双方的会话摘要，提交后为接收方的未读计数加一
      * 
      * @param message 消息对象
      * @return boolean 保存是否成功
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean saveMessage(Message message) {
         try {
-            return messageMapper.insert(message) > 0;
+            if (messageMapper.insert(message) == 0) {
+                return false;
+            }
+            conversationMapper.touch(message);
+            unreadCounter.incrementAfterCommit(message.getReceiverId(), message.getReceiverRole());
+            return true;
         } catch (Exception e) {
             throw new RuntimeException("保存消息失败: " + e.getMessage(), e);
         }
@@ -156,7 +183,7 @@ public class MessageServiceImpl implements MessageService {
     public List<Map<String, Object>> getConversations(Long userId, String userRole, int page, int pageSize) {
         try {
             int offset = (page - 1) * pageSize;
-            return messageMapper.getConversations(userId, userRole, offset, pageSize);
+            return conversationMapper.selectPage(userId, userRole, offset, pageSize);
         } catch (Exception e) {
             throw new RuntimeException("获取会话列表失败: " + e.getMessage(), e);
         }
@@ -171,9 +198,14 @@ public class MessageServiceImpl implements MessageService {
      * @return boolean 标记是否成功
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean markAsRead(Long conversationId, Long userId, String userRole) {
         try {
-            return messageMapper.markAsRead(conversationId, userId, userRole) > 0;
+            int updated = messageMapper.markAsRead(conversationId, userId, userRole);
+            if (conversationMapper.clearUnread(userId, userRole, conversationId) > 0) {
+                unreadCounter.evictAfterCommit(userId, userRole);
+            }
+            return updated > 0;
         } catch (Exception e) {
             throw new RuntimeException("标记消息失败: " + e.getMessage(), e);
         }
@@ -189,7 +221,7 @@ public class MessageServiceImpl implements MessageService {
     @Override
     public Integer getUnreadMessageCount(Long userId, String userRole) {
         try {
-            return messageMapper.getUnreadMessageCount(userId, userRole);
+            return (int) unreadCounter.get(userId, userRole);
         } catch (Exception e) {
             return 0;
         }
@@ -9,20 +9,25 @@
 package org.demo.common.service.impl;
 
 import org.demo.common.client.GatewayApiClient;
+import org.demo.common.common.SnowflakeIdGenerator;
 import org.demo.common.common.UserHolder;
 import org.demo.common.dto.request.OrderCreateRequest;
 import org.demo.common.dto.response.OrderResponse;
 import org.demo.common.mapper.OrderMapper;
+import org.demo.common.mapper.RiderEarningsMapper;
 import org.demo.common.pojo.Coupon;
 import org.demo.common.pojo.Order;
 import org.demo.common.pojo.OrderItem;
+import org.demo.common.pojo.RiderEarnings;
 import org.demo.common.service.CouponService;
 import org.demo.common.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -37,6 +42,18 @@ public class OrderServiceImpl implements OrderService {
 
     @Autowired
     private OrderMapper orderMapper;
+
+    @Autowired
+    private RiderEarningsMapper riderEarningsMapper;
+
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    /**
+     * 订单主键由雪花算法预先分配；关闭时沿用数据库自增
+     */
+    @Value("${order.id.snowflake:false}")
+    private boolean snowflakeOrderId;
     
     @Autowired
     private GatewayApiClient gatewayApiClient;
@@ -145,6 +162,9 @@ public class OrderServiceImpl implements OrderService {
         order.setDeadline(request.getDeadline() != null ? request.getDeadline() : LocalDateTime.now().plusHours(2));
 
         // 插入订单
+        if (snowflakeOrderId) {
+            order.setId(snowflakeIdGenerator.nextId());
+        }
         orderMapper.insert(order);
 
         // 插入订单项
@@ -225,7 +245,18 @@ public class OrderServiceImpl implements OrderService {
      * @return boolean 更新是否成功
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean riderUpdateOrderStatus(Long orderId, Long riderId, Integer targetStatus) {
+        if (targetStatus != null && targetStatus == 3) {
+            // 完成订单与收入台账累加在同一事务内
+            if (orderMapper.completeOrder(orderId, riderId) == 0) {
+                return false;
+            }
+            // 周期按台账时区的完成日期划分，与读取时一致
+            LocalDate today = RiderEarnings.today();
+            riderEarningsMapper.accrue(orderId, RiderEarnings.monthOf(today), RiderEarnings.dayOf(today));
+            return true;
+        }
         return orderMapper.updateOrderStatus(orderId, riderId, targetStatus) > 0;
     }
 
@@ -269,15 +300,31 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public Map<String, Object> getRiderEarnings(Long riderId) {
+        // 按主键读取累计、当月、当日三行台账，跨月时自然读到新月份的行
+        LocalDate today = RiderEarnings.today();
+        String month = RiderEarnings.monthOf(today);
+        String day = RiderEarnings.dayOf(today);
+        Map<String, RiderEarnings> rows = new HashMap<>();
+        for (RiderEarnings row : riderEarningsMapper.selectByPeriods(riderId, List.of(RiderEarnings.PERIOD_ALL, month, day))) {
+            rows.put(row.getPeriod(), row);
+        }
+
+        RiderEarnings total = rows.get(RiderEarnings.PERIOD_ALL);
         Map<String, Object> result = new HashMap<>();
-        // 这里应该查询数据库获取真实的收入统计
-        // 为简化实现，返回模拟数据
-        result.put("completed_orders", 10);
-        result.put("total_earnings", new BigDecimal("150.00"));
-        result.put("current_month", new BigDecimal("50.00"));
+        result.put("completed_orders", total == null ? 0 : total.getCompletedOrders());
+        result.put("total_earnings", earningsOf(total));
+        result.put("current_month", earningsOf(rows.get(month)));
+        result.put("today", earningsOf(rows.get(day)));
         return result;
     }
 
+    /**
+     * 台账行的收入，无记录时为0
+     */
+    private static BigDecimal earningsOf(RiderEarnings row) {
+        return row == null || row.getEarnings() == null ? BigDecimal.ZERO : row.getEarnings();
+    }
+
     /**
      * 商家更新订单状态
      * 
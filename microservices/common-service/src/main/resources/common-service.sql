@@ -39,6 +39,17 @@ BEGIN
 END$$
 DELIMITER ;
 
+-- 骑手收入台账 rider_earnings
+-- period 为 'ALL'（累计）、'yyyy-MM'（按月）或 'yyyy-MM-dd'（按日），按订单完成时间归属
+CREATE TABLE IF NOT EXISTS rider_earnings (
+    rider_id BIGINT NOT NULL,
+    period VARCHAR(10) NOT NULL,
+    completed_orders INT NOT NULL DEFAULT 0,
+    earnings DECIMAL(12,2) NOT NULL DEFAULT 0,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (rider_id, period)
+);
+
 -- 九、订单明细表 order_item
 CREATE TABLE IF NOT EXISTS order_item (
     order_id BIGINT NOT NULL,
@@ -85,9 +96,45 @@ CREATE TABLE IF NOT EXISTS message(
     sender_role VARCHAR(10) NOT NULL,
     receiver_role VARCHAR(10) NOT NULL,
     is_read BOOLEAN DEFAULT FALSE,
-    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+    conversation_key VARCHAR(64) NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX (sender_id),
+    INDEX (receiver_id),
+    INDEX idx_conversation (conversation_key, id)
 ) AUTO_INCREMENT=120000001;
 
+-- 存量库迁移：CREATE TABLE IF NOT EXISTS 不会修改已有的表，缺少会话键列和索引时补上（MySQL 不支持 ADD COLUMN IF NOT EXISTS）
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'message' AND COLUMN_NAME = 'conversation_key') = 0,
+               'ALTER TABLE message ADD COLUMN conversation_key VARCHAR(64) NULL AFTER is_read', 'DO 0');
+PREPARE stmt FROM @ddl; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'message' AND INDEX_NAME = 'idx_conversation') = 0,
+               'ALTER TABLE message ADD INDEX idx_conversation (conversation_key, id)', 'DO 0');
+PREPARE stmt FROM @ddl; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 存量消息补齐会话键：双方 (角色, ID) 排序后拼接，与 ConversationKey 一致
+UPDATE message
+SET conversation_key = IF((sender_role, sender_id) <= (receiver_role, receiver_id),
+                          CONCAT(sender_role, ':', sender_id, '|', receiver_role, ':', receiver_id),
+                          CONCAT(receiver_role, ':', receiver_id, '|', sender_role, ':', sender_id))
+WHERE conversation_key IS NULL;
+
+-- 会话摘要 conversation
+-- 每对聊天双方各一行（owner 为自己，peer 为对方），发送消息与标记已读时增量维护
+CREATE TABLE IF NOT EXISTS conversation (
+    owner_id BIGINT NOT NULL,
+    owner_role VARCHAR(10) NOT NULL,
+    peer_id BIGINT NOT NULL,
+    peer_role VARCHAR(10) NOT NULL,
+    last_message_id BIGINT NOT NULL,
+    last_message VARCHAR(300) NOT NULL,
+    last_time DATETIME NOT NULL,
+    unread_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (owner_id, owner_role, peer_id, peer_role),
+    INDEX idx_owner_time (owner_id, owner_role, last_time)
+);
+
 -- 插入订单测试数据
 INSERT INTO `order` (user_id, store_id, rider_id, status, user_location, store_location, total_price, actual_price, delivery_price, remark, ended_at) VALUES
 (10000001, 50000001, 30000001, 2, '北京海淀区小区A栋',   '北京海淀区',  66.00,  63.00, 3.00, '尽快送达', NULL),
@@ -188,4 +235,21 @@ INSERT INTO coupon (user_id, store_id, type, discount, expiration_date, is_used,
 (10000007, 50000007, 1, 0.92, '2025-12-31 23:59:59', FALSE, NULL, NULL),
 (10000008, 50000008, 2, NULL, '2025-12-31 23:59:59', FALSE, 80.00, 18.00),
 (10000009, 50000009, 1, 0.87, '2025-12-31 23:59:59', FALSE, NULL, NULL),
-(10000010, 50000010, 2, NULL, '2025-12-31 23:59:59', FALSE, 70.00, 12.00);
\ No newline at end of file
+(10000010, 50000010, 2, NULL, '2025-12-31 23:59:59', FALSE, 70.00, 12.00);
+
+-- 骑手收入台账初始化：汇总已完成订单，与 RiderEarningsBackfill 的逻辑一致
+INSERT INTO rider_earnings (rider_id, period, completed_orders, earnings)
+SELECT rider_id, period, COUNT(*), IFNULL(SUM(delivery_price), 0)
+FROM (
+    SELECT o.rider_id,
+           CASE k.kind
+               WHEN 0 THEN 'ALL'
+               WHEN 1 THEN DATE_FORMAT(CONVERT_TZ(COALESCE(o.ended_at, o.created_at), @@session.time_zone, '+08:00'), '%Y-%m')
+               ELSE DATE_FORMAT(CONVERT_TZ(COALESCE(o.ended_at, o.created_at), @@session.time_zone, '+08:00'), '%Y-%m-%d')
+           END AS period,
+           o.delivery_price
+    FROM `order` o
+    CROSS JOIN (SELECT 0 AS kind UNION ALL SELECT 1 UNION ALL SELECT 2) k
+    WHERE o.status = 3 AND o.rider_id IS NOT NULL
+) t
+GROUP BY rider_id, period;
@@ -9,8 +9,11 @@
 package org.demo.gateway.forward.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.demo.gateway.forward.common.InternalIdentity;
+import org.demo.gateway.forward.common.JwtUtils;
 import org.demo.gateway.forward.config.RouteConfiguration;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StreamUtils;
@@ -44,6 +47,18 @@ public class ForwardService {
     @Autowired
     private RouteConfiguration routeConfiguration;
 
+    /**
+     * Redis模板，边缘认证时确认令牌未登出
+     */
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 内部身份头签发
+     */
+    @Autowired
+    private InternalIdentity internalIdentity;
+
     /**
      * 需要过滤的请求头
      */
@@ -214,8 +229,9 @@ public class ForwardService {
         while (headerNames.hasMoreElements()) {
             String headerName = headerNames.nextElement();
             
-            // 过滤不需要转发的请求头
-            if (FILTERED_HEADERS.contains(headerName.toLowerCase())) {
+            // 过滤不需要转发的请求头；内部身份头只能由本服务签发，丢弃客户端自带的
+            if (FILTERED_HEADERS.contains(headerName.toLowerCase())
+                    || InternalIdentity.HEADER.equalsIgnoreCase(headerName)) {
                 continue;
             }
             
@@ -225,9 +241,48 @@ public class ForwardService {
             }
         }
         
+        // 边缘认证：在此完成一次JWT校验，下游服务只需校验内部身份头的签名
+        if (internalIdentity.isEnabled()) {
+            String identity = authenticate(request.getHeader(HttpHeaders.AUTHORIZATION));
+            if (identity != null) {
+                headers.set(InternalIdentity.HEADER, identity);
+            }
+        }
+        
         return headers;
     }
 
+    /**
+     * 校验JWT令牌（签名有效且Redis中未登出），通过后签发内部身份头
+     * 
+     * @param authHeader Authorization请求头
+     * @return String 内部身份头的值，校验不通过返回null（由下游服务按原方式校验并拒绝）
+     */
+    private String authenticate(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        String token = authHeader.substring(7);
+        Map<String, Object> payload = JwtUtils.parsePayload(token);
+        if (payload == null) {
+            return null;
+        }
+        Number idNumber = (Number) payload.get("user_id");
+        String role = (String) payload.get("role");
+        if (idNumber == null || role == null) {
+            return null;
+        }
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(role + ":token:" + token))) {
+                return null;
+            }
+        } catch (Exception e) {
+            log.warn("边缘认证查询Redis失败，交由下游服务校验: {}", e.getMessage());
+            return null;
+        }
+        return internalIdentity.sign(idNumber.longValue(), role, (String) payload.get("username"));
+    }
+
     /**
      * 读取请求体
      * 
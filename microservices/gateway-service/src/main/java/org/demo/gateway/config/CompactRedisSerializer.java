@@ -0,0 +1,171 @@
+/**
+ * Redis值紧凑序列化器
+ * 以紧凑的二进制格式读写RedisTemplate中的值，兼容读取JDK序列化格式
+ *
+ * @author Baoleme Team
+ * @version 1.0
+ * @since 2025-01-25
+ */
+package org.demo.gateway.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RedisTemplate 值的紧凑序列化器（标量版）
+ * <p>
+ * 编码格式与 back 服务的 CompactRedisSerializer 一致：首字节固定为 {@code 0xC5}，第二字节为类型标签，其后为数据。
+ * 字符串写 UTF-8，Long / Integer 写 ZigZag 变长整数，Boolean 占 1 字节，Double 占 8 字节。
+ * 本服务只存 Long / String，不支持注册 Bean 类型；其他类型按 JDK 格式写入。
+ * JDK 序列化的数据以 {@code 0xAC 0xED} 开头，读取时按首字节区分两种格式。
+ * <p>
+ * 切换分三步，所有共用同一 Redis 的服务逐步推进：
+ * <ul>
+ *   <li>{@link Mode#JDK}：仍写 JDK 格式，两种格式都能读；</li>
+ *   <li>{@link Mode#MIGRATE}：标量写紧凑格式，两种格式都能读；其他类型继续写 JDK 格式并告警；</li>
+ *   <li>{@link Mode#COMPACT}：只读写紧凑格式，遇到 JDK 格式或非标量类型直接报错。</li>
+ * </ul>
+ * 只有全部服务都已进入 MIGRATE 且旧数据全部过期（登录 token 最长 1 天）后才能切到 COMPACT。
+ */
+@Slf4j
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    public enum Mode { JDK, MIGRATE, COMPACT }
+
+    private static final byte MAGIC = (byte) 0xC5;
+
+    private static final int STRING = 1;
+    private static final int LONG = 2;
+    private static final int INTEGER = 3;
+    private static final int BOOLEAN = 4;
+    private static final int DOUBLE = 5;
+
+    private final Mode mode;
+    private final JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer();
+
+    /** 已告警过的非标量类型，每个类型只告警一次 */
+    private final Set<Class<?>> unsupported = ConcurrentHashMap.newKeySet();
+
+    public CompactRedisSerializer(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (mode == Mode.JDK) {
+            return jdk.serialize(value);
+        }
+        if (value instanceof String s) {
+            byte[] payload = s.getBytes(StandardCharsets.UTF_8);
+            byte[] bytes = new byte[payload.length + 2];
+            bytes[0] = MAGIC;
+            bytes[1] = STRING;
+            System.arraycopy(payload, 0, bytes, 2, payload.length);
+            return bytes;
+        }
+        if (value instanceof Long l) {
+            return varint(LONG, l);
+        }
+        if (value instanceof Integer i) {
+            return varint(INTEGER, i);
+        }
+        if (value instanceof Boolean b) {
+            return new byte[]{MAGIC, BOOLEAN, (byte) (b ? 1 : 0)};
+        }
+        if (value instanceof Double d) {
+            long bits = Double.doubleToRawLongBits(d);
+            byte[] bytes = new byte[10];
+            bytes[0] = MAGIC;
+            bytes[1] = DOUBLE;
+            for (int i = 0; i < 8; i++) {
+                bytes[2 + i] = (byte) (bits >>> (56 - 8 * i));
+            }
+            return bytes;
+        }
+        if (mode == Mode.COMPACT) {
+            throw new SerializationException("紧凑编码不支持的类型：" + value.getClass().getName());
+        }
+        if (unsupported.add(value.getClass())) {
+            log.warn("类型 {} 不支持紧凑编码，仍按 JDK 格式写入", value.getClass().getName());
+        }
+        return jdk.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            if (mode == Mode.COMPACT) {
+                throw new SerializationException("非紧凑格式的数据，首字节 0x"
+                        + Integer.toHexString(bytes[0] & 0xFF));
+            }
+            return jdk.deserialize(bytes);
+        }
+        if (bytes.length < 2) {
+            throw new SerializationException("紧凑格式数据不完整");
+        }
+        int tag = bytes[1] & 0xFF;
+        switch (tag) {
+            case STRING:
+                return new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_8);
+            case LONG:
+                return readVarint(bytes);
+            case INTEGER:
+                return (int) readVarint(bytes);
+            case BOOLEAN:
+                return bytes[2] != 0;
+            case DOUBLE:
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits = (bits << 8) | (bytes[2 + i] & 0xFF);
+                }
+                return Double.longBitsToDouble(bits);
+            default:
+                // Bean 类型只由 back 服务读写
+                throw new SerializationException("本服务不支持的紧凑编码类型标签：" + tag);
+        }
+    }
+
+    // ------------ 私有工具方法 ------------ //
+
+    private static byte[] varint(int tag, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        byte[] bytes = new byte[12];
+        bytes[0] = MAGIC;
+        bytes[1] = (byte) tag;
+        int pos = 2;
+        while ((zigzag & ~0x7FL) != 0) {
+            bytes[pos++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        bytes[pos++] = (byte) zigzag;
+        return Arrays.copyOf(bytes, pos);
+    }
+
+    private static long readVarint(byte[] bytes) {
+        long zigzag = 0;
+        for (int pos = 2, shift = 0; pos < bytes.length; pos++, shift += 7) {
+            zigzag |= (long) (bytes[pos] & 0x7F) << shift;
+            if ((bytes[pos] & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new SerializationException("紧凑格式的整数不完整");
+    }
+}
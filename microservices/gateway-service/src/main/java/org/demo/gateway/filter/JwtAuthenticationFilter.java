@@ -22,6 +22,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.demo.gateway.common.InternalIdentity;
 import org.demo.gateway.common.JwtUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -59,6 +60,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    /**
+     * 内部身份头校验，边缘认证模式下代替JWT解析和Redis查询
+     */
+    @Autowired
+    private InternalIdentity internalIdentity;
+
     /**
      * 不需要JWT验证的路径白名单
      * 注意：/api/database/* 路径需要JWT验证，因为这些是受保护的数据库操作接口
@@ -96,6 +103,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         
+        // 边缘认证：网关转发服务已完成JWT校验，只需校验内部身份头的签名
+        InternalIdentity.Identity identity = internalIdentity.verify(request.getHeader(InternalIdentity.HEADER));
+        if (identity != null) {
+            request.setAttribute("userId", identity.userId());
+            request.setAttribute("role", identity.role());
+            request.setAttribute("username", String.valueOf(identity.username()));
+            
+            UsernamePasswordAuthenticationToken authentication = 
+                new UsernamePasswordAuthenticationToken(identity.userId(), null, java.util.Collections.emptyList());
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            
+            log.debug("内部身份头校验通过: {} {} - 用户ID={}, 角色={}", method, requestPath, identity.userId(), identity.role());
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
         // 提取JWT token
         String token = extractToken(request);
         if (token == null) {
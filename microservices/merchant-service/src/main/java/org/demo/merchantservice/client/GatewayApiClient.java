@@ -12,11 +12,16 @@ package org.demo.merchantservice.client;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.demo.merchantservice.common.InternalIdentity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.Duration;
@@ -48,7 +53,23 @@ public class GatewayApiClient {
     @Autowired
     public GatewayApiClient(WebClient.Builder webClientBuilder, ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
-        this.webClient = webClientBuilder.build();
+        this.webClient = webClientBuilder.filter(propagateIdentity()).build();
+    }
+
+    /**
+     * 透传当前请求的内部身份头，网关服务据此免去JWT解析和Redis查询
+     */
+    private static ExchangeFilterFunction propagateIdentity() {
+        return (request, next) -> {
+            String identity = null;
+            if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+                identity = attributes.getRequest().getHeader(InternalIdentity.HEADER);
+            }
+            if (identity == null) {
+                return next.exchange(request);
+            }
+            return next.exchange(ClientRequest.from(request).header(InternalIdentity.HEADER, identity).build());
+        };
     }
 
     /**